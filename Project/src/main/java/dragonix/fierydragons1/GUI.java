@@ -1,28 +1,37 @@
 package dragonix.fierydragons1;
 
+import dragonix.fierydragons1.simulation.LayoutTable;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Files;
+
 /**
  * The GUI class is responsible for launching the graphical user interface (GUI) of the application.
  * It extends the JavaFX Application class and overrides the start method to initialize the primary stage
  * and load the main menu FXML file.
  */
 public class GUI extends Application {
+    private final GameSettings settings = new GameSettings();
 
     /**
      * The start method initializes the primary stage of the application and loads the main menu FXML file.
      * It sets the title of the primary stage to "Main Menu" and displays the scene.
+     * If a table of volcano layouts has been generated, it is mapped into memory so new games can avoid unfair layouts.
      *
      * @param primaryStage The primary stage of the application.
      */
     @Override
     public void start(Stage primaryStage) {
+        loadLayoutTable();
         try{
             FXMLLoader fxmlLoader = new FXMLLoader(MainApp.class.getResource("main-menu.fxml"));
             Scene scene = new Scene(fxmlLoader.load());
+            MainMenuController menuController = fxmlLoader.getController();
+            menuController.setSettings(settings);
             primaryStage.setTitle("Main Menu");
             primaryStage.setScene(scene);
             primaryStage.show();
@@ -31,4 +40,19 @@ public class GUI extends Application {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Maps the table of volcano layouts written by the layout analyser into the settings of new games,
+     * if there is one.
+     */
+    private void loadLayoutTable() {
+        if (!Files.exists(LayoutTable.DEFAULT_PATH)) {
+            return;
+        }
+        try {
+            settings.setLayoutTable(LayoutTable.open(LayoutTable.DEFAULT_PATH));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 }
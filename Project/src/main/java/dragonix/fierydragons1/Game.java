@@ -2,8 +2,17 @@ package dragonix.fierydragons1;
 
 import dragonix.fierydragons1.cards.Cave;
 import dragonix.fierydragons1.cards.CreatureName;
-import dragonix.fierydragons1.cards.DragonCards;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.GameRandom;
+import dragonix.fierydragons1.engine.MoveJournal;
+import dragonix.fierydragons1.engine.MoveOutcome;
+import dragonix.fierydragons1.engine.VolcanoRing;
 import dragonix.fierydragons1.handlers.*;
+import dragonix.fierydragons1.save.SaveState;
+import dragonix.fierydragons1.simulation.FairLayoutPicker;
+import dragonix.fierydragons1.simulation.LayoutTable;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.fxml.FXMLLoader;
@@ -18,32 +27,50 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 /**
- * The Game class represents the core logic of the Fiery Dragons game.
- * It manages player turns, movement, game state, timers, and interactions with the game board.
+ * The Game class is the JavaFX view over the Fiery Dragons {@link GameEngine}.
+ * It forwards player actions to the engine and keeps the players, caves, tokens and timers on the game board in sync with it.
  */
 public class Game {
+    /**
+     * The number of seconds between autosaves while no turn ends.
+     */
+    public static final int AUTOSAVE_INTERVAL_SECONDS = 60;
+
+    private final GameSettings settings;
     private HashMap<Integer, ImageView> imageViewMap = new HashMap<>();
     private final AnchorPane gameBoardPane;
     private Deque<Player> playersQueue;
     private Player currentPlayer;
     private Timeline timeline;
+    private Timeline autosaveTimeline;
     private int timeRemaining;
+    private GameEngine engine;
+    private GameEngine startingEngine;
+    private long gameId = GameRandom.newSeed();
+    private long seed = GameRandom.newSeed();
+    private int turnNumber = 1;
+    private MoveJournal moveJournal;
+    private final List<Player> seatPlayers = new ArrayList<>();
+    private List<Rectangle> volcanoRectangles;
 
     /**
      * Retrieves the occupied positions on the game board.
+     * The set is built from the engine's occupancy bitset and is not updated by later moves.
      *
      * @return The set of occupied positions.
      */
     public Set<Integer> getOccupiedPositions() {
+        Set<Integer> occupiedPositions = new TreeSet<>();
+        for (int position = engine.nextOccupiedPosition(0); position >= 0; position = engine.nextOccupiedPosition(position + 1)) {
+            occupiedPositions.add(position);
+        }
         return occupiedPositions;
     }
 
-    private final Set<Integer> occupiedPositions = new HashSet<>();
-    private List<Rectangle> volcanoRectangles;
-
     /**
      * Retrieves the list dragon tokens.
      *
@@ -68,8 +95,8 @@ public class Game {
     private MovementHandler movementHandler;
     private SavingHandler savingHandler;
     private LoadingHandler loadingHandler;
-    private HashMap<Button, DragonCards> buttonDragonCardsHashMap = new HashMap<>();
-    private HashMap<Integer, CreatureName> volcanoCardsHashMap = new HashMap<>();
+    private DragonCardRegistry dragonCardRegistry;
+    private VolcanoRing volcanoRing;
     private PlayerChangeListener playerChangeListener;
     private TimerChangeListener timerChangeListener;
     private List<Cave> caveList;
@@ -77,16 +104,20 @@ public class Game {
      * Constructs a new Game object with the specified game board pane.
      *
      * @param gameBoardPane The AnchorPane representing the game board.
+     * @param settings      The configuration the game is dealt and saved with.
      */
-    public Game(AnchorPane gameBoardPane) {
+    public Game(AnchorPane gameBoardPane, GameSettings settings) {
         this.gameBoardPane = gameBoardPane;
+        this.settings = settings;
         this.dragonCardHandler = new DragonCardHandler(this);
         this.movementHandler = new MovementHandler(this);
-        this.savingHandler = new SavingHandler(buttonDragonCardsHashMap, volcanoCardsHashMap, "saves");
+        this.savingHandler = new SavingHandler("saves");
+        savingHandler.setCompressExports(settings.isCompressedExports());
         this.loadingHandler = new LoadingHandler("saves");
     }
     /**
      * Initializes a new game with the provided parameters.
+     * The dragon cards and volcano cards are dealt from the game's seed.
      *
      * @param playersQueue       The queue of players participating in the game.
      * @param volcanoRectangles  The list of rectangles representing volcanoes on the game board.
@@ -95,6 +126,45 @@ public class Game {
      * @param caveList           The list of caves on the game board.
      */
     public void initializeNewGame(Deque<Player> playersQueue, List<Rectangle> volcanoRectangles, List<ImageView> dragonTokens, List<Button> dragonButtons, List<Cave> caveList) {
+        setUpBoard(playersQueue, volcanoRectangles, dragonTokens, dragonButtons, caveList);
+        startAutosave();
+    }
+
+    /**
+     * Initializes a loaded game with the provided parameters.
+     * The game carries on under the ID, turn and seed of the save, with the saved cards in place of
+     * dealt ones. Autosaving does not start until {@link #startAutosave()} is called, so the caller can
+     * put the tokens back first and the journal starts with the loaded game.
+     *
+     * @param playersQueue       The queue of players participating in the game.
+     * @param volcanoRectangles  The list of rectangles representing volcanoes on the game board.
+     * @param dragonTokens       The list of image views representing dragon tokens.
+     * @param dragonButtons      The list of buttons representing dragon cards.
+     * @param caveList           The list of caves on the game board.
+     * @param saveState          The saved game.
+     * @param volcanoRing        The saved volcano cards.
+     * @param dragonCards        The saved dragon cards, indexed by slot.
+     */
+    public void initializeLoadedGame(Deque<Player> playersQueue, List<Rectangle> volcanoRectangles, List<ImageView> dragonTokens, List<Button> dragonButtons, List<Cave> caveList,
+                                     SaveState saveState, VolcanoRing volcanoRing, DragonCardRegistry dragonCards) {
+        gameId = saveState.getGameId();
+        turnNumber = saveState.getTurn();
+        seed = saveState.getSeed();
+        setUpBoard(playersQueue, volcanoRectangles, dragonTokens, dragonButtons, caveList);
+        setVolcanoRing(volcanoRing);
+        setDragonCardRegistry(dragonCards);
+    }
+
+    /**
+     * Deals the cards from the game's seed and sets up the players, the engine and the timer.
+     *
+     * @param playersQueue       The queue of players participating in the game.
+     * @param volcanoRectangles  The list of rectangles representing volcanoes on the game board.
+     * @param dragonTokens       The list of image views representing dragon tokens.
+     * @param dragonButtons      The list of buttons representing dragon cards.
+     * @param caveList           The list of caves on the game board.
+     */
+    private void setUpBoard(Deque<Player> playersQueue, List<Rectangle> volcanoRectangles, List<ImageView> dragonTokens, List<Button> dragonButtons, List<Cave> caveList) {
         this.playersQueue = playersQueue;
         this.volcanoRectangles = volcanoRectangles;
         this.dragonTokens = dragonTokens;
@@ -103,21 +173,26 @@ public class Game {
         this.dragonCardHandler = new DragonCardHandler(this);
         this.movementHandler = new MovementHandler(this);
 
-        dragonCardHandler.assignCreaturesToDragonButtons(dragonButtons);
-        buttonDragonCardsHashMap = dragonCardHandler.getButtonDragonCardsHashMap();
-        volcanoCardsHashMap = volcanoCardHandler.getVolcanoCardsHashMap();
+        GameRandom random = new GameRandom(seed);
+        dragonCardHandler.assignCreaturesToDragonButtons(dragonButtons, random.getDeckRandom());
+        dragonCardRegistry = dragonCardHandler.getDragonCardRegistry();
         assignTokensToCaves();
-        volcanoCardHandler.assignCreaturesToCards(volcanoRectangles);
+        if (settings.isFairDeals()) {
+            volcanoCardHandler.assignCreaturesToCards(volcanoRectangles, getLayoutPicker().pickLayout(random.getVolcanoRandom()));
+        } else {
+            volcanoCardHandler.assignCreaturesToCards(volcanoRectangles, random.getVolcanoRandom(), this::isLayoutFair);
+        }
+        volcanoRing = volcanoCardHandler.getVolcanoRing();
 
         setCurrentPlayer();
+        initializeEngine();
 
         for (ImageView token : dragonTokens) {
             int uniqueId = System.identityHashCode(token);
             imageViewMap.put(uniqueId, token);
         }
 
-        savingHandler.setButtonDragonCardsHashMap(buttonDragonCardsHashMap);
-        savingHandler.setVolcanoCardsHashMap(volcanoCardsHashMap);
+        savingHandler.setCardSlotIds(dragonCardHandler.getButtonIds());
         initializeGameTimer(); // Ensure timer is initialized
     }
 
@@ -131,6 +206,179 @@ public class Game {
             setTokenPosition(token, cave.getCaveArc().getLayoutX() - 30, cave.getCaveArc().getLayoutY() - 30);
         }
     }
+    /**
+     * Creates the rules engine from the players, caves and volcano cards of this game.
+     * Players are seated in queue order starting with the current player.
+     */
+    private void initializeEngine() {
+        engine = new GameEngine(volcanoRectangles.size());
+        engine.setVolcanoRing(volcanoRing);
+        engine.setDragonCardRegistry(dragonCardRegistry);
+        for (Cave cave : caveList) {
+            engine.addCave(cave.getAttachedPosition(), cave.getCaveCreature(), cave.getOccupied());
+        }
+
+        seatPlayers.clear();
+        seatPlayers.add(currentPlayer);
+        for (Player player : playersQueue) {
+            if (player != currentPlayer) {
+                seatPlayers.add(player);
+            }
+        }
+        for (Player player : seatPlayers) {
+            int seat = engine.addPlayer(player.getStartingPosition(), findCaveIndex(player.getStartingCave()));
+            engine.restorePlayer(seat, player.getCurrentPosition(), player.getStepsTaken(), player.isHasMoved(),
+                    player.isGotMoveBack(), findCaveIndex(player.getMoveBackCaveObject()));
+        }
+        startJournal();
+    }
+    /**
+     * Starts a new move journal from the current state of the engine.
+     */
+    private void startJournal() {
+        startingEngine = engine.copy();
+        moveJournal = new MoveJournal();
+        engine.setMoveJournal(moveJournal);
+    }
+    /**
+     * Retrieves the journal of the turn actions taken since the game was started or loaded.
+     *
+     * @return The move journal.
+     */
+    public MoveJournal getMoveJournal() {
+        return moveJournal;
+    }
+    /**
+     * Reconstructs the state of the game after the given number of journal actions.
+     * The returned engine is a copy and does not affect the game on the board.
+     *
+     * @param actions The number of journal actions to replay.
+     * @return The engine in the reconstructed state.
+     */
+    public GameEngine replayJournal(int actions) {
+        GameEngine replayed = startingEngine.copy();
+        moveJournal.replay(replayed, actions);
+        return replayed;
+    }
+    /**
+     * Finds the index of a cave in the cave list, matching by creature if the object itself is not in the list.
+     *
+     * @param cave The cave to look up.
+     * @return The index of the cave, or -1 if it is not on the board.
+     */
+    private int findCaveIndex(Cave cave) {
+        if (cave == null) {
+            return -1;
+        }
+        int index = caveList.indexOf(cave);
+        if (index < 0) {
+            for (int i = 0; i < caveList.size(); i++) {
+                if (caveList.get(i).getCaveCreature() == cave.getCaveCreature()) {
+                    return i;
+                }
+            }
+        }
+        return index;
+    }
+    /**
+     * Copies the player and cave state held by the engine back onto the player and cave objects.
+     */
+    private void syncFromEngine() {
+        for (int seat = 0; seat < seatPlayers.size(); seat++) {
+            Player player = seatPlayers.get(seat);
+            player.setCurrentPosition(engine.getPosition(seat));
+            player.setStepsTaken(engine.getStepsTaken(seat));
+            player.setHasMoved(engine.hasMoved(seat));
+            player.setGotMoveBack(engine.isGotMoveBack(seat));
+            int moveBackCave = engine.getMoveBackCave(seat);
+            if (moveBackCave >= 0) {
+                player.setMoveBackCaveObject(caveList.get(moveBackCave));
+                player.setMoveBackCave(engine.getCaveCreature(moveBackCave));
+            }
+        }
+        for (int i = 0; i < caveList.size(); i++) {
+            Cave cave = caveList.get(i);
+            cave.setOccupied(engine.isCaveOccupied(i));
+            int occupant = engine.getCaveOccupant(i);
+            if (occupant >= 0) {
+                cave.setOccupiedPlayer(seatPlayers.get(occupant));
+            }
+        }
+    }
+    /**
+     * Retrieves the layout picker for the board of this game, creating it if there is none yet or the
+     * previous one was made for a board of a different shape. The picker is kept in the settings
+     * between games, so the games it has played for a layout carry over to the next fair start.
+     *
+     * @return The layout picker.
+     */
+    private FairLayoutPicker getLayoutPicker() {
+        FairLayoutPicker picker = settings.getLayoutPicker();
+        if (picker == null || picker.getBoard().getBoardSize() != volcanoRectangles.size()
+                || picker.getBoard().getPlayerCount() != playersQueue.size()) {
+            picker = new FairLayoutPicker(createBoardDefinition(), settings.getLayoutTable(), GameRandom.newSeed());
+            settings.setLayoutPicker(picker);
+        }
+        picker.setMaxSeatAdvantage(settings.getMaxSeatAdvantage());
+        return picker;
+    }
+
+    /**
+     * Describes the caves and starting places of this game as a board layout, with the players in queue order.
+     *
+     * @return The board layout.
+     */
+    private BoardDefinition createBoardDefinition() {
+        BoardDefinition board = new BoardDefinition(volcanoRectangles.size());
+        for (Cave cave : caveList) {
+            board.addCave(cave.getAttachedPosition(), cave.getCaveCreature());
+        }
+        for (Player player : playersQueue) {
+            board.addPlayer(player.getStartingPosition(), findCaveIndex(player.getStartingCave()));
+        }
+        return board;
+    }
+
+    /**
+     * Checks whether a volcano layout is fair enough to deal. Every layout is fair when no layout table
+     * was loaded or the table was measured on a different board.
+     *
+     * @param sequenceOrder The index of the volcano card sequence at every place around the ring.
+     * @return True if the layout may be dealt, false otherwise.
+     */
+    private boolean isLayoutFair(int[] sequenceOrder) {
+        LayoutTable table = settings.getLayoutTable();
+        if (table == null || !table.covers(volcanoRectangles.size(), playersQueue.size(), sequenceOrder.length)) {
+            return true;
+        }
+        return table.isBalanced(sequenceOrder, settings.getMaxSeatAdvantage());
+    }
+
+    /**
+     * Retrieves the seed the cards of this game were dealt from.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+    /**
+     * Sets the seed of this game. Setting it before {@link #initializeNewGame} deals the same cards
+     * as the game the seed was taken from; setting it afterwards only records it for saving.
+     *
+     * @param seed The seed to set.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    /**
+     * Retrieves the rules engine behind this game.
+     *
+     * @return The game engine.
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
     /**
      * Sets the position of a token on the game board.
      *
@@ -159,7 +407,7 @@ public class Game {
             timeline.stop();
         }
 
-        timeRemaining = 30; // Set initial time for the turn
+        timeRemaining = GameEngine.TURN_TIME_SECONDS; // Set initial time for the turn
         notifyTimerChangeListener(); // Notify initial time
 
         timeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
@@ -167,10 +415,11 @@ public class Game {
             notifyTimerChangeListener();
 
             if (timeRemaining <= 0) {
-                nextPlayer();
+                engine.expireTurn();
+                changeTurn();
             }
         }));
-        timeline.setCycleCount(10); // 10 seconds countdown
+        timeline.setCycleCount(GameEngine.TURN_TIME_SECONDS); // One cycle per second of the turn
         timeline.play();
     }
 
@@ -179,10 +428,19 @@ public class Game {
      * This method polls the current player from the queue and offers them back to the end.
      */
     public void nextPlayer() {
+        engine.nextPlayer();
+        changeTurn();
+    }
+    /**
+     * Updates the board after the engine has passed the turn to the next player.
+     */
+    private void changeTurn() {
         rotatePlayerQueue();
         notifyPlayerChangeListener();
         dragonCardHandler.unflipCards();
         startTurn(); // Reset the timer for the next player
+        turnNumber++;
+        autosave();
     }
     /**
      * Rotates the player queue by moving the current player to the end of the queue.
@@ -191,7 +449,6 @@ public class Game {
     private void rotatePlayerQueue() {
         currentPlayer = playersQueue.poll();
         playersQueue.offer(currentPlayer);
-        System.out.println("Switched to next player: " + currentPlayer.getPlayerName() + " at position " + currentPlayer.getCurrentPosition());
     }
     /**
      * Notifies the player change listener about the current player change.
@@ -210,48 +467,59 @@ public class Game {
         }
     }
     /**
-     * Moves the current player by the specified offset.
+     * Moves the current player by the specified offset without flipping a card.
+     * The move is recorded in the move journal, so replaying the journal reaches the same position.
      *
      * @param offset The number of steps to move the player.
      * @return True if the move was successful, false otherwise.
      */
     public boolean moveCurrentPlayerBy(int offset) {
-        System.out.println("Moving player by " + offset + " steps.");
-        int newPosition = calculateNewPosition(currentPlayer.getCurrentPosition(), offset);
-
-        currentPlayer.incrementStepsTaken(offset);
-        if (isWinningMove(newPosition)) {
-            displayWinnerPage();
-        }
-
-        boolean moveSuccessful = movePlayerToken(currentPlayer, newPosition);
-
-        if (moveSuccessful) {
-            startTurn(); // Reset the timer after a successful move
-        }
-
+        boolean moveSuccessful = engine.moveCurrentPlayerBy(offset);
+        syncFromEngine();
+        afterMove(moveSuccessful);
         return moveSuccessful;
     }
     /**
-     * Calculates the new position based on the current position and the offset.
-     *
-     * @param currentPosition The current position of the player.
-     * @param offset           The offset to be applied to the current position.
-     * @return The new position after applying the offset.
-     */
-    private int calculateNewPosition(int currentPosition, int offset) {
-        int newPosition = (currentPosition + offset) % volcanoRectangles.size();
-        return newPosition < 0 ? newPosition + volcanoRectangles.size() : newPosition;
+     * Resolves a flipped dragon card against the game rules and updates the board accordingly.
+     * The caller is responsible for passing the turn when the outcome ends it.
+     *
+     * @param slot The slot of the dragon card that was flipped.
+     * @return The outcome of the flipped card.
+     */
+    public MoveOutcome resolveCard(int slot) {
+        MoveOutcome outcome = engine.resolveCard(slot);
+        syncFromEngine();
+        switch (outcome) {
+            case MOVED:
+            case MOVED_AND_PASSED:
+            case WON:
+                afterMove(true);
+                break;
+            case BLOCKED:
+                afterMove(false);
+                break;
+            case MOVED_TO_CAVE:
+                Cave cave = currentPlayer.getMoveBackCaveObject();
+                setTokenPosition(currentPlayer.getDragonToken(), cave.getCaveArc().getLayoutX() - 30, cave.getCaveArc().getLayoutY() - 30);
+                break;
+            default:
+                break;
+        }
+        return outcome;
     }
     /**
-     * Checks if moving to the new position would result in a winning move.
+     * Updates the board after the engine has tried to move the current player.
      *
-     * @param newPosition The new position to check.
-     * @return True if the move is a winning move, false otherwise.
+     * @param moveSuccessful Whether the player's token was moved.
      */
-    private boolean isWinningMove(int newPosition) {
-        System.out.println("Steps taken: " + currentPlayer.getStepsTaken());
-        return newPosition == currentPlayer.getCavePosition() && currentPlayer.getStepsTaken() > 24 && !currentPlayer.getStartingCave().getOccupied();
+    private void afterMove(boolean moveSuccessful) {
+        if (engine.getWinner() >= 0) {
+            displayWinnerPage();
+        }
+        if (moveSuccessful) {
+            updateTokenPosition(currentPlayer.getDragonToken(), currentPlayer.getCurrentPosition());
+            startTurn(); // Reset the timer after a successful move
+        }
     }
     /**
      * Displays the winner page when a player wins the game.
@@ -262,6 +530,7 @@ public class Game {
             Parent root = loader.load();
             WinnerPageController controller = loader.getController();
             controller.setWinner(currentPlayer.getPlayerName());
+            controller.setSettings(settings);
             Stage stage = (Stage) currentPlayer.getDragonToken().getScene().getWindow();
             stage.setScene(new Scene(root));
             stage.show();
@@ -271,77 +540,23 @@ public class Game {
     }
     /**
      * Moves the player token to the specified new position.
+     * This is used to set up a loaded game, so the move journal restarts from the new position.
      *
      * @param player      The player whose token is to be moved.
      * @param newPosition The new position for the player token.
      * @return True if the move was successful, false otherwise.
      */
     boolean movePlayerToken(Player player, int newPosition) {
-        if (isPositionUnoccupied(newPosition, player.getCurrentPosition())) {
-            updatePlayerPosition(player, newPosition);
-            return true;
-        } else {
-            System.out.println("Position " + newPosition + " is already occupied.");
-            return false;
-        }
-    }
-    /**
-     * Moves the player's token to occupy the specified cave if it's unoccupied.
-     *
-     * @param player       The player whose token is to be moved.
-     * @param caveToOccupy The cave to be occupied by the player.
-     * @return True if the player successfully occupies the cave, false otherwise.
-     */
-    private boolean movePlayerTokenToCave(Player player, Cave caveToOccupy) {
-        if (!caveToOccupy.getOccupied()) {
-//            updatePlayerPosition(player, newPosition);
-            int newPosition = caveToOccupy.getAttachedPosition()-1;
-//            player.setCurrentPosition(newPosition);
-            int offset;
-            int currentPosition = player.getCurrentPosition();
-            // Calculate the offset for moving backward in a circular list
-            if (newPosition <= currentPosition) {
-                offset = newPosition - currentPosition;
-            } else {
-                offset = (newPosition - 24) - currentPosition;
-            }
-            System.out.println("offset: " + offset);
-            player.incrementStepsTaken(offset);
-            player.setCurrentPosition(newPosition);
+        if (engine.placePlayer(seatPlayers.indexOf(player), newPosition)) {
+            syncFromEngine();
             updateTokenPosition(player.getDragonToken(), newPosition);
-            if (player.getStepsTaken()==1){
-                player.setStepsTaken(0);
-            }
-            System.out.println("Steps taken: " + player.getStepsTaken());
-            occupiedPositions.remove(player.getCurrentPosition());
+            startJournal();
             return true;
         } else {
-            System.out.println("Cave " + caveToOccupy.getAttachedPosition() + " is already occupied.");
+            System.out.println("Position " + newPosition + " is already occupied.");
             return false;
         }
     }
-    /**
-     * Checks if a position on the game board is unoccupied.
-     *
-     * @param newPosition    The new position to check.
-     * @param currentPosition The current position of the player.
-     * @return True if the position is unoccupied or the player is already there, false otherwise.
-     */
-    private boolean isPositionUnoccupied(int newPosition, int currentPosition) {
-        return !occupiedPositions.contains(newPosition) || currentPosition == newPosition;
-    }
-    /**
-     * Updates the position of the player on the game board.
-     *
-     * @param player      The player whose position is to be updated.
-     * @param newPosition The new position of the player.
-     */
-    private void updatePlayerPosition(Player player, int newPosition) {
-        occupiedPositions.remove(player.getCurrentPosition());
-        occupiedPositions.add(newPosition);
-        player.setCurrentPosition(newPosition);
-        updateTokenPosition(player.getDragonToken(), newPosition);
-    }
     /**
      * Updates the position of the player's token on the game board.
      *
@@ -371,30 +586,30 @@ public class Game {
         this.playerChangeListener = listener;
     }
     /**
-     * Retrieves the hashmap of volcano cards and their corresponding creature names.
+     * Retrieves the creatures on the volcano cards.
      *
-     * @return The hashmap of volcano cards.
+     * @return The volcano ring.
      */
-    public HashMap<Integer, CreatureName> getVolcanoCardsHashMap() {
-        return volcanoCardsHashMap;
+    public VolcanoRing getVolcanoRing() {
+        return volcanoRing;
     }
     /**
-     * Handles the button click event by processing the clicked button.
+     * Handles the click on a dragon card by processing the card in the clicked slot.
      *
-     * @param clickedButton The button that was clicked.
+     * @param slot The slot of the dragon card that was clicked.
      */
-    public void handleClickedButton(Button clickedButton) {
+    public void handleClickedCard(int slot) {
         if (movementHandler != null) {
-            movementHandler.processClickedButton(clickedButton);
+            movementHandler.processClickedCard(slot);
         }
     }
     /**
-     * Retrieves the hashmap of button-DragonCards pairs.
+     * Retrieves the dragon cards of this game, indexed by slot.
      *
-     * @return The hashmap of button-DragonCards pairs.
+     * @return The dragon card registry.
      */
-    public HashMap<Button, DragonCards> getButtonDragonCardsHashMap() {
-        return buttonDragonCardsHashMap;
+    public DragonCardRegistry getDragonCardRegistry() {
+        return dragonCardRegistry;
     }
     /**
      * Retrieves the DragonCardHandler instance.
@@ -418,74 +633,94 @@ public class Game {
      * @return True if the move was successful, false otherwise.
      */
     public boolean moveCurrentPlayerToNearestCave() {
-        Player currentPlayer = getCurrentPlayer();
-        Cave nearestCave = findNearestUnoccupiedCave(currentPlayer.getCurrentPosition());
-        occupiedPositions.remove(currentPlayer.getCurrentPosition());
-
-        if (nearestCave == null) {
-            System.out.println("No nearest Cave");
-            return false;
+        boolean moved = engine.moveCurrentPlayerToNearestCave();
+        syncFromEngine();
+        if (moved) {
+            Cave cave = currentPlayer.getMoveBackCaveObject();
+            setTokenPosition(currentPlayer.getDragonToken(), cave.getCaveArc().getLayoutX() - 30, cave.getCaveArc().getLayoutY() - 30);
         }
-
-        return moveToCave(currentPlayer, nearestCave);
+        return moved;
     }
     /**
-     * Finds the nearest unoccupied cave to the current player's position.
+     * Saves the current game state to a new file in the compact binary format. Only the snapshot is
+     * taken on the calling thread; the file is written in the background.
      *
-     * @param currentPosition The current position of the player.
-     * @return The nearest unoccupied cave, or null if no suitable cave is found.
+     * @return A future that completes with the saved file, or with the error that stopped the save.
      */
-    private Cave findNearestUnoccupiedCave(int currentPosition) {
-        // Print all the caves' occupied status
-        for (Cave cave : caveList) {
-            System.out.println(cave.getCaveCreature() + " " + cave.getAttachedPosition() + " " + cave.getOccupied());
-        }
+    public CompletableFuture<Path> saveGame() {
+        return savingHandler.saveGameInBackground(createSaveState());
+    }
 
-        // Check if the current position is exactly one step before any cave position
-        for (Cave cave : caveList) {
-            int cavePosition = cave.getAttachedPosition();
-            if (!cave.getOccupied() && (currentPosition + 1 == cavePosition || (currentPosition == 24 && cavePosition == 1))) {
-                return cave;
-            }
+    /**
+     * Starts the journal of the game with the current board, and autosaves every
+     * {@link #AUTOSAVE_INTERVAL_SECONDS} seconds on top of the autosave at every change of turn.
+     * New games start autosaving as soon as they are dealt; loaded games once they are restored.
+     */
+    public void startAutosave() {
+        if (autosaveTimeline != null) {
+            autosaveTimeline.stop();
         }
+        autosaveTimeline = new Timeline(new KeyFrame(Duration.seconds(AUTOSAVE_INTERVAL_SECONDS), e -> autosave()));
+        autosaveTimeline.setCycleCount(Timeline.INDEFINITE);
+        autosaveTimeline.play();
+        autosave();
+    }
 
-        // Create a list of caves sorted by their positions in descending order
-        List<Cave> sortedCaves = caveList.stream()
-                .sorted(Comparator.comparingInt(Cave::getAttachedPosition).reversed())
-                .collect(Collectors.toList());
-
-        // Iterate through the sorted caves to find the nearest unoccupied cave directly behind
-        for (Cave cave : sortedCaves) {
-            int cavePosition = cave.getAttachedPosition();
+    /**
+     * Appends what changed in the game to its journal in the background.
+     */
+    private void autosave() {
+        savingHandler.autosave(createSaveState());
+    }
 
-            // If cave position is less than the current position or wraps around to the end
-            if (!cave.getOccupied() && (cavePosition < currentPosition || cavePosition == currentPosition)) {
-                return cave;
-            }
-        }
+    /**
+     * Retrieves the number of the current turn, counted from 1 when the game was started.
+     *
+     * @return The turn number.
+     */
+    public int getTurnNumber() {
+        return turnNumber;
+    }
 
-        // If no suitable cave is found in the first pass, check the remaining positions considering wrap-around
-        for (Cave cave : sortedCaves) {
-            int cavePosition = cave.getAttachedPosition();
+    /**
+     * Retrieves the ID shared by every save of this game.
+     *
+     * @return The game ID.
+     */
+    public long getGameId() {
+        return gameId;
+    }
 
-            // If cave position is greater than the current position and wrap-around is considered
-            if (!cave.getOccupied() && cavePosition > currentPosition) {
-                return cave;
-            }
+    /**
+     * Creates a snapshot of the current game state for saving. The snapshot does not change as the game goes on.
+     *
+     * @return The saved state, with the players in queue order.
+     */
+    public SaveState createSaveState() {
+        List<SaveState.CaveState> caves = new ArrayList<>(caveList.size());
+        for (Cave cave : caveList) {
+            caves.add(new SaveState.CaveState(cave.getAttachedPosition(), cave.getCaveCreature(), cave.getOccupied()));
         }
-        return null;
+        List<SaveState.PlayerState> players = new ArrayList<>(playersQueue.size());
+        for (Player player : playersQueue) {
+            Color color = player.getColor();
+            players.add(new SaveState.PlayerState(player.getPlayerName(),
+                    SaveState.PlayerState.packColor(color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity()),
+                    player.getCurrentPosition(), player.getStartingPosition(), findCaveIndex(player.getStartingCave()),
+                    player.getStepsTaken(), player.getTotalStepsTaken(), player.isHasMoved(), player.isGotMoveBack(),
+                    findCaveIndex(player.getMoveBackCaveObject())));
+        }
+        return new SaveState(gameId, turnNumber, seed, volcanoRing, dragonCardRegistry, caves, players);
     }
+
     /**
-     * Saves the current game state to a file.
+     * Saves the current game state to a new JSON file, for export and debugging. Only the snapshot is
+     * taken on the calling thread; the file is written in the background.
      *
-     * @throws IOException If an I/O error occurs while saving the game.
+     * @return A future that completes with the saved file, or with the error that stopped the save.
      */
-    public void saveGame() throws IOException {
-        HashMap<String, Object> gameState = new HashMap<>();
-        gameState.put("playerQueue", playersQueue);
-        gameState.put("caveList", caveList);
-        gameState.put("occupiedPositions", occupiedPositions);
-        savingHandler.saveGameToFile(gameState);
+    public CompletableFuture<Path> exportGame() {
+        return savingHandler.exportGameInBackground(createSaveState());
     }
 
     /**
@@ -541,21 +776,6 @@ public class Game {
         // Create and start the game timer for the first player's turn
         startTurn();
     }
-    /**
-     * Updates the mapping of button IDs to DragonCards after loading a saved game.
-     *
-     * @param loadedDragonCards The mapping of button IDs to DragonCards.
-     * @param dragonButtons     The list of dragon buttons.
-     */
-    private void updateButtonDragonCardsHashMap(HashMap<String, DragonCards> loadedDragonCards, List<Button> dragonButtons) {
-        buttonDragonCardsHashMap.clear();
-        for (Button button : dragonButtons) {
-            String buttonId = button.getId();
-            if (loadedDragonCards.containsKey(buttonId)) {
-                buttonDragonCardsHashMap.put(button, loadedDragonCards.get(buttonId));
-            }
-        }
-    }
     /**
      * Sets the players queue.
      *
@@ -568,13 +788,15 @@ public class Game {
         }
     }
     /**
-     * Sets the mapping of button IDs to DragonCards.
+     * Replaces the dragon cards of this game, for example with the cards of a saved game.
+     * The cards are copied into the existing registry so the engine and the buttons keep their slots,
+     * and the move journal restarts.
      *
-     * @param buttonDragonCardsHashMap The mapping of button IDs to DragonCards.
+     * @param loadedCards The dragon cards to copy, indexed by slot.
      */
-    public void setButtonDragonCardsHashMap(HashMap<Button, DragonCards> buttonDragonCardsHashMap) {
-        this.buttonDragonCardsHashMap = buttonDragonCardsHashMap;
-        savingHandler.setButtonDragonCardsHashMap(buttonDragonCardsHashMap);
+    public void setDragonCardRegistry(DragonCardRegistry loadedCards) {
+        loadedCards.copyTo(dragonCardRegistry);
+        startJournal();
     }
     /**
      * Sets the list of volcano rectangles on the game board.
@@ -585,59 +807,26 @@ public class Game {
         this.volcanoRectangles = volcanoRectangles;
     }
     /**
-     * Sets the mapping of volcano card positions to creature names.
+     * Sets the creatures on the volcano cards.
+     * The move journal restarts since earlier actions were resolved against the previous volcano cards.
      *
-     * @param volcanoCardsHashMap The mapping of volcano card positions to creature names.
+     * @param volcanoRing The creatures on the volcano tiles.
      */
-    public void setVolcanoCardsHashMap(HashMap<Integer, CreatureName> volcanoCardsHashMap) {
-        this.volcanoCardsHashMap = volcanoCardsHashMap;
-        savingHandler.setVolcanoCardsHashMap(volcanoCardsHashMap);
+    public void setVolcanoRing(VolcanoRing volcanoRing) {
+        this.volcanoRing = volcanoRing;
+        engine.setVolcanoRing(volcanoRing);
+        startJournal();
 
-        // Loop through all volcano rectangles and set their color based on the volcanoCardsHashMap
-        for (Map.Entry<Integer, CreatureName> entry : volcanoCardsHashMap.entrySet()) {
-            Integer position = entry.getKey();
-            CreatureName creatureName = entry.getValue();
-
-            // Ensure the position is within the bounds of the volcanoRectangles list
-            if (position >= 0 && position < volcanoRectangles.size()) {
+        // Loop through all volcano rectangles and set their color based on the volcano ring
+        for (int position = 0; position < volcanoRing.size() && position < volcanoRectangles.size(); position++) {
+            CreatureName creatureName = volcanoRing.get(position);
+            if (creatureName != null) {
                 Rectangle volcanoRectangle = volcanoRectangles.get(position);
                 Color color = creatureName.getColor();
                 volcanoRectangle.setFill(color);
             }
         }
     }
-    /**
-     * Moves the current player to the nearest unoccupied cave if possible.
-     *
-     * @param player      The player to move.
-     * @param nearestCave The nearest unoccupied cave.
-     * @return True if the player successfully moved to the cave, false otherwise.
-     */
-    private boolean moveToCave(Player player, Cave nearestCave) {
-        if (movePlayerTokenToCave(player, nearestCave)) {
-            occupyCave(player, nearestCave);
-            occupiedPositions.remove(currentPlayer.getCurrentPosition());
-
-            return true;
-        }
-        System.out.println("Cannot move to Cave");
-        return false;
-    }
-
-    /**
-     * Occupies the specified cave with the given player.
-     *
-     * @param player The player occupying the cave.
-     * @param cave   The cave to be occupied.
-     */
-    private void occupyCave(Player player, Cave cave) {
-        cave.setOccupiedPlayer(player);
-        cave.setOccupied(true);
-        player.setMoveBackCaveObject(cave);
-        player.setMoveBackCave(cave.getCaveCreature());
-        player.setGotMoveBack(true);
-        setTokenPosition(player.getDragonToken(), cave.getCaveArc().getLayoutX() - 30, cave.getCaveArc().getLayoutY() - 30);
-    }
     /**
      * Sets the timer change listener for this game.
      *
@@ -650,19 +839,25 @@ public class Game {
      * Disposes of resources used by the game.
      */
     public void dispose() {
-        // Stop the timeline if it is running
+        // Stop the timelines if they are running
         if (timeline != null) {
             timeline.stop();
         }
+        if (autosaveTimeline != null) {
+            autosaveTimeline.stop();
+        }
+        savingHandler.closeJournal();
         // Clear the players queue
         if (playersQueue != null) {
             playersQueue.clear();
         }
         // Clear any other resources if necessary
-        occupiedPositions.clear();
+        seatPlayers.clear();
         imageViewMap.clear();
-        buttonDragonCardsHashMap.clear();
-        volcanoCardsHashMap.clear();
+        dragonCardRegistry = null;
+        volcanoRing = null;
+        moveJournal = null;
+        startingEngine = null;
 
         // Convert to ArrayList if necessary and clear
         if (dragonTokens != null) {
@@ -0,0 +1,119 @@
+package dragonix.fierydragons1;
+
+import dragonix.fierydragons1.simulation.FairLayoutPicker;
+import dragonix.fierydragons1.simulation.LayoutTable;
+
+/**
+ * The GameSettings class holds the configuration that new games are created with.
+ * One instance is created when the application starts and handed from screen to screen, so every game
+ * started from the menu shares it, while games created elsewhere, such as in tests, can use their own.
+ */
+public class GameSettings {
+    /**
+     * The default largest seat advantage of a volcano layout before it is dealt again, when a layout
+     * table has been loaded.
+     */
+    public static final double DEFAULT_MAX_SEAT_ADVANTAGE = 0.15;
+
+    private LayoutTable layoutTable;
+    private double maxSeatAdvantage = DEFAULT_MAX_SEAT_ADVANTAGE;
+    private boolean fairDeals;
+    private boolean compressedExports;
+    private FairLayoutPicker layoutPicker;
+
+    /**
+     * Sets the table of measured volcano layouts that new games use to avoid unfair layouts.
+     * The layout picker is discarded, since it estimates layouts from the table.
+     *
+     * @param table The table, or null to accept every layout.
+     */
+    public void setLayoutTable(LayoutTable table) {
+        layoutTable = table;
+        layoutPicker = null;
+    }
+
+    /**
+     * Retrieves the table of measured volcano layouts.
+     *
+     * @return The table, or null if every layout is accepted.
+     */
+    public LayoutTable getLayoutTable() {
+        return layoutTable;
+    }
+
+    /**
+     * Sets the largest seat advantage of a volcano layout that new games accept.
+     *
+     * @param advantage The largest difference between the win rates of two seats, between 0 and 1.
+     */
+    public void setMaxSeatAdvantage(double advantage) {
+        maxSeatAdvantage = advantage;
+    }
+
+    /**
+     * Retrieves the largest seat advantage of a volcano layout that new games accept.
+     *
+     * @return The largest difference between the win rates of two seats, between 0 and 1.
+     */
+    public double getMaxSeatAdvantage() {
+        return maxSeatAdvantage;
+    }
+
+    /**
+     * Sets whether new games are dealt in fair-start mode, where the volcano layout is picked by a
+     * {@link FairLayoutPicker} that estimates the seat advantage of every candidate, instead of only
+     * being checked against the layout table.
+     *
+     * @param enabled True to deal fair starts, false to deal ordinary games.
+     */
+    public void setFairDeals(boolean enabled) {
+        fairDeals = enabled;
+    }
+
+    /**
+     * Checks whether new games are dealt in fair-start mode.
+     *
+     * @return True if fair starts are dealt, false otherwise.
+     */
+    public boolean isFairDeals() {
+        return fairDeals;
+    }
+
+    /**
+     * Sets whether games created from now on export compressed JSON saves, see
+     * {@link dragonix.fierydragons1.save.CompressedSaveFormat}, instead of readable JSON.
+     *
+     * @param enabled True to compress exports, false to export readable JSON.
+     */
+    public void setCompressedExports(boolean enabled) {
+        compressedExports = enabled;
+    }
+
+    /**
+     * Checks whether games created from now on export compressed JSON saves.
+     *
+     * @return True if exports are compressed, false otherwise.
+     */
+    public boolean isCompressedExports() {
+        return compressedExports;
+    }
+
+    /**
+     * Sets the layout picker kept between games, so the games it has played for a layout carry over
+     * to the next fair start.
+     *
+     * @param picker The layout picker, or null to create a new one for the next fair start.
+     */
+    public void setLayoutPicker(FairLayoutPicker picker) {
+        layoutPicker = picker;
+    }
+
+    /**
+     * Retrieves the layout picker kept between games.
+     *
+     * @return The layout picker, or null if no fair start has been dealt yet.
+     */
+    public FairLayoutPicker getLayoutPicker() {
+        return layoutPicker;
+    }
+}
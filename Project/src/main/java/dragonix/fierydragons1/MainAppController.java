@@ -2,8 +2,14 @@ package dragonix.fierydragons1;
 
 import dragonix.fierydragons1.cards.Cave;
 import dragonix.fierydragons1.cards.CreatureName;
-import dragonix.fierydragons1.cards.DragonCards;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.VolcanoRing;
 import dragonix.fierydragons1.handlers.VictoryHandler;
+import dragonix.fierydragons1.save.BinarySaveFormat;
+import dragonix.fierydragons1.save.CompressedSaveFormat;
+import dragonix.fierydragons1.save.SaveJournal;
+import dragonix.fierydragons1.save.SaveState;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -21,9 +27,11 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The MainAppController class manages the main gameplay functionality and UI of the Fiery Dragons game.
@@ -68,6 +76,7 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
     private Player currentPlayer;
     private List<Button> dragonButtons = new ArrayList<>();
     private Game game;
+    private GameSettings settings = new GameSettings();
     private VictoryHandler victoryHandler;
 
     // Modes:
@@ -107,156 +116,141 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
     /**
      * Sets up the players and game data.
      *
-     * @param gameData The game data to set up.
+     * @param saveState The saved game to set up in custom mode.
      * @return true if the game setup is valid, false otherwise.
      */
-    boolean setupPlayersAndGame(Map<String, Object> gameData) {
+    boolean setupPlayersAndGame(SaveState saveState) {
         boolean validGame = false;
         if (!customMode) {
             setupDefaultGame();
             validGame = true;
         } else {
-            validGame = setupCustomGame(gameData);
+            validGame = setupCustomGame(saveState);
         }
         return validGame;
     }
 
     /**
-     * Sets up the default game with predefined players and caves.
+     * Retrieves the button ID of every dragon card slot, which JSON saves key the cards by.
+     *
+     * @return The button IDs in slot order.
      */
-    private void setupDefaultGame() {
-        Cave cave1 = new Cave(CaveSPIDER, 2, CreatureName.SPIDER);
-        Cave cave2 = new Cave(CaveBAT, 8, CreatureName.BAT);
-        Cave cave3 = new Cave(CaveBABYDRAGON, 14, CreatureName.BABY_DRAGON);
-        Cave cave4 = new Cave(CaveSALAMANDER, 20, CreatureName.SALAMANDER);
-
-        Player player1 = new Player("Player 1", Color.LIME, 0, DragonTokenGreen, cave1);
-        Player player2 = new Player("Player 2", Color.BLUE, 6, DragonTokenBlue, cave2);
-        Player player3 = new Player("Player 3", Color.YELLOW, 12, DragonTokenYellow, cave3);
-        Player player4 = new Player("Player 4", Color.RED, 18, DragonTokenRed, cave4);
-
-        playersQueue.addAll(Arrays.asList(player1, player2, player3, player4));
-        caveList.addAll(Arrays.asList(cave1, cave2, cave3, cave4));
-
-        initializeGame(null);
+    String[] getCardSlotIds() {
+        String[] cardSlotIds = new String[dragonButtons.size()];
+        for (int slot = 0; slot < cardSlotIds.length; slot++) {
+            cardSlotIds[slot] = dragonButtons.get(slot).getId();
+        }
+        return cardSlotIds;
     }
 
-    // Method to find a cave in the caveList based on the caveCreature attribute
     /**
-     * Finds a cave in the caveList based on the specified caveCreature.
-     *
-     * @param caveList     The list of caves to search.
-     * @param caveCreature The creature name of the cave to find.
-     * @return The cave object if found, otherwise null.
+     * Sets up the default game with predefined players and caves.
      */
-    private Cave findCaveByCreature(List<Cave> caveList, String caveCreature) {
-        for (Cave cave : caveList) {
-            if (cave.getCaveCreature().toString().equals(caveCreature)) {
-                return cave;
-            }
+    private void setupDefaultGame() {
+        BoardDefinition board = BoardDefinition.standard();
+        Map<CreatureName, Circle> caveArcs = new EnumMap<>(CreatureName.class);
+        caveArcs.put(CreatureName.SPIDER, CaveSPIDER);
+        caveArcs.put(CreatureName.BAT, CaveBAT);
+        caveArcs.put(CreatureName.BABY_DRAGON, CaveBABYDRAGON);
+        caveArcs.put(CreatureName.SALAMANDER, CaveSALAMANDER);
+        for (int i = 0; i < board.getCaveCount(); i++) {
+            CreatureName creature = board.getCaveCreature(i);
+            caveList.add(new Cave(caveArcs.get(creature), board.getCavePosition(i), creature));
         }
-        return null; // Return null if no matching cave is found
+
+        Color[] colors = {Color.LIME, Color.BLUE, Color.YELLOW, Color.RED};
+        ImageView[] tokens = {DragonTokenGreen, DragonTokenBlue, DragonTokenYellow, DragonTokenRed};
+        for (int seat = 0; seat < board.getPlayerCount(); seat++) {
+            playersQueue.add(new Player("Player " + (seat + 1), colors[seat], board.getStartingPosition(seat),
+                    tokens[seat], caveList.get(board.getStartingCave(seat))));
+        }
+
+        initializeGame(null);
     }
 
     /**
-     * Sets up a custom game using the provided game data.
+     * Sets up a custom game from a saved game.
      *
-     * @param gameData The game data to use for setup.
+     * @param saveState The saved game to set up.
      * @return true if the custom game setup is valid, false otherwise.
      */
-    private boolean setupCustomGame(Map<String, Object> gameData) {
+    private boolean setupCustomGame(SaveState saveState) {
         boolean validGame = false;
-        try {
-            ArrayList<Map<String, Object>> tempList = (ArrayList<Map<String, Object>>) gameData.get("playerQueue");
-            ArrayList<Map<String, Object>> caveTemp = (ArrayList<Map<String, Object>>) gameData.get("caveList");
-
-            Map<String, ImageView> tokenMap = new HashMap<>();
-            tokenMap.put("Player 1", DragonTokenGreen);
-            tokenMap.put("Player 2", DragonTokenBlue);
-            tokenMap.put("Player 3", DragonTokenYellow);
-            tokenMap.put("Player 4", DragonTokenRed);
-
-            Map<String, Cave> caveMap = new HashMap<>();
-            caveMap.put("Player 1", new Cave(CaveSPIDER, 2, CreatureName.SPIDER));
-            caveMap.put("Player 2", new Cave(CaveBAT, 8, CreatureName.BAT));
-            caveMap.put("Player 3", new Cave(CaveBABYDRAGON, 14, CreatureName.BABY_DRAGON));
-            caveMap.put("Player 4", new Cave(CaveSALAMANDER, 20, CreatureName.SALAMANDER));
-
-
-//            caveList.addAll(caveMap.values());
-
-            // Create a map to hold cave arcs based on their IDs
-            Map<String, Circle> caveArcs = new HashMap<>();
-            caveArcs.put("CaveSPIDER", CaveSPIDER);
-            caveArcs.put("CaveBAT", CaveBAT);
-            caveArcs.put("CaveBABYDRAGON", CaveBABYDRAGON);
-            caveArcs.put("CaveSALAMANDER", CaveSALAMANDER);
-
-            for (Map<String, Object> caveData : caveTemp) {
-                Cave cave = Cave.fromMap(caveData, caveArcs);
-                boolean isOccupied = (boolean) caveData.get("isOccupied");
-                cave.setOccupied(isOccupied);
-                caveList.add(cave);
-            }
+        if (saveState == null) {
+            errorOccurred = true; // Set error flag
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error!");
+            alert.setHeaderText("Choose a valid save file"); // Optional, can be set to a specific header
+            alert.setContentText("Save file must be a .json, ." + BinarySaveFormat.EXTENSION + ", ." + SaveJournal.EXTENSION
+                    + " or ." + CompressedSaveFormat.EXTENSION + " and data must be first created using the game's save feature.");
+            alert.showAndWait();
+            return validGame;
+        }
 
-            for (Map<String, Object> playerData : tempList) {
-                Player player = Player.fromMap(playerData, caveList, tokenMap);
-
-                if (playerData.containsKey("moveBackCave")) {
-                    String moveBackCave = (String) playerData.get("moveBackCave");
-                    Cave moveBackCaveObject = findCaveByCreature(caveList, moveBackCave);
-                    System.out.println(moveBackCaveObject);
-
-                    if (moveBackCaveObject != null) {
-                        player.setMoveBackCaveObject(moveBackCaveObject);
-                    } else {
-                        // Handle case where the specified moveBackCave is not found
-                    }
-                }
-                playersQueue.add(player);
-            }
+        Map<String, ImageView> tokenMap = new HashMap<>();
+        tokenMap.put("Player 1", DragonTokenGreen);
+        tokenMap.put("Player 2", DragonTokenBlue);
+        tokenMap.put("Player 3", DragonTokenYellow);
+        tokenMap.put("Player 4", DragonTokenRed);
+
+        // Create a map to hold cave arcs based on their IDs
+        Map<String, Circle> caveArcs = new HashMap<>();
+        caveArcs.put("CaveSPIDER", CaveSPIDER);
+        caveArcs.put("CaveBAT", CaveBAT);
+        caveArcs.put("CaveBABYDRAGON", CaveBABYDRAGON);
+        caveArcs.put("CaveSALAMANDER", CaveSALAMANDER);
+
+        for (SaveState.CaveState caveState : saveState.getCaves()) {
+            Cave cave = Cave.fromCreature(caveState.getCreature(), caveState.getAttachedPosition(), caveArcs);
+            cave.setOccupied(caveState.isOccupied());
+            caveList.add(cave);
+        }
 
-            // Shift the playersQueue to the left
-            Player lastPlayer = playersQueue.pollLast();
-            playersQueue.offerFirst(lastPlayer);
-            // Convert LinkedTreeMap to HashMap
-            Map<Integer, CreatureName> volcanoCardsHashMap = new HashMap<>();
-            Map<String, Object> tempVolcanoCardsMap = (Map<String, Object>) gameData.get("volcanoCardSequence");
-            for (Map.Entry<String, Object> entry : tempVolcanoCardsMap.entrySet()) {
-                volcanoCardsHashMap.put(Integer.parseInt(entry.getKey()), CreatureName.valueOf(entry.getValue().toString()));
+        for (SaveState.PlayerState playerState : saveState.getPlayers()) {
+            Color color = new Color(playerState.getRed(), playerState.getGreen(), playerState.getBlue(), playerState.getOpacity());
+            Cave startingCave = playerState.getStartingCave() >= 0 ? caveList.get(playerState.getStartingCave()) : null;
+            Player player = new Player(playerState.getName(), color, playerState.getStartingPosition(),
+                    tokenMap.get(playerState.getName()), startingCave);
+            player.setCurrentPosition(playerState.getCurrentPosition());
+            player.setTotalStepsTaken(playerState.getTotalStepsTaken());
+            player.setHasMoved(playerState.hasMoved());
+            player.setStepsTaken(playerState.getStepsTaken());
+            player.setGotMoveBack(playerState.isGotMoveBack());
+            if (playerState.getMoveBackCave() >= 0) {
+                Cave moveBackCave = caveList.get(playerState.getMoveBackCave());
+                player.setMoveBackCave(moveBackCave.getCaveCreature());
+                player.setMoveBackCaveObject(moveBackCave);
             }
+            playersQueue.add(player);
+        }
 
-            // Load dragon button data
-            Map<String, Map<String, Object>> dragonCardsInfo = (Map<String, Map<String, Object>>) gameData.get("dragonCardsInfo");
-            HashMap<Button, DragonCards> buttonDragonCardsHashMap = new HashMap<>();
-            for (Button dragonButton : dragonButtons) {
-                String buttonId = dragonButton.getId();
-                if (dragonCardsInfo.containsKey(buttonId)) {
-                    Map<String, Object> cardInfo = dragonCardsInfo.get(buttonId);
-                    CreatureName creatureName = CreatureName.valueOf((String) cardInfo.get("creatureName"));
-                    int quantity = ((Number) cardInfo.get("quantity")).intValue();
-                    DragonCards dragonCard = new DragonCards(creatureName, quantity);
-                    buttonDragonCardsHashMap.put(dragonButton, dragonCard);
-                }
-            }
-            if (dragonCardsInfo.size() == 16 && tempVolcanoCardsMap.size() == 24){
-                validGame = true;
+        // Shift the playersQueue to the left
+        Player lastPlayer = playersQueue.pollLast();
+        playersQueue.offerFirst(lastPlayer);
+        // Copy the volcano ring, ignoring positions that are not on the board
+        VolcanoRing volcanoRing = new VolcanoRing(volcanoRectangles.size());
+        int assignedTiles = 0;
+        for (int position = 0; position < Math.min(saveState.getBoardSize(), volcanoRing.size()); position++) {
+            int ordinal = saveState.getVolcanoOrdinal(position);
+            if (ordinal >= 0) {
+                volcanoRing.set(position, CreatureName.values()[ordinal]);
+                assignedTiles++;
             }
+        }
 
-            if (validGame){
-                initializeGame(volcanoCardsHashMap, buttonDragonCardsHashMap);
+        DragonCardRegistry dragonCardRegistry = saveState.createDragonCardRegistry();
+        int assignedCards = 0;
+        for (int slot = 0; slot < dragonCardRegistry.size(); slot++) {
+            if (dragonCardRegistry.isAssigned(slot)) {
+                assignedCards++;
             }
+        }
+        if (dragonCardRegistry.size() == dragonButtons.size() && assignedCards == 16 && assignedTiles == volcanoRectangles.size()){
+            validGame = true;
+        }
 
-        } catch (NullPointerException e) {
-            System.err.println(e);
-            errorOccurred = true; // Set error flag
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error!");
-            alert.setHeaderText("Choose a valid save file"); // Optional, can be set to a specific header
-            alert.setContentText("Save file must be a .json and data must be first created using the game's save feature.");
-            alert.showAndWait();
-            validGame = false;
-            return validGame;
+        if (validGame){
+            initializeGame(volcanoRing, dragonCardRegistry, saveState);
         }
         return validGame;
     }
@@ -264,16 +258,18 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
     /**
      * Initializes the game with the provided volcano card sequence and dragon card information.
      *
-     * @param volcanoCardsHashMap    A map containing the volcano card sequence.
-     * @param buttonDragonCardsHashMap A map containing the dragon card information for each button.
+     * @param volcanoRing            The volcano ring containing the volcano card sequence.
+     * @param dragonCardRegistry     The dragon cards indexed by the slot of each button.
+     * @param saveState              The saved game, whose ID, turn and seed the game carries on with.
      */
-    private void initializeGame(Map<Integer, CreatureName> volcanoCardsHashMap, HashMap<Button, DragonCards> buttonDragonCardsHashMap) {
+    private void initializeGame(VolcanoRing volcanoRing, DragonCardRegistry dragonCardRegistry, SaveState saveState) {
         if (errorOccurred) {
             return; // Skip initialization if an error occurred
         }
 
-        game = new Game(gameboardPane);
-        game.initializeNewGame(playersQueue, volcanoRectangles, dragonTokens, dragonButtons, caveList);
+        game = new Game(gameboardPane, settings);
+        game.initializeLoadedGame(playersQueue, volcanoRectangles, dragonTokens, dragonButtons, caveList,
+                saveState, volcanoRing, dragonCardRegistry);
         game.setPlayerChangeListener(this);
         game.setTimerChangeListener(this);
         for (Player player : playersQueue) {
@@ -286,23 +282,21 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
         PlayerBox.setFill(currentPlayer.getColor());
         PlayerText.setText(currentPlayer.getPlayerName());
         victoryHandler = new VictoryHandler();
-        if (customMode) {
-            game.setVolcanoCardsHashMap((HashMap<Integer, CreatureName>) volcanoCardsHashMap);
-            game.setButtonDragonCardsHashMap(buttonDragonCardsHashMap);
-        }
+        // Only now is the whole saved game back in place, so the journal starts with it
+        game.startAutosave();
     }
 
     /**
      * Initializes the game with the provided volcano card sequence.
      *
-     * @param volcanoCardsHashMap A map containing the volcano card sequence.
+     * @param volcanoRing The volcano ring containing the volcano card sequence.
      */
-    private void initializeGame(Map<Integer, CreatureName> volcanoCardsHashMap) {
+    private void initializeGame(VolcanoRing volcanoRing) {
         if (errorOccurred) {
             return; // Skip initialization if an error occurred
         }
 
-        game = new Game(gameboardPane);
+        game = new Game(gameboardPane, settings);
         game.initializeNewGame(playersQueue, volcanoRectangles, dragonTokens, dragonButtons, caveList);
         game.setPlayerChangeListener(this);
         game.setTimerChangeListener(this);
@@ -317,7 +311,7 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
         PlayerText.setText(currentPlayer.getPlayerName());
         victoryHandler = new VictoryHandler();
         if (customMode) {
-            game.setVolcanoCardsHashMap((HashMap<Integer, CreatureName>) volcanoCardsHashMap);
+            game.setVolcanoRing(volcanoRing);
         }
     }
 
@@ -332,12 +326,13 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
         PlayerText.setText(currentPlayer.getPlayerName());
         PlayerBox.setFill(currentPlayer.getColor());
 
-        if (currentPlayer.hasPlayerWon()) {
+        if (currentPlayer.hasPlayerWon(game.getEngine().getBoardSize())) {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/dragonix/fierydragons1/winner-page.fxml"));
                 Parent root = loader.load();
                 WinnerPageController controller = loader.getController();
                 controller.setWinner(currentPlayer.getPlayerName());
+                controller.setSettings(settings);
                 stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
                 scene = new Scene(root);
                 stage.setScene(scene);
@@ -357,7 +352,10 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
      * @throws IOException If an I/O error occurs during loading the main menu scene.
      */
     public void changeToMainMenu(ActionEvent event) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("main-menu.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("main-menu.fxml"));
+        Parent root = loader.load();
+        MainMenuController menuController = loader.getController();
+        menuController.setSettings(settings);
         stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
         scene = new Scene(root);
         stage.setScene(scene);
@@ -408,13 +406,17 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
         debugMoveBack.setVisible(debugMode);
     }
     /**
-     * Saves the current game state.
-     *
-     * @throws IOException If an I/O error occurs during the save operation.
+     * Saves the current game state. The file is written in the background, and a failed save is reported on the console.
      */
-    public void save() throws IOException {
+    public void save() {
         System.out.println("Game Saved");
-        game.saveGame();
+        // Debug mode saves readable JSON, everything else the compact binary format
+        CompletableFuture<Path> saved = debugMode ? game.exportGame() : game.saveGame();
+        saved.whenComplete((file, error) -> {
+            if (error != null) {
+                System.err.println("Saving failed: " + error);
+            }
+        });
     }
     /**
      * Sets the game instance.
@@ -429,6 +431,14 @@ public class MainAppController implements PlayerChangeListener, TimerChangeListe
         PlayerText.setText(currentPlayer.getPlayerName());
         game.restorePlayerPositions();
     }
+    /**
+     * Sets the configuration that new games are created with.
+     *
+     * @param settings The game settings.
+     */
+    public void setSettings(GameSettings settings) {
+        this.settings = settings;
+    }
     /**
      * Sets the custom game mode.
      *
@@ -1,6 +1,7 @@
 package dragonix.fierydragons1;
 
 import dragonix.fierydragons1.handlers.LoadingHandler;
+import dragonix.fierydragons1.save.SaveState;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
@@ -11,7 +12,6 @@ import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.util.Map;
 
 /**
  * The MainMenuController class handles the actions performed in the main menu of the game.
@@ -24,6 +24,16 @@ public class MainMenuController {
     private Parent root;
     private boolean debugMode = false; // Track debug mode state
     private boolean customMode = false;
+    private GameSettings settings = new GameSettings();
+
+    /**
+     * Sets the configuration that games started from this screen are created with.
+     *
+     * @param settings The game settings.
+     */
+    public void setSettings(GameSettings settings) {
+        this.settings = settings;
+    }
 
     /**
      * Starts a new game.
@@ -32,9 +42,32 @@ public class MainMenuController {
      * @throws IOException If an I/O error occurs during loading the main application scene.
      */
     public void startNewGame(ActionEvent e) throws IOException {
+        settings.setFairDeals(false);
+        showNewGame(e);
+    }
+
+    /**
+     * Starts a new game whose volcano layout is picked to give no seat a large advantage.
+     *
+     * @param e The action event triggered by the user.
+     * @throws IOException If an I/O error occurs during loading the main application scene.
+     */
+    public void startFairGame(ActionEvent e) throws IOException {
+        settings.setFairDeals(true);
+        showNewGame(e);
+    }
+
+    /**
+     * Switches to the main application scene with a newly dealt game.
+     *
+     * @param e The action event triggered by the user.
+     * @throws IOException If an I/O error occurs during loading the main application scene.
+     */
+    private void showNewGame(ActionEvent e) throws IOException {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("main-app.fxml"));
         root = loader.load();
         MainAppController appController = loader.getController();
+        appController.setSettings(settings);
         appController.setDebugMode(debugMode);
 
         // Initialize new game data here
@@ -58,15 +91,16 @@ public class MainMenuController {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("main-app.fxml"));
         root = loader.load();
         MainAppController appController = loader.getController();
+        appController.setSettings(settings);
         appController.setDebugMode(debugMode);
         appController.setCustomGame(customMode);
 
         // Initialize new game data here
 
         LoadingHandler loadingHandler = new LoadingHandler("saves");
-        Map<String, Object> gameData = loadingHandler.loadGameFromFile();
+        SaveState saveState = loadingHandler.chooseGame(appController.getCardSlotIds());
 
-        boolean validGame = appController.setupPlayersAndGame(gameData);
+        boolean validGame = appController.setupPlayersAndGame(saveState);
         if(!validGame){
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Invalid Save Data");
@@ -75,7 +109,7 @@ public class MainMenuController {
             alert.showAndWait();
         }
 
-        if(gameData != null && validGame){
+        if(saveState != null && validGame){
             stage = (Stage) ((Node) e.getSource()).getScene().getWindow();
             scene = new Scene(root);
             stage.setScene(scene);
@@ -130,6 +164,8 @@ public class MainMenuController {
         // Load the tutorial scene
         FXMLLoader loader = new FXMLLoader(getClass().getResource("tutorial.fxml"));
         root = loader.load();
+        TutorialController tutorialController = loader.getController();
+        tutorialController.setSettings(settings);
 
         // Switch to the tutorial scene
         stage = (Stage)((Node)e.getSource()).getScene().getWindow();
@@ -5,8 +5,6 @@ import javafx.scene.image.ImageView;
 import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 
 /**
  * The Player class represents a player in the game, holding information about their position,
@@ -16,9 +14,9 @@ public class Player {
     private Cave startingCave;
     private String playerName;
     private final Color color;
-    private Integer currentPosition;
+    private int currentPosition;
     private ImageView dragonToken;
-    private final Integer startingPosition;
+    private final int startingPosition;
     private int totalStepsTaken = 0;
     private boolean hasMoved = false;
     private int stepsTaken = 0;
@@ -54,7 +52,7 @@ public class Player {
      * @param dragonToken      The graphical representation of the player's token.
      * @param startingCave     The starting cave of the player.
      */
-    public Player(String playerName, Color color, Integer currentPosition, ImageView dragonToken, Cave startingCave){
+    public Player(String playerName, Color color, int currentPosition, ImageView dragonToken, Cave startingCave){
         this.playerName = playerName;
         this.color = color;
         this.currentPosition = currentPosition;
@@ -64,110 +62,6 @@ public class Player {
         this.gotMoveBack = false;
     }
 
-    // Helper method to get the starting cave creature based on the player's name
-    /**
-     * Returns the starting creature associated with a player.
-     *
-     * @param playerName The name of the player.
-     * @return The starting creature for the player.
-     */
-    private static CreatureName getStartingCaveCreature(String playerName) {
-        switch (playerName) {
-            case "Player 1":
-                return CreatureName.SPIDER;
-            case "Player 2":
-                return CreatureName.BAT;
-            case "Player 3":
-                return CreatureName.BABY_DRAGON;
-            case "Player 4":
-                return CreatureName.SALAMANDER;
-            default:
-                return null; // Return null if the player name is invalid
-        }
-    }
-
-    // Helper method to find a cave in the caveList based on the cave creature
-    /**
-     * Finds a cave in the caveList based on the specified creature.
-     *
-     * @param caveList    The list of caves to search.
-     * @param creatureName The creature associated with the cave.
-     * @return The cave containing the specified creature, or null if no cave is found.
-     */
-    private static Cave findCaveByCreature(List<Cave> caveList, CreatureName creatureName) {
-        for (Cave cave : caveList) {
-            if (cave.getCaveCreature() == creatureName) {
-                return cave;
-            }
-        }
-        return null; // Return null if no cave is found for the specified creature
-    }
-
-    /**
-     * Creates a Player object from a map of player data.
-     *
-     * @param playerData The map containing player data.
-     * @param caveList    The map of cave objects.
-     * @param tokenMap   The map of ImageView tokens.
-     * @return A new Player object.
-     */
-
-    public static Player fromMap(Map<String, Object> playerData, List<Cave> caveList, Map<String, ImageView> tokenMap) {
-        // Extract data from map
-        String playerName = (String) playerData.get("playerName");
-        Color color = parseColor((Map<String, Object>) playerData.get("color"));
-        int currentPosition = ((Double) playerData.get("currentPosition")).intValue();
-        ImageView dragonToken = tokenMap.get(playerName);
-        CreatureName startingCaveCreature = getStartingCaveCreature(playerName);
-        Cave startingCave = findCaveByCreature(caveList, startingCaveCreature);
-
-        // Create new player
-        Player player = new Player(playerName, color, currentPosition, dragonToken, startingCave);
-
-        // Set additional fields
-        player.setTotalStepsTaken(((Double) playerData.get("totalStepsTaken")).intValue());
-        player.setHasMoved((Boolean) playerData.get("hasMoved"));
-        player.setStepsTaken(((Double) playerData.get("stepsTaken")).intValue());
-        player.setGotMoveBack((Boolean) playerData.get("gotMoveBack"));
-
-        // Optionally set moveBackCave if it's present
-        if (playerData.containsKey("moveBackCave")) {
-            player.setMoveBackCave(CreatureName.valueOf((String) playerData.get("moveBackCave")));
-        }
-
-        return player;
-    }
-
-    /**
-     * Parses color data from a map.
-     *
-     * @param colorData The map containing color data.
-     * @return A Color object.
-     */
-    private static Color parseColor(Map<String, Object> colorData) {
-        double red = (Double) colorData.get("red");
-        double green = (Double) colorData.get("green");
-        double blue = (Double) colorData.get("blue");
-        double opacity = (Double) colorData.get("opacity");
-        return new Color(red, green, blue, opacity);
-    }
-
-    /**
-     * Creates a list of Player objects from data.
-     *
-     * @param tempList The list of player data maps.
-     * @param caveMap  The map of cave objects.
-     * @param tokenMap The map of ImageView tokens.
-     * @return An ArrayList of Player objects.
-     */
-//    public static ArrayList<Player> createPlayersFromData(ArrayList<Map<String, Object>> tempList, Map<String, Cave> caveMap, Map<String, ImageView> tokenMap) {
-//        ArrayList<Player> players = new ArrayList<>();
-//        for (Map<String, Object> playerData : tempList) {
-//            Player player = Player.fromMap(playerData, caveMap, tokenMap);
-//            players.add(player);
-//        }
-//        return players;
-//    }
     // ... Getters and setters below
     /**
      * Retrieves the player's name.
@@ -220,7 +114,7 @@ public class Player {
      *
      * @return The player's current position.
      */
-    public Integer getCurrentPosition() {
+    public int getCurrentPosition() {
         return currentPosition;
     }
 
@@ -229,7 +123,7 @@ public class Player {
      *
      * @param currentPosition The player's new position.
      */
-    public void setCurrentPosition(Integer currentPosition) {
+    public void setCurrentPosition(int currentPosition) {
         this.currentPosition = currentPosition;
     }
 
@@ -272,10 +166,11 @@ public class Player {
     /**
      * Checks if the player has won the game.
      *
+     * @param boardSize The number of volcano tiles on the ring.
      * @return True if the player has won, false otherwise.
      */
-    public boolean hasPlayerWon() {
-        return currentPosition == (startingCave.getAttachedPosition() + 1)%24 && !startingCave.getOccupied();
+    public boolean hasPlayerWon(int boardSize) {
+        return currentPosition == (startingCave.getAttachedPosition() + 1) % boardSize && !startingCave.getOccupied();
     }
 
     /**
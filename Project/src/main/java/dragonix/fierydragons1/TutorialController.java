@@ -29,6 +29,7 @@ public class TutorialController {
     @FXML
     private AnchorPane anchorPane;
 
+    private GameSettings settings = new GameSettings();
     private int currentIndex = 0;
     private String[] imagePaths = {
             "/dragonix/fierydragons1/images/1.png",
@@ -67,6 +68,15 @@ public class TutorialController {
         imageView.setImage(new Image(getClass().getResource(imagePaths[currentIndex]).toExternalForm()));
     }
 
+    /**
+     * Sets the configuration that the main menu is returned to with.
+     *
+     * @param settings The game settings.
+     */
+    public void setSettings(GameSettings settings) {
+        this.settings = settings;
+    }
+
     /**
      * Changes the scene to the main menu when the main menu button is clicked.
      *
@@ -74,7 +84,10 @@ public class TutorialController {
      * @throws IOException if the main menu FXML cannot be loaded
      */
     public void changeToMainMenu(ActionEvent event) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("main-menu.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("main-menu.fxml"));
+        Parent root = loader.load();
+        MainMenuController menuController = loader.getController();
+        menuController.setSettings(settings);
         stage = (Stage)((Node)event.getSource()).getScene().getWindow();
         scene = new Scene(root);
         stage.setScene(scene);
@@ -22,6 +22,7 @@ public class WinnerPageController {
     private Scene scene;
     private Parent root;
     private boolean debugMode = false;  // Track debug mode state
+    private GameSettings settings = new GameSettings();
 
 
     /**
@@ -34,12 +35,24 @@ public class WinnerPageController {
         winnerLabel.setText(winnerName);
     }
 
+    /**
+     * Sets the configuration that games started from this screen are created with.
+     *
+     * @param settings The game settings.
+     */
+    public void setSettings(GameSettings settings) {
+        this.settings = settings;
+    }
+
     /**
      * Navigates back to the main menu by loading the main menu FXML.
      */
     public void backToMainMenu() {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("/dragonix/fierydragons1/main-menu.fxml"));
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/dragonix/fierydragons1/main-menu.fxml"));
+            Parent root = loader.load();
+            MainMenuController menuController = loader.getController();
+            menuController.setSettings(settings);
             Stage stage = (Stage) winnerLabel.getScene().getWindow();
             stage.setScene(new Scene(root));
             stage.show();
@@ -73,6 +86,7 @@ public class WinnerPageController {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("main-app.fxml"));
         root = loader.load();
         MainAppController appController = loader.getController();
+        appController.setSettings(settings);
         appController.setDebugMode(debugMode);
 
         stage = (Stage)((Node)e.getSource()).getScene().getWindow();
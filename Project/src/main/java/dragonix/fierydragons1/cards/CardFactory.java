@@ -1,6 +1,7 @@
 package dragonix.fierydragons1.cards;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * The CardFactory class is responsible for creating and managing DragonCards.
@@ -13,38 +14,62 @@ public class CardFactory {
     private final List<DragonCards> allCards = new ArrayList<>();
 
     /**
-     * Constructs a CardFactory, initializing the card counters for each creature type
-     * and preparing the list of all possible cards.
+     * Constructs a CardFactory with an unpredictable shuffle, initializing the card counters for each
+     * creature type and preparing the list of all possible cards.
      */
     public CardFactory() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Constructs a CardFactory that shuffles the cards with the given random number generator,
+     * initializing the card counters for each creature type and preparing the list of all possible cards.
+     *
+     * @param random the random number generator used to shuffle the cards
+     */
+    public CardFactory(RandomGenerator random) {
         // Initialize the card counters for each creature type
         for (CreatureName creature : CreatureName.values()) {
             cardCounters.put(creature, 0);
         }
         // Prepare the list of all possible cards in advance
-        initializeAllCards();
+        initializeAllCards(random);
     }
 
     /**
      * Initializes the list of all possible DragonCards based on the creature types
      * and the maximum occurrences allowed for each type. Special rules are applied
      * for specific creature types.
+     *
+     * @param random the random number generator used to shuffle the cards
+     */
+    private void initializeAllCards(RandomGenerator random) {
+        allCards.addAll(createDeck());
+        Collections.shuffle(allCards, random); // Shuffle the cards to provide random assignment
+    }
+
+    /**
+     * Creates the full deck of DragonCards in a fixed, unshuffled order. Special rules are applied
+     * for specific creature types.
+     *
+     * @return a new list holding every DragonCard of the deck
      */
-    private void initializeAllCards() {
+    public static List<DragonCards> createDeck() {
+        List<DragonCards> deck = new ArrayList<>();
         for (CreatureName creature : CreatureName.values()) {
             for (int quantity = 1; quantity <= MAX_OCCURRENCES; quantity++) {
                 if(creature == CreatureName.DRAGON_PIRATE){
-                    allCards.add(new DragonCards(creature, -quantity));
+                    deck.add(new DragonCards(creature, -quantity));
                 }
                 else if(creature == CreatureName.MOVE_BACK && quantity == 1){
-                    allCards.add(new DragonCards(creature, 1));
+                    deck.add(new DragonCards(creature, 1));
                 }
                 else if(creature != CreatureName.MOVE_BACK){
-                    allCards.add(new DragonCards(creature, quantity));
+                    deck.add(new DragonCards(creature, quantity));
                 }
             }
         }
-        Collections.shuffle(allCards); // Shuffle the cards to provide random assignment
+        return deck;
     }
 
     /**
@@ -48,18 +48,6 @@ public class Cave {
         this.isOccupied = true;
     }
 
-//    public static Cave fromMap(Map<String, Object> caveData, Map<String, Circle> caveArcs) {
-//        String creatureNameStr = (String) caveData.get("caveCreature");
-//        CreatureName creatureName = CreatureName.valueOf(creatureNameStr);
-//        Double tempAttachedPosition = (Double) caveData.get("attachedPosition");
-//        Integer attachedPosition = tempAttachedPosition.intValue();
-//        String caveArcId = (String) caveData.get("caveArcId");
-//
-//        Circle caveArc = caveArcs.get(caveArcId);
-//
-//        return new Cave(caveArc, attachedPosition, creatureName);
-//    }
-
     /**
      * Returns the player occupying the cave.
      *
@@ -115,15 +103,14 @@ public class Cave {
     }
 
     /**
-     * Returns a Cave object created from the specified map of cave data.
+     * Returns a Cave object for the given creature and position, drawn with the arc of that creature's cave.
      *
+     * @param creatureName     the creature of the cave
+     * @param attachedPosition the position attached to the cave
+     * @param caveArcs         the cave arcs on the board, keyed by their ID
      * @return Cave
      */
-    public static Cave fromMap(Map<String, Object> caveData, Map<String, Circle> caveArcs) {
-        String creatureNameStr = (String) caveData.get("caveCreature");
-        CreatureName creatureName = CreatureName.valueOf(creatureNameStr);
-        double tempAttachedPosition = (Double) caveData.get("attachedPosition"); // Use double instead of Double
-        int attachedPosition = (int) tempAttachedPosition; // Cast to int directly
+    public static Cave fromCreature(CreatureName creatureName, int attachedPosition, Map<String, Circle> caveArcs) {
         String caveArcId = "Cave" + creatureName.getName().replaceAll("\\s+","").toUpperCase(); // Set ID with "Cave" prefix
 
         Circle caveArc = caveArcs.get(caveArcId);
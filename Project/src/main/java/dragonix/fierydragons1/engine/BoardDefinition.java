@@ -0,0 +1,236 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+
+import java.util.Arrays;
+
+/**
+ * The BoardDefinition class describes the layout of a Fiery Dragons board: the number of volcano tiles,
+ * where the caves are attached and which creature each cave holds, and where every player starts.
+ * It replaces the standard board's hard-wired 24 tiles, four caves and four players, and creates
+ * {@link GameEngine} instances for boards of any supported size.
+ */
+public class BoardDefinition {
+    /**
+     * The creatures of the caves, repeated around the ring in this order.
+     */
+    private static final CreatureName[] CAVE_CREATURES = {
+            CreatureName.SPIDER, CreatureName.BAT, CreatureName.BABY_DRAGON, CreatureName.SALAMANDER
+    };
+    /**
+     * The number of tiles between a player's starting position and their cave's attached tile.
+     */
+    private static final int CAVE_OFFSET = 2;
+
+    private final int boardSize;
+    private int caveCount;
+    private int[] cavePositions = new int[4];
+    private CreatureName[] caveCreatures = new CreatureName[4];
+    private int playerCount;
+    private int[] startingPositions = new int[4];
+    private int[] startingCaves = new int[4];
+
+    /**
+     * Constructs an empty BoardDefinition for a volcano ring of the given size.
+     *
+     * @param boardSize The number of volcano tiles on the ring.
+     * @throws IllegalArgumentException If the board size is not between 1 and {@link GameEngine#MAX_BOARD_SIZE}.
+     */
+    public BoardDefinition(int boardSize) {
+        if (boardSize <= 0 || boardSize > GameEngine.MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + GameEngine.MAX_BOARD_SIZE);
+        }
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * Creates the definition of the standard board: 24 tiles, with the Spider, Bat, Baby Dragon and
+     * Salamander caves attached to tiles 2, 8, 14 and 20, and one player starting at each cave.
+     *
+     * @return The standard board definition.
+     */
+    public static BoardDefinition standard() {
+        return evenlySpaced(GameEngine.STANDARD_BOARD_SIZE, CAVE_CREATURES.length, CAVE_CREATURES.length);
+    }
+
+    /**
+     * Creates a board with caves spaced evenly around the ring and players spread evenly over the caves.
+     * Cave creatures repeat in the standard order, and every player starts two tiles before their cave
+     * as on the standard board.
+     *
+     * @param boardSize   The number of volcano tiles on the ring.
+     * @param caveCount   The number of caves.
+     * @param playerCount The number of players.
+     * @return The board definition.
+     * @throws IllegalArgumentException If the caves do not fit on the ring or there are more players than caves.
+     */
+    public static BoardDefinition evenlySpaced(int boardSize, int caveCount, int playerCount) {
+        if (caveCount <= 0 || caveCount > boardSize) {
+            throw new IllegalArgumentException("Cave count must be between 1 and the board size");
+        }
+        if (playerCount <= 0 || playerCount > caveCount || playerCount > GameEngine.MAX_SEATS) {
+            throw new IllegalArgumentException("Player count must be between 1 and the number of caves");
+        }
+        BoardDefinition board = new BoardDefinition(boardSize);
+        for (int i = 0; i < caveCount; i++) {
+            int position = (int) ((long) i * boardSize / caveCount + CAVE_OFFSET) % boardSize;
+            board.addCave(position, CAVE_CREATURES[i % CAVE_CREATURES.length]);
+        }
+        for (int p = 0; p < playerCount; p++) {
+            int cave = p * caveCount / playerCount;
+            int position = Math.floorMod(board.getCavePosition(cave) - CAVE_OFFSET, boardSize);
+            board.addPlayer(position, cave);
+        }
+        return board;
+    }
+
+    /**
+     * Adds a cave to the board.
+     *
+     * @param attachedPosition The volcano tile the cave is attached to.
+     * @param creature         The creature of the cave.
+     * @return The index of the new cave.
+     * @throws IllegalArgumentException If the position is not on the ring.
+     */
+    public int addCave(int attachedPosition, CreatureName creature) {
+        if (attachedPosition < 0 || attachedPosition >= boardSize) {
+            throw new IllegalArgumentException("Cave position " + attachedPosition + " is not on the ring");
+        }
+        if (caveCount == cavePositions.length) {
+            cavePositions = Arrays.copyOf(cavePositions, caveCount * 2);
+            caveCreatures = Arrays.copyOf(caveCreatures, caveCount * 2);
+        }
+        cavePositions[caveCount] = attachedPosition;
+        caveCreatures[caveCount] = creature;
+        return caveCount++;
+    }
+
+    /**
+     * Adds a player to the end of the turn order.
+     *
+     * @param startingPosition The starting position of the player on the ring.
+     * @param startingCave     The index of the player's starting cave.
+     * @return The seat index of the new player.
+     * @throws IllegalArgumentException If the position is not on the ring or the cave does not exist.
+     * @throws IllegalStateException    If the board already has {@link GameEngine#MAX_SEATS} players.
+     */
+    public int addPlayer(int startingPosition, int startingCave) {
+        if (startingPosition < 0 || startingPosition >= boardSize) {
+            throw new IllegalArgumentException("Starting position " + startingPosition + " is not on the ring");
+        }
+        if (startingCave < 0 || startingCave >= caveCount) {
+            throw new IllegalArgumentException("Unknown starting cave " + startingCave);
+        }
+        if (playerCount == GameEngine.MAX_SEATS) {
+            throw new IllegalStateException("No more than " + GameEngine.MAX_SEATS + " players are supported");
+        }
+        if (playerCount == startingPositions.length) {
+            startingPositions = Arrays.copyOf(startingPositions, playerCount * 2);
+            startingCaves = Arrays.copyOf(startingCaves, playerCount * 2);
+        }
+        startingPositions[playerCount] = startingPosition;
+        startingCaves[playerCount] = startingCave;
+        return playerCount++;
+    }
+
+    /**
+     * Retrieves the number of volcano tiles on the ring.
+     *
+     * @return The board size.
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Retrieves the number of caves.
+     *
+     * @return The number of caves.
+     */
+    public int getCaveCount() {
+        return caveCount;
+    }
+
+    /**
+     * Retrieves the volcano tile a cave is attached to.
+     *
+     * @param cave The index of the cave.
+     * @return The attached position.
+     */
+    public int getCavePosition(int cave) {
+        return cavePositions[cave];
+    }
+
+    /**
+     * Retrieves the creature of a cave.
+     *
+     * @param cave The index of the cave.
+     * @return The cave creature.
+     */
+    public CreatureName getCaveCreature(int cave) {
+        return caveCreatures[cave];
+    }
+
+    /**
+     * Retrieves the number of players.
+     *
+     * @return The number of players.
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Retrieves the starting position of a player.
+     *
+     * @param seat The seat index of the player.
+     * @return The starting position on the ring.
+     */
+    public int getStartingPosition(int seat) {
+        return startingPositions[seat];
+    }
+
+    /**
+     * Retrieves the starting cave of a player.
+     *
+     * @param seat The seat index of the player.
+     * @return The index of the starting cave.
+     */
+    public int getStartingCave(int seat) {
+        return startingCaves[seat];
+    }
+
+    /**
+     * Creates a new engine for this board, with every player waiting in their starting cave.
+     *
+     * @param volcanoRing The creatures on the volcano tiles.
+     * @return The new engine.
+     * @throws IllegalArgumentException If the ring does not match the board size.
+     */
+    public GameEngine createEngine(VolcanoRing volcanoRing) {
+        GameEngine engine = new GameEngine(boardSize);
+        engine.setVolcanoRing(volcanoRing);
+        for (int cave = 0; cave < caveCount; cave++) {
+            engine.addCave(cavePositions[cave], caveCreatures[cave], isStartingCave(cave));
+        }
+        for (int seat = 0; seat < playerCount; seat++) {
+            engine.addPlayer(startingPositions[seat], startingCaves[seat]);
+        }
+        return engine;
+    }
+
+    /**
+     * Checks whether any player starts in a cave.
+     *
+     * @param cave The index of the cave.
+     * @return True if a player starts in the cave, false otherwise.
+     */
+    private boolean isStartingCave(int cave) {
+        for (int seat = 0; seat < playerCount; seat++) {
+            if (startingCaves[seat] == cave) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
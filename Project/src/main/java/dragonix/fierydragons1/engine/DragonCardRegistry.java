@@ -0,0 +1,115 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.cards.DragonCards;
+
+import java.util.Arrays;
+
+/**
+ * The DragonCardRegistry class holds the face-down dragon cards of a game, indexed by slot number.
+ * The creature ordinal and quantity of every slot are kept in primitive arrays, so the engine can
+ * look up a card without the JavaFX buttons that display it.
+ */
+public class DragonCardRegistry {
+    private static final CreatureName[] CREATURES = CreatureName.values();
+    private static final byte EMPTY = -1;
+
+    private final byte[] creatures;
+    private final byte[] quantities;
+
+    /**
+     * Constructs a DragonCardRegistry with the given number of empty slots.
+     *
+     * @param size The number of card slots.
+     */
+    public DragonCardRegistry(int size) {
+        this.creatures = new byte[size];
+        this.quantities = new byte[size];
+        Arrays.fill(creatures, EMPTY);
+    }
+
+    /**
+     * Retrieves the number of card slots.
+     *
+     * @return The number of card slots.
+     */
+    public int size() {
+        return creatures.length;
+    }
+
+    /**
+     * Checks whether a slot holds a card.
+     *
+     * @param slot The slot index.
+     * @return True if a card was assigned to the slot, false otherwise.
+     */
+    public boolean isAssigned(int slot) {
+        return creatures[slot] != EMPTY;
+    }
+
+    /**
+     * Retrieves the ordinal of the creature on the card in a slot.
+     *
+     * @param slot The slot index.
+     * @return The creature ordinal, or -1 if the slot is empty.
+     */
+    public int getCreatureOrdinal(int slot) {
+        return creatures[slot];
+    }
+
+    /**
+     * Retrieves the creature on the card in a slot.
+     *
+     * @param slot The slot index.
+     * @return The creature, or null if the slot is empty.
+     */
+    public CreatureName getCreature(int slot) {
+        byte ordinal = creatures[slot];
+        return ordinal == EMPTY ? null : CREATURES[ordinal];
+    }
+
+    /**
+     * Retrieves the quantity on the card in a slot.
+     *
+     * @param slot The slot index.
+     * @return The quantity, which is negative for Dragon Pirate cards.
+     */
+    public int getQuantity(int slot) {
+        return quantities[slot];
+    }
+
+    /**
+     * Assigns a card to a slot.
+     *
+     * @param slot     The slot index.
+     * @param creature The creature on the card.
+     * @param quantity The quantity on the card.
+     */
+    public void set(int slot, CreatureName creature, int quantity) {
+        creatures[slot] = (byte) creature.ordinal();
+        quantities[slot] = (byte) quantity;
+    }
+
+    /**
+     * Creates a DragonCards object for the card in a slot, for display and saving.
+     *
+     * @param slot The slot index.
+     * @return The card in the slot, or null if the slot is empty.
+     */
+    public DragonCards toDragonCards(int slot) {
+        return isAssigned(slot) ? new DragonCards(getCreature(slot), getQuantity(slot)) : null;
+    }
+
+    /**
+     * Copies all cards into another registry of the same size.
+     *
+     * @param target The registry to copy into.
+     */
+    public void copyTo(DragonCardRegistry target) {
+        if (target.size() != size()) {
+            throw new IllegalArgumentException("Registries must have the same number of slots");
+        }
+        System.arraycopy(creatures, 0, target.creatures, 0, creatures.length);
+        System.arraycopy(quantities, 0, target.quantities, 0, quantities.length);
+    }
+}
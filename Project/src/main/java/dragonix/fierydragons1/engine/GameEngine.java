@@ -0,0 +1,1209 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+
+import java.util.Arrays;
+
+/**
+ * The GameEngine class holds the rules of Fiery Dragons without any dependency on the JavaFX scene graph.
+ * It owns the volcano ring, the caves, the players' positions and the turn order, and resolves
+ * flipped dragon cards into moves. The {@code Game} class is a view over this engine.
+ * <p>
+ * All state is kept in primitives so that moves do not box or allocate: ring and cave occupancy are
+ * bitsets of longs with one bit per volcano tile or cave, the player flags are int masks, and the
+ * per-player and per-cave values live in arrays indexed by seat and cave. The board size and the
+ * number of caves and players are not fixed, see {@link BoardDefinition}.
+ * <p>
+ * The engine keeps a 64-bit Zobrist hash of its state up to date on every change, so searches can
+ * recognise a state they have seen before without comparing it field by field. Each part of the
+ * state has a random key from {@link ZobristKeys} and the hash is the exclusive or of the keys of the
+ * current values, so a move only swaps the keys of what it changed. The keys of tiles and positions,
+ * which change on every move, are looked up in tables shared by all copies of the engine.
+ */
+public class GameEngine {
+    /**
+     * The number of volcano tiles on the standard board.
+     */
+    public static final int STANDARD_BOARD_SIZE = 24;
+    /**
+     * The largest supported ring. The nearest cave lookup keeps a list of caves per tile,
+     * so memory grows with the number of tiles times the number of caves.
+     */
+    public static final int MAX_BOARD_SIZE = 4096;
+    /**
+     * The largest number of players that fits in the player masks.
+     */
+    public static final int MAX_SEATS = Integer.SIZE;
+    /**
+     * The largest number of dragon card slots that fits in the flipped slot mask.
+     */
+    public static final int MAX_CARD_SLOTS = Long.SIZE;
+    /**
+     * The largest number of caves for which the nearest cave table is precomputed.
+     * The table has one entry per position and cave occupancy mask, so it doubles in size with every cave.
+     */
+    public static final int MAX_TABLE_CAVES = 8;
+    /**
+     * The number of seconds a player has to make a move before their turn expires.
+     */
+    public static final int TURN_TIME_SECONDS = 30;
+
+    private static final CreatureName[] CREATURES = CreatureName.values();
+    private static final int DRAGON_PIRATE = CreatureName.DRAGON_PIRATE.ordinal();
+    private static final int MOVE_BACK = CreatureName.MOVE_BACK.ordinal();
+
+    private final int boardSize;
+    private VolcanoRing volcanoRing;
+    private DragonCardRegistry dragonCardRegistry;
+    private final long[] occupiedWords;
+    private final long[] tileKeys;
+    private long[] positionKeys = new long[0];
+
+    private int caveCount;
+    private int[] cavePositions = new int[4];
+    private byte[] caveCreatures = new byte[4];
+    private int[] caveOccupants = new int[4];
+    private long[] caveOccupiedWords = new long[1];
+    private int[] cavesByPositionDescending;
+    private byte[] nearestCaveTable;
+    private int[] nearestCaveOrder;
+    private int[] nearestCaveOrderStart;
+
+    private int playerCount;
+    private int[] positions = new int[4];
+    private int[] startingPositions = new int[4];
+    private int[] stepsTaken = new int[4];
+    private int[] startingCaves = new int[4];
+    private int[] moveBackCaves = new int[4];
+    private int hasMovedMask;
+    private int gotMoveBackMask;
+
+    private int currentSeat;
+    private int winner = -1;
+    private long flippedSlots;
+    private long hash;
+    private long flippedHash;
+    private MoveJournal moveJournal;
+
+    /**
+     * Constructs a new GameEngine for a volcano ring of the given size.
+     *
+     * @param boardSize The number of volcano tiles on the ring.
+     * @throws IllegalArgumentException If the board size is not between 1 and {@link #MAX_BOARD_SIZE}.
+     */
+    public GameEngine(int boardSize) {
+        if (boardSize <= 0 || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1 and " + MAX_BOARD_SIZE);
+        }
+        this.boardSize = boardSize;
+        this.volcanoRing = new VolcanoRing(boardSize);
+        this.occupiedWords = new long[wordsFor(boardSize)];
+        this.tileKeys = new long[boardSize];
+        for (int position = 0; position < boardSize; position++) {
+            tileKeys[position] = ZobristKeys.key(ZobristKeys.TILE, position, 0);
+        }
+        this.hash = ZobristKeys.key(ZobristKeys.SEAT, 0, 0);
+    }
+
+    /**
+     * Constructs a copy of another engine. The volcano ring and dragon cards are shared since they
+     * do not change during a game, and the copy does not record into the other engine's journal.
+     *
+     * @param other The engine to copy.
+     */
+    private GameEngine(GameEngine other) {
+        this.boardSize = other.boardSize;
+        this.volcanoRing = other.volcanoRing;
+        this.dragonCardRegistry = other.dragonCardRegistry;
+        this.occupiedWords = other.occupiedWords.clone();
+        this.tileKeys = other.tileKeys;
+        this.positionKeys = other.positionKeys;
+        this.caveCount = other.caveCount;
+        this.cavePositions = other.cavePositions.clone();
+        this.caveCreatures = other.caveCreatures.clone();
+        this.caveOccupants = other.caveOccupants.clone();
+        this.caveOccupiedWords = other.caveOccupiedWords.clone();
+        this.cavesByPositionDescending = other.cavesByPositionDescending;
+        this.nearestCaveTable = other.nearestCaveTable;
+        this.nearestCaveOrder = other.nearestCaveOrder;
+        this.nearestCaveOrderStart = other.nearestCaveOrderStart;
+        this.playerCount = other.playerCount;
+        this.positions = other.positions.clone();
+        this.startingPositions = other.startingPositions.clone();
+        this.stepsTaken = other.stepsTaken.clone();
+        this.startingCaves = other.startingCaves.clone();
+        this.moveBackCaves = other.moveBackCaves.clone();
+        this.hasMovedMask = other.hasMovedMask;
+        this.gotMoveBackMask = other.gotMoveBackMask;
+        this.currentSeat = other.currentSeat;
+        this.winner = other.winner;
+        this.flippedSlots = other.flippedSlots;
+        this.hash = other.hash;
+        this.flippedHash = other.flippedHash;
+    }
+
+    /**
+     * Creates an independent copy of this engine in its current state, for example as the starting
+     * point of a journal replay or a simulated game.
+     *
+     * @return The copy of this engine.
+     */
+    public GameEngine copy() {
+        return new GameEngine(this);
+    }
+
+    /**
+     * Adds a cave to the board.
+     *
+     * @param attachedPosition The volcano tile the cave is attached to.
+     * @param creature         The creature of the cave.
+     * @param occupied         Whether the cave starts occupied.
+     * @return The index of the new cave.
+     */
+    public int addCave(int attachedPosition, CreatureName creature, boolean occupied) {
+        if (caveCount == cavePositions.length) {
+            int capacity = caveCount * 2;
+            cavePositions = Arrays.copyOf(cavePositions, capacity);
+            caveCreatures = Arrays.copyOf(caveCreatures, capacity);
+            caveOccupants = Arrays.copyOf(caveOccupants, capacity);
+            caveOccupiedWords = Arrays.copyOf(caveOccupiedWords, wordsFor(capacity));
+        }
+        int cave = caveCount++;
+        cavePositions[cave] = attachedPosition;
+        caveCreatures[cave] = (byte) creature.ordinal();
+        caveOccupants[cave] = -1;
+        setCaveOccupied(cave, occupied);
+        // The board layout changed, so the nearest cave lookup has to be rebuilt
+        cavesByPositionDescending = null;
+        nearestCaveTable = null;
+        nearestCaveOrder = null;
+        nearestCaveOrderStart = null;
+        return cave;
+    }
+
+    /**
+     * Adds a player to the end of the turn order.
+     *
+     * @param startingPosition The starting position of the player on the ring.
+     * @param startingCave     The index of the player's starting cave.
+     * @return The seat index of the new player.
+     */
+    public int addPlayer(int startingPosition, int startingCave) {
+        if (startingCave < 0 || startingCave >= caveCount) {
+            throw new IllegalArgumentException("Unknown starting cave " + startingCave);
+        }
+        if (playerCount == MAX_SEATS) {
+            throw new IllegalStateException("No more than " + MAX_SEATS + " players are supported");
+        }
+        if (playerCount == positions.length) {
+            int capacity = playerCount * 2;
+            positions = Arrays.copyOf(positions, capacity);
+            startingPositions = Arrays.copyOf(startingPositions, capacity);
+            stepsTaken = Arrays.copyOf(stepsTaken, capacity);
+            startingCaves = Arrays.copyOf(startingCaves, capacity);
+            moveBackCaves = Arrays.copyOf(moveBackCaves, capacity);
+        }
+        int seat = playerCount++;
+        // Copies of the engine share the key table, so it is replaced rather than grown in place
+        positionKeys = Arrays.copyOf(positionKeys, playerCount * boardSize);
+        for (int position = 0; position < boardSize; position++) {
+            positionKeys[seat * boardSize + position] = ZobristKeys.key(ZobristKeys.POSITION, seat, position);
+        }
+        positions[seat] = startingPosition;
+        startingPositions[seat] = startingPosition;
+        stepsTaken[seat] = 0;
+        startingCaves[seat] = startingCave;
+        moveBackCaves[seat] = -1;
+        hash ^= positionKey(seat, startingPosition) ^ stepsKey(seat, 0);
+        return seat;
+    }
+
+    /**
+     * Restores the mutable state of a player, for example when continuing a saved game.
+     *
+     * @param seat         The seat index of the player.
+     * @param position     The current position of the player.
+     * @param stepsTaken   The number of steps the player has taken.
+     * @param hasMoved     Whether the player has left their starting cave.
+     * @param gotMoveBack  Whether the player is waiting in a cave after a Move Back card.
+     * @param moveBackCave The index of the cave the player was moved back to, or -1 if none.
+     */
+    public void restorePlayer(int seat, int position, int stepsTaken, boolean hasMoved, boolean gotMoveBack, int moveBackCave) {
+        setPosition(seat, position);
+        setStepsTaken(seat, stepsTaken);
+        setMoveBackCave(seat, moveBackCave);
+        setHasMoved(seat, hasMoved);
+        setGotMoveBack(seat, gotMoveBack);
+    }
+
+    /**
+     * Sets the creature layout of the volcano ring.
+     *
+     * @param volcanoRing The creatures on the volcano tiles.
+     * @throws IllegalArgumentException If the ring does not match the board size.
+     */
+    public void setVolcanoRing(VolcanoRing volcanoRing) {
+        if (volcanoRing.size() != boardSize) {
+            throw new IllegalArgumentException("Volcano ring has " + volcanoRing.size() + " tiles but the board has " + boardSize);
+        }
+        this.volcanoRing = volcanoRing;
+    }
+
+    /**
+     * Retrieves the creature layout of the volcano ring.
+     *
+     * @return The creatures on the volcano tiles.
+     */
+    public VolcanoRing getVolcanoRing() {
+        return volcanoRing;
+    }
+
+    /**
+     * Sets the dragon cards that {@link #resolveCard(int)} looks up by slot.
+     *
+     * @param dragonCardRegistry The dragon cards, indexed by slot.
+     * @throws IllegalArgumentException If there are more than {@link #MAX_CARD_SLOTS} slots.
+     */
+    public void setDragonCardRegistry(DragonCardRegistry dragonCardRegistry) {
+        if (dragonCardRegistry.size() > MAX_CARD_SLOTS) {
+            throw new IllegalArgumentException("No more than " + MAX_CARD_SLOTS + " dragon card slots are supported");
+        }
+        this.dragonCardRegistry = dragonCardRegistry;
+    }
+
+    /**
+     * Retrieves the dragon cards of this game.
+     *
+     * @return The dragon cards, indexed by slot.
+     */
+    public DragonCardRegistry getDragonCardRegistry() {
+        return dragonCardRegistry;
+    }
+
+    /**
+     * Sets the journal that card flips and turn changes are recorded into.
+     *
+     * @param moveJournal The journal to record into, or null to stop recording.
+     */
+    public void setMoveJournal(MoveJournal moveJournal) {
+        this.moveJournal = moveJournal;
+    }
+
+    /**
+     * Retrieves the journal that card flips and turn changes are recorded into.
+     *
+     * @return The journal, or null if nothing is recorded.
+     */
+    public MoveJournal getMoveJournal() {
+        return moveJournal;
+    }
+
+    /**
+     * Retrieves the creature on the given volcano tile.
+     *
+     * @param position The volcano tile position.
+     * @return The creature on the tile, or null if the tile has not been assigned.
+     */
+    public CreatureName getTileCreature(int position) {
+        return volcanoRing.get(position);
+    }
+
+    /**
+     * Retrieves the number of volcano tiles on the ring.
+     *
+     * @return The board size.
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Retrieves the number of players.
+     *
+     * @return The number of players.
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Retrieves the number of caves.
+     *
+     * @return The number of caves.
+     */
+    public int getCaveCount() {
+        return caveCount;
+    }
+
+    /**
+     * Retrieves the seat index of the player whose turn it is.
+     *
+     * @return The current seat index.
+     */
+    public int getCurrentSeat() {
+        return currentSeat;
+    }
+
+    /**
+     * Sets the seat index of the player whose turn it is.
+     *
+     * @param currentSeat The seat index to set.
+     */
+    public void setCurrentSeat(int currentSeat) {
+        hash ^= ZobristKeys.key(ZobristKeys.SEAT, this.currentSeat, 0) ^ ZobristKeys.key(ZobristKeys.SEAT, currentSeat, 0);
+        this.currentSeat = currentSeat;
+    }
+
+    /**
+     * Advances the turn to the next player in seat order.
+     */
+    public void nextPlayer() {
+        if (moveJournal != null) {
+            moveJournal.recordPass();
+        }
+        startNextTurn();
+    }
+
+    /**
+     * Advances the turn to the next player in seat order because the turn timer ran out.
+     */
+    public void expireTurn() {
+        if (moveJournal != null) {
+            moveJournal.recordTimeout();
+        }
+        startNextTurn();
+    }
+
+    /**
+     * Hands the turn to the next player in seat order, whose cards all start face down.
+     */
+    private void startNextTurn() {
+        setCurrentSeat((currentSeat + 1) % playerCount);
+        flippedSlots = 0;
+        flippedHash = 0;
+    }
+
+    /**
+     * Retrieves the slots of the cards flipped by {@link #resolveCard(int)} since the turn started.
+     *
+     * @return A bitmask of the flipped slots.
+     */
+    public long getFlippedSlots() {
+        return flippedSlots;
+    }
+
+    /**
+     * Retrieves the Zobrist hash of the state of the game: the players, the occupied tiles and caves,
+     * whose turn it is, the winner and the cards flipped this turn. Engines in the same state have the
+     * same hash, and engines in different states have different hashes but for a chance of about one in
+     * 2<sup>64</sup> per pair.
+     *
+     * @return The hash of the game state.
+     */
+    public long getHash() {
+        return hash ^ flippedHash;
+    }
+
+    /**
+     * Retrieves the Zobrist hash of the state of the game without the cards flipped this turn, which is
+     * the part of the state that decides what a card does.
+     *
+     * @return The hash of the board state.
+     */
+    public long getBoardHash() {
+        return hash;
+    }
+
+    /**
+     * Computes the hash of the game state from scratch instead of updating it move by move.
+     *
+     * @return The hash of the game state, which equals {@link #getHash()}.
+     */
+    long computeHash() {
+        long computed = ZobristKeys.key(ZobristKeys.SEAT, currentSeat, 0);
+        for (int seat = 0; seat < playerCount; seat++) {
+            computed ^= positionKey(seat, positions[seat]) ^ stepsKey(seat, stepsTaken[seat]) ^ moveBackCaveKey(seat, moveBackCaves[seat]);
+            if (hasMoved(seat)) {
+                computed ^= ZobristKeys.key(ZobristKeys.HAS_MOVED, seat, 0);
+            }
+            if (isGotMoveBack(seat)) {
+                computed ^= ZobristKeys.key(ZobristKeys.GOT_MOVE_BACK, seat, 0);
+            }
+        }
+        for (int position = nextOccupiedPosition(0); position >= 0; position = nextOccupiedPosition(position + 1)) {
+            computed ^= tileKeys[position];
+        }
+        for (int cave = 0; cave < caveCount; cave++) {
+            if (isCaveOccupied(cave)) {
+                computed ^= ZobristKeys.key(ZobristKeys.CAVE, cave, 0);
+            }
+        }
+        if (winner >= 0) {
+            computed ^= ZobristKeys.key(ZobristKeys.WINNER, winner, 0);
+        }
+        for (long slots = flippedSlots; slots != 0; slots &= slots - 1) {
+            computed ^= ZobristKeys.key(ZobristKeys.SLOT, Long.numberOfTrailingZeros(slots), 0);
+        }
+        return computed;
+    }
+
+    /**
+     * Retrieves the seat index of the player who made a winning move.
+     *
+     * @return The winning seat index, or -1 if nobody has won yet.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Finds the first occupied position on the volcano ring at or after the given position.
+     * Calling this repeatedly with the previous result plus one iterates over all occupied positions.
+     *
+     * @param fromPosition The position to start searching from.
+     * @return The first occupied position, or -1 if there is none.
+     */
+    public int nextOccupiedPosition(int fromPosition) {
+        if (fromPosition >= boardSize) {
+            return -1;
+        }
+        int word = fromPosition >>> 6;
+        long bits = occupiedWords[word] & (-1L << fromPosition);
+        while (bits == 0) {
+            if (++word == occupiedWords.length) {
+                return -1;
+            }
+            bits = occupiedWords[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Checks whether a position on the volcano ring is occupied.
+     *
+     * @param position The volcano tile position.
+     * @return True if the position is occupied, false otherwise.
+     */
+    public boolean isPositionOccupied(int position) {
+        return testBit(occupiedWords, position);
+    }
+
+    /**
+     * Retrieves the current position of a player.
+     *
+     * @param seat The seat index of the player.
+     * @return The player's position on the ring.
+     */
+    public int getPosition(int seat) {
+        return positions[seat];
+    }
+
+    /**
+     * Retrieves the starting position of a player.
+     *
+     * @param seat The seat index of the player.
+     * @return The player's starting position on the ring.
+     */
+    public int getStartingPosition(int seat) {
+        return startingPositions[seat];
+    }
+
+    /**
+     * Retrieves the number of steps a player has taken.
+     *
+     * @param seat The seat index of the player.
+     * @return The number of steps taken.
+     */
+    public int getStepsTaken(int seat) {
+        return stepsTaken[seat];
+    }
+
+    /**
+     * Checks whether a player has left their starting cave.
+     *
+     * @param seat The seat index of the player.
+     * @return True if the player has moved, false otherwise.
+     */
+    public boolean hasMoved(int seat) {
+        return (hasMovedMask & (1 << seat)) != 0;
+    }
+
+    /**
+     * Checks whether a player is waiting in a cave after a Move Back card.
+     *
+     * @param seat The seat index of the player.
+     * @return True if the player got moved back, false otherwise.
+     */
+    public boolean isGotMoveBack(int seat) {
+        return (gotMoveBackMask & (1 << seat)) != 0;
+    }
+
+    /**
+     * Retrieves the starting cave of a player.
+     *
+     * @param seat The seat index of the player.
+     * @return The index of the starting cave.
+     */
+    public int getStartingCave(int seat) {
+        return startingCaves[seat];
+    }
+
+    /**
+     * Retrieves the cave a player was last moved back to.
+     *
+     * @param seat The seat index of the player.
+     * @return The index of the cave, or -1 if the player has never been moved back.
+     */
+    public int getMoveBackCave(int seat) {
+        return moveBackCaves[seat];
+    }
+
+    /**
+     * Retrieves the position a cave is attached to.
+     *
+     * @param cave The index of the cave.
+     * @return The attached volcano tile position.
+     */
+    public int getCavePosition(int cave) {
+        return cavePositions[cave];
+    }
+
+    /**
+     * Retrieves the creature of a cave.
+     *
+     * @param cave The index of the cave.
+     * @return The creature of the cave.
+     */
+    public CreatureName getCaveCreature(int cave) {
+        return CREATURES[caveCreatures[cave]];
+    }
+
+    /**
+     * Checks whether a cave is occupied.
+     *
+     * @param cave The index of the cave.
+     * @return True if the cave is occupied, false otherwise.
+     */
+    public boolean isCaveOccupied(int cave) {
+        return testBit(caveOccupiedWords, cave);
+    }
+
+    /**
+     * Retrieves the seat of the player last sent to a cave.
+     *
+     * @param cave The index of the cave.
+     * @return The seat index of the occupant, or -1 if no player was sent there.
+     */
+    public int getCaveOccupant(int cave) {
+        return caveOccupants[cave];
+    }
+
+    /**
+     * Sets whether a player has left their starting cave.
+     *
+     * @param seat     The seat index of the player.
+     * @param hasMoved Whether the player has moved.
+     */
+    private void setHasMoved(int seat, boolean hasMoved) {
+        if (hasMoved != hasMoved(seat)) {
+            hash ^= ZobristKeys.key(ZobristKeys.HAS_MOVED, seat, 0);
+        }
+        hasMovedMask = hasMoved ? hasMovedMask | (1 << seat) : hasMovedMask & ~(1 << seat);
+    }
+
+    /**
+     * Sets whether a player is waiting in a cave after a Move Back card.
+     *
+     * @param seat        The seat index of the player.
+     * @param gotMoveBack Whether the player got moved back.
+     */
+    private void setGotMoveBack(int seat, boolean gotMoveBack) {
+        if (gotMoveBack != isGotMoveBack(seat)) {
+            hash ^= ZobristKeys.key(ZobristKeys.GOT_MOVE_BACK, seat, 0);
+        }
+        gotMoveBackMask = gotMoveBack ? gotMoveBackMask | (1 << seat) : gotMoveBackMask & ~(1 << seat);
+    }
+
+    /**
+     * Sets whether a cave is occupied.
+     *
+     * @param cave     The index of the cave.
+     * @param occupied Whether the cave is occupied.
+     */
+    private void setCaveOccupied(int cave, boolean occupied) {
+        if (occupied != isCaveOccupied(cave)) {
+            hash ^= ZobristKeys.key(ZobristKeys.CAVE, cave, 0);
+        }
+        if (occupied) {
+            setBit(caveOccupiedWords, cave);
+        } else {
+            clearBit(caveOccupiedWords, cave);
+        }
+    }
+
+    /**
+     * Sets the position of a player.
+     *
+     * @param seat     The seat index of the player.
+     * @param position The new position.
+     */
+    private void setPosition(int seat, int position) {
+        hash ^= positionKey(seat, positions[seat]) ^ positionKey(seat, position);
+        positions[seat] = position;
+    }
+
+    /**
+     * Sets the number of steps a player has taken.
+     *
+     * @param seat       The seat index of the player.
+     * @param stepsTaken The new number of steps.
+     */
+    private void setStepsTaken(int seat, int stepsTaken) {
+        hash ^= stepsKey(seat, this.stepsTaken[seat]) ^ stepsKey(seat, stepsTaken);
+        this.stepsTaken[seat] = stepsTaken;
+    }
+
+    /**
+     * Sets the cave a player was moved back to.
+     *
+     * @param seat The seat index of the player.
+     * @param cave The index of the cave, or -1 if none.
+     */
+    private void setMoveBackCave(int seat, int cave) {
+        hash ^= moveBackCaveKey(seat, moveBackCaves[seat]) ^ moveBackCaveKey(seat, cave);
+        moveBackCaves[seat] = cave;
+    }
+
+    /**
+     * Sets the winner of the game.
+     *
+     * @param seat The seat index of the winner.
+     */
+    private void setWinner(int seat) {
+        if (winner >= 0) {
+            hash ^= ZobristKeys.key(ZobristKeys.WINNER, winner, 0);
+        }
+        hash ^= ZobristKeys.key(ZobristKeys.WINNER, seat, 0);
+        winner = seat;
+    }
+
+    /**
+     * Marks a volcano tile as occupied.
+     *
+     * @param position The volcano tile position.
+     */
+    private void occupyTile(int position) {
+        if (!testBit(occupiedWords, position)) {
+            setBit(occupiedWords, position);
+            hash ^= tileKeys[position];
+        }
+    }
+
+    /**
+     * Marks a volcano tile as free.
+     *
+     * @param position The volcano tile position.
+     */
+    private void releaseTile(int position) {
+        if (testBit(occupiedWords, position)) {
+            clearBit(occupiedWords, position);
+            hash ^= tileKeys[position];
+        }
+    }
+
+    /**
+     * Retrieves the key of a player standing on a position.
+     *
+     * @param seat     The seat index of the player.
+     * @param position The position, which may lie off the ring while a game is being set up.
+     * @return The key.
+     */
+    private long positionKey(int seat, int position) {
+        if (position >= 0 && position < boardSize) {
+            return positionKeys[seat * boardSize + position];
+        }
+        return ZobristKeys.key(ZobristKeys.POSITION, seat, position);
+    }
+
+    /**
+     * Retrieves the key of a player having taken a number of steps. Dragon Pirates can push the count
+     * back without bound, so the key is derived rather than looked up.
+     *
+     * @param seat       The seat index of the player.
+     * @param stepsTaken The number of steps.
+     * @return The key.
+     */
+    private static long stepsKey(int seat, int stepsTaken) {
+        return ZobristKeys.key(ZobristKeys.STEPS, seat, stepsTaken);
+    }
+
+    /**
+     * Retrieves the key of the cave a player was moved back to.
+     *
+     * @param seat The seat index of the player.
+     * @param cave The index of the cave, or -1 if none, which has no key.
+     * @return The key.
+     */
+    private static long moveBackCaveKey(int seat, int cave) {
+        return cave < 0 ? 0 : ZobristKeys.key(ZobristKeys.MOVE_BACK_CAVE, seat, cave);
+    }
+
+    /**
+     * Calculates the number of longs needed for a bitset of the given size.
+     *
+     * @param bits The number of bits.
+     * @return The number of longs.
+     */
+    private static int wordsFor(int bits) {
+        return Math.max(1, (bits + Long.SIZE - 1) >>> 6);
+    }
+
+    /**
+     * Checks whether a bit is set in a bitset.
+     *
+     * @param words The bitset.
+     * @param index The index of the bit.
+     * @return True if the bit is set, false otherwise.
+     */
+    private static boolean testBit(long[] words, int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a bit in a bitset.
+     *
+     * @param words The bitset.
+     * @param index The index of the bit.
+     */
+    private static void setBit(long[] words, int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears a bit in a bitset.
+     *
+     * @param words The bitset.
+     * @param index The index of the bit.
+     */
+    private static void clearBit(long[] words, int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Moves the current player by the specified offset without flipping a card, and records the move
+     * in the journal. The steps are counted even if the destination turns out to be occupied.
+     *
+     * @param offset The number of steps to move the player.
+     * @return True if the move was successful, false otherwise.
+     */
+    public boolean moveCurrentPlayerBy(int offset) {
+        boolean moved = stepCurrentPlayer(offset);
+        if (moveJournal != null) {
+            moveJournal.recordMove(offset, moved);
+        }
+        return moved;
+    }
+
+    /**
+     * Moves the current player by the specified offset.
+     * The steps are counted even if the destination turns out to be occupied.
+     *
+     * @param offset The number of steps to move the player.
+     * @return True if the move was successful, false otherwise.
+     */
+    private boolean stepCurrentPlayer(int offset) {
+        int seat = currentSeat;
+        int newPosition = calculateNewPosition(positions[seat], offset);
+
+        setStepsTaken(seat, stepsTaken[seat] + offset);
+        if (isWinningMove(seat, newPosition)) {
+            setWinner(seat);
+        }
+
+        return placePlayer(seat, newPosition);
+    }
+
+    /**
+     * Calculates the new position based on the current position and the offset.
+     *
+     * @param currentPosition The current position of the player.
+     * @param offset           The offset to be applied to the current position.
+     * @return The new position after applying the offset.
+     */
+    private int calculateNewPosition(int currentPosition, int offset) {
+        int newPosition = (currentPosition + offset) % boardSize;
+        return newPosition < 0 ? newPosition + boardSize : newPosition;
+    }
+
+    /**
+     * Checks if moving to the new position would result in a winning move.
+     *
+     * @param seat        The seat index of the player making the move.
+     * @param newPosition The new position to check.
+     * @return True if the move is a winning move, false otherwise.
+     */
+    private boolean isWinningMove(int seat, int newPosition) {
+        int startingCave = startingCaves[seat];
+        return newPosition == cavePositions[startingCave] && stepsTaken[seat] > boardSize && !isCaveOccupied(startingCave);
+    }
+
+    /**
+     * Places a player on the specified position if it is unoccupied.
+     *
+     * @param seat        The seat index of the player.
+     * @param newPosition The new position for the player.
+     * @return True if the player was placed, false if the position is occupied by another player.
+     */
+    public boolean placePlayer(int seat, int newPosition) {
+        int currentPosition = positions[seat];
+        if (!testBit(occupiedWords, newPosition) || currentPosition == newPosition) {
+            releaseTile(currentPosition);
+            occupyTile(newPosition);
+            setPosition(seat, newPosition);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the current player to the nearest unoccupied cave behind them.
+     * The player's position is released even if no cave is available.
+     *
+     * @return True if the move was successful, false otherwise.
+     */
+    public boolean moveCurrentPlayerToNearestCave() {
+        int seat = currentSeat;
+        int nearestCave = findNearestUnoccupiedCave(positions[seat]);
+        releaseTile(positions[seat]);
+
+        if (nearestCave < 0) {
+            return false;
+        }
+        return moveToCave(seat, nearestCave);
+    }
+
+    /**
+     * Finds the nearest unoccupied cave to the given position.
+     * With up to {@link #MAX_TABLE_CAVES} caves the answer is read from a table indexed by position and
+     * cave occupancy. With more caves every position has a list of caves in order of preference, and
+     * the first unoccupied one is returned; only occupied caves are skipped, so the lookup does not
+     * grow with the board. Both are built the first time they are needed after the caves change.
+     *
+     * @param currentPosition The current position of the player.
+     * @return The index of the nearest unoccupied cave, or -1 if no suitable cave is found.
+     */
+    public int findNearestUnoccupiedCave(int currentPosition) {
+        if (currentPosition < 0 || currentPosition > boardSize) {
+            return computeNearestUnoccupiedCave(currentPosition, caveOccupiedWords);
+        }
+        if (caveCount <= MAX_TABLE_CAVES) {
+            if (nearestCaveTable == null) {
+                buildNearestCaveTable();
+            }
+            return nearestCaveTable[(currentPosition << caveCount) | (int) caveOccupiedWords[0]];
+        }
+        if (nearestCaveOrder == null) {
+            buildNearestCaveOrder();
+        }
+        for (int i = nearestCaveOrderStart[currentPosition]; i < nearestCaveOrderStart[currentPosition + 1]; i++) {
+            int cave = nearestCaveOrder[i];
+            if (!isCaveOccupied(cave)) {
+                return cave;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the nearest cave lookup now instead of on the first Move Back card, so that copies of
+     * this engine share it. The lookup is rebuilt if caves are added later.
+     */
+    public void prepareNearestCaveLookup() {
+        if (caveCount <= MAX_TABLE_CAVES) {
+            if (nearestCaveTable == null) {
+                buildNearestCaveTable();
+            }
+        } else if (nearestCaveOrder == null) {
+            buildNearestCaveOrder();
+        }
+    }
+
+    /**
+     * Builds the nearest cave table for every position on the ring and every cave occupancy mask.
+     */
+    private void buildNearestCaveTable() {
+        int masks = 1 << caveCount;
+        byte[] table = new byte[(boardSize + 1) * masks];
+        long[] occupied = new long[1];
+        for (int position = 0; position <= boardSize; position++) {
+            for (int mask = 0; mask < masks; mask++) {
+                occupied[0] = mask;
+                table[(position << caveCount) | mask] = (byte) computeNearestUnoccupiedCave(position, occupied);
+            }
+        }
+        nearestCaveTable = table;
+    }
+
+    /**
+     * Builds the list of caves in order of preference for every position on the ring.
+     * The order is the one {@link #computeNearestUnoccupiedCave(int, long[])} checks the caves in.
+     */
+    private void buildNearestCaveOrder() {
+        int[] sortedCaves = getCavesByPositionDescending();
+        int[] order = new int[(boardSize + 3) * caveCount];
+        int[] start = new int[boardSize + 2];
+        int size = 0;
+        for (int position = 0; position <= boardSize; position++) {
+            start[position] = size;
+            for (int i = 0; i < caveCount; i++) {
+                if (isCaveJustAhead(position, cavePositions[i])) {
+                    order[size++] = i;
+                }
+            }
+            for (int i : sortedCaves) {
+                if (cavePositions[i] <= position) {
+                    order[size++] = i;
+                }
+            }
+            for (int i : sortedCaves) {
+                if (cavePositions[i] > position) {
+                    order[size++] = i;
+                }
+            }
+        }
+        start[boardSize + 1] = size;
+        nearestCaveOrder = order;
+        nearestCaveOrderStart = start;
+    }
+
+    /**
+     * Computes the nearest unoccupied cave to the given position for a given cave occupancy.
+     *
+     * @param currentPosition   The current position of the player.
+     * @param caveOccupiedWords The cave occupancy bitset to evaluate against.
+     * @return The index of the nearest unoccupied cave, or -1 if no suitable cave is found.
+     */
+    private int computeNearestUnoccupiedCave(int currentPosition, long[] caveOccupiedWords) {
+        // Check if the current position is exactly one step before any cave position
+        for (int i = 0; i < caveCount; i++) {
+            if (!testBit(caveOccupiedWords, i) && isCaveJustAhead(currentPosition, cavePositions[i])) {
+                return i;
+            }
+        }
+
+        int[] sortedCaves = getCavesByPositionDescending();
+        // Look for the nearest unoccupied cave directly behind
+        for (int i : sortedCaves) {
+            if (!testBit(caveOccupiedWords, i) && cavePositions[i] <= currentPosition) {
+                return i;
+            }
+        }
+
+        // Otherwise wrap around to the caves further along the ring
+        for (int i : sortedCaves) {
+            if (!testBit(caveOccupiedWords, i) && cavePositions[i] > currentPosition) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a cave is attached one step ahead of the given position.
+     *
+     * @param currentPosition The current position of the player.
+     * @param cavePosition    The position the cave is attached to.
+     * @return True if the cave is one step ahead, false otherwise.
+     */
+    private boolean isCaveJustAhead(int currentPosition, int cavePosition) {
+        return currentPosition + 1 == cavePosition || (currentPosition == boardSize && cavePosition == 1);
+    }
+
+    /**
+     * Retrieves the cave indices sorted by their attached positions in descending order.
+     *
+     * @return The sorted cave indices.
+     */
+    private int[] getCavesByPositionDescending() {
+        if (cavesByPositionDescending == null) {
+            int[] sorted = new int[caveCount];
+            for (int i = 0; i < caveCount; i++) {
+                // Insertion sort keeps caves with equal positions in their original order
+                int j = i;
+                while (j > 0 && cavePositions[sorted[j - 1]] < cavePositions[i]) {
+                    sorted[j] = sorted[j - 1];
+                    j--;
+                }
+                sorted[j] = i;
+            }
+            cavesByPositionDescending = sorted;
+        }
+        return cavesByPositionDescending;
+    }
+
+    /**
+     * Moves a player into the specified cave and marks the cave as occupied by them.
+     *
+     * @param seat The seat index of the player.
+     * @param cave The index of the cave.
+     * @return True if the player successfully moved to the cave, false otherwise.
+     */
+    private boolean moveToCave(int seat, int cave) {
+        if (isCaveOccupied(cave)) {
+            return false;
+        }
+
+        int currentPosition = positions[seat];
+        int newPosition = calculateNewPosition(cavePositions[cave], -1);
+        int offset;
+        // Calculate the offset for moving backward in a circular list
+        if (newPosition <= currentPosition) {
+            offset = newPosition - currentPosition;
+        } else {
+            offset = (newPosition - boardSize) - currentPosition;
+        }
+        int newSteps = stepsTaken[seat] + offset;
+        setStepsTaken(seat, newSteps == 1 ? 0 : newSteps);
+        setPosition(seat, newPosition);
+        releaseTile(newPosition);
+
+        caveOccupants[cave] = seat;
+        setCaveOccupied(cave, true);
+        setMoveBackCave(seat, cave);
+        setGotMoveBack(seat, true);
+        return true;
+    }
+
+    /**
+     * Resolves the dragon card in the given slot for the current player.
+     * The card is read from the registry as a creature ordinal and quantity, so resolving a card
+     * does not allocate and can be called in a tight loop by simulators. The slot counts as flipped
+     * until the turn passes.
+     *
+     * @param slot The slot of the flipped card.
+     * @return The outcome of the flipped card.
+     * @throws IllegalArgumentException If there is no such slot.
+     * @throws IllegalStateException    If the slot holds no card or was already flipped this turn.
+     */
+    public MoveOutcome resolveCard(int slot) {
+        if (slot < 0 || slot >= dragonCardRegistry.size()) {
+            throw new IllegalArgumentException("Slot " + slot + " is out of range");
+        }
+        if (!dragonCardRegistry.isAssigned(slot)) {
+            throw new IllegalStateException("No dragon card in slot " + slot);
+        }
+        if ((flippedSlots & (1L << slot)) != 0) {
+            throw new IllegalStateException("Slot " + slot + " was already flipped this turn");
+        }
+        flippedSlots |= 1L << slot;
+        flippedHash ^= ZobristKeys.key(ZobristKeys.SLOT, slot, 0);
+        MoveOutcome outcome = resolve(dragonCardRegistry.getCreatureOrdinal(slot), dragonCardRegistry.getQuantity(slot));
+        if (moveJournal != null) {
+            moveJournal.recordFlip(slot, outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Resolves a flipped dragon card for the current player.
+     * The engine never advances the turn on its own; callers should call {@link #nextPlayer()}
+     * when {@link MoveOutcome#endsTurn()} is true. Cards resolved this way have no slot and are
+     * not recorded in the journal.
+     *
+     * @param creature The creature on the flipped card.
+     * @param quantity The quantity on the flipped card.
+     * @return The outcome of the flipped card.
+     */
+    public MoveOutcome resolveCard(CreatureName creature, int quantity) {
+        return resolve(creature.ordinal(), quantity);
+    }
+
+    /**
+     * Resolves a flipped card given by its creature ordinal, and reports a win if the card completed
+     * the current player's lap.
+     *
+     * @param creature The ordinal of the creature on the flipped card.
+     * @param quantity The quantity on the flipped card.
+     * @return The outcome of the flipped card.
+     */
+    private MoveOutcome resolve(int creature, int quantity) {
+        int seat = currentSeat;
+        boolean hadWinner = winner >= 0;
+        MoveOutcome outcome;
+        if (isGotMoveBack(seat)) {
+            outcome = resolveCaveMove(seat, creature, quantity);
+        } else if (!hasMoved(seat)) {
+            outcome = resolveInitialMove(seat, creature, quantity);
+        } else {
+            outcome = resolveSubsequentMove(seat, creature, quantity);
+        }
+        return !hadWinner && winner == seat ? MoveOutcome.WON : outcome;
+    }
+
+    /**
+     * Resolves the first move of a player out of their starting cave.
+     *
+     * @param seat     The seat index of the current player.
+     * @param creature The ordinal of the creature on the flipped card.
+     * @param quantity The quantity on the flipped card.
+     * @return The outcome of the flipped card.
+     */
+    private MoveOutcome resolveInitialMove(int seat, int creature, int quantity) {
+        int startingCave = startingCaves[seat];
+        if (creature == caveCreatures[startingCave] && creature != DRAGON_PIRATE && creature != MOVE_BACK) {
+            if (!stepCurrentPlayer(quantity)) {
+                return MoveOutcome.BLOCKED;
+            }
+            setHasMoved(seat, true);
+            setCaveOccupied(startingCave, false);
+            return MoveOutcome.MOVED;
+        } else if (creature == MOVE_BACK) {
+            return MoveOutcome.DISCARDED;
+        }
+        return MoveOutcome.NO_MATCH;
+    }
+
+    /**
+     * Resolves the move of a player who is waiting in a cave after a Move Back card.
+     * The step out of the cave counts as one of the card's steps.
+     *
+     * @param seat     The seat index of the current player.
+     * @param creature The ordinal of the creature on the flipped card.
+     * @param quantity The quantity on the flipped card.
+     * @return The outcome of the flipped card.
+     */
+    private MoveOutcome resolveCaveMove(int seat, int creature, int quantity) {
+        int moveBackCave = moveBackCaves[seat];
+        if (creature == caveCreatures[moveBackCave] && creature != DRAGON_PIRATE) {
+            if (!stepCurrentPlayer(quantity - 1)) {
+                return MoveOutcome.BLOCKED;
+            }
+            occupyTile(positions[seat]);
+            setCaveOccupied(moveBackCave, false);
+            setGotMoveBack(seat, false);
+            return MoveOutcome.MOVED;
+        } else if (creature == MOVE_BACK) {
+            return MoveOutcome.DISCARDED;
+        }
+        return MoveOutcome.NO_MATCH;
+    }
+
+    /**
+     * Resolves a card flipped by a player who is already on the volcano ring.
+     *
+     * @param seat     The seat index of the current player.
+     * @param creature The ordinal of the creature on the flipped card.
+     * @param quantity The quantity on the flipped card.
+     * @return The outcome of the flipped card.
+     */
+    private MoveOutcome resolveSubsequentMove(int seat, int creature, int quantity) {
+        if (creature == DRAGON_PIRATE) {
+            return stepCurrentPlayer(quantity) ? MoveOutcome.MOVED_AND_PASSED : MoveOutcome.BLOCKED;
+        } else if (creature == MOVE_BACK) {
+            return moveCurrentPlayerToNearestCave() ? MoveOutcome.MOVED_TO_CAVE : MoveOutcome.NO_CAVE;
+        } else if (volcanoRing.getOrdinal(positions[seat]) != creature) {
+            return MoveOutcome.NO_MATCH;
+        }
+        return stepCurrentPlayer(quantity) ? MoveOutcome.MOVED : MoveOutcome.BLOCKED;
+    }
+}
@@ -0,0 +1,74 @@
+package dragonix.fierydragons1.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * The GameRandom class derives the random number streams of one game from a single seed.
+ * The dragon card deck, the volcano cards and any simulated players each get an independent stream
+ * split from the seed, so the same seed always deals the same game no matter which streams are used
+ * or on which thread, and no two games share random state.
+ */
+public class GameRandom {
+    private final long seed;
+    private final SplittableRandom deckRandom;
+    private final SplittableRandom volcanoRandom;
+    private final SplittableRandom playerRandom;
+
+    /**
+     * Constructs the random number streams for the given seed.
+     *
+     * @param seed The seed of the game.
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        this.deckRandom = root.split();
+        this.volcanoRandom = root.split();
+        this.playerRandom = root.split();
+    }
+
+    /**
+     * Creates a new, unpredictable seed for a game.
+     *
+     * @return The new seed.
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Retrieves the seed of the game.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Retrieves the stream used to shuffle the dragon card deck.
+     *
+     * @return The deck stream.
+     */
+    public SplittableRandom getDeckRandom() {
+        return deckRandom;
+    }
+
+    /**
+     * Retrieves the stream used to shuffle the volcano card sequences.
+     *
+     * @return The volcano stream.
+     */
+    public SplittableRandom getVolcanoRandom() {
+        return volcanoRandom;
+    }
+
+    /**
+     * Retrieves the stream used by simulated players.
+     *
+     * @return The player stream.
+     */
+    public SplittableRandom getPlayerRandom() {
+        return playerRandom;
+    }
+}
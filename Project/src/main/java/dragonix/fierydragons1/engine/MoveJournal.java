@@ -0,0 +1,185 @@
+package dragonix.fierydragons1.engine;
+
+import java.util.Arrays;
+
+/**
+ * The MoveJournal class records every turn action of a game in order, so that any point of the game
+ * can be reconstructed by replaying the journal onto a copy of the engine as it was when the journal started.
+ * <p>
+ * Each action is packed into a single int: the low bits hold the kind of action, the next bits the
+ * outcome of a card flip or move, and the remaining bits the slot of the flipped card or the signed
+ * offset of the move.
+ */
+public class MoveJournal {
+    /**
+     * A dragon card was flipped and resolved.
+     */
+    public static final int FLIP = 0;
+    /**
+     * The turn was passed to the next player.
+     */
+    public static final int PASS = 1;
+    /**
+     * The turn timer ran out and the turn was passed to the next player.
+     */
+    public static final int TIMEOUT = 2;
+    /**
+     * The current player was moved by an offset without flipping a card, as the debug controls do.
+     */
+    public static final int MOVE = 3;
+
+    private static final MoveOutcome[] OUTCOMES = MoveOutcome.values();
+    private static final int KIND_BITS = 2;
+    private static final int OUTCOME_BITS = 4;
+    private static final int SLOT_SHIFT = KIND_BITS + OUTCOME_BITS;
+
+    private int[] entries = new int[64];
+    private int size;
+
+    /**
+     * Records a flipped dragon card and its outcome.
+     *
+     * @param slot    The slot of the flipped card.
+     * @param outcome The outcome of the flipped card.
+     */
+    public void recordFlip(int slot, MoveOutcome outcome) {
+        append(slot << SLOT_SHIFT | outcome.ordinal() << KIND_BITS | FLIP);
+    }
+
+    /**
+     * Records the current player being moved by an offset without flipping a card.
+     *
+     * @param offset The number of steps the player was moved, negative for backwards.
+     * @param moved  True if the player was moved, false if the destination was occupied.
+     */
+    public void recordMove(int offset, boolean moved) {
+        MoveOutcome outcome = moved ? MoveOutcome.MOVED : MoveOutcome.BLOCKED;
+        append(offset << SLOT_SHIFT | outcome.ordinal() << KIND_BITS | MOVE);
+    }
+
+    /**
+     * Records the turn being passed to the next player.
+     */
+    public void recordPass() {
+        append(PASS);
+    }
+
+    /**
+     * Records the turn timer running out.
+     */
+    public void recordTimeout() {
+        append(TIMEOUT);
+    }
+
+    /**
+     * Appends a packed entry, growing the journal if needed.
+     *
+     * @param entry The packed entry.
+     */
+    private void append(int entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = entry;
+    }
+
+    /**
+     * Retrieves the number of recorded actions.
+     *
+     * @return The size of the journal.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the kind of a recorded action.
+     *
+     * @param index The index of the action.
+     * @return One of {@link #FLIP}, {@link #PASS}, {@link #TIMEOUT} or {@link #MOVE}.
+     */
+    public int getKind(int index) {
+        return entries[index] & ((1 << KIND_BITS) - 1);
+    }
+
+    /**
+     * Retrieves the slot of a recorded card flip.
+     *
+     * @param index The index of the action.
+     * @return The slot of the flipped card.
+     */
+    public int getSlot(int index) {
+        return entries[index] >>> SLOT_SHIFT;
+    }
+
+    /**
+     * Retrieves the offset of a recorded move.
+     *
+     * @param index The index of the action.
+     * @return The number of steps the player was moved, negative for backwards.
+     */
+    public int getOffset(int index) {
+        return entries[index] >> SLOT_SHIFT;
+    }
+
+    /**
+     * Retrieves the outcome of a recorded card flip or move.
+     *
+     * @param index The index of the action.
+     * @return The outcome of the flipped card, or {@link MoveOutcome#MOVED} or {@link MoveOutcome#BLOCKED}
+     * for a move.
+     */
+    public MoveOutcome getOutcome(int index) {
+        return OUTCOMES[(entries[index] >>> KIND_BITS) & ((1 << OUTCOME_BITS) - 1)];
+    }
+
+    /**
+     * Discards all recorded actions.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Replays every recorded action onto an engine.
+     *
+     * @param engine The engine to replay onto, in the state it was in when the journal started.
+     */
+    public void replay(GameEngine engine) {
+        replay(engine, size);
+    }
+
+    /**
+     * Replays the first recorded actions onto an engine.
+     *
+     * @param engine The engine to replay onto, in the state it was in when the journal started.
+     * @param count  The number of actions to replay.
+     * @throws IllegalStateException If a card flip or move does not reproduce its recorded outcome.
+     */
+    public void replay(GameEngine engine, int count) {
+        for (int i = 0; i < count; i++) {
+            switch (getKind(i)) {
+                case FLIP:
+                    MoveOutcome outcome = engine.resolveCard(getSlot(i));
+                    if (outcome != getOutcome(i)) {
+                        throw new IllegalStateException("Replay diverged at action " + i + ": expected " + getOutcome(i) + " but got " + outcome);
+                    }
+                    break;
+                case PASS:
+                    engine.nextPlayer();
+                    break;
+                case TIMEOUT:
+                    engine.expireTurn();
+                    break;
+                case MOVE:
+                    boolean moved = engine.moveCurrentPlayerBy(getOffset(i));
+                    if (moved != (getOutcome(i) == MoveOutcome.MOVED)) {
+                        throw new IllegalStateException("Replay diverged at action " + i + ": expected " + getOutcome(i) + " but got " + (moved ? MoveOutcome.MOVED : MoveOutcome.BLOCKED));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal entry at action " + i);
+            }
+        }
+    }
+}
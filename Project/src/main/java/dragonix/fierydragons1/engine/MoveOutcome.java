@@ -0,0 +1,45 @@
+package dragonix.fierydragons1.engine;
+
+/**
+ * The MoveOutcome enum describes the result of resolving a flipped dragon card against the game rules.
+ * The view layer uses it to decide how the flipped card and the turn should be updated.
+ */
+public enum MoveOutcome {
+
+    // The player's token moved and the player may keep flipping cards.
+    MOVED(false),
+    // The player's token moved backwards because of a Dragon Pirate card and the turn passes.
+    MOVED_AND_PASSED(true),
+    // The destination was occupied so the token stayed where it was and the turn passes.
+    BLOCKED(true),
+    // The card did not match the creature under the token and the turn passes.
+    NO_MATCH(true),
+    // The player's token was sent back to the nearest unoccupied cave.
+    MOVED_TO_CAVE(false),
+    // A Move Back card was flipped but no unoccupied cave was available.
+    NO_CAVE(false),
+    // A Move Back card was flipped while the player was still in a cave, so it has no effect.
+    DISCARDED(false),
+    // The card completed a lap back to the player's starting cave and the game is over.
+    WON(false);
+
+    private final boolean endsTurn;
+
+    /**
+     * Constructor for the MoveOutcome enum.
+     *
+     * @param endsTurn Whether the outcome passes the turn to the next player.
+     */
+    MoveOutcome(boolean endsTurn) {
+        this.endsTurn = endsTurn;
+    }
+
+    /**
+     * Checks whether this outcome passes the turn to the next player.
+     *
+     * @return True if the turn passes to the next player, false otherwise.
+     */
+    public boolean endsTurn() {
+        return endsTurn;
+    }
+}
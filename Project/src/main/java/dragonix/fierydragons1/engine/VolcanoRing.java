@@ -0,0 +1,181 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The VolcanoRing class stores the creature on every volcano tile as a byte array of creature ordinals.
+ * Looking up a tile is a single array load, and the ring can be of any size.
+ */
+public class VolcanoRing {
+    private static final CreatureName[] CREATURES = CreatureName.values();
+    private static final byte UNASSIGNED = -1;
+
+    private final byte[] tiles;
+
+    /**
+     * Constructs a VolcanoRing with the given number of tiles, none of which are assigned yet.
+     *
+     * @param size The number of volcano tiles.
+     */
+    public VolcanoRing(int size) {
+        this.tiles = new byte[size];
+        Arrays.fill(tiles, UNASSIGNED);
+    }
+
+    /**
+     * Creates a VolcanoRing from a mapping of tile positions to creature names.
+     * Positions outside the ring are ignored.
+     *
+     * @param layout The mapping of tile positions to creature names.
+     * @param size   The number of volcano tiles.
+     * @return The new VolcanoRing.
+     */
+    public static VolcanoRing fromMap(Map<Integer, CreatureName> layout, int size) {
+        VolcanoRing ring = new VolcanoRing(size);
+        for (Map.Entry<Integer, CreatureName> entry : layout.entrySet()) {
+            int position = entry.getKey();
+            if (position >= 0 && position < size) {
+                ring.set(position, entry.getValue());
+            }
+        }
+        return ring;
+    }
+
+    /**
+     * Retrieves the number of volcano tiles.
+     *
+     * @return The size of the ring.
+     */
+    public int size() {
+        return tiles.length;
+    }
+
+    /**
+     * Retrieves the creature on a volcano tile.
+     *
+     * @param position The tile position.
+     * @return The creature on the tile, or null if the tile has not been assigned.
+     */
+    public CreatureName get(int position) {
+        byte ordinal = tiles[position];
+        return ordinal == UNASSIGNED ? null : CREATURES[ordinal];
+    }
+
+    /**
+     * Retrieves the ordinal of the creature on a volcano tile.
+     *
+     * @param position The tile position.
+     * @return The creature ordinal, or -1 if the tile has not been assigned.
+     */
+    public int getOrdinal(int position) {
+        return tiles[position];
+    }
+
+    /**
+     * Assigns a creature to a volcano tile.
+     *
+     * @param position The tile position.
+     * @param creature The creature to assign, or null to clear the tile.
+     */
+    public void set(int position, CreatureName creature) {
+        tiles[position] = creature == null ? UNASSIGNED : (byte) creature.ordinal();
+    }
+
+    /**
+     * Retrieves a read-only map view of the assigned tiles, keyed by tile position in ascending order.
+     * The view reflects later changes to the ring.
+     *
+     * @return The map view of the ring.
+     */
+    public Map<Integer, CreatureName> asMap() {
+        return new MapView(this);
+    }
+
+    /**
+     * A read-only map view over the assigned tiles of a ring.
+     */
+    private static class MapView extends AbstractMap<Integer, CreatureName> {
+        private final VolcanoRing ring;
+
+        /**
+         * Constructs a MapView over the given ring.
+         *
+         * @param ring The ring to view.
+         */
+        private MapView(VolcanoRing ring) {
+            this.ring = ring;
+        }
+
+        /**
+         * Retrieves the entries of the assigned tiles.
+         *
+         * @return The set of entries.
+         */
+        @Override
+        public Set<Entry<Integer, CreatureName>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, CreatureName>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < ring.tiles.length && ring.tiles[from] == UNASSIGNED) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < ring.tiles.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, CreatureName> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int position = next;
+                            next = advance(next + 1);
+                            return new SimpleImmutableEntry<>(position, ring.get(position));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int count = 0;
+                    for (byte tile : ring.tiles) {
+                        if (tile != UNASSIGNED) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }
+            };
+        }
+
+        /**
+         * Retrieves the creature on a tile without iterating the entries.
+         *
+         * @param key The tile position.
+         * @return The creature on the tile, or null if there is none.
+         */
+        @Override
+        public CreatureName get(Object key) {
+            if (key instanceof Integer position && position >= 0 && position < ring.tiles.length) {
+                return ring.get(position);
+            }
+            return null;
+        }
+    }
+}
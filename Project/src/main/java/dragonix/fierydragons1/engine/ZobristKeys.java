@@ -0,0 +1,75 @@
+package dragonix.fierydragons1.engine;
+
+/**
+ * The ZobristKeys class derives the random 64-bit keys whose exclusive or is the hash of a game state.
+ * <p>
+ * Every key is a fixed function of what it stands for, such as "seat 2 stands on tile 7", so two
+ * engines in the same state have the same hash, also across runs. The engine caches the keys it needs
+ * on every move in tables and derives the others when they are needed.
+ */
+final class ZobristKeys {
+    /**
+     * The key of an occupied volcano tile, indexed by tile.
+     */
+    static final int TILE = 0;
+    /**
+     * The key of the position of a player, indexed by seat and position.
+     */
+    static final int POSITION = 1;
+    /**
+     * The key of the number of steps a player has taken, indexed by seat and steps.
+     */
+    static final int STEPS = 2;
+    /**
+     * The key of a player that has left their starting cave, indexed by seat.
+     */
+    static final int HAS_MOVED = 3;
+    /**
+     * The key of a player waiting in a cave after a Move Back card, indexed by seat.
+     */
+    static final int GOT_MOVE_BACK = 4;
+    /**
+     * The key of the cave a player was moved back to, indexed by seat and cave.
+     */
+    static final int MOVE_BACK_CAVE = 5;
+    /**
+     * The key of an occupied cave, indexed by cave.
+     */
+    static final int CAVE = 6;
+    /**
+     * The key of the player whose turn it is, indexed by seat.
+     */
+    static final int SEAT = 7;
+    /**
+     * The key of the winner, indexed by seat.
+     */
+    static final int WINNER = 8;
+    /**
+     * The key of a card flipped this turn, indexed by slot.
+     */
+    static final int SLOT = 9;
+
+    private static final long SEED = 0x5DEECE66DF1E4D9BL;
+
+    /**
+     * Prevents instantiation.
+     */
+    private ZobristKeys() {
+    }
+
+    /**
+     * Derives the key of a feature of the game state.
+     *
+     * @param feature The kind of feature, one of the constants of this class.
+     * @param index   The seat, tile, cave or slot the feature belongs to.
+     * @param value   The value of the feature, or 0 if it has none.
+     * @return The key.
+     */
+    static long key(int feature, int index, int value) {
+        long z = SEED ^ ((long) feature << 56) ^ ((long) index << 32) ^ (value & 0xFFFFFFFFL);
+        // The SplitMix64 finaliser spreads every input bit over the whole key
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
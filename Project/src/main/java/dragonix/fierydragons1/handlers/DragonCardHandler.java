@@ -2,21 +2,23 @@ package dragonix.fierydragons1.handlers;
 
 import dragonix.fierydragons1.Game;
 import dragonix.fierydragons1.cards.CardFactory;
+import dragonix.fierydragons1.cards.CreatureName;
 import dragonix.fierydragons1.cards.DragonCards;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import javafx.animation.PauseTransition;
 import javafx.scene.control.Button;
+import javafx.util.Duration;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
+import java.util.random.RandomGenerator;
 import javafx.application.Platform;
 /**
  * Handles the logic for assigning creatures to dragon card buttons in the game.
+ * Each button is bound to the slot of the same index in the {@link DragonCardRegistry}.
  */
 public class DragonCardHandler {
-    private final CardFactory cardFactory = new CardFactory();
     private final Game game;
-    // Update the HashMap to store DragonCards instead of String
-    private HashMap<Button, DragonCards> buttonDragonCardsHashMap = new HashMap<>();
+    private DragonCardRegistry dragonCardRegistry;
     private List<Button> dragonButtons;
 
     /**
@@ -29,37 +31,38 @@ public class DragonCardHandler {
 
     /**
      * Assigns a random creature to each dragon card button.
-     * The method repeats each creature a set number of times, shuffles the collection,
-     * and then assigns each creature to a button from the list of dragon buttons.
+     * The cards are drawn from the shuffled deck of the card factory and stored in the slot
+     * of the same index as the button in the list of dragon buttons.
      *
      * @param dragonButtons A list of buttons representing dragon cards.
+     * @param random        The random number generator used to shuffle the deck.
      * @throws IllegalArgumentException If there are not enough creature entries to assign to buttons.
      */
-    public void assignCreaturesToDragonButtons(List<Button> dragonButtons) {
+    public void assignCreaturesToDragonButtons(List<Button> dragonButtons, RandomGenerator random) {
         this.dragonButtons = dragonButtons;
-        Collections.shuffle(dragonButtons); // Shuffle buttons to assign cards randomly
+        CardFactory cardFactory = new CardFactory(random);
 
         // Check if we have at least as many dragon cards as buttons
         if (dragonButtons.size() > 3 * cardFactory.getCardTypes()) {
             throw new IllegalArgumentException("Not enough DragonCards can be assigned to buttons");
         }
 
-        // Assign each dragon card to a button
-        for (Button button : dragonButtons) {
+        // Assign each dragon card to a slot and bind the button to it
+        dragonCardRegistry = new DragonCardRegistry(dragonButtons.size());
+        for (int slot = 0; slot < dragonButtons.size(); slot++) {
             DragonCards card;
             try {
                 card = cardFactory.createRandomDragonCard(); // Create a new DragonCard
             } catch (IllegalStateException e) {
                 throw new IllegalArgumentException("Not enough unique DragonCards can be assigned to buttons");
             }
-
-            // Store the DragonCards object directly in the HashMap
-            buttonDragonCardsHashMap.put(button, card);
+            dragonCardRegistry.set(slot, card.getCreatureName(), card.getQuantity());
 
             // Set event handler to flip the card when clicked
-            button.setOnAction(e -> {
-                flipCard(button);
-                game.handleClickedButton(button);
+            int clickedSlot = slot;
+            dragonButtons.get(slot).setOnAction(e -> {
+                flipCard(clickedSlot);
+                game.handleClickedCard(clickedSlot);
             });
         }
     }
@@ -70,32 +73,24 @@ public class DragonCardHandler {
      * @param seconds The duration for which the card will remain flipped (in seconds).
      */
     void flipCardForDuration(Button button, int seconds) {
-        flipCard(button); // Flip the card immediately on button press
+        flipCard(dragonButtons.indexOf(button)); // Flip the card immediately on button press
         button.setDisable(true); // Disable the button to prevent further clicks
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(seconds * 1000L); // Sleep in a separate thread
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Handle interrupted exception
-                System.err.println("Sleep interrupted: " + e.getMessage());
-            }
-
-            Platform.runLater(() -> { // Update UI on JavaFX thread after sleep
-                unflipCard(button);
-                button.setDisable(false);
-            });
-        }).start(); // Start the thread
+        // Unflip on the JavaFX thread once the pause ends, without a thread per flip
+        PauseTransition pause = new PauseTransition(Duration.seconds(seconds));
+        pause.setOnFinished(e -> unflipCard(button));
+        pause.play();
     }
     /**
-     * Flips the card associated with the specified button.
+     * Flips the card in the specified slot.
      *
-     * @param button The button whose associated card will be flipped.
+     * @param slot The slot of the card that will be flipped.
      */
-    private void flipCard(Button button) {
-        DragonCards card = game.getButtonDragonCardsHashMap().get(button);
-        if (card != null) {
-            String buttonText = card.getCreatureName().getName() + " (" + card.getQuantity() + ")";
+    private void flipCard(int slot) {
+        CreatureName creature = slot < 0 ? null : dragonCardRegistry.getCreature(slot);
+        if (creature != null) {
+            Button button = dragonButtons.get(slot);
+            String buttonText = creature.getName() + " (" + dragonCardRegistry.getQuantity(slot) + ")";
             Platform.runLater(() -> button.setText(buttonText)); // Make sure UI update is done on the JavaFX thread
         } else {
             System.err.println("No card associated with this button.");
@@ -118,27 +113,41 @@ public class DragonCardHandler {
      * Unflips all cards.
      */
     public void unflipCards() {
-        for (Button button : buttonDragonCardsHashMap.keySet()) {
+        for (Button button : dragonButtons) {
             button.setText("");
             button.setDisable(false);
         }
     }
     /**
-     * Gets the HashMap containing the association between buttons and dragon cards.
+     * Gets the dragon cards assigned to the buttons, indexed by slot.
      *
-     * @return The HashMap containing the association between buttons and dragon cards.
+     * @return The dragon card registry.
      */
-    public HashMap<Button, DragonCards> getButtonDragonCardsHashMap() {
-        return buttonDragonCardsHashMap;
+    public DragonCardRegistry getDragonCardRegistry() {
+        return dragonCardRegistry;
     }
 
     /**
-     * Sets the HashMap containing the association between buttons and dragon cards.
+     * Gets the button bound to a card slot.
      *
-     * @param buttonDragonCardsHashMap The HashMap containing the association between buttons and dragon cards.
+     * @param slot The slot index.
+     * @return The button displaying the card in the slot.
      */
-    public void setButtonDragonCardsHashMap(HashMap<Button, DragonCards> buttonDragonCardsHashMap) {
-        this.buttonDragonCardsHashMap = buttonDragonCardsHashMap;
+    public Button getButton(int slot) {
+        return dragonButtons.get(slot);
+    }
+
+    /**
+     * Gets the IDs of the buttons, indexed by slot, as used in save files.
+     *
+     * @return The button IDs.
+     */
+    public String[] getButtonIds() {
+        String[] buttonIds = new String[dragonButtons.size()];
+        for (int slot = 0; slot < buttonIds.length; slot++) {
+            buttonIds[slot] = dragonButtons.get(slot).getId();
+        }
+        return buttonIds;
     }
     /**
      * Gets the list of buttons representing dragon cards.
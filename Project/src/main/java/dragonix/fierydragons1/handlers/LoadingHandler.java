@@ -1,33 +1,45 @@
 package dragonix.fierydragons1.handlers;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
-import dragonix.fierydragons1.Player;
-
-import dragonix.fierydragons1.handlers.adapters.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import dragonix.fierydragons1.save.BinarySaveFormat;
+import dragonix.fierydragons1.save.CompressedSaveFormat;
+import dragonix.fierydragons1.save.JsonSaveFormat;
+import dragonix.fierydragons1.save.SaveCatalogue;
+import dragonix.fierydragons1.save.SaveJournal;
+import dragonix.fierydragons1.save.SaveState;
 import javafx.scene.control.Alert;
-import javafx.scene.control.Button;
-import javafx.scene.image.ImageView;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
+import javafx.scene.control.ChoiceDialog;
 import javafx.stage.FileChooser;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.lang.reflect.Type;
-
-import java.util.Map;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 /**
- * The LoadingHandler class handles loading game data from a JSON file.
- * It provides methods to deserialize JSON data and retrieve the game state information.
+ * The LoadingHandler class handles loading game data from a save file.
+ * Binary saves, save journals and compressed saves are recognised by their magic numbers and decoded
+ * by {@link BinarySaveFormat}, {@link SaveJournal} and {@link CompressedSaveFormat}; any other file is
+ * streamed as JSON by
+ * {@link JsonSaveFormat}. All of them are returned as a {@link SaveState}.
+ * Saves are picked from the catalogue of the save directory, see {@link SaveCatalogue}, which is
+ * memory-mapped and listed without opening any save, so the load screen opens at once however many
+ * saves there are; files that are not catalogued can still be picked with a file chooser.
  */
 public class LoadingHandler {
-    private Gson gson;
+    /**
+     * The number of most recently saved games offered by {@link #chooseGame}.
+     */
+    public static final int MAX_LISTED_GAMES = 50;
+
     private File initialDirectory;
-    private Map<String, Object> gameData;
     /**
      * Constructs a LoadingHandler object with the specified initial directory path.
      *
@@ -38,44 +50,179 @@ public class LoadingHandler {
         if (!this.initialDirectory.exists()) {
             this.initialDirectory.mkdirs();
         }
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(Button.class, new ButtonTypeAdapter())
-                .registerTypeAdapter(Circle.class, new CircleTypeAdapter())
-                .registerTypeAdapter(Color.class, new ColorTypeAdapter())
-                .registerTypeAdapter(ImageView.class, new ImageViewTypeAdapter())
-                .registerTypeAdapter(Player.class, new PlayerDeserializer())
-                .setPrettyPrinting()
-                .create();
     }
     /**
-     * Loads game data from a JSON file selected by the user.
+     * Loads a saved game picked by the user from the latest save of each catalogued game, most
+     * recent first, or from a file chooser if the user asks for one or nothing is catalogued.
+     *
+     * @param cardSlotIds The button ID of every dragon card slot, which JSON saves key the cards by.
+     * @return The saved game, or null if nothing was picked or it could not be read.
+     * @throws IOException If an I/O error occurs while loading the file.
+     */
+    public SaveState chooseGame(String[] cardSlotIds) throws IOException {
+        SaveCatalogue catalogue = openCatalogue();
+        // Sorted by time, since journal entries are brought up to date in place rather than appended
+        int[] games = catalogue.sort(catalogue.latestPerGame(), catalogue::getTimestamp, true);
+        if (games.length == 0) {
+            return loadGameFromFile(cardSlotIds);
+        }
+
+        List<SaveChoice> choices = new ArrayList<>();
+        for (int i = 0; i < Math.min(games.length, MAX_LISTED_GAMES); i++) {
+            choices.add(new SaveChoice(catalogue, games[i]));
+        }
+        SaveChoice browse = new SaveChoice(null, -1);
+        choices.add(browse);
+        ChoiceDialog<SaveChoice> dialog = new ChoiceDialog<>(choices.get(0), choices);
+        dialog.setTitle("Load Game");
+        dialog.setHeaderText("Choose a saved game");
+        dialog.setContentText("Game:");
+
+        Optional<SaveChoice> choice = dialog.showAndWait();
+        if (choice.isEmpty()) {
+            return null;
+        }
+        if (choice.get() == browse) {
+            return loadGameFromFile(cardSlotIds);
+        }
+        return loadGameFromCatalogue(catalogue, choice.get().entry, cardSlotIds);
+    }
+
+    /**
+     * Loads a saved game from a file selected by the user.
      *
-     * @return The loaded game data as a Map.
+     * @param cardSlotIds The button ID of every dragon card slot, which JSON saves key the cards by.
+     * @return The saved game, or null if no file was selected or it could not be read.
      * @throws IOException If an I/O error occurs while loading the file.
      */
-    public Map<String, Object> loadGameFromFile() throws IOException {
+    public SaveState loadGameFromFile(String[] cardSlotIds) throws IOException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Game Save File");
         fileChooser.setInitialDirectory(initialDirectory);
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("JSON Files", "*.json"),
+                new FileChooser.ExtensionFilter("Save Files", "*." + BinarySaveFormat.EXTENSION, "*." + SaveJournal.EXTENSION,
+                        "*." + CompressedSaveFormat.EXTENSION, "*.json"),
                 new FileChooser.ExtensionFilter("All Files", "*.*")
         );
 
         File selectedFile = fileChooser.showOpenDialog(null); // Pass null to center on the screen
-        if (selectedFile != null) {
-            try (FileReader reader = new FileReader(selectedFile)) {
-                Type type = new TypeToken<Map<String, Object>>() {}.getType();
-                gameData = gson.fromJson(reader, type);
-            } catch (JsonSyntaxException e) {
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Json Format Error");
-                alert.setHeaderText("Json Format Error"); // No header text
-                alert.setContentText("Please check if the json format is correct.");
-                alert.showAndWait();
+        if (selectedFile == null) {
+            return null;
+        }
+        return loadGame(selectedFile, cardSlotIds);
+    }
+
+    /**
+     * Maps the catalogue of the save directory, which lists every save written to it.
+     *
+     * @return The catalogue as it is now, or an empty one if it cannot be read.
+     */
+    public SaveCatalogue openCatalogue() {
+        try {
+            return SaveCatalogue.open(initialDirectory.toPath().resolve(SaveCatalogue.FILE_NAME));
+        } catch (IOException e) {
+            System.err.println("The save catalogue could not be read: " + e);
+            return SaveCatalogue.empty();
+        }
+    }
+
+    /**
+     * Loads the saved game of a catalogue entry.
+     *
+     * @param catalogue   The catalogue of the save directory.
+     * @param entry       The index of the entry.
+     * @param cardSlotIds The button ID of every dragon card slot, which JSON saves key the cards by.
+     * @return The saved game, or null if it could not be read.
+     */
+    public SaveState loadGameFromCatalogue(SaveCatalogue catalogue, int entry, String[] cardSlotIds) {
+        return loadGame(new File(initialDirectory, catalogue.getFileName(entry)), cardSlotIds);
+    }
+
+    /**
+     * Loads a saved game from a file, showing an error if it cannot be read.
+     *
+     * @param file        The save file.
+     * @param cardSlotIds The button ID of every dragon card slot, which JSON saves key the cards by.
+     * @return The saved game, or null if it could not be read.
+     */
+    private SaveState loadGame(File file, String[] cardSlotIds) {
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            if (BinarySaveFormat.isBinarySave(in)) {
+                return BinarySaveFormat.read(new DataInputStream(in));
+            }
+            if (SaveJournal.isJournal(in)) {
+                return SaveJournal.replay(new DataInputStream(in));
+            }
+            if (CompressedSaveFormat.isCompressedSave(in)) {
+                return CompressedSaveFormat.read(in, cardSlotIds);
             }
+            try {
+                return JsonSaveFormat.read(new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8)), cardSlotIds);
+            } catch (MalformedJsonException | EOFException e) {
+                showError("Json Format Error", "Please check if the json format is correct.");
+                return null;
+            }
+        } catch (EOFException e) {
+            // Only the binary formats get here, so the file ends before the save does
+            showError("Invalid Save Data", "The save file is truncated.");
+        } catch (IOException e) {
+            showError("Invalid Save Data", "The save file could not be read: " + e.getMessage());
         }
-        return gameData;
+        return null;
     }
 
+    /**
+     * The SaveChoice class is one catalogued save offered by {@link #chooseGame}, or the choice to
+     * browse for a file when it has no entry.
+     */
+    private static final class SaveChoice {
+        private final int entry;
+        private final String label;
+
+        /**
+         * Constructs a SaveChoice, reading its label from the catalogue.
+         *
+         * @param catalogue The catalogue, or null to browse for a file.
+         * @param entry     The index of the entry.
+         */
+        private SaveChoice(SaveCatalogue catalogue, int entry) {
+            this.entry = entry;
+            if (catalogue == null) {
+                this.label = "Browse for a save file...";
+                return;
+            }
+            List<String> players = new ArrayList<>(catalogue.getPlayerCount(entry));
+            for (int player = 0; player < catalogue.getPlayerCount(entry); player++) {
+                players.add(catalogue.getPlayerName(entry, player));
+            }
+            int currentPlayer = catalogue.getCurrentPlayer(entry);
+            String current = currentPlayer < players.size() ? players.get(currentPlayer) : "nobody";
+            this.label = String.format("%tF %<tR  turn %d, %s to play  (%s)", catalogue.getTimestamp(entry),
+                    catalogue.getTurn(entry), current, String.join(", ", players));
+        }
+
+        /**
+         * Retrieves the label shown for the choice.
+         *
+         * @return The label.
+         */
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Shows an error dialog.
+     *
+     * @param title   The title and header of the dialog.
+     * @param message The message of the dialog.
+     */
+    private void showError(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(title);
+        alert.setHeaderText(title);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
 }
@@ -1,123 +1,478 @@
 package dragonix.fierydragons1.handlers;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import dragonix.fierydragons1.cards.CreatureName;
-import dragonix.fierydragons1.cards.DragonCards;
-import dragonix.fierydragons1.handlers.adapters.ButtonTypeAdapter;
-import dragonix.fierydragons1.handlers.adapters.CircleTypeAdapter;
-import dragonix.fierydragons1.handlers.adapters.ColorTypeAdapter;
-import dragonix.fierydragons1.handlers.adapters.ImageViewTypeAdapter;
-import javafx.scene.control.Button;
-import javafx.scene.image.ImageView;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import java.io.File;
-import java.io.FileWriter;
+import com.google.gson.stream.JsonWriter;
+import dragonix.fierydragons1.save.BinarySaveFormat;
+import dragonix.fierydragons1.save.CompressedSaveFormat;
+import dragonix.fierydragons1.save.JsonSaveFormat;
+import dragonix.fierydragons1.save.SaveCatalogue;
+import dragonix.fierydragons1.save.SaveJournal;
+import dragonix.fierydragons1.save.SaveState;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 /**
- * The SavingHandler class handles the saving of game data to a JSON file.
- * It provides methods to serialize game state information, such as volcano card sequence,
- * dragon card information, and any additional game state provided, into a JSON format
- * and save it to a specified directory.
+ * The SavingHandler class handles the saving of game data to a file.
+ * Games are saved in the compact binary format of {@link BinarySaveFormat}, or exported as JSON for
+ * debugging. Both formats are streamed from a {@link SaveState} straight into a buffered file. Exports
+ * can instead be compressed with the preset dictionary of {@link CompressedSaveFormat}, which shrinks
+ * them to a fraction of their size.
+ * <p>
+ * Every file is written next to its destination under a temporary name, forced to disk and then
+ * renamed into place in one step, so a crash never leaves a half-written save behind. Saves can be
+ * written on a background thread, so the JavaFX thread only takes the snapshot; all background saves
+ * go through one thread, in the order they were asked for.
+ * <p>
+ * Autosaves are appended to a journal of the game, see {@link SaveJournal}, so a turn adds a delta of
+ * a few tens of bytes instead of rewriting the whole game. Once the journal grows past a threshold it
+ * is compacted on the background thread: the latest state is written as a fresh journal holding one
+ * base record, which replaces the old journal in one step.
+ * <p>
+ * Every file written is also described in the catalogue of the save directory, see
+ * {@link SaveCatalogue}, under the game ID and turn the save holds. A save that cannot be catalogued
+ * is still kept. A journal is catalogued when it is created, and its entry is then updated in place
+ * with the turn of each append.
  */
 public class SavingHandler {
-    private HashMap<Integer, CreatureName> volcanoCardsHashMap;
-    private HashMap<Button, DragonCards> buttonDragonCardsHashMap;
-    private Gson gson = new GsonBuilder()
-            .registerTypeAdapter(Button.class, new ButtonTypeAdapter())
-            .registerTypeAdapter(Circle.class, new CircleTypeAdapter())
-            .registerTypeAdapter(Color.class, new ColorTypeAdapter())
-            .registerTypeAdapter(ImageView.class, new ImageViewTypeAdapter())
-            .setPrettyPrinting()
-            .create();
+    /**
+     * The default size in bytes past which a journal is compacted.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 4096;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "save-writer");
+        // Saves are atomic, so one cut short by the application exiting leaves the previous file in place
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only used on the writer thread, so that saves of several games never write the same catalogue at once
+    private static final Map<Path, SaveCatalogue.Appender> CATALOGUES = new HashMap<>();
+
+    private final AtomicReference<SaveState> pendingAutosave = new AtomicReference<>();
+    private String[] cardSlotIds = new String[0];
     private String saveDirectory;
+    private volatile long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private volatile boolean compressExports;
+    private volatile Path journalFile;
+    // The other journal fields are only used on the writer thread
+    private FileChannel journal;
+    private SaveState journalState;
+    private long journalSize;
+    // The catalogue entry of the journal, and the game and players it was written for
+    private long journalEntry = -1;
+    private long journalGameId;
+    private List<String> journalPlayers;
     /**
-     * Constructs a SavingHandler object with the given button-to-dragon-cards mapping,
-     * volcano card sequence, and save directory.
+     * Constructs a SavingHandler object that saves into the given directory.
      *
-     * @param buttonDragonCardsHashMap HashMap containing button to dragon card mapping.
-     * @param volcanoCardsHashMap      HashMap containing volcano card sequence.
-     * @param saveDirectory            Directory where the game data will be saved.
+     * @param saveDirectory Directory where the game data will be saved.
      */
-    public SavingHandler(HashMap<Button, DragonCards> buttonDragonCardsHashMap, HashMap<Integer, CreatureName> volcanoCardsHashMap, String saveDirectory) {
-        this.buttonDragonCardsHashMap = buttonDragonCardsHashMap;
-        this.volcanoCardsHashMap = volcanoCardsHashMap;
+    public SavingHandler(String saveDirectory) {
         this.saveDirectory = saveDirectory;
     }
     /**
-     * Serializes the game state into a JSON string.
+     * Generates a unique file name based on the current date and time.
      *
-     * @param gameState Additional game state information.
-     * @return JSON string representing the serialized game state.
+     * @param extension The extension of the file.
+     * @return A unique file name for saving the game data.
      */
-    public String saveGame(HashMap<String, Object> gameState) {
-        HashMap<String, Object> gameData = new HashMap<>();
-        gameData.put("volcanoCardSequence", volcanoCardsHashMap);
-
-        // Convert Button objects to their IDs for serialization
-        HashMap<String, DragonCards> buttonIdsToDragonCards = new HashMap<>();
-        for (Map.Entry<Button, DragonCards> entry : buttonDragonCardsHashMap.entrySet()) {
-            buttonIdsToDragonCards.put(entry.getKey().getId(), entry.getValue());
+    private Path generateFileName(String extension) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HHmmssSSS");
+        String date = dateFormat.format(new Date());
+        String fileName = String.format("%s-save-file.%s", date, extension);
+        return Path.of(saveDirectory, fileName);
+    }
+    /**
+     * Saves a game to a new binary file.
+     *
+     * @param state The game to save.
+     * @return The saved file.
+     * @throws IOException If an I/O error occurs while saving the file.
+     */
+    private Path saveGameToFile(SaveState state) throws IOException {
+        Path file = generateFileName(BinarySaveFormat.EXTENSION);
+        writeBinary(file, state);
+        catalogue(file, SaveCatalogue.BINARY, state);
+        System.out.println("Game data saved to " + file);
+        return file;
+    }
+    /**
+     * Saves a game to a new JSON file, compressed if exports are compressed.
+     *
+     * @param state The game to save.
+     * @return The saved file.
+     * @throws IOException If an I/O error occurs while saving the file.
+     */
+    private Path exportGameToFile(SaveState state) throws IOException {
+        if (compressExports) {
+            Path file = generateFileName(CompressedSaveFormat.EXTENSION);
+            writeAtomically(file, out -> CompressedSaveFormat.write(state, cardSlotIds, out));
+            catalogue(file, SaveCatalogue.COMPRESSED_JSON, state);
+            System.out.println("Game data saved to " + file);
+            return file;
         }
-        gameData.put("dragonCardsInfo", buttonIdsToDragonCards);
-
-        // Merge gameState into gameData if gameState is not null
-        if (gameState != null) {
-            gameData.putAll(gameState);
+        Path file = generateFileName("json");
+        writeAtomically(file, out -> {
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.setIndent("  ");
+            JsonSaveFormat.write(state, cardSlotIds, writer);
+            writer.flush();
+        });
+        catalogue(file, SaveCatalogue.JSON, state);
+        System.out.println("Game data saved to " + file);
+        return file;
+    }
+    /**
+     * Saves a game to a new binary file on the background thread.
+     *
+     * @param state The game to save.
+     * @return A future that completes with the saved file, or with the error that stopped the save.
+     */
+    public CompletableFuture<Path> saveGameInBackground(SaveState state) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return saveGameToFile(state);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
+    }
+    /**
+     * Saves a game to a new JSON file on the background thread.
+     *
+     * @param state The game to save.
+     * @return A future that completes with the saved file, or with the error that stopped the save.
+     */
+    public CompletableFuture<Path> exportGameInBackground(SaveState state) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return exportGameToFile(state);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
+    }
+    /**
+     * Appends a game to its journal on the background thread. If autosaves come in faster than they
+     * are written, only the latest one that is still waiting is written.
+     *
+     * @param state The game to save.
+     */
+    public void autosave(SaveState state) {
+        if (pendingAutosave.getAndSet(state) == null) {
+            WRITER.execute(this::writeAutosave);
         }
-
-        return gson.toJson(gameData);
     }
     /**
-     * Generates a unique file name based on the current date and time.
+     * Appends the latest waiting autosave to the journal, and compacts the journal afterwards if it has
+     * grown past the threshold.
+     */
+    private void writeAutosave() {
+        SaveState state = pendingAutosave.getAndSet(null);
+        if (state == null) {
+            return;
+        }
+        try {
+            if (appendToJournal(state)) {
+                catalogueJournal(state);
+            }
+            if (journalSize > compactionThreshold) {
+                // Queued behind any autosave waiting by now, so the append it is waiting for comes first
+                WRITER.execute(this::compactJournal);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Autosave failed: " + e);
+        }
+    }
+    /**
+     * Appends the record that brings the journal to a game state, creating the journal on the first append.
      *
-     * @return A unique file name for saving the game data.
+     * @param state The game to save.
+     * @return True if a record was appended, false if nothing changed since the last one.
+     * @throws IOException If an I/O error occurs while writing the journal.
      */
-    private String generateFileName() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HHmmssSSS");
-        String date = dateFormat.format(new Date());
-        String fileName = String.format("%s-save-file.json", date);
-        return saveDirectory + "/" + fileName;
+    private boolean appendToJournal(SaveState state) throws IOException {
+        byte[] record = SaveJournal.encodeRecord(journalState, state);
+        if (record == null) {
+            return false;
+        }
+        if (journal == null) {
+            if (journalFile == null) {
+                journalFile = generateFileName(SaveJournal.EXTENSION);
+                Files.createDirectories(journalFile.toAbsolutePath().getParent());
+            }
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            journalSize = journal.size();
+            if (journalSize == 0) {
+                ByteBuffer header = ByteBuffer.allocate(SaveJournal.HEADER_SIZE);
+                header.putInt(SaveJournal.MAGIC).put((byte) SaveJournal.VERSION).flip();
+                journalSize += writeFully(journal, header);
+                journal.force(false);
+                forceDirectory(journalFile.toAbsolutePath().getParent());
+            }
+        }
+        try {
+            writeFully(journal, ByteBuffer.wrap(record));
+            journal.force(false);
+        } catch (IOException e) {
+            // Replaying stops at a torn record, so cut it off before anything is appended after it
+            journal.truncate(journalSize);
+            throw e;
+        }
+        journalSize += record.length;
+        journalState = state;
+        return true;
     }
     /**
-     * Saves the game data to a JSON file.
+     * Describes a saved file in the catalogue of the save directory. Failures are only reported,
+     * since the save itself has been written.
      *
-     * @param gameState Additional game state information.
-     * @throws IOException If an I/O error occurs while saving the file.
+     * @param file  The saved file.
+     * @param kind  The kind of save, see {@link SaveCatalogue#BINARY}.
+     * @param state The saved game.
+     * @return The byte offset of the entry in the catalogue, or -1 if it could not be written.
      */
-    public void saveGameToFile(HashMap<String, Object> gameState) throws IOException {
-        // Ensure the save directory exists
-        File directory = new File(saveDirectory);
-        if (!directory.exists()) {
-            directory.mkdirs();
+    private long catalogue(Path file, int kind, SaveState state) {
+        List<String> playerNames = playerNames(state);
+        // The current player is last in the queue
+        SaveCatalogue.Entry entry = new SaveCatalogue.Entry(state.getGameId(), System.currentTimeMillis(), state.getTurn(), kind,
+                file.getFileName().toString(), playerNames, Math.max(playerNames.size() - 1, 0));
+        try {
+            return catalogueAppender().append(entry);
+        } catch (IOException e) {
+            System.err.println("Cataloguing " + file + " failed: " + e);
+            return -1;
         }
-
-        String fileName = generateFileName();
-        try (FileWriter fileWriter = new FileWriter(fileName)) {
-            fileWriter.write(saveGame(gameState));
+    }
+    /**
+     * Brings the catalogue entry of the journal up to date after an append. The journal is catalogued
+     * on its first append and whenever it starts holding another game or other players; otherwise only
+     * the time, turn and current player of its entry are rewritten.
+     *
+     * @param state The game the journal now ends with.
+     */
+    private void catalogueJournal(SaveState state) {
+        List<String> playerNames = playerNames(state);
+        if (journalEntry < 0 || journalGameId != state.getGameId() || playerNames.size() != journalPlayers.size()
+                || !journalPlayers.containsAll(playerNames)) {
+            journalEntry = catalogue(journalFile, SaveCatalogue.JOURNAL, state);
+            journalGameId = state.getGameId();
+            journalPlayers = playerNames;
+            return;
+        }
+        // The queue turns, but the entry keeps the names in the order they were catalogued in
+        int currentPlayer = playerNames.isEmpty() ? 0 : journalPlayers.indexOf(playerNames.get(playerNames.size() - 1));
+        try {
+            catalogueAppender().update(journalEntry, System.currentTimeMillis(), state.getTurn(), currentPlayer);
+        } catch (IOException e) {
+            System.err.println("Cataloguing " + journalFile + " failed: " + e);
         }
-        System.out.println("Game data saved to " + fileName);
     }
     /**
-     * Sets the button-to-dragon-cards mapping.
+     * Retrieves the appender of the catalogue of the save directory, opening it on first use.
      *
-     * @param buttonDragonCardsHashMap New HashMap containing button to dragon card mapping.
+     * @return The appender.
+     * @throws IOException If the catalogue cannot be opened.
      */
-    public void setButtonDragonCardsHashMap(HashMap<Button, DragonCards> buttonDragonCardsHashMap) {
-        this.buttonDragonCardsHashMap = buttonDragonCardsHashMap;
+    private SaveCatalogue.Appender catalogueAppender() throws IOException {
+        Path catalogueFile = Path.of(saveDirectory, SaveCatalogue.FILE_NAME).toAbsolutePath();
+        SaveCatalogue.Appender appender = CATALOGUES.get(catalogueFile);
+        if (appender == null) {
+            appender = new SaveCatalogue.Appender(catalogueFile);
+            CATALOGUES.put(catalogueFile, appender);
+        }
+        return appender;
     }
     /**
-     * Sets the volcano card sequence.
+     * Lists the names of the players of a game.
      *
-     * @param volcanoCardsHashMap New HashMap containing volcano card sequence.
+     * @param state The game.
+     * @return The names in queue order.
      */
-    public void setVolcanoCardsHashMap(HashMap<Integer, CreatureName> volcanoCardsHashMap) {
-        this.volcanoCardsHashMap = volcanoCardsHashMap;
+    private static List<String> playerNames(SaveState state) {
+        List<String> playerNames = new ArrayList<>(state.getPlayers().size());
+        for (SaveState.PlayerState player : state.getPlayers()) {
+            playerNames.add(player.getName());
+        }
+        return playerNames;
+    }
+    /**
+     * Writes a buffer to a channel in full.
+     *
+     * @param channel The channel to write to.
+     * @param buffer  The bytes to write.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs while writing.
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return written;
+    }
+    /**
+     * Replaces the journal with one holding only the latest state as a base record.
+     */
+    private void compactJournal() {
+        if (journal == null || journalSize <= compactionThreshold) {
+            return;
+        }
+        try {
+            journal.close();
+            journal = null;
+            byte[] base = SaveJournal.encodeRecord(null, journalState);
+            writeAtomically(journalFile, out -> {
+                DataOutputStream data = new DataOutputStream(out);
+                SaveJournal.writeHeader(data);
+                data.write(base);
+                data.flush();
+            });
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Journal compaction failed: " + e);
+        }
+    }
+    /**
+     * Writes any waiting autosave and closes the journal. A later autosave reopens it.
+     */
+    public void closeJournal() {
+        WRITER.execute(() -> {
+            writeAutosave();
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Closing the journal failed: " + e);
+                }
+                journal = null;
+            }
+        });
+    }
+    /**
+     * Retrieves the journal autosaves are appended to.
+     *
+     * @return The journal file, or null if nothing has been autosaved yet.
+     */
+    public Path getJournalFile() {
+        return journalFile;
+    }
+    /**
+     * Sets the size past which the journal is compacted.
+     *
+     * @param compactionThreshold The threshold in bytes.
+     */
+    public void setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+    /**
+     * Sets whether games are exported as compressed JSON instead of plain JSON.
+     *
+     * @param compressExports True to compress exports, false to write them as readable JSON.
+     */
+    public void setCompressExports(boolean compressExports) {
+        this.compressExports = compressExports;
+    }
+    /**
+     * Waits until every save asked for so far has been written.
+     *
+     * @return A future that completes once the background thread has caught up.
+     */
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(() -> { }, WRITER);
+    }
+    /**
+     * Writes a game to a binary file.
+     *
+     * @param file  The file to write.
+     * @param state The game to save.
+     * @throws IOException If an I/O error occurs while saving the file.
+     */
+    private void writeBinary(Path file, SaveState state) throws IOException {
+        writeAtomically(file, out -> {
+            DataOutputStream data = new DataOutputStream(out);
+            BinarySaveFormat.write(state, data);
+            data.flush();
+        });
+    }
+    /**
+     * Writes a file under a temporary name, forces it to disk and renames it into place, so that the
+     * file is either the complete new content or untouched. The directory is forced after the rename
+     * where the platform allows it, so the rename itself survives a crash.
+     *
+     * @param file    The file to write.
+     * @param content Writes the content of the file.
+     * @throws IOException If an I/O error occurs while saving the file.
+     */
+    private void writeAtomically(Path file, SaveContent content) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                // The buffered stream is flushed by the content but not closed, which would close the channel
+                content.write(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        forceDirectory(directory);
+    }
+    /**
+     * Forces the entries of a directory to disk, so that files created or renamed in it survive a crash.
+     * Platforms that cannot open a directory as a channel, such as Windows, are skipped.
+     *
+     * @param directory The directory to force.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // The file itself is on disk; only its directory entry may be lost in a crash
+        }
+    }
+    /**
+     * Sets the IDs under which each dragon card slot is saved in JSON.
+     *
+     * @param cardSlotIds The button ID of every slot.
+     */
+    public void setCardSlotIds(String[] cardSlotIds) {
+        this.cardSlotIds = cardSlotIds;
     }
-}
 
+    /**
+     * The SaveContent interface writes the content of a save file.
+     */
+    private interface SaveContent {
+        /**
+         * Writes the content and flushes it.
+         *
+         * @param out The stream to write to.
+         * @throws IOException If the stream cannot be written.
+         */
+        void write(OutputStream out) throws IOException;
+    }
+}
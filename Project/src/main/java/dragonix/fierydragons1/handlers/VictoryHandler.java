@@ -9,12 +9,13 @@ public class VictoryHandler {
     /**
      * Checks if the specified player has achieved victory.
      * Victory is achieved if the player has returned to their starting position
-     * and has taken at least 24 steps.
+     * and has taken at least one full lap of the ring.
      *
-     * @param player The player to check for victory.
+     * @param player    The player to check for victory.
+     * @param boardSize The number of volcano tiles on the ring.
      * @return true if the player has achieved victory, false otherwise.
      */
-    public boolean checkVictory(Player player) {
-        return player.getCurrentPosition().equals(player.getStartingPosition()) && player.getStepsTaken() >= 24;
+    public boolean checkVictory(Player player, int boardSize) {
+        return player.getCurrentPosition() == player.getStartingPosition() && player.getStepsTaken() >= boardSize;
     }
 }
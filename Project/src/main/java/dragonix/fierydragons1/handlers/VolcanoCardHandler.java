@@ -1,16 +1,24 @@
 package dragonix.fierydragons1.handlers;
 
 import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.VolcanoRing;
 import javafx.scene.shape.Rectangle;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 
 /**
  * The VolcanoCardHandler class is responsible for assigning creatures to volcano cards.
  * It initializes sequences of creatures and assigns them to volcano cards.
  */
 public class VolcanoCardHandler {
+    /**
+     * The number of times the sequences are shuffled before a layout is taken even if it was rejected.
+     */
+    public static final int MAX_SHUFFLES = 64;
+
     private List<List<CreatureName>> sequences;
-    private HashMap<Integer, CreatureName> volcanoCardsHashMap = new HashMap<>();
+    private VolcanoRing volcanoRing;
 
     /**
      * Constructor for VolcanoCardHandler. Calls the method to initialize sequences of creatures.
@@ -24,7 +32,18 @@ public class VolcanoCardHandler {
      */
     private void initializeSequences() {
         sequences = new ArrayList<>();
-        CreatureName[][] volcanoSequence = new CreatureName[][] {
+        for (CreatureName[] sequence : createVolcanoSequences()) {
+            sequences.add(Arrays.asList(sequence));
+        }
+    }
+
+    /**
+     * Creates the sequences of three creatures that the volcano cards are made of, in a fixed order.
+     *
+     * @return A new array holding every volcano card sequence.
+     */
+    public static CreatureName[][] createVolcanoSequences() {
+        return new CreatureName[][] {
                 {CreatureName.BABY_DRAGON, CreatureName.BAT, CreatureName.SPIDER},
                 {CreatureName.SALAMANDER, CreatureName.SPIDER, CreatureName.BAT},
                 {CreatureName.SPIDER, CreatureName.SALAMANDER, CreatureName.BABY_DRAGON},
@@ -34,37 +53,89 @@ public class VolcanoCardHandler {
                 {CreatureName.BAT, CreatureName.BABY_DRAGON, CreatureName.SALAMANDER},
                 {CreatureName.SALAMANDER, CreatureName.BABY_DRAGON, CreatureName.SPIDER}
         };
-        for (CreatureName[] sequence : volcanoSequence) {
-            sequences.add(Arrays.asList(sequence));
+    }
+
+    /**
+     * Assigns creatures to volcano cards and fills the volcano ring with their assigned indices.
+     * Boards with more tiles than the sequences provide repeat the shuffled sequences.
+     *
+     * @param volcanoRectangles A list of rectangles representing volcano cards.
+     * @param random            The random number generator used to shuffle the sequences.
+     */
+    public void assignCreaturesToCards(List<Rectangle> volcanoRectangles, RandomGenerator random) {
+        assignCreaturesToCards(volcanoRectangles, random, order -> true);
+    }
+
+    /**
+     * Assigns creatures to volcano cards, shuffling the sequences again while the layout is rejected.
+     * The shuffles all come from the given generator, so the same generator state and filter always
+     * give the same layout. After {@link #MAX_SHUFFLES} rejected layouts the last one is kept.
+     *
+     * @param volcanoRectangles A list of rectangles representing volcano cards.
+     * @param random            The random number generator used to shuffle the sequences.
+     * @param acceptLayout      Tells whether a layout, given as the index of the sequence of
+     *                          {@link #createVolcanoSequences()} at every place around the ring, may be used.
+     */
+    public void assignCreaturesToCards(List<Rectangle> volcanoRectangles, RandomGenerator random, Predicate<int[]> acceptLayout) {
+        List<List<CreatureName>> original = new ArrayList<>();
+        for (CreatureName[] sequence : createVolcanoSequences()) {
+            original.add(Arrays.asList(sequence));
+        }
+        int[] order = new int[sequences.size()];
+        for (int shuffle = 0; shuffle < MAX_SHUFFLES; shuffle++) {
+            Collections.shuffle(sequences, random);
+            for (int i = 0; i < order.length; i++) {
+                order[i] = original.indexOf(sequences.get(i));
+            }
+            if (acceptLayout.test(order)) {
+                break;
+            }
+        }
+        fillVolcanoRing(volcanoRectangles);
+    }
+
+    /**
+     * Assigns creatures to volcano cards in a layout that has already been chosen.
+     *
+     * @param volcanoRectangles A list of rectangles representing volcano cards.
+     * @param sequenceOrder     The index of the sequence of {@link #createVolcanoSequences()} at every
+     *                          place around the ring.
+     */
+    public void assignCreaturesToCards(List<Rectangle> volcanoRectangles, int[] sequenceOrder) {
+        CreatureName[][] original = createVolcanoSequences();
+        sequences.clear();
+        for (int sequence : sequenceOrder) {
+            sequences.add(Arrays.asList(original[sequence]));
         }
+        fillVolcanoRing(volcanoRectangles);
     }
 
     /**
-     * Assigns creatures to volcano cards and fills the hashmap with their assigned indices.
+     * Colours the volcano cards and fills the volcano ring with the current order of the sequences.
      *
      * @param volcanoRectangles A list of rectangles representing volcano cards.
      */
-    public void assignCreaturesToCards(List<Rectangle> volcanoRectangles) {
-        Collections.shuffle(sequences);
+    private void fillVolcanoRing(List<Rectangle> volcanoRectangles) {
         List<CreatureName> flattenedList = sequences.stream()
                 .flatMap(List::stream)
                 .toList();
+        volcanoRing = new VolcanoRing(volcanoRectangles.size());
         for (int i = 0; i < volcanoRectangles.size(); i++) {
-            CreatureName creature = flattenedList.get(i);
+            CreatureName creature = flattenedList.get(i % flattenedList.size());
             Rectangle currentRectangle = volcanoRectangles.get(i);
             // Set the fill color of the rectangle
             currentRectangle.setFill(creature.getColor());
 
-            volcanoCardsHashMap.put(i, creature); // Fill the hashmap
+            volcanoRing.set(i, creature); // Fill the ring
         }
     }
 
     /**
-     * Retrieves the hashmap containing volcano card mappings.
+     * Retrieves the volcano ring filled by {@link #assignCreaturesToCards(List, RandomGenerator)}.
      *
-     * @return A hashmap with index-creature pairs.
+     * @return The creatures on the volcano tiles, or null if no cards have been assigned yet.
      */
-    public HashMap<Integer, CreatureName> getVolcanoCardsHashMap() {
-        return volcanoCardsHashMap;
+    public VolcanoRing getVolcanoRing() {
+        return volcanoRing;
     }
 }
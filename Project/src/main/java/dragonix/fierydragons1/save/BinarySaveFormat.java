@@ -0,0 +1,367 @@
+package dragonix.fierydragons1.save;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.VolcanoRing;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BinarySaveFormat class writes and reads saved games in a compact, versioned binary format.
+ * <p>
+ * A file starts with a magic number and a version byte, followed by the ID of the game, the turn number,
+ * the seed, the volcano tiles packed
+ * two creature ordinals to a byte, one byte per dragon card slot plus its quantity, the caves with their
+ * occupancy as a bitmask, and the players. Counts and positions are written as unsigned
+ * variable-length integers of seven bits per byte, and steps, which Dragon Pirate cards can take below
+ * zero, as zigzag-encoded ones, so a whole game takes under two hundred bytes where the JSON format takes
+ * several kilobytes. Occupied tiles are not written, since they follow from the positions of the players.
+ * <p>
+ * Version 1 files do not hold the game ID or turn; they are read with the seed as the ID, which every
+ * save of a game shares, and as turn 1. Versions 1 and 2 write steps as plain varints, where a negative
+ * count takes ten bytes.
+ */
+public final class BinarySaveFormat {
+    /**
+     * The extension of binary save files.
+     */
+    public static final String EXTENSION = "fds";
+    /**
+     * The first four bytes of every binary save, "FDSV".
+     */
+    public static final int MAGIC = 0x46445356;
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 3;
+    /**
+     * The largest number of tiles, slots, caves or players a file may declare, which keeps a corrupt
+     * count from allocating huge arrays.
+     */
+    private static final int MAX_COUNT = 1 << 16;
+    private static final int HAS_MOVED = 1;
+    private static final int GOT_MOVE_BACK = 2;
+    private static final CreatureName[] CREATURES = CreatureName.values();
+
+    /**
+     * Prevents instantiation.
+     */
+    private BinarySaveFormat() {
+    }
+
+    /**
+     * Checks whether a stream holds a binary save, without consuming anything from it.
+     *
+     * @param in The stream, positioned at the start of the file.
+     * @return True if the stream starts with the magic number, false otherwise.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static boolean isBinarySave(BufferedInputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        int magic = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            int b = in.read();
+            if (b < 0) {
+                in.reset();
+                return false;
+            }
+            magic = magic << 8 | b;
+        }
+        in.reset();
+        return magic == MAGIC;
+    }
+
+    /**
+     * Writes a saved game.
+     *
+     * @param state The game to write.
+     * @param out   The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    public static void write(SaveState state, DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(state.getGameId());
+        writeVarint(out, state.getTurn());
+        out.writeLong(state.getSeed());
+
+        int boardSize = state.getBoardSize();
+        writeVarint(out, boardSize);
+        for (int position = 0; position < boardSize; position += 2) {
+            int high = state.getVolcanoOrdinal(position) + 1;
+            int low = position + 1 < boardSize ? state.getVolcanoOrdinal(position + 1) + 1 : 0;
+            out.writeByte(high << 4 | low);
+        }
+
+        writeVarint(out, state.getCardSlotCount());
+        for (int slot = 0; slot < state.getCardSlotCount(); slot++) {
+            int creature = state.getCardCreatureOrdinal(slot);
+            out.writeByte(creature + 1);
+            if (creature >= 0) {
+                out.writeByte(state.getCardQuantity(slot));
+            }
+        }
+
+        List<SaveState.CaveState> caves = state.getCaves();
+        writeVarint(out, caves.size());
+        for (SaveState.CaveState cave : caves) {
+            writeVarint(out, cave.getAttachedPosition());
+            out.writeByte(cave.getCreature().ordinal());
+        }
+        for (int i = 0; i < caves.size(); i += Byte.SIZE) {
+            int occupied = 0;
+            for (int bit = 0; bit < Byte.SIZE && i + bit < caves.size(); bit++) {
+                if (caves.get(i + bit).isOccupied()) {
+                    occupied |= 1 << bit;
+                }
+            }
+            out.writeByte(occupied);
+        }
+
+        List<SaveState.PlayerState> players = state.getPlayers();
+        writeVarint(out, players.size());
+        for (SaveState.PlayerState player : players) {
+            byte[] name = player.getName().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, name.length);
+            out.write(name);
+            out.writeInt(player.getRgba());
+            writeVarint(out, player.getCurrentPosition());
+            writeVarint(out, player.getStartingPosition());
+            writeVarint(out, player.getStartingCave() + 1);
+            writeSignedVarint(out, player.getStepsTaken());
+            writeSignedVarint(out, player.getTotalStepsTaken());
+            out.writeByte((player.hasMoved() ? HAS_MOVED : 0) | (player.isGotMoveBack() ? GOT_MOVE_BACK : 0));
+            writeVarint(out, player.getMoveBackCave() + 1);
+        }
+    }
+
+    /**
+     * Reads a saved game.
+     *
+     * @param in The input to read from, positioned at the magic number.
+     * @return The saved game.
+     * @throws IOException If the input cannot be read or does not hold a valid binary save.
+     */
+    public static SaveState read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary save");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        long gameId = 0;
+        int turn = 1;
+        if (version >= 2) {
+            gameId = in.readLong();
+            turn = readTurn(in);
+        }
+        long seed = in.readLong();
+        if (version < 2) {
+            gameId = seed;
+        }
+
+        int boardSize = readCount(in, "tiles");
+        VolcanoRing volcanoRing = new VolcanoRing(boardSize);
+        for (int position = 0; position < boardSize; position += 2) {
+            int packed = in.readUnsignedByte();
+            volcanoRing.set(position, readCreature(packed >>> 4));
+            if (position + 1 < boardSize) {
+                volcanoRing.set(position + 1, readCreature(packed & 0xF));
+            }
+        }
+
+        DragonCardRegistry dragonCards = new DragonCardRegistry(readCount(in, "card slots"));
+        for (int slot = 0; slot < dragonCards.size(); slot++) {
+            CreatureName creature = readCreature(in.readUnsignedByte());
+            if (creature != null) {
+                dragonCards.set(slot, creature, in.readByte());
+            }
+        }
+
+        int caveCount = readCount(in, "caves");
+        int[] cavePositions = new int[caveCount];
+        CreatureName[] caveCreatures = new CreatureName[caveCount];
+        for (int i = 0; i < caveCount; i++) {
+            cavePositions[i] = readIndex(in, boardSize, "Cave position");
+            caveCreatures[i] = readCreature(in.readUnsignedByte() + 1);
+        }
+        List<SaveState.CaveState> caves = new ArrayList<>(caveCount);
+        int occupied = 0;
+        for (int i = 0; i < caveCount; i++) {
+            if (i % Byte.SIZE == 0) {
+                occupied = in.readUnsignedByte();
+            }
+            caves.add(new SaveState.CaveState(cavePositions[i], caveCreatures[i], (occupied >>> (i % Byte.SIZE) & 1) != 0));
+        }
+
+        int playerCount = readCount(in, "players");
+        List<SaveState.PlayerState> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            byte[] name = new byte[readCount(in, "name bytes")];
+            in.readFully(name);
+            int rgba = in.readInt();
+            int currentPosition = readIndex(in, boardSize, "Position");
+            int startingPosition = readIndex(in, boardSize, "Starting position");
+            int startingCave = readIndex(in, caveCount + 1, "Starting cave") - 1;
+            int stepsTaken = readSteps(in, version);
+            int totalStepsTaken = readSteps(in, version);
+            int flags = in.readUnsignedByte();
+            int moveBackCave = readIndex(in, caveCount + 1, "Move back cave") - 1;
+            players.add(new SaveState.PlayerState(new String(name, StandardCharsets.UTF_8), rgba, currentPosition,
+                    startingPosition, startingCave, stepsTaken, totalStepsTaken, (flags & HAS_MOVED) != 0,
+                    (flags & GOT_MOVE_BACK) != 0, moveBackCave));
+        }
+        return new SaveState(gameId, turn, seed, volcanoRing, dragonCards, caves, players);
+    }
+
+    /**
+     * Writes an unsigned variable-length integer, seven bits per byte with the high bit set on every
+     * byte but the last.
+     *
+     * @param out   The output to write to.
+     * @param value The value, treated as unsigned.
+     * @throws IOException If the output cannot be written.
+     */
+    static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads an unsigned variable-length integer written by {@link #writeVarint}.
+     *
+     * @param in The input to read from.
+     * @return The value.
+     * @throws IOException If the input cannot be read or the value is longer than 64 bits.
+     */
+    static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Writes a signed variable-length integer, zigzag-encoded so that values near zero take a single
+     * byte whichever their sign.
+     *
+     * @param out   The output to write to.
+     * @param value The value.
+     * @throws IOException If the output cannot be written.
+     */
+    static void writeSignedVarint(DataOutput out, int value) throws IOException {
+        writeVarint(out, (value << 1 ^ value >> 31) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads a signed variable-length integer written by {@link #writeSignedVarint}.
+     *
+     * @param in The input to read from.
+     * @return The value.
+     * @throws IOException If the input cannot be read or the value does not fit in an int.
+     */
+    static int readSignedVarint(DataInput in) throws IOException {
+        long zigzag = readVarint(in);
+        if ((zigzag & ~0xFFFFFFFFL) != 0) {
+            throw new IOException("Value " + Long.toUnsignedString(zigzag) + " is out of range");
+        }
+        int value = (int) zigzag;
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Reads a number of steps, which versions before 3 wrote as a plain varint of the sign-extended value.
+     *
+     * @param in      The input to read from.
+     * @param version The version of the file.
+     * @return The number of steps.
+     * @throws IOException If the input cannot be read or the value does not fit in an int.
+     */
+    private static int readSteps(DataInput in, int version) throws IOException {
+        if (version >= 3) {
+            return readSignedVarint(in);
+        }
+        long steps = readVarint(in);
+        if (steps < Integer.MIN_VALUE || steps > Integer.MAX_VALUE) {
+            throw new IOException("Steps " + steps + " are out of range");
+        }
+        return (int) steps;
+    }
+
+    /**
+     * Reads a count and checks that it is between 0 and {@link #MAX_COUNT}.
+     *
+     * @param in   The input to read from.
+     * @param what What is counted, for the error message.
+     * @return The count.
+     * @throws IOException If the input cannot be read or the count is out of range.
+     */
+    private static int readCount(DataInput in, String what) throws IOException {
+        long count = readVarint(in);
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Invalid number of " + what + ": " + Long.toUnsignedString(count));
+        }
+        return (int) count;
+    }
+
+    /**
+     * Reads a turn number.
+     *
+     * @param in The input to read from.
+     * @return The turn number.
+     * @throws IOException If the input cannot be read or the turn number is out of range.
+     */
+    static int readTurn(DataInput in) throws IOException {
+        long turn = readVarint(in);
+        if (turn < 0 || turn > Integer.MAX_VALUE) {
+            throw new IOException("Turn " + Long.toUnsignedString(turn) + " is out of range");
+        }
+        return (int) turn;
+    }
+
+    /**
+     * Reads an index and checks that it is below a bound.
+     *
+     * @param in    The input to read from.
+     * @param bound The number of valid indices.
+     * @param what  What is indexed, for the error message.
+     * @return The index.
+     * @throws IOException If the input cannot be read or the index is out of range.
+     */
+    private static int readIndex(DataInput in, int bound, String what) throws IOException {
+        long index = readVarint(in);
+        if (index < 0 || index >= bound) {
+            throw new IOException(what + " " + Long.toUnsignedString(index) + " is out of range");
+        }
+        return (int) index;
+    }
+
+    /**
+     * Converts a stored creature, which is its ordinal plus one, back to the creature.
+     *
+     * @param stored The stored value.
+     * @return The creature, or null if the stored value is 0.
+     * @throws IOException If there is no such creature.
+     */
+    private static CreatureName readCreature(int stored) throws IOException {
+        if (stored > CREATURES.length) {
+            throw new IOException("Unknown creature " + (stored - 1));
+        }
+        return stored == 0 ? null : CREATURES[stored - 1];
+    }
+}
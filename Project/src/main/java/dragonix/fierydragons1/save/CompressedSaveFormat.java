@@ -0,0 +1,199 @@
+package dragonix.fierydragons1.save;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The CompressedSaveFormat class writes and reads JSON saves compressed with a preset dictionary.
+ * <p>
+ * A save is far too small for deflate to find much to repeat within it, so both sides start from a
+ * dictionary of what saves usually hold: the field names, creatures, card slot IDs, the caves of the
+ * standard board and the default players with their colours. A save then mostly refers back into the
+ * dictionary instead of spelling its text out.
+ * <p>
+ * A file starts with a magic number, a version byte and the Adler-32 of the dictionary it was
+ * compressed with, followed by a raw deflate stream of the compact JSON of {@link JsonSaveFormat}.
+ * The JSON is streamed through the compressor as it is written and through the decompressor as it is
+ * read, so no copy of the whole document is made either way. The dictionary must never change once
+ * saves have been written with it; a new one needs a new ID, and a file naming an unknown dictionary
+ * is rejected.
+ */
+public final class CompressedSaveFormat {
+    /**
+     * The extension of compressed saves.
+     */
+    public static final String EXTENSION = "fdz";
+    /**
+     * The first four bytes of every compressed save, "FDSZ".
+     */
+    public static final int MAGIC = 0x4644535A;
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Typical fragments of compact JSON saves, with the most common ones last, since deflate refers to
+     * nearer text more cheaply.
+     */
+    private static final String DICTIONARY = """
+            {"version":1,"seed":"-","volcanoCardSequence":{"0":"SPIDER","1":"BAT","2":"BABY_DRAGON",\
+            "3":"SALAMANDER","4":"SPIDER","5":"BAT","6":"BABY_DRAGON","7":"SALAMANDER","8":"SPIDER",\
+            "9":"BAT","10":"BABY_DRAGON","11":"SALAMANDER","12":"SPIDER","13":"BAT","14":"BABY_DRAGON",\
+            "15":"SALAMANDER","16":"SPIDER","17":"BAT","18":"BABY_DRAGON","19":"SALAMANDER","20":"SPIDER",\
+            "21":"BAT","22":"BABY_DRAGON","23":"SALAMANDER"},"dragonCardsInfo":{\
+            "DragonCard1":{"creatureName":"SPIDER","quantity":1},\
+            "DragonCard2":{"creatureName":"BAT","quantity":2},\
+            "DragonCard3":{"creatureName":"BABY_DRAGON","quantity":3},\
+            "DragonCard4":{"creatureName":"SALAMANDER","quantity":1},\
+            "DragonCard5":{"creatureName":"MOVE_BACK","quantity":1},\
+            "DragonCard6":{"creatureName":"SPIDER","quantity":2},\
+            "DragonCard7":{"creatureName":"BAT","quantity":3},\
+            "DragonCard8":{"creatureName":"BABY_DRAGON","quantity":1},\
+            "DragonCard9":{"creatureName":"SALAMANDER","quantity":2},\
+            "DragonCard10":{"creatureName":"SPIDER","quantity":3},\
+            "DragonCard11":{"creatureName":"BAT","quantity":1},\
+            "DragonCard12":{"creatureName":"BABY_DRAGON","quantity":2},\
+            "DragonCard13":{"creatureName":"SALAMANDER","quantity":3},\
+            "DragonCard14":{"creatureName":"DRAGON_PIRATE","quantity":-1},\
+            "DragonCard15":{"creatureName":"DRAGON_PIRATE","quantity":-2},\
+            "DragonCard16":{"creatureName":"DRAGON_PIRATE","quantity":-1}},\
+            "caveList":[{"attachedPosition":2,"caveCreature":"SPIDER","isOccupied":true},\
+            {"attachedPosition":8,"caveCreature":"BAT","isOccupied":false},\
+            {"attachedPosition":14,"caveCreature":"BABY_DRAGON","isOccupied":true},\
+            {"attachedPosition":20,"caveCreature":"SALAMANDER","isOccupied":false}],"playerQueue":[\
+            {"playerName":"Player 1","color":{"red":0.0,"green":1.0,"blue":0.0,"opacity":1.0},\
+            "currentPosition":0,"startingPosition":0,\
+            "startingCave":{"attachedPosition":2,"caveCreature":"SPIDER","isOccupied":false},\
+            "totalStepsTaken":10,"hasMoved":true,"stepsTaken":10,"gotMoveBack":true,"moveBackCave":"SPIDER"},\
+            {"playerName":"Player 2","color":{"red":0.0,"green":0.0,"blue":1.0,"opacity":1.0},\
+            "currentPosition":6,"startingPosition":6,\
+            "startingCave":{"attachedPosition":8,"caveCreature":"BAT","isOccupied":true},\
+            "totalStepsTaken":0,"hasMoved":false,"stepsTaken":0,"gotMoveBack":false},\
+            {"playerName":"Player 3","color":{"red":1.0,"green":1.0,"blue":0.0,"opacity":1.0},\
+            "currentPosition":12,"startingPosition":12,\
+            "startingCave":{"attachedPosition":14,"caveCreature":"BABY_DRAGON","isOccupied":true},\
+            "totalStepsTaken":0,"hasMoved":false,"stepsTaken":0,"gotMoveBack":false},\
+            {"playerName":"Player 4","color":{"red":1.0,"green":0.0,"blue":0.0,"opacity":1.0},\
+            "currentPosition":18,"startingPosition":18,\
+            "startingCave":{"attachedPosition":20,"caveCreature":"SALAMANDER","isOccupied":true},\
+            "totalStepsTaken":0,"hasMoved":false,"stepsTaken":0,"gotMoveBack":false}]}""";
+    private static final byte[] DICTIONARY_BYTES = DICTIONARY.getBytes(StandardCharsets.UTF_8);
+    /**
+     * The ID written in every file compressed with {@link #DICTIONARY}.
+     */
+    private static final int DICTIONARY_ID = adler32(DICTIONARY_BYTES);
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Prevents instantiation.
+     */
+    private CompressedSaveFormat() {
+    }
+
+    /**
+     * Checks whether a stream holds a compressed save, without consuming anything from it.
+     *
+     * @param in The stream, positioned at the start of the file.
+     * @return True if the stream starts with the magic number, false otherwise.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static boolean isCompressedSave(BufferedInputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        try {
+            return new DataInputStream(in).readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Writes a compressed save. The output is flushed but not closed.
+     *
+     * @param state       The game to write.
+     * @param cardSlotIds The button ID of every dragon card slot.
+     * @param out         The output to write to.
+     * @throws IOException If the output cannot be written to.
+     */
+    public static void write(SaveState state, String[] cardSlotIds, OutputStream out) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeInt(DICTIONARY_ID);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_BYTES);
+            DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(compressed, StandardCharsets.UTF_8));
+            JsonSaveFormat.write(state, cardSlotIds, writer);
+            writer.flush();
+            compressed.finish();
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads a compressed save.
+     *
+     * @param in          The stream to read from, positioned at the magic number.
+     * @param cardSlotIds The button ID of every dragon card slot; cards saved under other IDs are ignored.
+     * @return The saved game.
+     * @throws IOException If the stream cannot be read, is not a compressed save of a known version and
+     *                     dictionary, or does not hold a valid saved game.
+     */
+    public static SaveState read(InputStream in, String[] cardSlotIds) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a compressed save");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported compressed save version " + version);
+        }
+        int dictionaryId = header.readInt();
+        if (dictionaryId != DICTIONARY_ID) {
+            throw new IOException("Unknown compression dictionary " + Integer.toHexString(dictionaryId));
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY_BYTES);
+            InputStream decompressed = new InflaterInputStream(in, inflater, BUFFER_SIZE);
+            return JsonSaveFormat.read(new JsonReader(new InputStreamReader(decompressed, StandardCharsets.UTF_8)), cardSlotIds);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Computes the Adler-32 checksum of some bytes, which zlib also uses to identify dictionaries.
+     *
+     * @param bytes The bytes to check.
+     * @return The checksum.
+     */
+    private static int adler32(byte[] bytes) {
+        Adler32 checksum = new Adler32();
+        checksum.update(bytes);
+        return (int) checksum.getValue();
+    }
+}
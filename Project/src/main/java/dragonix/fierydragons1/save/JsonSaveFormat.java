@@ -0,0 +1,742 @@
+package dragonix.fierydragons1.save;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.GameRandom;
+import dragonix.fierydragons1.engine.VolcanoRing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JsonSaveFormat class writes and reads saved games as JSON, for export and debugging.
+ * <p>
+ * The game is streamed token by token through a {@link JsonWriter} and read back in one pass through
+ * a {@link JsonReader}, so no map or tree of the document is built either way. The document has the
+ * version of its schema, the ID of the game and the turn, the volcano cards keyed by position, the dragon cards keyed by the ID of their
+ * button, the caves, the players in queue order and the seed as text, since JSON numbers are read
+ * back as doubles, which cannot hold every seed or ID. JavaFX objects such as tokens and cave arcs are not
+ * written, since loading takes them from the board, and are skipped when older saves hold them.
+ * <p>
+ * Saves from before the schema was versioned are read as version 0, which has the same fields except
+ * that the seed, the starting positions and the starting caves may be missing; they are filled in as
+ * the game used to. Versioned saves must hold the seed and starting positions, and a player without a
+ * starting cave has none. A field of the wrong type, a missing field or an unknown creature is
+ * reported with its path in the document. Saves before version 2 do not hold the game ID or turn; they
+ * are read with the seed as the ID, which every save of a game shares, and as turn 1.
+ */
+public final class JsonSaveFormat {
+    /**
+     * The version of the schema written by this class.
+     */
+    public static final int VERSION = 2;
+    /**
+     * The largest volcano position a save may hold, which keeps a corrupt position from allocating a
+     * huge board.
+     */
+    private static final int MAX_POSITION = 1 << 16;
+    private static final CreatureName[] CREATURES = CreatureName.values();
+
+    /**
+     * Prevents instantiation.
+     */
+    private JsonSaveFormat() {
+    }
+
+    /**
+     * Writes a saved game.
+     *
+     * @param state       The game to write.
+     * @param cardSlotIds The button ID of every dragon card slot.
+     * @param out         The writer to write to.
+     * @throws IOException If the writer cannot be written to.
+     */
+    public static void write(SaveState state, String[] cardSlotIds, JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("version").value(VERSION);
+        out.name("gameId").value(Long.toString(state.getGameId()));
+        out.name("turn").value(state.getTurn());
+        out.name("seed").value(Long.toString(state.getSeed()));
+
+        out.name("volcanoCardSequence").beginObject();
+        for (int position = 0; position < state.getBoardSize(); position++) {
+            int ordinal = state.getVolcanoOrdinal(position);
+            if (ordinal >= 0) {
+                out.name(Integer.toString(position)).value(CREATURES[ordinal].name());
+            }
+        }
+        out.endObject();
+
+        out.name("dragonCardsInfo").beginObject();
+        for (int slot = 0; slot < Math.min(state.getCardSlotCount(), cardSlotIds.length); slot++) {
+            int ordinal = state.getCardCreatureOrdinal(slot);
+            if (ordinal >= 0) {
+                out.name(cardSlotIds[slot]).beginObject();
+                out.name("creatureName").value(CREATURES[ordinal].name());
+                out.name("quantity").value(state.getCardQuantity(slot));
+                out.endObject();
+            }
+        }
+        out.endObject();
+
+        List<SaveState.CaveState> caves = state.getCaves();
+        out.name("caveList").beginArray();
+        for (SaveState.CaveState cave : caves) {
+            writeCave(cave, out);
+        }
+        out.endArray();
+
+        out.name("playerQueue").beginArray();
+        for (SaveState.PlayerState player : state.getPlayers()) {
+            out.beginObject();
+            out.name("playerName").value(player.getName());
+            out.name("color").beginObject();
+            out.name("red").value(player.getRed());
+            out.name("green").value(player.getGreen());
+            out.name("blue").value(player.getBlue());
+            out.name("opacity").value(player.getOpacity());
+            out.endObject();
+            out.name("currentPosition").value(player.getCurrentPosition());
+            out.name("startingPosition").value(player.getStartingPosition());
+            if (player.getStartingCave() >= 0) {
+                out.name("startingCave");
+                writeCave(caves.get(player.getStartingCave()), out);
+            }
+            out.name("totalStepsTaken").value(player.getTotalStepsTaken());
+            out.name("hasMoved").value(player.hasMoved());
+            out.name("stepsTaken").value(player.getStepsTaken());
+            out.name("gotMoveBack").value(player.isGotMoveBack());
+            if (player.getMoveBackCave() >= 0) {
+                out.name("moveBackCave").value(caves.get(player.getMoveBackCave()).getCreature().name());
+            }
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    /**
+     * Writes a cave as an object.
+     *
+     * @param cave The cave to write.
+     * @param out  The writer to write to.
+     * @throws IOException If the writer cannot be written to.
+     */
+    private static void writeCave(SaveState.CaveState cave, JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("attachedPosition").value(cave.getAttachedPosition());
+        out.name("caveCreature").value(cave.getCreature().name());
+        out.name("isOccupied").value(cave.isOccupied());
+        out.endObject();
+    }
+
+    /**
+     * Reads a saved game.
+     *
+     * @param in          The reader to read from, positioned at the start of the document.
+     * @param cardSlotIds The button ID of every dragon card slot; cards saved under other IDs are ignored.
+     * @return The saved game.
+     * @throws IOException If the reader cannot be read, the document is not valid JSON or it does not
+     *                     hold a valid saved game.
+     */
+    public static SaveState read(JsonReader in, String[] cardSlotIds) throws IOException {
+        try {
+            return new Document(in, cardSlotIds).read();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Picks the starting cave of a player in a save from before starting caves were recorded, when
+     * the cave of each player followed from their name.
+     *
+     * @param playerName The name of the player.
+     * @return The creature of the starting cave, or null if the name is not a default one.
+     */
+    private static CreatureName defaultStartingCave(String playerName) {
+        switch (playerName) {
+            case "Player 1":
+                return CreatureName.SPIDER;
+            case "Player 2":
+                return CreatureName.BAT;
+            case "Player 3":
+                return CreatureName.BABY_DRAGON;
+            case "Player 4":
+                return CreatureName.SALAMANDER;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The Document class reads one saved game. The fields of the document may come in any order, so
+     * caves named by players are only looked up once the whole document has been read.
+     */
+    private static final class Document {
+        private final JsonReader in;
+        private final Map<String, Integer> cardSlots = new HashMap<>();
+        private final int cardSlotCount;
+        // Documents without a version are from before the schema was versioned
+        private int version;
+        private Long gameId;
+        private Integer turn;
+        private Long seed;
+        private byte[] volcano;
+        private int boardSize;
+        private DragonCardRegistry dragonCards;
+        private List<SaveState.CaveState> caves;
+        private List<PlayerData> players;
+
+        /**
+         * Constructs a Document.
+         *
+         * @param in          The reader to read from.
+         * @param cardSlotIds The button ID of every dragon card slot.
+         */
+        private Document(JsonReader in, String[] cardSlotIds) {
+            this.in = in;
+            for (int slot = 0; slot < cardSlotIds.length; slot++) {
+                cardSlots.put(cardSlotIds[slot], slot);
+            }
+            this.cardSlotCount = cardSlotIds.length;
+        }
+
+        /**
+         * Reads the document.
+         *
+         * @return The saved game.
+         * @throws IOException If the document does not hold a valid saved game.
+         */
+        private SaveState read() throws IOException {
+            expect(JsonToken.BEGIN_OBJECT);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "version":
+                        version = readInt();
+                        if (version < 0 || version > VERSION) {
+                            throw error("Unsupported save version " + version);
+                        }
+                        break;
+                    case "gameId":
+                        gameId = readLong();
+                        break;
+                    case "turn":
+                        turn = readInt();
+                        break;
+                    case "seed":
+                        seed = readLong();
+                        break;
+                    case "volcanoCardSequence":
+                        readVolcano();
+                        break;
+                    case "dragonCardsInfo":
+                        readDragonCards();
+                        break;
+                    case "caveList":
+                        readCaves();
+                        break;
+                    case "playerQueue":
+                        readPlayers();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            require(volcano != null, "volcanoCardSequence", "$");
+            require(dragonCards != null, "dragonCardsInfo", "$");
+            require(caves != null, "caveList", "$");
+            require(players != null, "playerQueue", "$");
+            require(version == 0 || seed != null, "seed", "$");
+            require(version < 2 || gameId != null, "gameId", "$");
+            require(version < 2 || turn != null, "turn", "$");
+            return toSaveState();
+        }
+
+        /**
+         * Reads the volcano cards, keyed by position. Negative positions are ignored, as they always have been.
+         *
+         * @throws IOException If a position or creature is not valid.
+         */
+        private void readVolcano() throws IOException {
+            volcano = new byte[32];
+            Arrays.fill(volcano, (byte) -1);
+            expect(JsonToken.BEGIN_OBJECT);
+            in.beginObject();
+            while (in.hasNext()) {
+                String key = in.nextName();
+                int position;
+                try {
+                    position = Integer.parseInt(key);
+                } catch (NumberFormatException e) {
+                    throw error("Volcano position " + key + " is not a number");
+                }
+                if (position >= MAX_POSITION) {
+                    throw error("Volcano position " + position + " is out of range");
+                }
+                if (position < 0) {
+                    in.skipValue();
+                    continue;
+                }
+                if (position >= volcano.length) {
+                    int length = volcano.length;
+                    volcano = Arrays.copyOf(volcano, Math.max(length * 2, position + 1));
+                    Arrays.fill(volcano, length, volcano.length, (byte) -1);
+                }
+                volcano[position] = (byte) readCreature().ordinal();
+                boardSize = Math.max(boardSize, position + 1);
+            }
+            in.endObject();
+        }
+
+        /**
+         * Reads the dragon cards, keyed by the ID of the button of their slot.
+         *
+         * @throws IOException If a card is not valid.
+         */
+        private void readDragonCards() throws IOException {
+            dragonCards = new DragonCardRegistry(cardSlotCount);
+            expect(JsonToken.BEGIN_OBJECT);
+            in.beginObject();
+            while (in.hasNext()) {
+                String id = in.nextName();
+                Integer slot = cardSlots.get(id);
+                if (slot == null) {
+                    in.skipValue();
+                    continue;
+                }
+                CreatureName creature = null;
+                Integer quantity = null;
+                expect(JsonToken.BEGIN_OBJECT);
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "creatureName":
+                            creature = readCreature();
+                            break;
+                        case "quantity":
+                            quantity = readInt();
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                if (creature == null || quantity == null) {
+                    throw missing(creature == null ? "creatureName" : "quantity", "$.dragonCardsInfo." + id);
+                }
+                dragonCards.set(slot, creature, quantity);
+            }
+            in.endObject();
+        }
+
+        /**
+         * Reads the caves.
+         *
+         * @throws IOException If a cave is not valid.
+         */
+        private void readCaves() throws IOException {
+            caves = new ArrayList<>();
+            expect(JsonToken.BEGIN_ARRAY);
+            in.beginArray();
+            while (in.hasNext()) {
+                Integer attachedPosition = null;
+                CreatureName creature = null;
+                Boolean occupied = null;
+                expect(JsonToken.BEGIN_OBJECT);
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "attachedPosition":
+                            attachedPosition = readInt();
+                            break;
+                        case "caveCreature":
+                            creature = readCreature();
+                            break;
+                        case "isOccupied":
+                            occupied = readBoolean();
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                if (attachedPosition == null || creature == null || occupied == null) {
+                    String field = attachedPosition == null ? "attachedPosition" : creature == null ? "caveCreature" : "isOccupied";
+                    throw missing(field, "$.caveList[" + caves.size() + "]");
+                }
+                caves.add(new SaveState.CaveState(attachedPosition, creature, occupied));
+            }
+            in.endArray();
+        }
+
+        /**
+         * Reads the players in queue order.
+         *
+         * @throws IOException If a player is not valid.
+         */
+        private void readPlayers() throws IOException {
+            players = new ArrayList<>();
+            expect(JsonToken.BEGIN_ARRAY);
+            in.beginArray();
+            while (in.hasNext()) {
+                PlayerData player = new PlayerData(players.size());
+                expect(JsonToken.BEGIN_OBJECT);
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        continue;
+                    }
+                    switch (name) {
+                        case "playerName":
+                            player.name = readString();
+                            break;
+                        case "color":
+                            player.rgba = readColor(player);
+                            break;
+                        case "currentPosition":
+                            player.currentPosition = readInt();
+                            break;
+                        case "startingPosition":
+                            player.startingPosition = readInt();
+                            break;
+                        case "startingCave":
+                            player.startingCave = readCaveCreature();
+                            break;
+                        case "stepsTaken":
+                            player.stepsTaken = readInt();
+                            break;
+                        case "totalStepsTaken":
+                            player.totalStepsTaken = readInt();
+                            break;
+                        case "hasMoved":
+                            player.hasMoved = readBoolean();
+                            break;
+                        case "gotMoveBack":
+                            player.gotMoveBack = readBoolean();
+                            break;
+                        case "moveBackCave":
+                            player.moveBackCave = readCreature();
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                player.checkComplete();
+                players.add(player);
+            }
+            in.endArray();
+        }
+
+        /**
+         * Reads a colour object.
+         *
+         * @param player The player the colour belongs to.
+         * @return The colour, see {@link SaveState.PlayerState#packColor}.
+         * @throws IOException If the colour is not valid.
+         */
+        private int readColor(PlayerData player) throws IOException {
+            double red = Double.NaN;
+            double green = Double.NaN;
+            double blue = Double.NaN;
+            double opacity = Double.NaN;
+            expect(JsonToken.BEGIN_OBJECT);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "red":
+                        red = readDouble();
+                        break;
+                    case "green":
+                        green = readDouble();
+                        break;
+                    case "blue":
+                        blue = readDouble();
+                        break;
+                    case "opacity":
+                        opacity = readDouble();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            if (Double.isNaN(red + green + blue + opacity)) {
+                String channel = Double.isNaN(red) ? "red" : Double.isNaN(green) ? "green" : Double.isNaN(blue) ? "blue" : "opacity";
+                throw missing(channel, player.path() + ".color");
+            }
+            return SaveState.PlayerState.packColor(red, green, blue, opacity);
+        }
+
+        /**
+         * Reads the creature of a cave object, skipping the rest of the cave.
+         *
+         * @return The creature, or null if the cave has none.
+         * @throws IOException If the cave is not valid.
+         */
+        private CreatureName readCaveCreature() throws IOException {
+            CreatureName creature = null;
+            expect(JsonToken.BEGIN_OBJECT);
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("caveCreature") && in.peek() != JsonToken.NULL) {
+                    creature = readCreature();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return creature;
+        }
+
+        /**
+         * Checks the positions in the document against the board and builds the saved game.
+         *
+         * @return The saved game.
+         * @throws IOException If a cave or player is off the board.
+         */
+        private SaveState toSaveState() throws IOException {
+            VolcanoRing volcanoRing = new VolcanoRing(boardSize);
+            for (int position = 0; position < boardSize; position++) {
+                if (volcano[position] >= 0) {
+                    volcanoRing.set(position, CREATURES[volcano[position]]);
+                }
+            }
+            List<CreatureName> caveCreatures = new ArrayList<>(caves.size());
+            for (int i = 0; i < caves.size(); i++) {
+                checkPosition(caves.get(i).getAttachedPosition(), "$.caveList[", i, "].attachedPosition");
+                caveCreatures.add(caves.get(i).getCreature());
+            }
+            boolean legacy = version == 0;
+            List<SaveState.PlayerState> playerStates = new ArrayList<>(players.size());
+            for (PlayerData player : players) {
+                checkPosition(player.currentPosition, "$.playerQueue[", player.index, "].currentPosition");
+                // Older saves do not record starting positions, so those players start where they currently are
+                require(legacy || player.startingPosition != null, "startingPosition", player.path());
+                int startingPosition = player.startingPosition != null ? player.startingPosition : player.currentPosition;
+                checkPosition(startingPosition, "$.playerQueue[", player.index, "].startingPosition");
+                // Players of versioned saves without a starting cave have none; older saves never wrote one
+                CreatureName startingCave = player.startingCave != null || !legacy ? player.startingCave : defaultStartingCave(player.name);
+                playerStates.add(new SaveState.PlayerState(player.name, player.rgba, player.currentPosition,
+                        startingPosition, caveCreatures.indexOf(startingCave), player.stepsTaken, player.totalStepsTaken,
+                        player.hasMoved, player.gotMoveBack,
+                        player.moveBackCave != null ? caveCreatures.indexOf(player.moveBackCave) : -1));
+            }
+            // Saves from before seeds were recorded get a fresh one, as the game they are loaded into would
+            long dealtSeed = seed != null ? seed : GameRandom.newSeed();
+            return new SaveState(gameId != null ? gameId : dealtSeed, turn != null ? turn : 1, dealtSeed,
+                    volcanoRing, dragonCards, caves, playerStates);
+        }
+
+        /**
+         * Checks that a position is on the board.
+         *
+         * @param position The position.
+         * @param list     The path of the list holding the position.
+         * @param index    The index in the list.
+         * @param field    The rest of the path of the position.
+         * @throws IOException If the position is off the board.
+         */
+        private void checkPosition(int position, String list, int index, String field) throws IOException {
+            if (position < 0 || position >= boardSize) {
+                throw new IOException("Position " + position + " is off the board of " + boardSize + " tiles at " + list + index + field);
+            }
+        }
+
+        /**
+         * Checks that the next token is of a type.
+         *
+         * @param token The expected type.
+         * @throws IOException If the next token is of another type.
+         */
+        private void expect(JsonToken token) throws IOException {
+            JsonToken next = in.peek();
+            if (next != token) {
+                throw error("Expected " + token + " but found " + next);
+            }
+        }
+
+        /**
+         * Checks that a required field was present.
+         *
+         * @param present Whether the field was present.
+         * @param field   The name of the field.
+         * @param path    The path of the object the field belongs to.
+         * @throws IOException If the field was missing.
+         */
+        private static void require(boolean present, String field, String path) throws IOException {
+            if (!present) {
+                throw missing(field, path);
+            }
+        }
+
+        /**
+         * Creates the error for a required field that is missing.
+         *
+         * @param field The name of the field.
+         * @param path  The path of the object the field belongs to.
+         * @return The error.
+         */
+        private static IOException missing(String field, String path) {
+            return new IOException("Missing " + field + " at " + path);
+        }
+
+        /**
+         * Reads a whole number.
+         *
+         * @return The number.
+         * @throws IOException If the next value is not a whole number.
+         */
+        private int readInt() throws IOException {
+            expect(JsonToken.NUMBER);
+            try {
+                return in.nextInt();
+            } catch (NumberFormatException e) {
+                throw error("Expected a whole number");
+            }
+        }
+
+        /**
+         * Reads a long number, which may also be written as text.
+         *
+         * @return The number.
+         * @throws IOException If the next value is not a whole number.
+         */
+        private long readLong() throws IOException {
+            JsonToken next = in.peek();
+            if (next != JsonToken.STRING && next != JsonToken.NUMBER) {
+                throw error("Expected a number but found " + next);
+            }
+            String text = in.nextString();
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw error(text + " is not a whole number");
+            }
+        }
+
+        /**
+         * Reads a number.
+         *
+         * @return The number.
+         * @throws IOException If the next value is not a number.
+         */
+        private double readDouble() throws IOException {
+            expect(JsonToken.NUMBER);
+            return in.nextDouble();
+        }
+
+        /**
+         * Reads a boolean.
+         *
+         * @return The boolean.
+         * @throws IOException If the next value is not a boolean.
+         */
+        private boolean readBoolean() throws IOException {
+            expect(JsonToken.BOOLEAN);
+            return in.nextBoolean();
+        }
+
+        /**
+         * Reads a string.
+         *
+         * @return The string.
+         * @throws IOException If the next value is not a string.
+         */
+        private String readString() throws IOException {
+            expect(JsonToken.STRING);
+            return in.nextString();
+        }
+
+        /**
+         * Reads a creature by its constant name.
+         *
+         * @return The creature.
+         * @throws IOException If the next value is not the name of a creature.
+         */
+        private CreatureName readCreature() throws IOException {
+            String name = readString();
+            try {
+                return CreatureName.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw error("Unknown creature " + name);
+            }
+        }
+
+        /**
+         * Creates an error at the current place in the document.
+         *
+         * @param message What is wrong.
+         * @return The error.
+         */
+        private IOException error(String message) {
+            return new IOException(message + " at " + in.getPath());
+        }
+    }
+
+    /**
+     * The PlayerData class holds the fields of a player while the document is being read.
+     */
+    private static final class PlayerData {
+        private final int index;
+        private String name;
+        private Integer rgba;
+        private Integer currentPosition;
+        private Integer startingPosition;
+        private CreatureName startingCave;
+        private Integer stepsTaken;
+        private Integer totalStepsTaken;
+        private Boolean hasMoved;
+        private Boolean gotMoveBack;
+        private CreatureName moveBackCave;
+
+        /**
+         * Constructs a PlayerData.
+         *
+         * @param index The index of the player in the queue.
+         */
+        private PlayerData(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Retrieves the path of the player in the document, for error messages.
+         *
+         * @return The path.
+         */
+        private String path() {
+            return "$.playerQueue[" + index + "]";
+        }
+
+        /**
+         * Checks that the player has every required field.
+         *
+         * @throws IOException If a field is missing.
+         */
+        private void checkComplete() throws IOException {
+            String missing = name == null ? "playerName" : rgba == null ? "color" : currentPosition == null ? "currentPosition"
+                    : stepsTaken == null ? "stepsTaken" : totalStepsTaken == null ? "totalStepsTaken"
+                    : hasMoved == null ? "hasMoved" : gotMoveBack == null ? "gotMoveBack" : null;
+            if (missing != null) {
+                throw Document.missing(missing, path());
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package dragonix.fierydragons1.save;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+/**
+ * The SaveCatalogue class reads the catalogue of a save directory, a file that describes every save
+ * written to the directory so that saves can be listed, sorted and filtered without opening them.
+ * <p>
+ * The catalogue starts with a magic number and a version byte, followed by one entry per save in the
+ * order they were written. An entry is its length, then the fixed fields at fixed offsets: the game ID,
+ * the time of the save, the turn number, the kind of save, the number of players and the current
+ * player, then the file name and player names as UTF-8. The file is memory-mapped and scanned once for
+ * the byte offset of each entry, after which every field is read straight from the mapping without
+ * building an object per save, so hundreds of thousands of saves list in milliseconds. The mapping is
+ * a snapshot; saves written after it was opened show up the next time it is opened.
+ * <p>
+ * Entries are added with an {@link Appender}. An entry cut short by a crash is ignored when reading and
+ * cut off the next time the catalogue is opened for appending. A journal is catalogued once, and its
+ * entry is then brought up to date in place as the journal grows, by rewriting the time, turn and
+ * current player at their fixed offsets, so autosaves do not add an entry per turn.
+ */
+public final class SaveCatalogue {
+    /**
+     * The name of the catalogue file in a save directory.
+     */
+    public static final String FILE_NAME = "catalogue.fdc";
+    /**
+     * The first four bytes of every catalogue, "FDSC".
+     */
+    public static final int MAGIC = 0x46445343;
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+    /**
+     * A save in the binary format of {@link BinarySaveFormat}.
+     */
+    public static final int BINARY = 0;
+    /**
+     * A save exported as JSON.
+     */
+    public static final int JSON = 1;
+    /**
+     * A save journal of {@link SaveJournal}, which the entry describes as it was after its latest append.
+     */
+    public static final int JOURNAL = 2;
+    /**
+     * A save exported as JSON compressed by {@link CompressedSaveFormat}.
+     */
+    public static final int COMPRESSED_JSON = 3;
+
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    private static final int GAME_ID = Integer.BYTES;
+    private static final int TIMESTAMP = GAME_ID + Long.BYTES;
+    private static final int TURN = TIMESTAMP + Long.BYTES;
+    private static final int KIND = TURN + Integer.BYTES;
+    private static final int PLAYER_COUNT = KIND + 1;
+    private static final int CURRENT_PLAYER = PLAYER_COUNT + 1;
+    private static final int FILE_NAME_OFFSET = CURRENT_PLAYER + 1;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    private static final int MAX_PLAYERS = 0xFF;
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+
+    /**
+     * Constructs a SaveCatalogue over the entries of a buffer.
+     *
+     * @param buffer  The catalogue.
+     * @param offsets The byte offset of every entry.
+     */
+    private SaveCatalogue(ByteBuffer buffer, int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Opens the catalogue of a save directory.
+     *
+     * @param file The catalogue file.
+     * @return The catalogue, which is empty if the file does not exist.
+     * @throws IOException If the file cannot be read, is not a catalogue or is larger than 2 GB.
+     */
+    public static SaveCatalogue open(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalogue is too large: " + channel.size() + " bytes");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SaveCatalogue(buffer, scan(buffer));
+        }
+    }
+
+    /**
+     * Creates a catalogue without entries.
+     *
+     * @return An empty catalogue.
+     */
+    public static SaveCatalogue empty() {
+        return new SaveCatalogue(ByteBuffer.allocate(0), new int[0]);
+    }
+
+    /**
+     * Finds the byte offset of every complete entry of a catalogue.
+     *
+     * @param buffer The catalogue.
+     * @return The offsets in the order the entries were written.
+     * @throws IOException If the buffer is not a catalogue.
+     */
+    private static int[] scan(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() == 0) {
+            return new int[0];
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a save catalogue");
+        }
+        int version = buffer.get(Integer.BYTES) & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported catalogue version " + version);
+        }
+        int[] offsets = new int[64];
+        int count = 0;
+        int offset = HEADER_SIZE;
+        while (offset <= buffer.limit() - Integer.BYTES) {
+            int length = buffer.getInt(offset);
+            if (length < FILE_NAME_OFFSET || length > buffer.limit() - offset) {
+                break;
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+            offset += length;
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * Retrieves the number of entries.
+     *
+     * @return The number of saves in the catalogue.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Retrieves the byte offset of an entry in the catalogue file.
+     *
+     * @param entry The index of the entry.
+     * @return The byte offset.
+     */
+    public int getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    /**
+     * Retrieves the ID of the game an entry saved.
+     *
+     * @param entry The index of the entry.
+     * @return The game ID, which every save of the same game shares.
+     */
+    public long getGameId(int entry) {
+        return buffer.getLong(offsets[entry] + GAME_ID);
+    }
+
+    /**
+     * Retrieves when an entry was saved.
+     *
+     * @param entry The index of the entry.
+     * @return The time of the save in milliseconds since the epoch.
+     */
+    public long getTimestamp(int entry) {
+        return buffer.getLong(offsets[entry] + TIMESTAMP);
+    }
+
+    /**
+     * Retrieves the turn the game of an entry was saved in.
+     *
+     * @param entry The index of the entry.
+     * @return The turn number, counted from 1.
+     */
+    public int getTurn(int entry) {
+        return buffer.getInt(offsets[entry] + TURN);
+    }
+
+    /**
+     * Retrieves the kind of save of an entry.
+     *
+     * @param entry The index of the entry.
+     * @return {@link #BINARY}, {@link #JSON}, {@link #JOURNAL} or {@link #COMPRESSED_JSON}.
+     */
+    public int getKind(int entry) {
+        return buffer.get(offsets[entry] + KIND);
+    }
+
+    /**
+     * Retrieves the number of players of an entry.
+     *
+     * @param entry The index of the entry.
+     * @return The number of players.
+     */
+    public int getPlayerCount(int entry) {
+        return buffer.get(offsets[entry] + PLAYER_COUNT) & 0xFF;
+    }
+
+    /**
+     * Retrieves whose turn it was when an entry was saved.
+     *
+     * @param entry The index of the entry.
+     * @return The index of the current player, see {@link #getPlayerName}.
+     */
+    public int getCurrentPlayer(int entry) {
+        return buffer.get(offsets[entry] + CURRENT_PLAYER) & 0xFF;
+    }
+
+    /**
+     * Retrieves the name of the save file of an entry, relative to the save directory.
+     *
+     * @param entry The index of the entry.
+     * @return The file name.
+     */
+    public String getFileName(int entry) {
+        return readString(offsets[entry] + FILE_NAME_OFFSET);
+    }
+
+    /**
+     * Retrieves the name of a player of an entry.
+     *
+     * @param entry  The index of the entry.
+     * @param player The index of the player, in queue order.
+     * @return The player name.
+     */
+    public String getPlayerName(int entry, int player) {
+        if (player < 0 || player >= getPlayerCount(entry)) {
+            throw new IndexOutOfBoundsException("Player " + player + " of " + getPlayerCount(entry));
+        }
+        int offset = offsets[entry] + FILE_NAME_OFFSET;
+        for (int i = 0; i <= player; i++) {
+            offset += Short.BYTES + (buffer.getShort(offset) & 0xFFFF);
+        }
+        return readString(offset);
+    }
+
+    /**
+     * Checks whether a player of an entry has a name.
+     *
+     * @param entry The index of the entry.
+     * @param name  The name to look for.
+     * @return True if one of the players has the name, ignoring case, false otherwise.
+     */
+    public boolean hasPlayer(int entry, String name) {
+        for (int player = 0; player < getPlayerCount(entry); player++) {
+            if (getPlayerName(entry, player).equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a string stored as its length and UTF-8 bytes.
+     *
+     * @param offset The byte offset of the length.
+     * @return The string.
+     */
+    private String readString(int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+        buffer.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lists the entries that match a filter.
+     *
+     * @param filter Tests the index of each entry.
+     * @return The indices of the matching entries, in the order they were written.
+     */
+    public int[] filter(IntPredicate filter) {
+        int[] matches = new int[offsets.length];
+        int count = 0;
+        for (int entry = 0; entry < offsets.length; entry++) {
+            if (filter.test(entry)) {
+                matches[count++] = entry;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Lists the latest entry of every game, which is the one to load for it.
+     *
+     * @return The indices of the entries, newest game first.
+     */
+    public int[] latestPerGame() {
+        Set<Long> seen = new HashSet<>();
+        int[] latest = new int[offsets.length];
+        int count = 0;
+        for (int entry = offsets.length - 1; entry >= 0; entry--) {
+            if (seen.add(getGameId(entry))) {
+                latest[count++] = entry;
+            }
+        }
+        return Arrays.copyOf(latest, count);
+    }
+
+    /**
+     * Sorts entries by a key, keeping entries with equal keys in their order.
+     *
+     * @param entries    The indices of the entries, which are not changed.
+     * @param key        Reads the key of an entry, such as {@link #getTimestamp} or {@link #getTurn}.
+     * @param descending Whether the largest key comes first.
+     * @return The sorted indices.
+     */
+    public int[] sort(int[] entries, IntToLongFunction key, boolean descending) {
+        long[] keys = new long[offsets.length];
+        for (int entry : entries) {
+            long value = key.applyAsLong(entry);
+            keys[entry] = descending ? ~value : value;
+        }
+        int[] sorted = entries.clone();
+        mergeSort(sorted, entries.clone(), 0, sorted.length, keys);
+        return sorted;
+    }
+
+    /**
+     * Sorts a range of entries by their keys, stably and without boxing.
+     *
+     * @param entries The entries to sort.
+     * @param scratch A copy of the entries, used as the other half of each merge.
+     * @param from    The first index of the range.
+     * @param to      The index after the range.
+     * @param keys    The key of every entry.
+     */
+    private static void mergeSort(int[] entries, int[] scratch, int from, int to, long[] keys) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        // The halves are sorted into the scratch array and merged back, swapping roles at each level
+        mergeSort(scratch, entries, from, middle, keys);
+        mergeSort(scratch, entries, middle, to, keys);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && keys[scratch[left]] <= keys[scratch[right]]) {
+                entries[i] = scratch[left++];
+            } else {
+                entries[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * The Entry class describes one save to add to a catalogue.
+     */
+    public static final class Entry {
+        private final long gameId;
+        private final long timestamp;
+        private final int turn;
+        private final int kind;
+        private final String fileName;
+        private final List<String> playerNames;
+        private final int currentPlayer;
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param gameId        The ID of the game.
+         * @param timestamp     The time of the save in milliseconds since the epoch.
+         * @param turn          The turn number, counted from 1.
+         * @param kind          {@link #BINARY}, {@link #JSON}, {@link #JOURNAL} or {@link #COMPRESSED_JSON}.
+         * @param fileName      The name of the save file, relative to the save directory.
+         * @param playerNames   The names of the players in queue order.
+         * @param currentPlayer The index of the current player.
+         */
+        public Entry(long gameId, long timestamp, int turn, int kind, String fileName, List<String> playerNames, int currentPlayer) {
+            this.gameId = gameId;
+            this.timestamp = timestamp;
+            this.turn = turn;
+            this.kind = kind;
+            this.fileName = fileName;
+            this.playerNames = List.copyOf(playerNames.subList(0, Math.min(playerNames.size(), MAX_PLAYERS)));
+            this.currentPlayer = currentPlayer;
+        }
+
+        /**
+         * Encodes the entry as it is stored in the catalogue.
+         *
+         * @return The entry, starting with its length.
+         */
+        private ByteBuffer encode() {
+            byte[][] strings = new byte[playerNames.size() + 1][];
+            strings[0] = truncate(fileName.getBytes(StandardCharsets.UTF_8));
+            int length = FILE_NAME_OFFSET + Short.BYTES + strings[0].length;
+            for (int player = 0; player < playerNames.size(); player++) {
+                strings[player + 1] = truncate(playerNames.get(player).getBytes(StandardCharsets.UTF_8));
+                length += Short.BYTES + strings[player + 1].length;
+            }
+            ByteBuffer entry = ByteBuffer.allocate(length);
+            entry.putInt(length).putLong(gameId).putLong(timestamp).putInt(turn).put((byte) kind)
+                    .put((byte) playerNames.size()).put((byte) currentPlayer);
+            for (byte[] string : strings) {
+                entry.putShort((short) string.length).put(string);
+            }
+            return entry.flip();
+        }
+
+        /**
+         * Cuts a string down to the length an entry can hold.
+         *
+         * @param bytes The string as UTF-8.
+         * @return The string, or its first {@link #MAX_STRING_BYTES} bytes.
+         */
+        private static byte[] truncate(byte[] bytes) {
+            return bytes.length > MAX_STRING_BYTES ? Arrays.copyOf(bytes, MAX_STRING_BYTES) : bytes;
+        }
+    }
+
+    /**
+     * The Appender class adds entries to the end of a catalogue. It is not safe for use by several
+     * threads at once.
+     */
+    public static final class Appender implements Closeable {
+        private final FileChannel channel;
+
+        /**
+         * Opens a catalogue for appending, creating it if it does not exist and cutting off an entry
+         * that was cut short.
+         *
+         * @param file The catalogue file.
+         * @throws IOException If the file cannot be opened or is not a catalogue.
+         */
+        public Appender(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                if (channel.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put((byte) VERSION).flip();
+                    writeFully(header, 0);
+                }
+                long end = findEnd();
+                channel.truncate(end);
+                channel.position(end);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Finds the end of the last complete entry by reading the lengths of the entries in order.
+         * The file is read as a stream rather than mapped, since a mapped file cannot be truncated on
+         * every platform.
+         *
+         * @return The byte offset after the last complete entry.
+         * @throws IOException If the file cannot be read or is not a catalogue.
+         */
+        private long findEnd() throws IOException {
+            long size = channel.size();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+            if (size < HEADER_SIZE || in.readInt() != MAGIC) {
+                throw new IOException("Not a save catalogue");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalogue version " + version);
+            }
+            long end = HEADER_SIZE;
+            while (end <= size - Integer.BYTES) {
+                int length = in.readInt();
+                if (length < FILE_NAME_OFFSET || length > size - end) {
+                    break;
+                }
+                in.skipNBytes(length - Integer.BYTES);
+                end += length;
+            }
+            return end;
+        }
+
+        /**
+         * Adds an entry to the end of the catalogue.
+         *
+         * @param entry The entry to add.
+         * @return The byte offset of the entry, for {@link #update}.
+         * @throws IOException If the catalogue cannot be written.
+         */
+        public long append(Entry entry) throws IOException {
+            long end = channel.position();
+            try {
+                writeFully(entry.encode(), end);
+            } catch (IOException e) {
+                channel.truncate(end);
+                throw e;
+            }
+            channel.position(channel.size());
+            return end;
+        }
+
+        /**
+         * Rewrites the time, turn and current player of an entry in place. The other fields and the
+         * length of the entry stay the same, so the entries after it are not moved.
+         *
+         * @param entry         The byte offset of the entry, as returned by {@link #append}.
+         * @param timestamp     The time of the save in milliseconds since the epoch.
+         * @param turn          The turn number, counted from 1.
+         * @param currentPlayer The index of the current player among the names of the entry.
+         * @throws IOException If the catalogue cannot be written.
+         */
+        public void update(long entry, long timestamp, int turn, int currentPlayer) throws IOException {
+            writeFully(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(timestamp).putInt(turn).flip(), entry + TIMESTAMP);
+            writeFully(ByteBuffer.allocate(1).put((byte) currentPlayer).flip(), entry + CURRENT_PLAYER);
+        }
+
+        /**
+         * Writes a buffer in full at a position.
+         *
+         * @param buffer   The bytes to write.
+         * @param position The position in the file.
+         * @throws IOException If the file cannot be written.
+         */
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        /**
+         * Closes the catalogue.
+         *
+         * @throws IOException If the file cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
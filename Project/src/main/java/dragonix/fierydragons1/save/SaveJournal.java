@@ -0,0 +1,489 @@
+package dragonix.fierydragons1.save;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The SaveJournal class writes and replays save journals, append-only files that follow one game
+ * turn by turn.
+ * <p>
+ * A journal starts with a magic number and a version byte, followed by records. Each record is a type
+ * byte, the length of its payload, the payload and a CRC-32 of the type and payload. A base record
+ * holds a whole game in the format of {@link BinarySaveFormat}; a delta record holds only what changed
+ * since the record before it: how far the player queue turned, the fields of each player that changed,
+ * the cave occupancy if it changed, the dragon card slots that changed and the turn number if it
+ * changed. A turn takes a delta of a few tens of bytes, where a whole game takes well over a hundred.
+ * Anything a delta cannot express, such as a different game, a different board, a player joining or
+ * a different seed, is written as a new base. Steps are written zigzag-encoded, since Dragon Pirate
+ * cards can take them below zero. Versions 1 and 2 are read as well: their deltas write steps as plain
+ * varints, and those of version 1 never change the turn.
+ * <p>
+ * Replaying stops at the first record that is cut short or fails its checksum, so a journal whose
+ * last append was interrupted still loads as the game before that append.
+ */
+public final class SaveJournal {
+    /**
+     * The extension of save journals.
+     */
+    public static final String EXTENSION = "fdj";
+    /**
+     * The first four bytes of every save journal, "FDSJ".
+     */
+    public static final int MAGIC = 0x4644534A;
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 3;
+    /**
+     * The number of bytes of the magic number and version.
+     */
+    public static final int HEADER_SIZE = Integer.BYTES + 1;
+    private static final int BASE = 1;
+    private static final int DELTA = 2;
+    /**
+     * The largest payload a record may declare, which keeps a corrupt length from allocating huge arrays.
+     */
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final int CAVES_CHANGED = 1;
+    private static final int CARDS_CHANGED = 2;
+    private static final int TURN_CHANGED = 4;
+    private static final int POSITION = 1;
+    private static final int STARTING_POSITION = 2;
+    private static final int STEPS_TAKEN = 4;
+    private static final int TOTAL_STEPS_TAKEN = 8;
+    private static final int FLAGS = 16;
+    private static final int MOVE_BACK_CAVE = 32;
+    private static final int HAS_MOVED = 1;
+    private static final int GOT_MOVE_BACK = 2;
+    private static final CreatureName[] CREATURES = CreatureName.values();
+
+    /**
+     * Prevents instantiation.
+     */
+    private SaveJournal() {
+    }
+
+    /**
+     * Checks whether a stream holds a save journal, without consuming anything from it.
+     *
+     * @param in The stream, positioned at the start of the file.
+     * @return True if the stream starts with the magic number, false otherwise.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static boolean isJournal(BufferedInputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        try {
+            return new DataInputStream(in).readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Writes the magic number and version that start a journal.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    public static void writeHeader(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Encodes the record that brings a journal from one game state to the next.
+     *
+     * @param previous The state the journal ends with, or null to encode a base record.
+     * @param state    The state to record.
+     * @return The framed record, or null if nothing changed since the previous state.
+     * @throws IOException If the state cannot be encoded.
+     */
+    public static byte[] encodeRecord(SaveState previous, SaveState state) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        int type;
+        if (previous != null && canDelta(previous, state)) {
+            if (!writeDelta(previous, state, out)) {
+                return null;
+            }
+            type = DELTA;
+        } else {
+            BinarySaveFormat.write(state, out);
+            type = BASE;
+        }
+        return frame(type, payload.toByteArray());
+    }
+
+    /**
+     * Frames a payload as a record.
+     *
+     * @param type    The record type.
+     * @param payload The payload.
+     * @return The type, length, payload and checksum.
+     * @throws IOException If the record cannot be written.
+     */
+    private static byte[] frame(int type, byte[] payload) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.length + 10);
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(type);
+        BinarySaveFormat.writeVarint(out, payload.length);
+        out.write(payload);
+        out.writeInt(checksum(type, payload));
+        return record.toByteArray();
+    }
+
+    /**
+     * Computes the checksum of a record.
+     *
+     * @param type    The record type.
+     * @param payload The payload.
+     * @return The CRC-32 of the type and payload.
+     */
+    private static int checksum(int type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Checks whether a delta can bring one state to the other: the game, seed, volcano cards and caves
+     * are the same, no dragon card was taken away, and the players are the same ones in the same turn order.
+     *
+     * @param previous The earlier state.
+     * @param state    The later state.
+     * @return True if a delta can be written, false if a base record is needed.
+     */
+    private static boolean canDelta(SaveState previous, SaveState state) {
+        if (previous.getGameId() != state.getGameId() || previous.getSeed() != state.getSeed()
+                || previous.getBoardSize() != state.getBoardSize()
+                || previous.getCardSlotCount() != state.getCardSlotCount()
+                || previous.getCaves().size() != state.getCaves().size()) {
+            return false;
+        }
+        for (int position = 0; position < state.getBoardSize(); position++) {
+            if (previous.getVolcanoOrdinal(position) != state.getVolcanoOrdinal(position)) {
+                return false;
+            }
+        }
+        for (int slot = 0; slot < state.getCardSlotCount(); slot++) {
+            if (previous.getCardCreatureOrdinal(slot) >= 0 && state.getCardCreatureOrdinal(slot) < 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < state.getCaves().size(); i++) {
+            SaveState.CaveState before = previous.getCaves().get(i);
+            SaveState.CaveState after = state.getCaves().get(i);
+            if (before.getAttachedPosition() != after.getAttachedPosition() || before.getCreature() != after.getCreature()) {
+                return false;
+            }
+        }
+        return findRotation(previous.getPlayers(), state.getPlayers()) >= 0;
+    }
+
+    /**
+     * Finds how far the player queue has turned, so that player i of the later queue is player
+     * i + rotation of the earlier one.
+     *
+     * @param previous The earlier players.
+     * @param players  The later players.
+     * @return The rotation, or -1 if the later players are not the earlier ones in the same turn order.
+     */
+    private static int findRotation(List<SaveState.PlayerState> previous, List<SaveState.PlayerState> players) {
+        int count = players.size();
+        if (previous.size() != count) {
+            return -1;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        for (int rotation = 0; rotation < count; rotation++) {
+            boolean matches = true;
+            for (int i = 0; i < count && matches; i++) {
+                matches = isSamePlayer(previous.get((i + rotation) % count), players.get(i));
+            }
+            if (matches) {
+                return rotation;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether two states are of the same player, by the fields that never change during a game.
+     *
+     * @param before The earlier state.
+     * @param after  The later state.
+     * @return True if the name, colour and starting cave match, false otherwise.
+     */
+    private static boolean isSamePlayer(SaveState.PlayerState before, SaveState.PlayerState after) {
+        return before.getName().equals(after.getName()) && before.getRgba() == after.getRgba()
+                && before.getStartingCave() == after.getStartingCave();
+    }
+
+    /**
+     * Writes the payload of a delta record.
+     *
+     * @param previous The state the journal ends with.
+     * @param state    The state to record.
+     * @param out      The output to write to.
+     * @return True if anything changed, false if the delta is empty and need not be written.
+     * @throws IOException If the output cannot be written.
+     */
+    private static boolean writeDelta(SaveState previous, SaveState state, DataOutput out) throws IOException {
+        List<SaveState.PlayerState> players = state.getPlayers();
+        int rotation = findRotation(previous.getPlayers(), players);
+        boolean changed = rotation != 0;
+        BinarySaveFormat.writeVarint(out, rotation);
+
+        List<SaveState.CaveState> caves = state.getCaves();
+        boolean cavesChanged = false;
+        for (int i = 0; i < caves.size(); i++) {
+            cavesChanged |= previous.getCaves().get(i).isOccupied() != caves.get(i).isOccupied();
+        }
+        List<Integer> changedSlots = new ArrayList<>();
+        for (int slot = 0; slot < state.getCardSlotCount(); slot++) {
+            if (previous.getCardCreatureOrdinal(slot) != state.getCardCreatureOrdinal(slot)
+                    || previous.getCardQuantity(slot) != state.getCardQuantity(slot)) {
+                changedSlots.add(slot);
+            }
+        }
+        boolean turnChanged = previous.getTurn() != state.getTurn();
+        changed |= cavesChanged || !changedSlots.isEmpty() || turnChanged;
+        out.writeByte((cavesChanged ? CAVES_CHANGED : 0) | (changedSlots.isEmpty() ? 0 : CARDS_CHANGED)
+                | (turnChanged ? TURN_CHANGED : 0));
+
+        for (int i = 0; i < players.size(); i++) {
+            SaveState.PlayerState before = previous.getPlayers().get((i + rotation) % players.size());
+            SaveState.PlayerState after = players.get(i);
+            int fields = (before.getCurrentPosition() != after.getCurrentPosition() ? POSITION : 0)
+                    | (before.getStartingPosition() != after.getStartingPosition() ? STARTING_POSITION : 0)
+                    | (before.getStepsTaken() != after.getStepsTaken() ? STEPS_TAKEN : 0)
+                    | (before.getTotalStepsTaken() != after.getTotalStepsTaken() ? TOTAL_STEPS_TAKEN : 0)
+                    | (flags(before) != flags(after) ? FLAGS : 0)
+                    | (before.getMoveBackCave() != after.getMoveBackCave() ? MOVE_BACK_CAVE : 0);
+            changed |= fields != 0;
+            out.writeByte(fields);
+            if ((fields & POSITION) != 0) {
+                BinarySaveFormat.writeVarint(out, after.getCurrentPosition());
+            }
+            if ((fields & STARTING_POSITION) != 0) {
+                BinarySaveFormat.writeVarint(out, after.getStartingPosition());
+            }
+            if ((fields & STEPS_TAKEN) != 0) {
+                BinarySaveFormat.writeSignedVarint(out, after.getStepsTaken());
+            }
+            if ((fields & TOTAL_STEPS_TAKEN) != 0) {
+                BinarySaveFormat.writeSignedVarint(out, after.getTotalStepsTaken());
+            }
+            if ((fields & FLAGS) != 0) {
+                out.writeByte(flags(after));
+            }
+            if ((fields & MOVE_BACK_CAVE) != 0) {
+                BinarySaveFormat.writeVarint(out, after.getMoveBackCave() + 1);
+            }
+        }
+
+        if (cavesChanged) {
+            for (int i = 0; i < caves.size(); i += Byte.SIZE) {
+                int occupied = 0;
+                for (int bit = 0; bit < Byte.SIZE && i + bit < caves.size(); bit++) {
+                    if (caves.get(i + bit).isOccupied()) {
+                        occupied |= 1 << bit;
+                    }
+                }
+                out.writeByte(occupied);
+            }
+        }
+        if (!changedSlots.isEmpty()) {
+            BinarySaveFormat.writeVarint(out, changedSlots.size());
+            for (int slot : changedSlots) {
+                BinarySaveFormat.writeVarint(out, slot);
+                BinarySaveFormat.writeVarint(out, state.getCardCreatureOrdinal(slot) + 1);
+                out.writeByte(state.getCardQuantity(slot));
+            }
+        }
+        if (turnChanged) {
+            BinarySaveFormat.writeVarint(out, state.getTurn());
+        }
+        return changed;
+    }
+
+    /**
+     * Packs the flags of a player into the bits of a byte.
+     *
+     * @param player The player.
+     * @return The flags.
+     */
+    private static int flags(SaveState.PlayerState player) {
+        return (player.hasMoved() ? HAS_MOVED : 0) | (player.isGotMoveBack() ? GOT_MOVE_BACK : 0);
+    }
+
+    /**
+     * Replays a journal to the game state its last complete record leaves.
+     *
+     * @param in The input to read from, positioned at the magic number.
+     * @return The saved game.
+     * @throws IOException If the input cannot be read, is not a journal or holds no complete base record.
+     */
+    public static SaveState replay(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a save journal");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        SaveState state = null;
+        while (true) {
+            byte[] payload;
+            int type;
+            try {
+                type = in.readUnsignedByte();
+                long length = BinarySaveFormat.readVarint(in);
+                if (length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                payload = new byte[(int) length];
+                in.readFully(payload);
+                if (in.readInt() != checksum(type, payload)) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            switch (type) {
+                case BASE:
+                    state = BinarySaveFormat.read(record);
+                    break;
+                case DELTA:
+                    if (state == null) {
+                        throw new IOException("Journal starts with a delta");
+                    }
+                    state = readDelta(state, record, version);
+                    break;
+                default:
+                    throw new IOException("Unknown journal record " + type);
+            }
+        }
+        if (state == null) {
+            throw new IOException("Journal holds no complete game");
+        }
+        return state;
+    }
+
+    /**
+     * Applies the payload of a delta record to a game state.
+     *
+     * @param previous The state before the record.
+     * @param in       The payload.
+     * @param version  The version of the journal.
+     * @return The state after the record.
+     * @throws IOException If the payload cannot be read or does not fit the state.
+     */
+    private static SaveState readDelta(SaveState previous, DataInput in, int version) throws IOException {
+        List<SaveState.PlayerState> before = previous.getPlayers();
+        int count = before.size();
+        long rotation = BinarySaveFormat.readVarint(in);
+        if (rotation < 0 || rotation >= Math.max(count, 1)) {
+            throw new IOException("Rotation " + rotation + " is out of range");
+        }
+        int changes = in.readUnsignedByte();
+
+        List<SaveState.PlayerState> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SaveState.PlayerState player = before.get((int) ((i + rotation) % count));
+            int fields = in.readUnsignedByte();
+            int currentPosition = (fields & POSITION) != 0 ? readIndex(in, previous.getBoardSize()) : player.getCurrentPosition();
+            int startingPosition = (fields & STARTING_POSITION) != 0 ? readIndex(in, previous.getBoardSize()) : player.getStartingPosition();
+            int stepsTaken = (fields & STEPS_TAKEN) != 0 ? readSteps(in, version) : player.getStepsTaken();
+            int totalStepsTaken = (fields & TOTAL_STEPS_TAKEN) != 0 ? readSteps(in, version) : player.getTotalStepsTaken();
+            int flags = (fields & FLAGS) != 0 ? in.readUnsignedByte() : flags(player);
+            int moveBackCave = (fields & MOVE_BACK_CAVE) != 0
+                    ? readIndex(in, previous.getCaves().size() + 1) - 1 : player.getMoveBackCave();
+            players.add(new SaveState.PlayerState(player.getName(), player.getRgba(), currentPosition, startingPosition,
+                    player.getStartingCave(), stepsTaken, totalStepsTaken, (flags & HAS_MOVED) != 0,
+                    (flags & GOT_MOVE_BACK) != 0, moveBackCave));
+        }
+
+        List<SaveState.CaveState> caves = previous.getCaves();
+        if ((changes & CAVES_CHANGED) != 0) {
+            List<SaveState.CaveState> changed = new ArrayList<>(caves.size());
+            int occupied = 0;
+            for (int i = 0; i < caves.size(); i++) {
+                if (i % Byte.SIZE == 0) {
+                    occupied = in.readUnsignedByte();
+                }
+                SaveState.CaveState cave = caves.get(i);
+                changed.add(new SaveState.CaveState(cave.getAttachedPosition(), cave.getCreature(), (occupied >>> (i % Byte.SIZE) & 1) != 0));
+            }
+            caves = changed;
+        }
+
+        DragonCardRegistry dragonCards = previous.createDragonCardRegistry();
+        if ((changes & CARDS_CHANGED) != 0) {
+            long slots = BinarySaveFormat.readVarint(in);
+            for (long i = 0; i < slots; i++) {
+                int slot = readIndex(in, dragonCards.size());
+                int creature = readIndex(in, CREATURES.length + 1) - 1;
+                if (creature < 0) {
+                    throw new IOException("Dragon card slot " + slot + " cannot be emptied by a delta");
+                }
+                dragonCards.set(slot, CREATURES[creature], in.readByte());
+            }
+        }
+        int turn = (changes & TURN_CHANGED) != 0 ? BinarySaveFormat.readTurn(in) : previous.getTurn();
+        return new SaveState(previous.getGameId(), turn, previous.getSeed(), previous.createVolcanoRing(), dragonCards, caves, players);
+    }
+
+    /**
+     * Reads a number of steps, which deltas before version 3 wrote as a plain varint of the sign-extended value.
+     *
+     * @param in      The input to read from.
+     * @param version The version of the journal.
+     * @return The number of steps.
+     * @throws IOException If the input cannot be read or the value does not fit in an int.
+     */
+    private static int readSteps(DataInput in, int version) throws IOException {
+        if (version >= 3) {
+            return BinarySaveFormat.readSignedVarint(in);
+        }
+        long steps = BinarySaveFormat.readVarint(in);
+        if (steps < Integer.MIN_VALUE || steps > Integer.MAX_VALUE) {
+            throw new IOException("Steps " + steps + " are out of range");
+        }
+        return (int) steps;
+    }
+
+    /**
+     * Reads an index and checks that it is below a bound.
+     *
+     * @param in    The input to read from.
+     * @param bound The number of valid indices.
+     * @return The index.
+     * @throws IOException If the input cannot be read or the index is out of range.
+     */
+    private static int readIndex(DataInput in, int bound) throws IOException {
+        long index = BinarySaveFormat.readVarint(in);
+        if (index < 0 || index >= bound) {
+            throw new IOException("Index " + Long.toUnsignedString(index) + " is out of range");
+        }
+        return (int) index;
+    }
+}
@@ -0,0 +1,418 @@
+package dragonix.fierydragons1.save;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.VolcanoRing;
+
+import java.util.List;
+
+/**
+ * The SaveState class is a snapshot of everything a saved game holds: the ID of the game, the turn it
+ * is in, the seed, the volcano cards, the dragon cards, the caves and the players in queue order.
+ * <p>
+ * It holds no JavaFX objects and copies the engine structures it is given, so it does not change when the
+ * game goes on and can be written by any save format, see {@link BinarySaveFormat}. Player colours are
+ * packed into 8 bits per channel.
+ */
+public final class SaveState {
+    private final long gameId;
+    private final int turn;
+    private final long seed;
+    private final VolcanoRing volcanoRing;
+    private final DragonCardRegistry dragonCards;
+    private final List<CaveState> caves;
+    private final List<PlayerState> players;
+
+    /**
+     * Constructs a SaveState.
+     *
+     * @param gameId      The ID shared by every save of the game.
+     * @param turn        The turn the game is in, counted from 1.
+     * @param seed        The seed the cards were dealt from.
+     * @param volcanoRing The volcano cards, which are copied.
+     * @param dragonCards The dragon cards indexed by slot, which are copied.
+     * @param caves       The caves in board order.
+     * @param players     The players in queue order, with the current player last.
+     */
+    public SaveState(long gameId, int turn, long seed, VolcanoRing volcanoRing, DragonCardRegistry dragonCards,
+                     List<CaveState> caves, List<PlayerState> players) {
+        this.gameId = gameId;
+        this.turn = turn;
+        this.seed = seed;
+        this.volcanoRing = copyOf(volcanoRing);
+        this.dragonCards = new DragonCardRegistry(dragonCards.size());
+        dragonCards.copyTo(this.dragonCards);
+        this.caves = List.copyOf(caves);
+        this.players = List.copyOf(players);
+    }
+
+    /**
+     * Copies a volcano ring.
+     *
+     * @param volcanoRing The ring to copy.
+     * @return A new ring with the same creatures.
+     */
+    private static VolcanoRing copyOf(VolcanoRing volcanoRing) {
+        VolcanoRing copy = new VolcanoRing(volcanoRing.size());
+        for (int position = 0; position < volcanoRing.size(); position++) {
+            copy.set(position, volcanoRing.get(position));
+        }
+        return copy;
+    }
+
+    /**
+     * Retrieves the ID shared by every save of the game, which stays the same when the game is loaded
+     * and saved again.
+     *
+     * @return The game ID.
+     */
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Retrieves the turn the game is in.
+     *
+     * @return The turn number, counted from 1.
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Retrieves the seed the cards of the game were dealt from.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Retrieves the number of volcano tiles.
+     *
+     * @return The board size.
+     */
+    public int getBoardSize() {
+        return volcanoRing.size();
+    }
+
+    /**
+     * Retrieves the ordinal of the creature on a volcano tile.
+     *
+     * @param position The tile position.
+     * @return The creature ordinal, or -1 if the tile was not assigned.
+     */
+    public int getVolcanoOrdinal(int position) {
+        return volcanoRing.getOrdinal(position);
+    }
+
+    /**
+     * Creates a copy of the saved volcano cards.
+     *
+     * @return A new volcano ring.
+     */
+    public VolcanoRing createVolcanoRing() {
+        return copyOf(volcanoRing);
+    }
+
+    /**
+     * Retrieves the number of dragon card slots.
+     *
+     * @return The number of slots.
+     */
+    public int getCardSlotCount() {
+        return dragonCards.size();
+    }
+
+    /**
+     * Retrieves the ordinal of the creature on the dragon card in a slot.
+     *
+     * @param slot The slot index.
+     * @return The creature ordinal, or -1 if the slot is empty.
+     */
+    public int getCardCreatureOrdinal(int slot) {
+        return dragonCards.getCreatureOrdinal(slot);
+    }
+
+    /**
+     * Retrieves the quantity on the dragon card in a slot.
+     *
+     * @param slot The slot index.
+     * @return The quantity, which is negative for Dragon Pirate cards.
+     */
+    public int getCardQuantity(int slot) {
+        return dragonCards.getQuantity(slot);
+    }
+
+    /**
+     * Creates a copy of the saved dragon cards.
+     *
+     * @return A new registry indexed by slot.
+     */
+    public DragonCardRegistry createDragonCardRegistry() {
+        DragonCardRegistry copy = new DragonCardRegistry(dragonCards.size());
+        dragonCards.copyTo(copy);
+        return copy;
+    }
+
+    /**
+     * Retrieves the caves.
+     *
+     * @return An unmodifiable list of the caves in board order.
+     */
+    public List<CaveState> getCaves() {
+        return caves;
+    }
+
+    /**
+     * Retrieves the players.
+     *
+     * @return An unmodifiable list of the players in queue order, with the current player last.
+     */
+    public List<PlayerState> getPlayers() {
+        return players;
+    }
+
+    /**
+     * The CaveState class is the saved state of one cave.
+     */
+    public static final class CaveState {
+        private final int attachedPosition;
+        private final CreatureName creature;
+        private final boolean occupied;
+
+        /**
+         * Constructs a CaveState.
+         *
+         * @param attachedPosition The volcano tile the cave is attached to.
+         * @param creature         The creature of the cave.
+         * @param occupied         Whether a player is in the cave.
+         */
+        public CaveState(int attachedPosition, CreatureName creature, boolean occupied) {
+            this.attachedPosition = attachedPosition;
+            this.creature = creature;
+            this.occupied = occupied;
+        }
+
+        /**
+         * Retrieves the volcano tile the cave is attached to.
+         *
+         * @return The attached position.
+         */
+        public int getAttachedPosition() {
+            return attachedPosition;
+        }
+
+        /**
+         * Retrieves the creature of the cave.
+         *
+         * @return The creature.
+         */
+        public CreatureName getCreature() {
+            return creature;
+        }
+
+        /**
+         * Checks whether a player is in the cave.
+         *
+         * @return True if the cave is occupied, false otherwise.
+         */
+        public boolean isOccupied() {
+            return occupied;
+        }
+    }
+
+    /**
+     * The PlayerState class is the saved state of one player.
+     */
+    public static final class PlayerState {
+        private final String name;
+        private final int rgba;
+        private final int currentPosition;
+        private final int startingPosition;
+        private final int startingCave;
+        private final int stepsTaken;
+        private final int totalStepsTaken;
+        private final boolean hasMoved;
+        private final boolean gotMoveBack;
+        private final int moveBackCave;
+
+        /**
+         * Constructs a PlayerState.
+         *
+         * @param name             The name of the player.
+         * @param rgba             The colour of the player, see {@link #packColor}.
+         * @param currentPosition  The current position of the player.
+         * @param startingPosition The starting position of the player.
+         * @param startingCave     The index of the starting cave, or -1 if it is unknown.
+         * @param stepsTaken       The number of steps taken since leaving the starting cave.
+         * @param totalStepsTaken  The total number of steps taken.
+         * @param hasMoved         Whether the player has left their starting cave.
+         * @param gotMoveBack      Whether the player is waiting in a cave after a Move Back card.
+         * @param moveBackCave     The index of the cave the player was moved back to, or -1 if there is none.
+         */
+        public PlayerState(String name, int rgba, int currentPosition, int startingPosition, int startingCave,
+                           int stepsTaken, int totalStepsTaken, boolean hasMoved, boolean gotMoveBack, int moveBackCave) {
+            this.name = name;
+            this.rgba = rgba;
+            this.currentPosition = currentPosition;
+            this.startingPosition = startingPosition;
+            this.startingCave = startingCave;
+            this.stepsTaken = stepsTaken;
+            this.totalStepsTaken = totalStepsTaken;
+            this.hasMoved = hasMoved;
+            this.gotMoveBack = gotMoveBack;
+            this.moveBackCave = moveBackCave;
+        }
+
+        /**
+         * Packs a colour into 8 bits per channel.
+         *
+         * @param red     The red channel between 0 and 1.
+         * @param green   The green channel between 0 and 1.
+         * @param blue    The blue channel between 0 and 1.
+         * @param opacity The opacity between 0 and 1.
+         * @return The colour as 0xRRGGBBAA.
+         */
+        public static int packColor(double red, double green, double blue, double opacity) {
+            return channel(red) << 24 | channel(green) << 16 | channel(blue) << 8 | channel(opacity);
+        }
+
+        /**
+         * Converts a colour channel to 8 bits.
+         *
+         * @param value The channel between 0 and 1.
+         * @return The channel between 0 and 255.
+         */
+        private static int channel(double value) {
+            return (int) Math.round(Math.min(Math.max(value, 0), 1) * 255);
+        }
+
+        /**
+         * Retrieves the name of the player.
+         *
+         * @return The player name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the colour of the player.
+         *
+         * @return The colour as 0xRRGGBBAA.
+         */
+        public int getRgba() {
+            return rgba;
+        }
+
+        /**
+         * Retrieves the red channel of the colour of the player.
+         *
+         * @return The red channel between 0 and 1.
+         */
+        public double getRed() {
+            return (rgba >>> 24) / 255.0;
+        }
+
+        /**
+         * Retrieves the green channel of the colour of the player.
+         *
+         * @return The green channel between 0 and 1.
+         */
+        public double getGreen() {
+            return (rgba >>> 16 & 0xFF) / 255.0;
+        }
+
+        /**
+         * Retrieves the blue channel of the colour of the player.
+         *
+         * @return The blue channel between 0 and 1.
+         */
+        public double getBlue() {
+            return (rgba >>> 8 & 0xFF) / 255.0;
+        }
+
+        /**
+         * Retrieves the opacity of the colour of the player.
+         *
+         * @return The opacity between 0 and 1.
+         */
+        public double getOpacity() {
+            return (rgba & 0xFF) / 255.0;
+        }
+
+        /**
+         * Retrieves the current position of the player.
+         *
+         * @return The current position.
+         */
+        public int getCurrentPosition() {
+            return currentPosition;
+        }
+
+        /**
+         * Retrieves the starting position of the player.
+         *
+         * @return The starting position.
+         */
+        public int getStartingPosition() {
+            return startingPosition;
+        }
+
+        /**
+         * Retrieves the starting cave of the player.
+         *
+         * @return The index of the cave, or -1 if it is unknown.
+         */
+        public int getStartingCave() {
+            return startingCave;
+        }
+
+        /**
+         * Retrieves the number of steps taken since leaving the starting cave.
+         *
+         * @return The number of steps.
+         */
+        public int getStepsTaken() {
+            return stepsTaken;
+        }
+
+        /**
+         * Retrieves the total number of steps taken.
+         *
+         * @return The total number of steps.
+         */
+        public int getTotalStepsTaken() {
+            return totalStepsTaken;
+        }
+
+        /**
+         * Checks whether the player has left their starting cave.
+         *
+         * @return True if the player has moved, false otherwise.
+         */
+        public boolean hasMoved() {
+            return hasMoved;
+        }
+
+        /**
+         * Checks whether the player is waiting in a cave after a Move Back card.
+         *
+         * @return True if the player was moved back, false otherwise.
+         */
+        public boolean isGotMoveBack() {
+            return gotMoveBack;
+        }
+
+        /**
+         * Retrieves the cave the player was moved back to.
+         *
+         * @return The index of the cave, or -1 if there is none.
+         */
+        public int getMoveBackCave() {
+            return moveBackCave;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dragonix.fierydragons1.session;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.simulation.PlayerPolicy;
+
+import java.util.SplittableRandom;
+
+/**
+ * The GameSession class is one live game hosted by a {@link SessionHost}.
+ * The engine is only touched by the host thread the session is assigned to, so it needs no locking.
+ */
+public class GameSession {
+    private final long id;
+    private final GameEngine engine;
+    private final int stripe;
+    private volatile boolean suspended;
+    private PlayerPolicy[] bots;
+    private SplittableRandom botRandom;
+
+    /**
+     * Constructs a GameSession for the given engine.
+     *
+     * @param id     The session id.
+     * @param engine The engine holding the game state.
+     * @param stripe The index of the host thread that processes this session's moves.
+     */
+    GameSession(long id, GameEngine engine, int stripe) {
+        this.id = id;
+        this.engine = engine;
+        this.stripe = stripe;
+    }
+
+    /**
+     * Retrieves the session id.
+     *
+     * @return The session id.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Checks whether the session is suspended.
+     *
+     * @return True if moves are currently rejected, false otherwise.
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Sets whether the session is suspended.
+     *
+     * @param suspended Whether moves should be rejected.
+     */
+    void setSuspended(boolean suspended) {
+        this.suspended = suspended;
+    }
+
+    /**
+     * Retrieves the engine of this session. It must only be used on the session's host thread.
+     *
+     * @return The game engine.
+     */
+    GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Retrieves the index of the host thread that processes this session's moves.
+     *
+     * @return The stripe index.
+     */
+    int getStripe() {
+        return stripe;
+    }
+
+    /**
+     * Retrieves the bot playing a seat. It must only be used on the session's host thread.
+     *
+     * @param seat The seat index.
+     * @return The bot, or null if the seat is played by a person.
+     */
+    PlayerPolicy getBot(int seat) {
+        return bots == null ? null : bots[seat];
+    }
+
+    /**
+     * Seats a bot, or frees the seat for a person. It must only be used on the session's host thread.
+     *
+     * @param seat The seat index.
+     * @param bot  The bot for this game, or null to free the seat.
+     */
+    void setBot(int seat, PlayerPolicy bot) {
+        if (bots == null) {
+            bots = new PlayerPolicy[engine.getPlayerCount()];
+            botRandom = new SplittableRandom();
+        }
+        bots[seat] = bot;
+    }
+
+    /**
+     * Retrieves the random number generator of the bots. It must only be used on the session's host thread.
+     *
+     * @return The random number generator, or null if no bot was ever seated.
+     */
+    SplittableRandom getBotRandom() {
+        return botRandom;
+    }
+
+    /**
+     * Shows a flipped card to every seated bot. It must only be used on the session's host thread.
+     *
+     * @param slot The slot of the flipped card.
+     */
+    void revealCard(int slot) {
+        if (bots == null) {
+            return;
+        }
+        CreatureName creature = engine.getDragonCardRegistry().getCreature(slot);
+        int quantity = engine.getDragonCardRegistry().getQuantity(slot);
+        for (PlayerPolicy bot : bots) {
+            if (bot != null) {
+                bot.cardRevealed(slot, creature, quantity);
+            }
+        }
+    }
+}
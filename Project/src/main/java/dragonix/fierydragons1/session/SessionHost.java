@@ -0,0 +1,334 @@
+package dragonix.fierydragons1.session;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.MoveOutcome;
+import dragonix.fierydragons1.engine.VolcanoRing;
+import dragonix.fierydragons1.simulation.PlayerPolicy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The SessionHost class runs many independent games in one JVM without any JavaFX objects.
+ * <p>
+ * Every session is assigned to one of a fixed number of single-threaded stripes, one per core by default.
+ * All moves of a session run in order on its stripe, so engines need no locking, while sessions on
+ * different stripes are processed in parallel. A session holds only its {@link GameEngine}, and sessions
+ * created from the same board share the volcano ring and dragon cards, so tens of thousands of games
+ * fit in a modest heap. Moves resolve in constant time, which keeps the latency of a move bounded by
+ * the length of its stripe's queue.
+ * <p>
+ * Empty seats can be filled with bots. A bot plays its whole turn on the stripe as soon as its seat
+ * comes up, and sees every card turned face up in its session.
+ */
+public class SessionHost implements AutoCloseable {
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final ExecutorService[] stripes;
+
+    /**
+     * Constructs a SessionHost with one stripe per available core.
+     */
+    public SessionHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a SessionHost with the given number of stripes.
+     *
+     * @param threads The number of threads that process moves.
+     * @throws IllegalArgumentException If the number of threads is not positive.
+     */
+    public SessionHost(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("A session host needs at least one thread");
+        }
+        stripes = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            String name = "session-host-" + i;
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Creates a session for a new game on the given board.
+     *
+     * @param board       The board layout.
+     * @param volcanoRing The creatures on the volcano tiles, which may be shared between sessions.
+     * @param cards       The dragon cards, which may be shared between sessions.
+     * @return The id of the new session.
+     * @throws IllegalArgumentException If there are more than {@link GameEngine#MAX_CARD_SLOTS} card slots.
+     */
+    public long createSession(BoardDefinition board, VolcanoRing volcanoRing, DragonCardRegistry cards) {
+        GameEngine engine = board.createEngine(volcanoRing);
+        engine.setDragonCardRegistry(cards);
+        return createSession(engine);
+    }
+
+    /**
+     * Creates a session for an existing engine. The host takes ownership of the engine, and the caller
+     * must not use it afterwards.
+     *
+     * @param engine The engine holding the game state.
+     * @return The id of the new session.
+     */
+    public long createSession(GameEngine engine) {
+        long id = nextId.getAndIncrement();
+        sessions.put(id, new GameSession(id, engine, (int) (id % stripes.length)));
+        return id;
+    }
+
+    /**
+     * Flips the dragon card in the given slot for the current player of a session.
+     * The turn passes to the next player when the outcome ends it.
+     *
+     * @param id   The session id.
+     * @param slot The slot of the flipped card.
+     * @return A future completed with the outcome of the card, or exceptionally if the session is
+     * suspended, already won or disposed, or the slot does not exist, holds no card or was already
+     * flipped this turn.
+     */
+    public CompletableFuture<MoveOutcome> flipCard(long id, int slot) {
+        return submit(id, true, session -> {
+            MoveOutcome outcome = session.getEngine().resolveCard(slot);
+            session.revealCard(slot);
+            if (outcome.endsTurn()) {
+                session.getEngine().nextPlayer();
+                playBotTurns(session);
+            }
+            return outcome;
+        });
+    }
+
+    /**
+     * Passes the turn of a session to the next player.
+     *
+     * @param id The session id.
+     * @return A future completed once the turn has passed.
+     */
+    public CompletableFuture<Void> passTurn(long id) {
+        return submit(id, true, session -> {
+            session.getEngine().nextPlayer();
+            playBotTurns(session);
+            return null;
+        });
+    }
+
+    /**
+     * Passes the turn of a session to the next player because the turn timer ran out.
+     *
+     * @param id The session id.
+     * @return A future completed once the turn has passed.
+     */
+    public CompletableFuture<Void> expireTurn(long id) {
+        return submit(id, true, session -> {
+            session.getEngine().expireTurn();
+            playBotTurns(session);
+            return null;
+        });
+    }
+
+    /**
+     * Seats a bot in a session, or frees a seat for a person. If the seat is up, the bot plays right away.
+     *
+     * @param id     The session id.
+     * @param seat   The seat index.
+     * @param policy The policy the bot plays with, or null to free the seat.
+     * @return A future completed once the bot is seated and has played any turn that was due,
+     * or exceptionally if the seat does not exist or the session is suspended, already won or disposed.
+     */
+    public CompletableFuture<Void> seatBot(long id, int seat, PlayerPolicy policy) {
+        return submit(id, true, session -> {
+            if (seat < 0 || seat >= session.getEngine().getPlayerCount()) {
+                throw new IllegalArgumentException("Unknown seat " + seat);
+            }
+            session.setBot(seat, policy == null ? null : policy.forGame());
+            playBotTurns(session);
+            return null;
+        });
+    }
+
+    /**
+     * Reads the state of a session on its host thread. This also works while the session is suspended.
+     *
+     * @param id    The session id.
+     * @param query The function reading the engine. It must not keep a reference to the engine.
+     * @param <T>   The type of the result.
+     * @return A future completed with the result of the query.
+     */
+    public <T> CompletableFuture<T> inspect(long id, Function<GameEngine, T> query) {
+        return submit(id, false, session -> query.apply(session.getEngine()));
+    }
+
+    /**
+     * Suspends a session so that its moves are rejected until it is resumed.
+     *
+     * @param id The session id.
+     * @throws IllegalArgumentException If there is no such session.
+     */
+    public void suspend(long id) {
+        getSession(id).setSuspended(true);
+    }
+
+    /**
+     * Resumes a suspended session.
+     *
+     * @param id The session id.
+     * @throws IllegalArgumentException If there is no such session.
+     */
+    public void resume(long id) {
+        getSession(id).setSuspended(false);
+    }
+
+    /**
+     * Checks whether a session is suspended.
+     *
+     * @param id The session id.
+     * @return True if the session is suspended, false otherwise.
+     * @throws IllegalArgumentException If there is no such session.
+     */
+    public boolean isSuspended(long id) {
+        return getSession(id).isSuspended();
+    }
+
+    /**
+     * Disposes of a session. Moves still queued for it are rejected.
+     *
+     * @param id The session id.
+     * @return True if the session existed, false otherwise.
+     */
+    public boolean dispose(long id) {
+        return sessions.remove(id) != null;
+    }
+
+    /**
+     * Retrieves the number of live sessions.
+     *
+     * @return The number of sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Disposes of all sessions and stops the host threads once their queued moves have run.
+     */
+    @Override
+    public void close() {
+        sessions.clear();
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        try {
+            for (ExecutorService stripe : stripes) {
+                stripe.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieves a live session.
+     *
+     * @param id The session id.
+     * @return The session.
+     * @throws IllegalArgumentException If there is no such session.
+     */
+    private GameSession getSession(long id) {
+        GameSession session = sessions.get(id);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session " + id);
+        }
+        return session;
+    }
+
+    /**
+     * Lets the bots of a session play while the current seat holds a bot. At most one round is played,
+     * so a table of bots cannot hold up the host thread; the next move continues the game.
+     *
+     * @param session The session.
+     */
+    private static void playBotTurns(GameSession session) {
+        GameEngine engine = session.getEngine();
+        for (int turn = 0; turn < engine.getPlayerCount() && engine.getWinner() < 0; turn++) {
+            PlayerPolicy bot = session.getBot(engine.getCurrentSeat());
+            if (bot == null) {
+                return;
+            }
+            playBotTurn(session, bot);
+        }
+    }
+
+    /**
+     * Plays one turn for a bot, until a card ends it, the bot stops flipping, or every card has been flipped.
+     *
+     * @param session The session.
+     * @param bot     The bot of the current seat.
+     */
+    private static void playBotTurn(GameSession session, PlayerPolicy bot) {
+        GameEngine engine = session.getEngine();
+        int slots = engine.getDragonCardRegistry().size();
+        long allFlipped = slots == Long.SIZE ? -1L : (1L << slots) - 1;
+        long flipped = 0;
+        while (flipped != allFlipped) {
+            int slot = bot.chooseSlot(engine, flipped, session.getBotRandom());
+            if (slot < 0) {
+                break;
+            }
+            flipped |= 1L << slot;
+            MoveOutcome outcome = engine.resolveCard(slot);
+            session.revealCard(slot);
+            if (outcome == MoveOutcome.WON) {
+                return;
+            }
+            if (outcome.endsTurn()) {
+                break;
+            }
+        }
+        engine.nextPlayer();
+    }
+
+    /**
+     * Runs an action against a session on the session's host thread.
+     *
+     * @param id     The session id.
+     * @param isMove Whether the action changes the game and must be rejected for suspended or finished games.
+     * @param action The action to run.
+     * @param <T>    The type of the result.
+     * @return A future completed with the result of the action.
+     */
+    private <T> CompletableFuture<T> submit(long id, boolean isMove, Function<GameSession, T> action) {
+        GameSession session = sessions.get(id);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown session " + id));
+        }
+        Supplier<T> task = () -> {
+            if (isMove) {
+                if (sessions.get(id) != session) {
+                    throw new IllegalStateException("Session " + id + " has been disposed");
+                }
+                if (session.isSuspended()) {
+                    throw new IllegalStateException("Session " + id + " is suspended");
+                }
+                if (session.getEngine().getWinner() >= 0) {
+                    throw new IllegalStateException("Session " + id + " is already over");
+                }
+            }
+            return action.apply(session);
+        };
+        return CompletableFuture.supplyAsync(task, stripes[session.getStripe()]);
+    }
+}
@@ -0,0 +1,137 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CardFactory;
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.cards.DragonCards;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CardMemory class remembers which dragon card lies in each slot, as a player who has watched every
+ * card turned face up during a game would. Cards are stored as indices into the table of distinct
+ * cards of the deck, one byte per slot, and the cards not seen yet are the deck minus the remembered ones.
+ */
+class CardMemory {
+    /**
+     * The memory entry of a slot whose card has not been seen.
+     */
+    private static final byte UNKNOWN = -1;
+
+    private static final CreatureName[] TYPE_CREATURES;
+    private static final int[] TYPE_QUANTITIES;
+    private static final int[] TYPE_COUNTS;
+
+    static {
+        List<DragonCards> deck = CardFactory.createDeck();
+        CreatureName[] creatures = new CreatureName[deck.size()];
+        int[] quantities = new int[deck.size()];
+        int[] counts = new int[deck.size()];
+        int types = 0;
+        for (DragonCards card : deck) {
+            int type = findType(creatures, quantities, types, card.getCreatureName(), card.getQuantity());
+            if (type < 0) {
+                type = types++;
+                creatures[type] = card.getCreatureName();
+                quantities[type] = card.getQuantity();
+            }
+            counts[type]++;
+        }
+        TYPE_CREATURES = Arrays.copyOf(creatures, types);
+        TYPE_QUANTITIES = Arrays.copyOf(quantities, types);
+        TYPE_COUNTS = Arrays.copyOf(counts, types);
+    }
+
+    private byte[] knownTypes = new byte[0];
+
+    /**
+     * Retrieves the number of distinct cards in the deck.
+     *
+     * @return The number of card types.
+     */
+    static int getTypeCount() {
+        return TYPE_COUNTS.length;
+    }
+
+    /**
+     * Retrieves the creature on a card type.
+     *
+     * @param type The index of the card type.
+     * @return The creature.
+     */
+    static CreatureName getCreature(int type) {
+        return TYPE_CREATURES[type];
+    }
+
+    /**
+     * Retrieves the quantity on a card type.
+     *
+     * @param type The index of the card type.
+     * @return The quantity.
+     */
+    static int getQuantity(int type) {
+        return TYPE_QUANTITIES[type];
+    }
+
+    /**
+     * Remembers which card lies in a slot. Cards that are not part of the deck are not remembered.
+     *
+     * @param slot     The slot of the revealed card.
+     * @param creature The creature on the card.
+     * @param quantity The quantity on the card.
+     */
+    void reveal(int slot, CreatureName creature, int quantity) {
+        if (slot >= knownTypes.length) {
+            int oldLength = knownTypes.length;
+            knownTypes = Arrays.copyOf(knownTypes, slot + 1);
+            Arrays.fill(knownTypes, oldLength, knownTypes.length, UNKNOWN);
+        }
+        knownTypes[slot] = (byte) findType(TYPE_CREATURES, TYPE_QUANTITIES, TYPE_CREATURES.length, creature, quantity);
+    }
+
+    /**
+     * Retrieves the remembered card type of a slot.
+     *
+     * @param slot The slot.
+     * @return The index of the card type, or -1 if the card has not been seen.
+     */
+    int getKnownType(int slot) {
+        return slot < knownTypes.length ? knownTypes[slot] : UNKNOWN;
+    }
+
+    /**
+     * Counts the cards of every type that have not been seen in any of the given slots.
+     *
+     * @param slots The number of slots.
+     * @return The number of unseen cards per card type, never negative.
+     */
+    int[] countUnseen(int slots) {
+        int[] unseen = TYPE_COUNTS.clone();
+        for (int slot = 0; slot < slots; slot++) {
+            int type = getKnownType(slot);
+            if (type >= 0 && unseen[type] > 0) {
+                unseen[type]--;
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Finds the type of a card among the first types of a card type table.
+     *
+     * @param creatures  The creatures of the card types.
+     * @param quantities The quantities of the card types.
+     * @param types      The number of types in the table.
+     * @param creature   The creature on the card.
+     * @param quantity   The quantity on the card.
+     * @return The index of the card type, or -1 if it is not in the table.
+     */
+    private static int findType(CreatureName[] creatures, int[] quantities, int types, CreatureName creature, int quantity) {
+        for (int type = 0; type < types; type++) {
+            if (creatures[type] == creature && quantities[type] == quantity) {
+                return type;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,199 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.MoveOutcome;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The CardMemoryPolicy class plays like a player with a perfect memory. It remembers every card turned
+ * face up during the game, by any player, in a {@link CardMemory}, and flips the card that gains the
+ * most ground. A card it has not seen yet is worth the average over the cards of the deck it has not
+ * seen either. It ends its turn when no card is expected to gain ground.
+ * <p>
+ * Every card is judged by resolving it on a copy of the engine, so the policy follows the real rules.
+ * What a card does depends only on the board, so the judgements are kept in a {@link TranspositionTable}
+ * by the hash of the board and reused when the board comes back, as it does every turn a player fails
+ * to leave their tile. The evaluation of a turn stops when the compute budget runs out, and the best card found so far is
+ * flipped, which bounds the time a bot can hold up a shared host thread. Because of the budget, results
+ * may differ between runs when it is small enough to be reached.
+ */
+public class CardMemoryPolicy implements PlayerPolicy {
+    /**
+     * The default compute budget per decision, in nanoseconds.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 1_000_000;
+    /**
+     * The value of a card that wins the game, higher than any number of steps on a supported board.
+     */
+    private static final double WIN_VALUE = 1e6;
+    /**
+     * The number of card judgements remembered per game.
+     */
+    private static final int EVALUATION_ENTRIES = 1 << 10;
+    /**
+     * The multiplier that turns a card type into the part of a judgement's hash that tells it apart
+     * from the judgements of other cards on the same board.
+     */
+    private static final long TYPE_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final long budgetNanos;
+    private final CardMemory memory = new CardMemory();
+    private final TranspositionTable evaluations = new TranspositionTable(EVALUATION_ENTRIES);
+
+    /**
+     * Constructs a CardMemoryPolicy with the default compute budget of one millisecond per decision.
+     */
+    public CardMemoryPolicy() {
+        this(DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Constructs a CardMemoryPolicy with the given compute budget.
+     *
+     * @param budgetNanos The time the policy may spend on a decision, in nanoseconds, or
+     *                    {@link Long#MAX_VALUE} for no limit, which keeps results independent of timing.
+     * @throws IllegalArgumentException If the budget is not positive.
+     */
+    public CardMemoryPolicy(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("The compute budget must be positive");
+        }
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Retrieves a new policy with the same budget and an empty memory, for one seat of a new game.
+     *
+     * @return The policy for the new game.
+     */
+    @Override
+    public PlayerPolicy forGame() {
+        return new CardMemoryPolicy(budgetNanos);
+    }
+
+    /**
+     * Remembers which card lies in a slot.
+     *
+     * @param slot     The slot of the revealed card.
+     * @param creature The creature on the card.
+     * @param quantity The quantity on the card.
+     */
+    @Override
+    public void cardRevealed(int slot, CreatureName creature, int quantity) {
+        memory.reveal(slot, creature, quantity);
+    }
+
+    /**
+     * Chooses the remembered card that gains the most ground, or a card not seen yet if the unseen cards
+     * are worth more on average.
+     *
+     * @param engine       The game, which must not be changed by the policy.
+     * @param flippedSlots A bitmask of the slots already flipped this turn.
+     * @param random       The random number generator of the game being played.
+     * @return The slot to flip, or -1 to end the turn.
+     */
+    @Override
+    public int chooseSlot(GameEngine engine, long flippedSlots, RandomGenerator random) {
+        // Compared by difference, so that an unbounded budget wraps around instead of expiring at once
+        long deadline = System.nanoTime() + budgetNanos;
+        int slots = engine.getDragonCardRegistry().size();
+        int[] unseenCounts = memory.countUnseen(slots);
+        int unknownSlots = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (memory.getKnownType(slot) < 0 && (flippedSlots & (1L << slot)) == 0) {
+                unknownSlots++;
+            }
+        }
+
+        // Remembered cards are certain, so judge them first
+        int bestSlot = -1;
+        double bestValue = 0;
+        boolean outOfTime = false;
+        for (int slot = 0; slot < slots && !outOfTime; slot++) {
+            int type = memory.getKnownType(slot);
+            if (type >= 0 && (flippedSlots & (1L << slot)) == 0) {
+                double value = evaluate(engine, type);
+                if (value > bestValue) {
+                    bestSlot = slot;
+                    bestValue = value;
+                }
+                outOfTime = System.nanoTime() - deadline > 0;
+            }
+        }
+        if (unknownSlots == 0) {
+            return bestSlot;
+        }
+
+        // An unseen card is worth the average of the cards it could be
+        double unseenValue = 0;
+        int unseenCards = 0;
+        for (int type = 0; type < CardMemory.getTypeCount() && !outOfTime; type++) {
+            if (unseenCounts[type] > 0) {
+                unseenValue += unseenCounts[type] * evaluate(engine, type);
+                unseenCards += unseenCounts[type];
+                outOfTime = System.nanoTime() - deadline > 0;
+            }
+        }
+        boolean flipUnknown;
+        if (outOfTime) {
+            // Keep the game moving if the budget ran out before anything worth flipping was found
+            flipUnknown = bestSlot < 0;
+        } else {
+            flipUnknown = unseenCards > 0 && unseenValue / unseenCards > bestValue;
+        }
+        return flipUnknown ? pickUnknownSlot(slots, flippedSlots, unknownSlots, random) : bestSlot;
+    }
+
+    /**
+     * Picks a random face-down slot whose card has not been seen.
+     *
+     * @param slots        The number of slots.
+     * @param flippedSlots A bitmask of the slots already flipped this turn.
+     * @param unknownSlots The number of face-down slots whose card has not been seen.
+     * @param random       The random number generator.
+     * @return The slot to flip.
+     */
+    private int pickUnknownSlot(int slots, long flippedSlots, int unknownSlots, RandomGenerator random) {
+        int n = random.nextInt(unknownSlots);
+        for (int slot = 0; slot < slots; slot++) {
+            if ((flippedSlots & (1L << slot)) == 0 && memory.getKnownType(slot) < 0 && n-- == 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Judges a card by resolving it for the current player on a copy of the engine, unless it was
+     * judged on the same board before.
+     *
+     * @param engine The game.
+     * @param type   The index of the card type.
+     * @return The number of steps the card gains, which is negative if it sends the player back.
+     */
+    private double evaluate(GameEngine engine, int type) {
+        long hash = engine.getBoardHash() + (type + 1) * TYPE_MULTIPLIER;
+        double value = evaluations.get(hash);
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+        GameEngine trial = engine.copy();
+        int seat = trial.getCurrentSeat();
+        int stepsBefore = trial.getStepsTaken(seat);
+        MoveOutcome outcome = trial.resolveCard(CardMemory.getCreature(type), CardMemory.getQuantity(type));
+        value = outcome == MoveOutcome.WON ? WIN_VALUE : trial.getStepsTaken(seat) - stepsBefore;
+        evaluations.put(hash, 0, value);
+        return value;
+    }
+
+    /**
+     * Retrieves the table of card judgements of this policy.
+     *
+     * @return The table.
+     */
+    TranspositionTable getEvaluations() {
+        return evaluations;
+    }
+}
@@ -0,0 +1,198 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * The FairLayoutPicker class deals volcano layouts whose estimated seat advantage, the difference
+ * between the win rates of the luckiest and the unluckiest seat, is under a threshold.
+ * <p>
+ * Layouts are drawn by rejection sampling: candidates are shuffled from the game's volcano stream the way
+ * an ordinary deal is, so the first candidate is the layout the game would get anyway, and the first one
+ * estimated to be fair enough is dealt. A layout is estimated from the {@link LayoutTable} if one is given,
+ * topped up with a few fast games between {@link CardMemoryPolicy} players, and the games played for a
+ * layout are kept so the estimate improves every time it comes up again. The win rates are pulled toward
+ * an even split in proportion to how few games back them, so a handful of lucky games does not condemn a
+ * layout. Picking stops at the time budget, and the fairest candidate seen is dealt if none was accepted.
+ * <p>
+ * The dragon cards are not part of the estimate: every deal holds the same sixteen cards, and players who
+ * do not know where they lie cannot favour one seat with their order.
+ */
+public class FairLayoutPicker {
+    /**
+     * The default largest seat advantage of a dealt layout.
+     */
+    public static final double DEFAULT_MAX_SEAT_ADVANTAGE = 0.15;
+    /**
+     * The default time a pick may take, which keeps the setup of a game under 50 ms.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+    /**
+     * The number of games played for a layout each time it is estimated without enough games behind it.
+     */
+    private static final int GAMES_PER_ESTIMATE = 16;
+    /**
+     * The number of games behind an estimate above which no more games are played.
+     */
+    private static final int CONFIDENT_GAMES = 200;
+    /**
+     * The weight of the even split in an estimate, in games.
+     */
+    private static final double PRIOR_GAMES = 16;
+    /**
+     * The number of candidates drawn before the fairest one is dealt.
+     */
+    private static final int MAX_CANDIDATES = 256;
+    /**
+     * The turn limit of the estimating games; attentive players finish in a few dozen turns.
+     */
+    private static final int MAX_TURNS = 200;
+
+    private final BoardDefinition board;
+    private final LayoutTable table;
+    private final GameSimulator simulator;
+    private final int players;
+    private final int sequences;
+    private final int[] simulatedWins;
+    private final int[] simulatedGames;
+    private final SplittableRandom simulationRandom;
+    private double maxSeatAdvantage = DEFAULT_MAX_SEAT_ADVANTAGE;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    /**
+     * Constructs a FairLayoutPicker for the given board.
+     *
+     * @param board The board layout.
+     * @param table The measured layouts, or null if there are none. A table measured on a different
+     *              board is ignored.
+     * @param seed  The seed of the estimating games.
+     */
+    public FairLayoutPicker(BoardDefinition board, LayoutTable table, long seed) {
+        PlayerPolicy[] policies = new PlayerPolicy[board.getPlayerCount()];
+        for (int seat = 0; seat < policies.length; seat++) {
+            policies[seat] = new CardMemoryPolicy();
+        }
+        this.board = board;
+        this.simulator = new GameSimulator(board, policies);
+        this.simulator.setMaxTurns(MAX_TURNS);
+        this.players = board.getPlayerCount();
+        this.sequences = simulator.getSequenceCount();
+        this.table = table != null && table.covers(board.getBoardSize(), players, sequences) ? table : null;
+        int layouts = LayoutTable.factorial(sequences);
+        this.simulatedWins = new int[layouts * players];
+        this.simulatedGames = new int[layouts];
+        this.simulationRandom = new SplittableRandom(seed);
+    }
+
+    /**
+     * Retrieves the board the layouts are picked for.
+     *
+     * @return The board layout.
+     */
+    public BoardDefinition getBoard() {
+        return board;
+    }
+
+    /**
+     * Sets the largest seat advantage of a dealt layout.
+     *
+     * @param maxSeatAdvantage The largest difference between the win rates of two seats, between 0 and 1.
+     */
+    public void setMaxSeatAdvantage(double maxSeatAdvantage) {
+        this.maxSeatAdvantage = maxSeatAdvantage;
+    }
+
+    /**
+     * Sets the time a pick may take.
+     *
+     * @param budgetNanos The budget in nanoseconds.
+     * @throws IllegalArgumentException If the budget is not positive.
+     */
+    public void setBudgetNanos(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("The time budget must be positive");
+        }
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Picks a layout whose estimated seat advantage is under the threshold.
+     *
+     * @param random The volcano stream of the game.
+     * @return The index of the volcano card sequence at every place around the ring.
+     */
+    public synchronized int[] pickLayout(RandomGenerator random) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int[] candidate = new int[sequences];
+        int[] best = null;
+        double bestAdvantage = Double.MAX_VALUE;
+        for (int i = 0; i < MAX_CANDIDATES; i++) {
+            GameSimulator.shuffle(candidate, random);
+            double advantage = estimate(LayoutTable.rank(candidate), deadline);
+            if (advantage < bestAdvantage) {
+                best = candidate.clone();
+                bestAdvantage = advantage;
+            }
+            if (advantage <= maxSeatAdvantage || System.nanoTime() > deadline) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Estimates the seat advantage of a layout, playing more games for it if it needs them.
+     *
+     * @param sequenceOrder The index of the volcano card sequence at every place around the ring.
+     * @return The estimated difference between the highest and lowest win rate.
+     */
+    public synchronized double estimateSeatAdvantage(int[] sequenceOrder) {
+        return estimate(LayoutTable.rank(sequenceOrder), System.nanoTime() + budgetNanos);
+    }
+
+    /**
+     * Estimates the seat advantage of a layout, playing more games for it if it needs them and there
+     * is time left.
+     *
+     * @param layout   The rank of the layout.
+     * @param deadline The time after which no more games are played, from {@link System#nanoTime()}.
+     * @return The estimated difference between the highest and lowest win rate.
+     */
+    private double estimate(int layout, long deadline) {
+        double tableGames = table == null ? 0 : table.getGamesPerLayout();
+        if (tableGames + simulatedGames[layout] < CONFIDENT_GAMES && System.nanoTime() < deadline) {
+            simulate(layout);
+        }
+        double games = PRIOR_GAMES + tableGames + simulatedGames[layout];
+        double lowest = 1;
+        double highest = 0;
+        for (int seat = 0; seat < players; seat++) {
+            double wins = PRIOR_GAMES / players + simulatedWins[layout * players + seat];
+            if (table != null) {
+                wins += table.getWinRate(layout, seat) * tableGames;
+            }
+            double rate = wins / games;
+            lowest = Math.min(lowest, rate);
+            highest = Math.max(highest, rate);
+        }
+        return highest - lowest;
+    }
+
+    /**
+     * Plays a few games on a layout and adds them to its record.
+     *
+     * @param layout The rank of the layout.
+     */
+    private void simulate(int layout) {
+        int[] order = new int[sequences];
+        LayoutTable.unrank(layout, order);
+        SimulationResult result = simulator.playGames(GAMES_PER_ESTIMATE, simulationRandom.split(), order);
+        for (int seat = 0; seat < players; seat++) {
+            simulatedWins[layout * players + seat] += (int) result.getWins(seat);
+        }
+        simulatedGames[layout] += GAMES_PER_ESTIMATE;
+    }
+}
@@ -0,0 +1,327 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CardFactory;
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.cards.DragonCards;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.GameRandom;
+import dragonix.fierydragons1.engine.MoveOutcome;
+import dragonix.fierydragons1.engine.VolcanoRing;
+import dragonix.fierydragons1.handlers.VolcanoCardHandler;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * The GameSimulator class plays complete games of Fiery Dragons with the regular rules and deals,
+ * using a {@link PlayerPolicy} per seat instead of human players.
+ * <p>
+ * A batch of games is split across cores with a fork/join pool and the per-batch statistics are merged
+ * into one {@link SimulationResult}. The random number generator is split along with the work, so the
+ * result for a given seed does not depend on the number of threads. Every game draws its own seed and
+ * deals from it exactly as a {@code Game} with that seed would, so any simulated game can be recreated
+ * with {@link #createGame(long)}. Every leaf batch reuses one engine template, volcano ring and card
+ * registry, so playing a game allocates little more than a copy of the engine.
+ */
+public class GameSimulator {
+    /**
+     * The default number of turns after which a game is abandoned without a winner.
+     */
+    public static final int DEFAULT_MAX_TURNS = 10_000;
+    /**
+     * The number of games below which a batch is played on one thread instead of being split further.
+     */
+    private static final long LEAF_GAMES = 2_048;
+
+    private final BoardDefinition board;
+    private final PlayerPolicy[] policies;
+    private final CreatureName[][] volcanoSequences = VolcanoCardHandler.createVolcanoSequences();
+    private final byte[] deckCreatures;
+    private final byte[] deckQuantities;
+    private int maxTurns = DEFAULT_MAX_TURNS;
+
+    /**
+     * Constructs a GameSimulator for the given board.
+     *
+     * @param board    The board layout.
+     * @param policies The policy of every seat, in seat order.
+     * @throws IllegalArgumentException If there is not one policy per player on the board.
+     */
+    public GameSimulator(BoardDefinition board, PlayerPolicy... policies) {
+        if (policies.length != board.getPlayerCount()) {
+            throw new IllegalArgumentException("Expected " + board.getPlayerCount() + " policies but got " + policies.length);
+        }
+        this.board = board;
+        this.policies = policies.clone();
+
+        List<DragonCards> deck = CardFactory.createDeck();
+        deckCreatures = new byte[deck.size()];
+        deckQuantities = new byte[deck.size()];
+        for (int i = 0; i < deck.size(); i++) {
+            deckCreatures[i] = (byte) deck.get(i).getCreatureName().ordinal();
+            deckQuantities[i] = (byte) deck.get(i).getQuantity();
+        }
+    }
+
+    /**
+     * Sets the number of turns after which a game is abandoned without a winner.
+     *
+     * @param maxTurns The turn limit.
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Plays a batch of games on the common fork/join pool.
+     *
+     * @param games The number of games to play.
+     * @param seed  The seed of the random number generator.
+     * @return The merged statistics of all games.
+     */
+    public SimulationResult run(long games, long seed) {
+        return run(games, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays a batch of games on the given fork/join pool.
+     *
+     * @param games The number of games to play.
+     * @param seed  The seed of the random number generator.
+     * @param pool  The pool to play the games on.
+     * @return The merged statistics of all games.
+     */
+    public SimulationResult run(long games, long seed, ForkJoinPool pool) {
+        return pool.invoke(new SimulationTask(games, new SplittableRandom(seed)));
+    }
+
+    /**
+     * Creates the game that the given seed deals, with every player waiting in their starting cave.
+     *
+     * @param seed The seed of the game.
+     * @return The engine of the new game.
+     */
+    public GameEngine createGame(long seed) {
+        GameRandom random = new GameRandom(seed);
+        VolcanoRing volcanoRing = new VolcanoRing(board.getBoardSize());
+        DragonCardRegistry cards = new DragonCardRegistry(deckCreatures.length);
+        dealVolcanoCards(volcanoRing, new int[volcanoSequences.length], random.getVolcanoRandom());
+        dealDragonCards(cards, new int[deckCreatures.length], random.getDeckRandom());
+        GameEngine engine = board.createEngine(volcanoRing);
+        engine.setDragonCardRegistry(cards);
+        return engine;
+    }
+
+    /**
+     * Retrieves the number of volcano card sequences that are shuffled into a layout.
+     *
+     * @return The number of sequences.
+     */
+    int getSequenceCount() {
+        return volcanoSequences.length;
+    }
+
+    /**
+     * Plays a batch of games on the calling thread.
+     *
+     * @param games  The number of games to play.
+     * @param random The random number generator the seed of every game is drawn from.
+     * @return The statistics of the games.
+     */
+    SimulationResult playGames(long games, SplittableRandom random) {
+        return playGames(games, random, null);
+    }
+
+    /**
+     * Plays a batch of games on the calling thread, optionally on a fixed volcano layout.
+     *
+     * @param games  The number of games to play.
+     * @param random The random number generator the seed of every game is drawn from.
+     * @param layout The order of the volcano card sequences of every game, or null to shuffle them per game.
+     * @return The statistics of the games.
+     */
+    SimulationResult playGames(long games, SplittableRandom random, int[] layout) {
+        SimulationResult result = new SimulationResult(board.getPlayerCount());
+        VolcanoRing volcanoRing = new VolcanoRing(board.getBoardSize());
+        DragonCardRegistry cards = new DragonCardRegistry(deckCreatures.length);
+        GameEngine template = board.createEngine(volcanoRing);
+        template.setDragonCardRegistry(cards);
+        template.prepareNearestCaveLookup();
+
+        int[] sequenceOrder = new int[volcanoSequences.length];
+        int[] deckOrder = new int[deckCreatures.length];
+        for (long game = 0; game < games; game++) {
+            GameRandom gameRandom = new GameRandom(random.nextLong());
+            if (layout == null) {
+                dealVolcanoCards(volcanoRing, sequenceOrder, gameRandom.getVolcanoRandom());
+            } else if (game == 0) {
+                layVolcanoCards(volcanoRing, layout);
+            }
+            dealDragonCards(cards, deckOrder, gameRandom.getDeckRandom());
+            playGame(template.copy(), result, gameRandom.getPlayerRandom());
+        }
+        return result;
+    }
+
+    /**
+     * Lays out the volcano cards in a random order, as {@link VolcanoCardHandler} does for a new game.
+     *
+     * @param volcanoRing   The ring to fill.
+     * @param sequenceOrder Scratch space for the order of the sequences.
+     * @param random        The random number generator.
+     */
+    private void dealVolcanoCards(VolcanoRing volcanoRing, int[] sequenceOrder, RandomGenerator random) {
+        shuffle(sequenceOrder, random);
+        layVolcanoCards(volcanoRing, sequenceOrder);
+    }
+
+    /**
+     * Lays out the volcano cards in the given order of sequences, repeating them on larger boards.
+     *
+     * @param volcanoRing   The ring to fill.
+     * @param sequenceOrder The index of the sequence at every place around the ring.
+     */
+    private void layVolcanoCards(VolcanoRing volcanoRing, int[] sequenceOrder) {
+        int sequenceLength = volcanoSequences[0].length;
+        int flattenedSize = sequenceOrder.length * sequenceLength;
+        for (int position = 0; position < volcanoRing.size(); position++) {
+            int i = position % flattenedSize;
+            volcanoRing.set(position, volcanoSequences[sequenceOrder[i / sequenceLength]][i % sequenceLength]);
+        }
+    }
+
+    /**
+     * Deals the dragon cards face down in a random order, as {@link CardFactory} does for a new game.
+     *
+     * @param cards     The registry to fill.
+     * @param deckOrder Scratch space for the order of the cards.
+     * @param random    The random number generator.
+     */
+    private void dealDragonCards(DragonCardRegistry cards, int[] deckOrder, RandomGenerator random) {
+        shuffle(deckOrder, random);
+        CreatureName[] creatures = CreatureName.values();
+        for (int slot = 0; slot < deckOrder.length; slot++) {
+            int card = deckOrder[slot];
+            cards.set(slot, creatures[deckCreatures[card]], deckQuantities[card]);
+        }
+    }
+
+    /**
+     * Fills an array with a random permutation of its indices. The swaps are the ones
+     * {@code Collections.shuffle} makes, so the same generator state gives the same order as shuffling a list.
+     *
+     * @param order  The array to fill.
+     * @param random The random number generator.
+     */
+    static void shuffle(int[] order, RandomGenerator random) {
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int i = order.length; i > 1; i--) {
+            int j = random.nextInt(i);
+            int swap = order[i - 1];
+            order[i - 1] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * Plays one game to the end or to the turn limit and records it.
+     * A turn lasts until a card ends it, the policy stops flipping, or every card has been flipped.
+     * Every flipped card is shown to the policies of all seats.
+     *
+     * @param engine The game to play.
+     * @param result The statistics to record into.
+     * @param random The random number generator for the policies.
+     */
+    private void playGame(GameEngine engine, SimulationResult result, RandomGenerator random) {
+        DragonCardRegistry cards = engine.getDragonCardRegistry();
+        int slots = cards.size();
+        PlayerPolicy[] players = new PlayerPolicy[policies.length];
+        for (int seat = 0; seat < players.length; seat++) {
+            players[seat] = policies[seat].forGame();
+        }
+        long allFlipped = slots == Long.SIZE ? -1L : (1L << slots) - 1;
+        int turns = 0;
+        while (engine.getWinner() < 0 && turns < maxTurns) {
+            int seat = engine.getCurrentSeat();
+            long flipped = 0;
+            boolean turnOver = false;
+            while (!turnOver && flipped != allFlipped) {
+                int slot = players[seat].chooseSlot(engine, flipped, random);
+                if (slot < 0) {
+                    break;
+                }
+                flipped |= 1L << slot;
+                result.recordFlip(seat);
+                MoveOutcome outcome = engine.resolveCard(slot);
+                revealCard(players, cards, slot);
+                if (outcome == MoveOutcome.MOVED_TO_CAVE) {
+                    result.recordMoveBack(seat);
+                }
+                turnOver = outcome.endsTurn() || outcome == MoveOutcome.WON;
+            }
+            turns++;
+            if (engine.getWinner() < 0) {
+                engine.nextPlayer();
+            }
+        }
+        result.recordGame(engine.getWinner(), turns);
+    }
+
+    /**
+     * Shows a flipped card to the policy of every seat.
+     *
+     * @param players The policies of the game, by seat.
+     * @param cards   The dragon cards of the game.
+     * @param slot    The slot of the flipped card.
+     */
+    private static void revealCard(PlayerPolicy[] players, DragonCardRegistry cards, int slot) {
+        CreatureName creature = cards.getCreature(slot);
+        int quantity = cards.getQuantity(slot);
+        for (PlayerPolicy player : players) {
+            player.cardRevealed(slot, creature, quantity);
+        }
+    }
+
+    /**
+     * The SimulationTask class plays a batch of games, splitting it in half until it is small enough.
+     */
+    private class SimulationTask extends RecursiveTask<SimulationResult> {
+        private final long games;
+        private final SplittableRandom random;
+
+        /**
+         * Constructs a SimulationTask for a batch of games.
+         *
+         * @param games  The number of games to play.
+         * @param random The random number generator of this batch.
+         */
+        SimulationTask(long games, SplittableRandom random) {
+            this.games = games;
+            this.random = random;
+        }
+
+        /**
+         * Plays the batch, or splits it and merges the results of both halves.
+         *
+         * @return The statistics of the batch.
+         */
+        @Override
+        protected SimulationResult compute() {
+            if (games <= LEAF_GAMES) {
+                return playGames(games, random);
+            }
+            long half = games / 2;
+            SimulationTask left = new SimulationTask(half, random.split());
+            left.fork();
+            SimulationResult right = new SimulationTask(games - half, random).compute();
+            return left.join().merge(right);
+        }
+    }
+}
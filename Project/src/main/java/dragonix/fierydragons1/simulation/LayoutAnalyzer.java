@@ -0,0 +1,202 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The LayoutAnalyzer class measures how fair every volcano layout is. It enumerates every order of the
+ * volcano card sequences, plays a sample of games on each with a {@link GameSimulator}, and writes the
+ * win rate of every seat and the average game length per layout to a {@link LayoutTable}.
+ * <p>
+ * The layouts are split across cores with a fork/join pool. Every layout draws its games from its own
+ * generator derived from the seed and the layout, so the table for a given seed does not depend on the
+ * number of threads. With the eight standard sequences there are 8! = 40,320 layouts, so a full
+ * analysis plays tens of millions of games and is meant to be run as a batch job, see {@link #main}; it
+ * takes a couple of core-hours with the default sample.
+ */
+public class LayoutAnalyzer {
+    /**
+     * The default number of games played on every layout.
+     */
+    public static final int DEFAULT_GAMES_PER_LAYOUT = 1_000;
+    /**
+     * The number of layouts below which a range is analysed on one thread instead of being split further.
+     */
+    private static final int LEAF_LAYOUTS = 16;
+    /**
+     * The multiplier that spreads layout ranks over the seeds of their generators.
+     */
+    private static final long LAYOUT_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final BoardDefinition board;
+    private final GameSimulator simulator;
+    private int gamesPerLayout = DEFAULT_GAMES_PER_LAYOUT;
+
+    /**
+     * Constructs a LayoutAnalyzer for the given board.
+     *
+     * @param board    The board layout.
+     * @param policies The policy of every seat, in seat order.
+     * @throws IllegalArgumentException If there is not one policy per player on the board, or the
+     *                                  board has too many volcano card sequences to enumerate.
+     */
+    public LayoutAnalyzer(BoardDefinition board, PlayerPolicy... policies) {
+        this.board = board;
+        this.simulator = new GameSimulator(board, policies);
+        if (simulator.getSequenceCount() > LayoutTable.MAX_SEQUENCES) {
+            throw new IllegalArgumentException("Cannot enumerate the layouts of " + simulator.getSequenceCount() + " sequences");
+        }
+    }
+
+    /**
+     * Sets the number of games played on every layout.
+     *
+     * @param gamesPerLayout The number of games.
+     * @throws IllegalArgumentException If the number is not positive.
+     */
+    public void setGamesPerLayout(int gamesPerLayout) {
+        if (gamesPerLayout <= 0) {
+            throw new IllegalArgumentException("At least one game per layout is needed");
+        }
+        this.gamesPerLayout = gamesPerLayout;
+    }
+
+    /**
+     * Sets the number of turns after which a game is abandoned without a winner.
+     *
+     * @param maxTurns The turn limit.
+     */
+    public void setMaxTurns(int maxTurns) {
+        simulator.setMaxTurns(maxTurns);
+    }
+
+    /**
+     * Analyses every layout on the common fork/join pool and writes the table.
+     *
+     * @param seed The seed the games are drawn from.
+     * @param file The table file to write.
+     * @return The written table, mapped into memory.
+     * @throws IOException If the table cannot be written.
+     */
+    public LayoutTable analyse(long seed, Path file) throws IOException {
+        return analyse(seed, file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analyses every layout on the given fork/join pool and writes the table.
+     *
+     * @param seed The seed the games are drawn from.
+     * @param file The table file to write.
+     * @param pool The pool to play the games on.
+     * @return The written table, mapped into memory.
+     * @throws IOException If the table cannot be written.
+     */
+    public LayoutTable analyse(long seed, Path file, ForkJoinPool pool) throws IOException {
+        int sequences = simulator.getSequenceCount();
+        int layouts = LayoutTable.factorial(sequences);
+        int players = board.getPlayerCount();
+        long[] wins = new long[layouts * players];
+        long[] turns = new long[layouts];
+        pool.invoke(new LayoutTask(0, layouts, seed, wins, turns));
+        LayoutTable.write(file, board.getBoardSize(), players, sequences, gamesPerLayout, wins, turns);
+        return LayoutTable.open(file);
+    }
+
+    /**
+     * Plays the games of one layout and records their statistics.
+     *
+     * @param layout The rank of the layout.
+     * @param order  Scratch space for the order of the sequences.
+     * @param seed   The seed of the analysis.
+     * @param wins   The wins of every seat per layout to record into.
+     * @param turns  The total number of turns per layout to record into.
+     */
+    private void analyseLayout(int layout, int[] order, long seed, long[] wins, long[] turns) {
+        LayoutTable.unrank(layout, order);
+        SplittableRandom random = new SplittableRandom(seed + layout * LAYOUT_GAMMA);
+        SimulationResult result = simulator.playGames(gamesPerLayout, random, order);
+        int players = board.getPlayerCount();
+        for (int seat = 0; seat < players; seat++) {
+            wins[layout * players + seat] = result.getWins(seat);
+        }
+        turns[layout] = result.getTotalTurns();
+    }
+
+    /**
+     * Analyses the layouts of the standard board and writes the table the game looks for at startup.
+     * Every seat is played by a {@link CardMemoryPolicy}, which stands in for an attentive player and
+     * finishes games in a few dozen turns, where random players take thousands. The policies have no
+     * compute budget, so a loaded machine cannot cut decisions short and change the table.
+     *
+     * @param args The number of games per layout and the seed, both optional.
+     * @throws IOException If the table cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES_PER_LAYOUT;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        BoardDefinition board = BoardDefinition.standard();
+        PlayerPolicy[] policies = new PlayerPolicy[board.getPlayerCount()];
+        Arrays.fill(policies, new CardMemoryPolicy(Long.MAX_VALUE));
+        LayoutAnalyzer analyzer = new LayoutAnalyzer(board, policies);
+        analyzer.setGamesPerLayout(games);
+
+        long start = System.nanoTime();
+        LayoutTable table = analyzer.analyse(seed, LayoutTable.DEFAULT_PATH);
+        double worst = 0;
+        for (int layout = 0; layout < table.getLayoutCount(); layout++) {
+            worst = Math.max(worst, table.getSeatAdvantage(layout));
+        }
+        System.out.printf("Analysed %d layouts with %d games each in %.1f s, largest seat advantage %.3f%n",
+                table.getLayoutCount(), games, (System.nanoTime() - start) / 1e9, worst);
+    }
+
+    /**
+     * The LayoutTask class analyses a range of layouts, splitting it in half until it is small enough.
+     */
+    private class LayoutTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final long seed;
+        private final long[] wins;
+        private final long[] turns;
+
+        /**
+         * Constructs a LayoutTask for a range of layouts.
+         *
+         * @param from  The rank of the first layout.
+         * @param to    The rank after the last layout.
+         * @param seed  The seed of the analysis.
+         * @param wins  The wins of every seat per layout to record into.
+         * @param turns The total number of turns per layout to record into.
+         */
+        LayoutTask(int from, int to, long seed, long[] wins, long[] turns) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.wins = wins;
+            this.turns = turns;
+        }
+
+        /**
+         * Analyses the range, or splits it and analyses both halves.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_LAYOUTS) {
+                int[] order = new int[simulator.getSequenceCount()];
+                for (int layout = from; layout < to; layout++) {
+                    analyseLayout(layout, order, seed, wins, turns);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LayoutTask(from, middle, seed, wins, turns), new LayoutTask(middle, to, seed, wins, turns));
+        }
+    }
+}
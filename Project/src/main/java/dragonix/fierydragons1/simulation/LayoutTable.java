@@ -0,0 +1,308 @@
+package dragonix.fierydragons1.simulation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LayoutTable class holds the win rate of every seat and the average game length for every volcano
+ * layout, as measured by a {@link LayoutAnalyzer}.
+ * <p>
+ * A layout is an order of the volcano card sequences around the ring, identified by its rank among all
+ * orders in lexicographic order, see {@link #rank(int[])}. The table is a file with a short header
+ * followed by one fixed-size record per layout, and it is memory-mapped rather than read, so opening it
+ * is cheap and looking up a layout is a single indexed read. Win rates are stored as 16-bit fractions.
+ */
+public class LayoutTable {
+    /**
+     * The file the game looks for at startup.
+     */
+    public static final Path DEFAULT_PATH = Path.of("layouts.bin");
+    /**
+     * The largest number of sequences whose table fits in one mapping of a few tens of megabytes.
+     */
+    public static final int MAX_SEQUENCES = 10;
+
+    private static final int MAGIC = 0x46444C54;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 7 * Integer.BYTES;
+    private static final double RATE_SCALE = Character.MAX_VALUE;
+
+    private final ByteBuffer buffer;
+    private final int boardSize;
+    private final int players;
+    private final int sequences;
+    private final int layouts;
+    private final int gamesPerLayout;
+    private final int recordBytes;
+
+    /**
+     * Constructs a LayoutTable over the contents of a table file.
+     *
+     * @param buffer The contents of the file.
+     * @throws IOException If the contents are not a layout table.
+     */
+    private LayoutTable(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a layout table");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported layout table version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.boardSize = buffer.getInt(8);
+        this.players = buffer.getInt(12);
+        this.sequences = buffer.getInt(16);
+        this.layouts = buffer.getInt(20);
+        this.gamesPerLayout = buffer.getInt(24);
+        this.recordBytes = recordBytes(players);
+        if (players <= 0 || sequences <= 0 || sequences > MAX_SEQUENCES || layouts != factorial(sequences)
+                || buffer.capacity() != HEADER_BYTES + (long) layouts * recordBytes) {
+            throw new IOException("Corrupt layout table");
+        }
+    }
+
+    /**
+     * Maps a table file into memory.
+     *
+     * @param file The table file.
+     * @return The table.
+     * @throws IOException If the file cannot be read or is not a layout table.
+     */
+    public static LayoutTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new LayoutTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a table file. The file is written next to its destination and moved into place, so a
+     * reader never maps a half-written table.
+     *
+     * @param file           The table file.
+     * @param boardSize      The number of volcano tiles of the analysed board.
+     * @param players        The number of players of the analysed board.
+     * @param sequences      The number of volcano card sequences.
+     * @param gamesPerLayout The number of games played per layout.
+     * @param wins           The number of games won by every seat, indexed by layout times players plus seat.
+     * @param turns          The total number of turns of the games of every layout.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Path file, int boardSize, int players, int sequences, int gamesPerLayout, long[] wins, long[] turns) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(boardSize);
+            out.writeInt(players);
+            out.writeInt(sequences);
+            out.writeInt(turns.length);
+            out.writeInt(gamesPerLayout);
+            for (int layout = 0; layout < turns.length; layout++) {
+                for (int seat = 0; seat < players; seat++) {
+                    out.writeChar((int) Math.round(wins[layout * players + seat] * RATE_SCALE / gamesPerLayout));
+                }
+                out.writeFloat((float) turns[layout] / gamesPerLayout);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Retrieves the number of volcano tiles of the analysed board.
+     *
+     * @return The board size.
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Retrieves the number of players of the analysed board.
+     *
+     * @return The number of players.
+     */
+    public int getPlayerCount() {
+        return players;
+    }
+
+    /**
+     * Retrieves the number of volcano card sequences a layout orders.
+     *
+     * @return The number of sequences.
+     */
+    public int getSequenceCount() {
+        return sequences;
+    }
+
+    /**
+     * Retrieves the number of layouts in the table.
+     *
+     * @return The number of layouts.
+     */
+    public int getLayoutCount() {
+        return layouts;
+    }
+
+    /**
+     * Retrieves the number of games that were played on every layout.
+     *
+     * @return The number of games per layout.
+     */
+    public int getGamesPerLayout() {
+        return gamesPerLayout;
+    }
+
+    /**
+     * Checks whether the table was measured on a board of the given shape.
+     *
+     * @param boardSize The number of volcano tiles.
+     * @param players   The number of players.
+     * @param sequences The number of volcano card sequences.
+     * @return True if the table describes such a board, false otherwise.
+     */
+    public boolean covers(int boardSize, int players, int sequences) {
+        return this.boardSize == boardSize && this.players == players && this.sequences == sequences;
+    }
+
+    /**
+     * Retrieves the share of the games on a layout that a seat won.
+     *
+     * @param layout The rank of the layout.
+     * @param seat   The seat index.
+     * @return The win rate between 0 and 1.
+     */
+    public double getWinRate(int layout, int seat) {
+        return buffer.getChar(recordOffset(layout) + seat * Character.BYTES) / RATE_SCALE;
+    }
+
+    /**
+     * Retrieves the average number of turns of the games on a layout.
+     *
+     * @param layout The rank of the layout.
+     * @return The average number of turns.
+     */
+    public double getAverageTurns(int layout) {
+        return buffer.getFloat(recordOffset(layout) + players * Character.BYTES);
+    }
+
+    /**
+     * Retrieves how much better the luckiest seat did on a layout than the unluckiest one.
+     *
+     * @param layout The rank of the layout.
+     * @return The difference between the highest and lowest win rate, between 0 and 1.
+     */
+    public double getSeatAdvantage(int layout) {
+        int offset = recordOffset(layout);
+        int lowest = Character.MAX_VALUE;
+        int highest = 0;
+        for (int seat = 0; seat < players; seat++) {
+            int rate = buffer.getChar(offset + seat * Character.BYTES);
+            lowest = Math.min(lowest, rate);
+            highest = Math.max(highest, rate);
+        }
+        return (highest - lowest) / RATE_SCALE;
+    }
+
+    /**
+     * Checks whether the seat advantage of a layout is within a limit.
+     *
+     * @param sequenceOrder The index of the sequence at every place around the ring.
+     * @param maxAdvantage  The largest acceptable seat advantage.
+     * @return True if the layout is balanced enough, false otherwise.
+     */
+    public boolean isBalanced(int[] sequenceOrder, double maxAdvantage) {
+        return getSeatAdvantage(rank(sequenceOrder)) <= maxAdvantage;
+    }
+
+    /**
+     * Computes the rank of a layout among all orders of its sequences in lexicographic order.
+     *
+     * @param sequenceOrder A permutation of 0 to n - 1, with n at most {@link #MAX_SEQUENCES}.
+     * @return The rank between 0 and n! - 1.
+     */
+    public static int rank(int[] sequenceOrder) {
+        int rank = 0;
+        int used = 0;
+        for (int i = 0; i < sequenceOrder.length; i++) {
+            // The digit is the number of smaller sequences still unused
+            int digit = sequenceOrder[i] - Integer.bitCount(used & ((1 << sequenceOrder[i]) - 1));
+            rank = rank * (sequenceOrder.length - i) + digit;
+            used |= 1 << sequenceOrder[i];
+        }
+        return rank;
+    }
+
+    /**
+     * Computes the layout of a given rank, the inverse of {@link #rank(int[])}.
+     *
+     * @param rank          The rank between 0 and n! - 1.
+     * @param sequenceOrder The array of length n to fill with the layout.
+     */
+    public static void unrank(int rank, int[] sequenceOrder) {
+        int n = sequenceOrder.length;
+        int[] digits = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            digits[i] = rank % (n - i);
+            rank /= n - i;
+        }
+        int unused = (1 << n) - 1;
+        for (int i = 0; i < n; i++) {
+            int remaining = unused;
+            for (int skip = 0; skip < digits[i]; skip++) {
+                remaining &= remaining - 1;
+            }
+            sequenceOrder[i] = Integer.numberOfTrailingZeros(remaining);
+            unused &= ~(1 << sequenceOrder[i]);
+        }
+    }
+
+    /**
+     * Computes the number of orders of the given number of sequences.
+     *
+     * @param sequences The number of sequences, at most {@link #MAX_SEQUENCES}.
+     * @return The number of layouts.
+     */
+    public static int factorial(int sequences) {
+        int layouts = 1;
+        for (int i = 2; i <= sequences; i++) {
+            layouts *= i;
+        }
+        return layouts;
+    }
+
+    /**
+     * Computes the size of the record of a layout.
+     *
+     * @param players The number of players.
+     * @return The number of bytes per layout.
+     */
+    private static int recordBytes(int players) {
+        return players * Character.BYTES + Float.BYTES;
+    }
+
+    /**
+     * Computes where the record of a layout starts.
+     *
+     * @param layout The rank of the layout.
+     * @return The byte offset of the record.
+     * @throws IndexOutOfBoundsException If the table has no such layout.
+     */
+    private int recordOffset(int layout) {
+        if (layout < 0 || layout >= layouts) {
+            throw new IndexOutOfBoundsException("Layout " + layout + " out of " + layouts);
+        }
+        return HEADER_BYTES + layout * recordBytes;
+    }
+}
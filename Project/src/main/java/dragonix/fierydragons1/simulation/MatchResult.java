@@ -0,0 +1,119 @@
+package dragonix.fierydragons1.simulation;
+
+/**
+ * The MatchResult class holds the outcome of one tournament match between two entrants.
+ * A match is a series of games in which the entrants take alternating seats, and the entrant
+ * with more wins takes the match.
+ */
+public class MatchResult {
+    private final int round;
+    private final int first;
+    private final int second;
+    private final long firstWins;
+    private final long secondWins;
+    private final long unfinishedGames;
+    private final long latencyNanos;
+
+    /**
+     * Constructs a MatchResult.
+     *
+     * @param round           The round the match was played in, starting at 0.
+     * @param first           The index of the first entrant.
+     * @param second          The index of the second entrant.
+     * @param firstWins       The number of games won by the first entrant.
+     * @param secondWins      The number of games won by the second entrant.
+     * @param unfinishedGames The number of games that hit the turn limit.
+     * @param latencyNanos    The time the match took to play, in nanoseconds.
+     */
+    public MatchResult(int round, int first, int second, long firstWins, long secondWins,
+                       long unfinishedGames, long latencyNanos) {
+        this.round = round;
+        this.first = first;
+        this.second = second;
+        this.firstWins = firstWins;
+        this.secondWins = secondWins;
+        this.unfinishedGames = unfinishedGames;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * Retrieves the round the match was played in.
+     *
+     * @return The round index.
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Retrieves the index of the first entrant.
+     *
+     * @return The entrant index.
+     */
+    public int getFirst() {
+        return first;
+    }
+
+    /**
+     * Retrieves the index of the second entrant.
+     *
+     * @return The entrant index.
+     */
+    public int getSecond() {
+        return second;
+    }
+
+    /**
+     * Retrieves the number of games won by the first entrant.
+     *
+     * @return The number of wins.
+     */
+    public long getFirstWins() {
+        return firstWins;
+    }
+
+    /**
+     * Retrieves the number of games won by the second entrant.
+     *
+     * @return The number of wins.
+     */
+    public long getSecondWins() {
+        return secondWins;
+    }
+
+    /**
+     * Retrieves the number of games that hit the turn limit without a winner.
+     *
+     * @return The number of unfinished games.
+     */
+    public long getUnfinishedGames() {
+        return unfinishedGames;
+    }
+
+    /**
+     * Retrieves the time the match took to play.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Retrieves the match points of the first entrant: 1 for a won match, 0.5 for a drawn one and 0 for a lost one.
+     *
+     * @return The match points of the first entrant.
+     */
+    public double getFirstPoints() {
+        return firstWins > secondWins ? 1 : firstWins == secondWins ? 0.5 : 0;
+    }
+
+    /**
+     * Retrieves the match points of the second entrant.
+     *
+     * @return The match points of the second entrant.
+     */
+    public double getSecondPoints() {
+        return 1 - getFirstPoints();
+    }
+}
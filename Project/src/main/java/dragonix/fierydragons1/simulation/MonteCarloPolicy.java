@@ -0,0 +1,412 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.MoveOutcome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
+
+/**
+ * The MonteCarloPolicy class is the hard bot. It chooses its flips with Monte Carlo tree search over the
+ * cards it could flip this turn, and remembers every card turned face up like {@link CardMemoryPolicy}.
+ * <p>
+ * Every search iteration deals the cards it has not seen at random from the rest of the deck, walks down
+ * the tree of this turn's flips, then plays the game on for a few turns with random flips and
+ * scores the outcome for the bot's seat. Several threads search the same tree at once: visit counts and
+ * scores are atomic counters, a visit is counted before its rollout so that concurrent searchers spread
+ * over different flips, and new nodes are attached with a compare-and-set, so the tree needs no locks.
+ * The search stops at a hard deadline shorter than the turn clock, and the most visited flip is played.
+ */
+public class MonteCarloPolicy implements PlayerPolicy {
+    /**
+     * The default time the search may take per flip, in nanoseconds.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The longest allowed search, which leaves a second of the turn clock to play the chosen card.
+     */
+    public static final long MAX_BUDGET_NANOS = TimeUnit.SECONDS.toNanos(GameEngine.TURN_TIME_SECONDS - 1);
+    /**
+     * The number of turns a rollout plays after the bot's turn before the position is scored.
+     * Random flips soon stop telling good positions from bad ones, so rollouts are kept short.
+     */
+    private static final int ROLLOUT_TURNS = 4;
+    /**
+     * The exploration constant of the UCB1 selection rule. Scores rarely move far from one half before
+     * the end of the game, so a small constant keeps the search on the promising flips.
+     */
+    private static final double EXPLORATION = 0.3;
+    /**
+     * The fixed-point scale of the scores, which are summed as longs so they can be updated atomically.
+     */
+    private static final long SCORE_SCALE = 1 << 16;
+
+    private final int threads;
+    private final long budgetNanos;
+    private final CardMemory memory = new CardMemory();
+
+    /**
+     * Constructs a MonteCarloPolicy that searches on every core for the default time per flip.
+     */
+    public MonteCarloPolicy() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Constructs a MonteCarloPolicy. The calling thread always searches, and the other threads are
+     * borrowed from the common fork/join pool.
+     *
+     * @param threads     The number of threads that search the tree.
+     * @param budgetNanos The time the search may take per flip, in nanoseconds.
+     * @throws IllegalArgumentException If the number of threads is not positive, or the budget is not
+     *                                  positive or exceeds {@link #MAX_BUDGET_NANOS}.
+     */
+    public MonteCarloPolicy(int threads, long budgetNanos) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The search needs at least one thread");
+        }
+        if (budgetNanos <= 0 || budgetNanos > MAX_BUDGET_NANOS) {
+            throw new IllegalArgumentException("The search budget must be positive and shorter than the turn clock");
+        }
+        this.threads = threads;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Retrieves a new policy with the same settings and an empty memory, for one seat of a new game.
+     *
+     * @return The policy for the new game.
+     */
+    @Override
+    public PlayerPolicy forGame() {
+        return new MonteCarloPolicy(threads, budgetNanos);
+    }
+
+    /**
+     * Remembers which card lies in a slot.
+     *
+     * @param slot     The slot of the revealed card.
+     * @param creature The creature on the card.
+     * @param quantity The quantity on the card.
+     */
+    @Override
+    public void cardRevealed(int slot, CreatureName creature, int quantity) {
+        memory.reveal(slot, creature, quantity);
+    }
+
+    /**
+     * Searches the flips of the current turn until the deadline and chooses the most visited one.
+     *
+     * @param engine       The game, which must not be changed by the policy.
+     * @param flippedSlots A bitmask of the slots already flipped this turn.
+     * @param random       The random number generator of the game being played.
+     * @return The slot to flip, or -1 to end the turn.
+     */
+    @Override
+    public int chooseSlot(GameEngine engine, long flippedSlots, RandomGenerator random) {
+        long deadline = System.nanoTime() + budgetNanos;
+        Search search = new Search(engine.copy(), flippedSlots, deadline);
+        if (search.allFlipped == flippedSlots) {
+            return -1;
+        }
+        SplittableRandom searchRandom = new SplittableRandom(random.nextLong());
+        List<Future<?>> helpers = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            SplittableRandom helperRandom = searchRandom.split();
+            helpers.add(ForkJoinPool.commonPool().submit(() -> search.run(helperRandom)));
+        }
+        search.run(searchRandom);
+        // Helpers stop by themselves at the deadline; the tree is read without waiting for them
+        for (Future<?> helper : helpers) {
+            helper.cancel(false);
+        }
+        return search.root.getMostVisited(flippedSlots);
+    }
+
+    /**
+     * Scores a position for a seat: 1 for a win, 0 for a loss, and otherwise a value in between that grows
+     * with the seat's lead in steps over the average of the other players.
+     *
+     * @param game The game.
+     * @param seat The seat index of the bot.
+     * @return The score between 0 and 1.
+     */
+    private static double score(GameEngine game, int seat) {
+        if (game.getWinner() >= 0) {
+            return game.getWinner() == seat ? 1 : 0;
+        }
+        double others = 0;
+        for (int other = 0; other < game.getPlayerCount(); other++) {
+            if (other != seat) {
+                others += game.getStepsTaken(other);
+            }
+        }
+        others /= Math.max(game.getPlayerCount() - 1, 1);
+        double lead = (game.getStepsTaken(seat) - others) / (2.0 * game.getBoardSize());
+        return Math.min(Math.max(0.5 + lead, 0), 1);
+    }
+
+    /**
+     * Flips random face-down cards for the current player until a card ends the turn or wins the game,
+     * or every card has been flipped.
+     *
+     * @param game       The game.
+     * @param flipped    A bitmask of the slots already flipped this turn.
+     * @param allFlipped The bitmask with every slot flipped.
+     * @param random     The random number generator.
+     */
+    private static void playRandomFlips(GameEngine game, long flipped, long allFlipped, RandomGenerator random) {
+        int slots = Long.bitCount(allFlipped);
+        while (flipped != allFlipped) {
+            int n = random.nextInt(slots - Long.bitCount(flipped));
+            int slot = 0;
+            while ((flipped & (1L << slot)) != 0 || n-- > 0) {
+                slot++;
+            }
+            flipped |= 1L << slot;
+            MoveOutcome outcome = game.resolveCard(slot);
+            if (outcome.endsTurn() || outcome == MoveOutcome.WON) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The Search class holds the state shared by the threads searching one decision.
+     */
+    private class Search {
+        private final GameEngine snapshot;
+        private final long flippedSlots;
+        private final long deadline;
+        private final int slots;
+        private final long allFlipped;
+        private final int[] knownTypes;
+        private final int[] unseenCounts;
+        private final int unseenCards;
+        private final Node root;
+
+        /**
+         * Constructs a Search from a private copy of the game.
+         *
+         * @param snapshot     The copy of the game, which the searching threads copy again for every iteration.
+         * @param flippedSlots A bitmask of the slots already flipped this turn.
+         * @param deadline     The {@link System#nanoTime()} at which the search stops.
+         */
+        Search(GameEngine snapshot, long flippedSlots, long deadline) {
+            this.snapshot = snapshot;
+            this.flippedSlots = flippedSlots;
+            this.deadline = deadline;
+            this.slots = snapshot.getDragonCardRegistry().size();
+            this.allFlipped = slots == Long.SIZE ? -1L : (1L << slots) - 1;
+            this.knownTypes = new int[slots];
+            for (int slot = 0; slot < slots; slot++) {
+                knownTypes[slot] = memory.getKnownType(slot);
+            }
+            this.unseenCounts = memory.countUnseen(slots);
+            int cards = 0;
+            for (int count : unseenCounts) {
+                cards += count;
+            }
+            this.unseenCards = cards;
+            this.root = new Node(slots);
+        }
+
+        /**
+         * Runs search iterations until the deadline. At least one iteration is run, so that the tree
+         * always has a visited flip.
+         *
+         * @param random The random number generator of this thread.
+         */
+        void run(SplittableRandom random) {
+            DragonCardRegistry cards = new DragonCardRegistry(slots);
+            int[] unseen = new int[unseenCards];
+            Node[] pathNodes = new Node[slots + 1];
+            int[] pathActions = new int[slots + 1];
+            do {
+                deal(cards, unseen, random);
+                GameEngine game = snapshot.copy();
+                game.setDragonCardRegistry(cards);
+                iterate(game, pathNodes, pathActions, random);
+            } while (System.nanoTime() < deadline);
+        }
+
+        /**
+         * Deals the remembered cards to their slots and the unseen cards of the deck at random to the other slots.
+         *
+         * @param cards  The registry to fill.
+         * @param unseen Scratch space for the unseen cards.
+         * @param random The random number generator.
+         */
+        private void deal(DragonCardRegistry cards, int[] unseen, RandomGenerator random) {
+            int remaining = 0;
+            for (int type = 0; type < unseenCounts.length; type++) {
+                for (int i = 0; i < unseenCounts[type]; i++) {
+                    unseen[remaining++] = type;
+                }
+            }
+            for (int slot = 0; slot < slots; slot++) {
+                int type = knownTypes[slot];
+                if (type < 0) {
+                    if (remaining > 0) {
+                        int pick = random.nextInt(remaining);
+                        type = unseen[pick];
+                        unseen[pick] = unseen[--remaining];
+                    } else {
+                        type = random.nextInt(CardMemory.getTypeCount());
+                    }
+                }
+                cards.set(slot, CardMemory.getCreature(type), CardMemory.getQuantity(type));
+            }
+        }
+
+        /**
+         * Runs one search iteration: selects flips down the tree, adds one node, rolls the game out and
+         * adds the score to every flip on the path.
+         *
+         * @param game        The game with the dealt cards.
+         * @param pathNodes   Scratch space for the nodes on the path.
+         * @param pathActions Scratch space for the actions on the path.
+         * @param random      The random number generator.
+         */
+        private void iterate(GameEngine game, Node[] pathNodes, int[] pathActions, RandomGenerator random) {
+            int seat = game.getCurrentSeat();
+            Node node = root;
+            long flipped = flippedSlots;
+            boolean turnContinues = false;
+            int depth = 0;
+            while (true) {
+                int action = node.select(flipped, random);
+                // Counting the visit before the score arrives steers other threads to other flips
+                node.visits.incrementAndGet(action);
+                pathNodes[depth] = node;
+                pathActions[depth++] = action;
+                if (action == slots) {
+                    break;
+                }
+                flipped |= 1L << action;
+                MoveOutcome outcome = game.resolveCard(action);
+                if (outcome.endsTurn() || outcome == MoveOutcome.WON || flipped == allFlipped) {
+                    break;
+                }
+                Node child = node.children.get(action);
+                if (child == null) {
+                    node.children.compareAndSet(action, null, new Node(slots));
+                    turnContinues = true;
+                    break;
+                }
+                node = child;
+            }
+
+            if (game.getWinner() < 0) {
+                if (turnContinues) {
+                    playRandomFlips(game, flipped, allFlipped, random);
+                }
+                for (int turn = 0; turn < ROLLOUT_TURNS && game.getWinner() < 0; turn++) {
+                    game.nextPlayer();
+                    playRandomFlips(game, 0, allFlipped, random);
+                }
+            }
+            long score = (long) (score(game, seat) * SCORE_SCALE);
+            for (int i = 0; i < depth; i++) {
+                pathNodes[i].scores.addAndGet(pathActions[i], score);
+            }
+        }
+    }
+
+    /**
+     * The Node class is one point of the turn in the search tree. Its actions are the slots, which flip
+     * a card, and one more action that ends the turn. The statistics of every action are atomic counters.
+     */
+    private static class Node {
+        private final int stopAction;
+        private final AtomicLongArray visits;
+        private final AtomicLongArray scores;
+        private final AtomicReferenceArray<Node> children;
+
+        /**
+         * Constructs a Node with no visits.
+         *
+         * @param slots The number of slots.
+         */
+        Node(int slots) {
+            this.stopAction = slots;
+            this.visits = new AtomicLongArray(slots + 1);
+            this.scores = new AtomicLongArray(slots + 1);
+            this.children = new AtomicReferenceArray<>(slots);
+        }
+
+        /**
+         * Selects the action to try with the UCB1 rule. Unvisited actions come first, in random order.
+         *
+         * @param flipped A bitmask of the slots already flipped this turn, which cannot be flipped again.
+         * @param random  The random number generator.
+         * @return The selected action.
+         */
+        int select(long flipped, RandomGenerator random) {
+            long total = 0;
+            for (int action = 0; action <= stopAction; action++) {
+                if (isLegal(action, flipped)) {
+                    total += visits.get(action);
+                }
+            }
+            double logTotal = Math.log(Math.max(total, 1));
+            int offset = random.nextInt(stopAction + 1);
+            int best = stopAction;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i <= stopAction; i++) {
+                int action = (i + offset) % (stopAction + 1);
+                if (!isLegal(action, flipped)) {
+                    continue;
+                }
+                long n = visits.get(action);
+                if (n == 0) {
+                    return action;
+                }
+                double value = (double) scores.get(action) / SCORE_SCALE / n + EXPLORATION * Math.sqrt(logTotal / n);
+                if (value > bestValue) {
+                    best = action;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Retrieves the most visited action as a slot to flip.
+         *
+         * @param flipped A bitmask of the slots already flipped this turn.
+         * @return The slot to flip, or -1 if ending the turn was visited most.
+         */
+        int getMostVisited(long flipped) {
+            int best = stopAction;
+            long bestVisits = -1;
+            for (int action = 0; action <= stopAction; action++) {
+                if (isLegal(action, flipped) && visits.get(action) > bestVisits) {
+                    best = action;
+                    bestVisits = visits.get(action);
+                }
+            }
+            return best == stopAction ? -1 : best;
+        }
+
+        /**
+         * Checks whether an action can be taken.
+         *
+         * @param action  The action.
+         * @param flipped A bitmask of the slots already flipped this turn.
+         * @return True if the action ends the turn or flips a face-down card, false otherwise.
+         */
+        private boolean isLegal(int action, long flipped) {
+            return action == stopAction || (flipped & (1L << action)) == 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.GameEngine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The PlayerPolicy interface decides which dragon card a simulated player flips next.
+ * A policy is shared by every game a simulator plays in parallel, so it must be thread-safe.
+ * Policies that remember what happened during a game keep that state in a separate instance
+ * per game, created by {@link #forGame()}.
+ */
+public interface PlayerPolicy {
+    /**
+     * Chooses the next dragon card to flip for the current player of a game.
+     *
+     * @param engine       The game, which must not be changed by the policy.
+     * @param flippedSlots A bitmask of the slots already flipped this turn.
+     * @param random       The random number generator of the game being simulated.
+     * @return The slot to flip, or -1 to end the turn without flipping.
+     */
+    int chooseSlot(GameEngine engine, long flippedSlots, RandomGenerator random);
+
+    /**
+     * Retrieves the policy that plays one seat of a new game. Stateless policies return themselves.
+     *
+     * @return The policy for the new game.
+     */
+    default PlayerPolicy forGame() {
+        return this;
+    }
+
+    /**
+     * Notifies the policy that a dragon card was turned face up, by any player, in the game it plays.
+     * Policies must only learn the cards from these notifications, not from the engine's card registry.
+     *
+     * @param slot     The slot of the revealed card.
+     * @param creature The creature on the card.
+     * @param quantity The quantity on the card.
+     */
+    default void cardRevealed(int slot, CreatureName creature, int quantity) {
+    }
+}
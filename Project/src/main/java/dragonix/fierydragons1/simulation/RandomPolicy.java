@@ -0,0 +1,37 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.GameEngine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The RandomPolicy class flips a random face-down dragon card until the turn ends,
+ * like a player who does not remember the cards.
+ */
+public class RandomPolicy implements PlayerPolicy {
+
+    /**
+     * Chooses a random slot that has not been flipped this turn.
+     *
+     * @param engine       The game, which must not be changed by the policy.
+     * @param flippedSlots A bitmask of the slots already flipped this turn.
+     * @param random       The random number generator of the game being simulated.
+     * @return The slot to flip, or -1 if every card has been flipped.
+     */
+    @Override
+    public int chooseSlot(GameEngine engine, long flippedSlots, RandomGenerator random) {
+        int slots = engine.getDragonCardRegistry().size();
+        int remaining = slots - Long.bitCount(flippedSlots);
+        if (remaining <= 0) {
+            return -1;
+        }
+        // Pick the n-th face-down card
+        int n = random.nextInt(remaining);
+        for (int slot = 0; slot < slots; slot++) {
+            if ((flippedSlots & (1L << slot)) == 0 && n-- == 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
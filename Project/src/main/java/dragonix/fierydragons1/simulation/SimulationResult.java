@@ -0,0 +1,174 @@
+package dragonix.fierydragons1.simulation;
+
+/**
+ * The SimulationResult class accumulates the statistics of a batch of simulated games.
+ * Results of batches played in parallel are combined with {@link #merge(SimulationResult)}.
+ */
+public class SimulationResult {
+    private long games;
+    private long unfinishedGames;
+    private long totalTurns;
+    private int longestGame;
+    private final long[] wins;
+    private final long[] flips;
+    private final long[] moveBacks;
+
+    /**
+     * Constructs an empty SimulationResult for games with the given number of players.
+     *
+     * @param playerCount The number of players per game.
+     */
+    public SimulationResult(int playerCount) {
+        this.wins = new long[playerCount];
+        this.flips = new long[playerCount];
+        this.moveBacks = new long[playerCount];
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param winner The seat index of the winner, or -1 if the game hit the turn limit.
+     * @param turns  The number of turns the game lasted.
+     */
+    void recordGame(int winner, int turns) {
+        games++;
+        totalTurns += turns;
+        longestGame = Math.max(longestGame, turns);
+        if (winner >= 0) {
+            wins[winner]++;
+        } else {
+            unfinishedGames++;
+        }
+    }
+
+    /**
+     * Records a card flipped by a player.
+     *
+     * @param seat The seat index of the player.
+     */
+    void recordFlip(int seat) {
+        flips[seat]++;
+    }
+
+    /**
+     * Records a player being sent back to a cave.
+     *
+     * @param seat The seat index of the player.
+     */
+    void recordMoveBack(int seat) {
+        moveBacks[seat]++;
+    }
+
+    /**
+     * Adds the statistics of another batch to this one.
+     *
+     * @param other The result of the other batch.
+     * @return This result.
+     */
+    public SimulationResult merge(SimulationResult other) {
+        games += other.games;
+        unfinishedGames += other.unfinishedGames;
+        totalTurns += other.totalTurns;
+        longestGame = Math.max(longestGame, other.longestGame);
+        for (int seat = 0; seat < wins.length; seat++) {
+            wins[seat] += other.wins[seat];
+            flips[seat] += other.flips[seat];
+            moveBacks[seat] += other.moveBacks[seat];
+        }
+        return this;
+    }
+
+    /**
+     * Retrieves the number of games played.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Retrieves the number of games that hit the turn limit without a winner.
+     *
+     * @return The number of unfinished games.
+     */
+    public long getUnfinishedGames() {
+        return unfinishedGames;
+    }
+
+    /**
+     * Retrieves the total number of turns over all games.
+     *
+     * @return The total number of turns.
+     */
+    public long getTotalTurns() {
+        return totalTurns;
+    }
+
+    /**
+     * Retrieves the average number of turns per game.
+     *
+     * @return The average game length in turns, or 0 if no games were played.
+     */
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) totalTurns / games;
+    }
+
+    /**
+     * Retrieves the number of turns of the longest game.
+     *
+     * @return The longest game length in turns.
+     */
+    public int getLongestGame() {
+        return longestGame;
+    }
+
+    /**
+     * Retrieves the number of players per game.
+     *
+     * @return The number of players.
+     */
+    public int getPlayerCount() {
+        return wins.length;
+    }
+
+    /**
+     * Retrieves the number of games won by a seat.
+     *
+     * @param seat The seat index.
+     * @return The number of wins.
+     */
+    public long getWins(int seat) {
+        return wins[seat];
+    }
+
+    /**
+     * Retrieves the share of all games won by a seat.
+     *
+     * @param seat The seat index.
+     * @return The win rate between 0 and 1, or 0 if no games were played.
+     */
+    public double getWinRate(int seat) {
+        return games == 0 ? 0 : (double) wins[seat] / games;
+    }
+
+    /**
+     * Retrieves the number of cards flipped by a seat.
+     *
+     * @param seat The seat index.
+     * @return The number of flips.
+     */
+    public long getFlips(int seat) {
+        return flips[seat];
+    }
+
+    /**
+     * Retrieves the number of times a seat was sent back to a cave.
+     *
+     * @param seat The seat index.
+     * @return The number of Move Back cards that moved the seat.
+     */
+    public long getMoveBacks(int seat) {
+        return moveBacks[seat];
+    }
+}
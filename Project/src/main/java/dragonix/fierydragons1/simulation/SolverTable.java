@@ -0,0 +1,180 @@
+package dragonix.fierydragons1.simulation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SolverTable class is the bounded transposition table of the {@link WinProbabilitySolver}.
+ * <p>
+ * States are identified by a key of a fixed number of longs, and the keys and win probabilities are
+ * stored in parallel primitive arrays, so the table allocates nothing after construction. The table is split into
+ * buckets of a few entries; a new state replaces the entry of its bucket that took the least work to
+ * solve, so long searches keep their most expensive results. Every bucket has its own lock, so threads
+ * solving different parts of the game rarely wait for each other.
+ */
+class SolverTable {
+    /**
+     * The number of entries per bucket.
+     */
+    private static final int BUCKET_SIZE = 4;
+    /**
+     * The work value of an empty entry.
+     */
+    private static final int EMPTY = -1;
+
+    private final int keyWords;
+    private final int players;
+    private final int bucketMask;
+    private final long[] keys;
+    private final int[] work;
+    private final double[] probabilities;
+    private final Object[] locks;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs an empty SolverTable.
+     *
+     * @param entries  The maximum number of states, rounded down to a power of two of at least one bucket.
+     * @param keyWords The number of longs per state key.
+     * @param players  The number of players, which is the number of probabilities per state.
+     */
+    SolverTable(int entries, int keyWords, int players) {
+        int buckets = Integer.highestOneBit(Math.max(entries / BUCKET_SIZE, 1));
+        this.keyWords = keyWords;
+        this.players = players;
+        this.bucketMask = buckets - 1;
+        this.keys = new long[buckets * BUCKET_SIZE * keyWords];
+        this.work = new int[buckets * BUCKET_SIZE];
+        this.probabilities = new double[buckets * BUCKET_SIZE * players];
+        Arrays.fill(work, EMPTY);
+        this.locks = new Object[buckets];
+        for (int i = 0; i < buckets; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Looks up the win probabilities of a state.
+     *
+     * @param key  The state key.
+     * @param into The array the probabilities are copied into, one per seat.
+     * @return True if the state was found, false otherwise.
+     */
+    boolean get(long[] key, double[] into) {
+        int bucket = bucketOf(key);
+        synchronized (locks[bucket]) {
+            int first = bucket * BUCKET_SIZE;
+            for (int entry = first; entry < first + BUCKET_SIZE; entry++) {
+                if (work[entry] != EMPTY && matches(entry, key)) {
+                    System.arraycopy(probabilities, entry * players, into, 0, players);
+                    hits.increment();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores the win probabilities of a state, evicting the cheapest entry of its bucket if it is full.
+     *
+     * @param key           The state key.
+     * @param cost          The work it took to solve the state, used to choose which entry to evict.
+     * @param probabilities The win probabilities, one per seat.
+     */
+    void put(long[] key, int cost, double[] probabilities) {
+        int bucket = bucketOf(key);
+        synchronized (locks[bucket]) {
+            int first = bucket * BUCKET_SIZE;
+            int victim = first;
+            for (int entry = first; entry < first + BUCKET_SIZE; entry++) {
+                if (work[entry] == EMPTY || matches(entry, key)) {
+                    victim = entry;
+                    break;
+                }
+                if (work[entry] < work[victim]) {
+                    victim = entry;
+                }
+            }
+            if (work[victim] != EMPTY && !matches(victim, key)) {
+                evictions.increment();
+            }
+            System.arraycopy(key, 0, keys, victim * keyWords, keyWords);
+            work[victim] = Math.max(cost, 0);
+            System.arraycopy(probabilities, 0, this.probabilities, victim * players, players);
+        }
+        stores.increment();
+    }
+
+    /**
+     * Retrieves the number of successful lookups.
+     *
+     * @return The number of hits.
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of states stored.
+     *
+     * @return The number of stores.
+     */
+    long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Retrieves the number of states that were evicted to make room for others.
+     *
+     * @return The number of evictions.
+     */
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Retrieves the number of states the table can hold.
+     *
+     * @return The capacity in entries.
+     */
+    int getCapacity() {
+        return work.length;
+    }
+
+    /**
+     * Checks whether an entry holds the given key.
+     *
+     * @param entry The entry index.
+     * @param key   The state key.
+     * @return True if the keys are equal, false otherwise.
+     */
+    private boolean matches(int entry, long[] key) {
+        int offset = entry * keyWords;
+        for (int word = 0; word < keyWords; word++) {
+            if (keys[offset + word] != key[word]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Selects the bucket of a state key.
+     *
+     * @param key The state key.
+     * @return The bucket index.
+     */
+    private int bucketOf(long[] key) {
+        long hash = 0;
+        for (long word : key) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 32;
+        return (int) hash & bucketMask;
+    }
+}
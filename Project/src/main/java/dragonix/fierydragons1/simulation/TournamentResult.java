@@ -0,0 +1,149 @@
+package dragonix.fierydragons1.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The TournamentResult class holds the standings and match results of a finished tournament,
+ * along with the throughput and per-match latency of the run.
+ */
+public class TournamentResult {
+    private final String[] names;
+    private final double[] points;
+    private final List<MatchResult> matches;
+    private final long elapsedNanos;
+    private final long[] sortedLatencies;
+
+    /**
+     * Constructs a TournamentResult.
+     *
+     * @param names        The names of the entrants, by entrant index.
+     * @param points       The match points of the entrants, by entrant index.
+     * @param matches      The results of all matches, in the order they were scheduled.
+     * @param elapsedNanos The wall-clock time of the whole tournament, in nanoseconds.
+     */
+    TournamentResult(String[] names, double[] points, List<MatchResult> matches, long elapsedNanos) {
+        this.names = names.clone();
+        this.points = points.clone();
+        this.matches = List.copyOf(matches);
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencies = new long[matches.size()];
+        for (int i = 0; i < sortedLatencies.length; i++) {
+            sortedLatencies[i] = matches.get(i).getLatencyNanos();
+        }
+        Arrays.sort(sortedLatencies);
+    }
+
+    /**
+     * Retrieves the number of entrants.
+     *
+     * @return The number of entrants.
+     */
+    public int getEntrantCount() {
+        return names.length;
+    }
+
+    /**
+     * Retrieves the name of an entrant.
+     *
+     * @param entrant The entrant index.
+     * @return The name of the entrant.
+     */
+    public String getName(int entrant) {
+        return names[entrant];
+    }
+
+    /**
+     * Retrieves the match points of an entrant, counting a bye as a won match.
+     *
+     * @param entrant The entrant index.
+     * @return The match points.
+     */
+    public double getPoints(int entrant) {
+        return points[entrant];
+    }
+
+    /**
+     * Retrieves the results of all matches, in the order they were scheduled.
+     *
+     * @return An unmodifiable list of match results.
+     */
+    public List<MatchResult> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Retrieves the wall-clock time of the whole tournament.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Retrieves the number of matches finished per second of wall-clock time.
+     *
+     * @return The throughput in matches per second, or 0 if the tournament took no measurable time.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : matches.size() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Retrieves a percentile of the match latencies, using the nearest-rank method.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in nanoseconds, or 0 if no matches were played.
+     * @throws IllegalArgumentException If the percentile is not between 0 and 100.
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+        return sortedLatencies[Math.max(rank - 1, 0)];
+    }
+
+    /**
+     * Retrieves the mean match latency.
+     *
+     * @return The mean latency in nanoseconds, or 0 if no matches were played.
+     */
+    public double getMeanLatency() {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (long latency : sortedLatencies) {
+            total += latency;
+        }
+        return total / sortedLatencies.length;
+    }
+
+    /**
+     * Formats the standings, throughput and latency percentiles as a human-readable report.
+     *
+     * @return The report.
+     */
+    public String toReport() {
+        StringBuilder report = new StringBuilder();
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(points[b], points[a]));
+        for (int entrant : order) {
+            report.append(String.format("%-20s %6.1f%n", names[entrant], points[entrant]));
+        }
+        report.append(String.format("%d matches in %.3f s (%.1f matches/s)%n",
+                matches.size(), elapsedNanos / 1e9, getThroughput()));
+        report.append(String.format("latency ms: mean %.3f, p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n",
+                getMeanLatency() / 1e6, getLatencyPercentile(50) / 1e6, getLatencyPercentile(90) / 1e6,
+                getLatencyPercentile(99) / 1e6, getLatencyPercentile(100) / 1e6));
+        return report.toString();
+    }
+}
@@ -0,0 +1,377 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The TournamentRunner class plays round-robin or Swiss tournaments between named {@link PlayerPolicy} entrants.
+ * <p>
+ * A match is a series of games on the runner's board in which the two entrants take alternating seats,
+ * swapping seats halfway through so that neither keeps the first move. Every match runs on its own
+ * virtual thread against the headless engine, and each result is appended to the output file as soon
+ * as its match finishes, so a long tournament can be followed while it runs. The seed of every match
+ * is drawn from the tournament seed before any match starts, so the results do not depend on the order
+ * in which matches finish.
+ */
+public class TournamentRunner {
+    /**
+     * The default number of games per match.
+     */
+    public static final int DEFAULT_GAMES_PER_MATCH = 100;
+
+    private final BoardDefinition board;
+    private final List<String> names = new ArrayList<>();
+    private final List<PlayerPolicy> policies = new ArrayList<>();
+    private int gamesPerMatch = DEFAULT_GAMES_PER_MATCH;
+    private int maxTurns = GameSimulator.DEFAULT_MAX_TURNS;
+
+    /**
+     * Constructs a TournamentRunner that plays its matches on the given board.
+     *
+     * @param board The board layout. Its seats are shared alternately between the two entrants of a match.
+     * @throws IllegalArgumentException If the board has fewer than two players.
+     */
+    public TournamentRunner(BoardDefinition board) {
+        if (board.getPlayerCount() < 2) {
+            throw new IllegalArgumentException("A tournament board needs at least two players");
+        }
+        this.board = board;
+    }
+
+    /**
+     * Adds an entrant to the tournament.
+     *
+     * @param name   The name of the entrant, as written to the results file.
+     * @param policy The policy the entrant plays with.
+     * @return The index of the new entrant.
+     */
+    public int addEntrant(String name, PlayerPolicy policy) {
+        names.add(name);
+        policies.add(policy);
+        return names.size() - 1;
+    }
+
+    /**
+     * Sets the number of games per match.
+     *
+     * @param gamesPerMatch The number of games.
+     * @throws IllegalArgumentException If the number of games is not positive.
+     */
+    public void setGamesPerMatch(int gamesPerMatch) {
+        if (gamesPerMatch <= 0) {
+            throw new IllegalArgumentException("A match needs at least one game");
+        }
+        this.gamesPerMatch = gamesPerMatch;
+    }
+
+    /**
+     * Sets the number of turns after which a game is abandoned without a winner.
+     *
+     * @param maxTurns The turn limit.
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Plays every entrant against every other entrant once, with all matches running concurrently.
+     *
+     * @param seed   The seed of the tournament.
+     * @param output The file the match results are streamed to. It is replaced if it exists.
+     * @return The standings and match results.
+     * @throws IOException If the results could not be written.
+     */
+    public TournamentResult runRoundRobin(long seed, Path output) throws IOException {
+        List<int[]> pairings = new ArrayList<>();
+        for (int first = 0; first < names.size(); first++) {
+            for (int second = first + 1; second < names.size(); second++) {
+                pairings.add(new int[]{first, second});
+            }
+        }
+        double[] points = new double[names.size()];
+        List<MatchResult> matches = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ResultWriter writer = new ResultWriter(output)) {
+            matches.addAll(playRound(0, pairings, new SplittableRandom(seed), writer));
+        }
+        for (MatchResult match : matches) {
+            points[match.getFirst()] += match.getFirstPoints();
+            points[match.getSecond()] += match.getSecondPoints();
+        }
+        return new TournamentResult(names.toArray(new String[0]), points, matches, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays a Swiss tournament: in every round, entrants with similar scores are paired against opponents
+     * they have not met yet. The matches of a round run concurrently, and each round starts once the
+     * previous one has finished. With an odd number of entrants, the lowest-ranked entrant that has not
+     * had a bye yet sits the round out and scores a won match.
+     *
+     * @param rounds The number of rounds.
+     * @param seed   The seed of the tournament.
+     * @param output The file the match results are streamed to. It is replaced if it exists.
+     * @return The standings and match results.
+     * @throws IOException If the results could not be written.
+     */
+    public TournamentResult runSwiss(int rounds, long seed, Path output) throws IOException {
+        int entrants = names.size();
+        double[] points = new double[entrants];
+        boolean[][] met = new boolean[entrants][entrants];
+        boolean[] hadBye = new boolean[entrants];
+        SplittableRandom random = new SplittableRandom(seed);
+        List<MatchResult> matches = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ResultWriter writer = new ResultWriter(output)) {
+            for (int round = 0; round < rounds; round++) {
+                List<int[]> pairings = pairSwissRound(points, met, hadBye);
+                List<MatchResult> roundMatches = playRound(round, pairings, random.split(), writer);
+                for (MatchResult match : roundMatches) {
+                    points[match.getFirst()] += match.getFirstPoints();
+                    points[match.getSecond()] += match.getSecondPoints();
+                }
+                matches.addAll(roundMatches);
+            }
+        }
+        return new TournamentResult(names.toArray(new String[0]), points, matches, System.nanoTime() - start);
+    }
+
+    /**
+     * Pairs the entrants for the next Swiss round, and awards the bye if there is one.
+     * Entrants are ranked by points, ties broken by entrant index, and paired down the ranking with the
+     * closest-ranked opponent they have not met. Rematches are only allowed when there is no other way to
+     * pair everyone.
+     *
+     * @param points The current match points, updated with the bye.
+     * @param met    Which entrants have met, updated with the new pairings.
+     * @param hadBye Which entrants have had a bye, updated with the new bye.
+     * @return The pairings of the round.
+     */
+    private static List<int[]> pairSwissRound(double[] points, boolean[][] met, boolean[] hadBye) {
+        int entrants = points.length;
+        Integer[] ranking = new Integer[entrants];
+        for (int i = 0; i < entrants; i++) {
+            ranking[i] = i;
+        }
+        Arrays.sort(ranking, (a, b) -> points[a] != points[b] ? Double.compare(points[b], points[a]) : a - b);
+
+        boolean[] paired = new boolean[entrants];
+        if (entrants % 2 == 1) {
+            int bye = ranking[entrants - 1];
+            for (int rank = entrants - 1; rank >= 0; rank--) {
+                if (!hadBye[ranking[rank]]) {
+                    bye = ranking[rank];
+                    break;
+                }
+            }
+            paired[bye] = true;
+            hadBye[bye] = true;
+            points[bye] += 1;
+        }
+
+        List<int[]> pairings = new ArrayList<>();
+        if (!pairRemaining(ranking, paired, met, false, pairings)) {
+            pairRemaining(ranking, paired, met, true, pairings);
+        }
+        for (int[] pairing : pairings) {
+            met[pairing[0]][pairing[1]] = true;
+            met[pairing[1]][pairing[0]] = true;
+        }
+        return pairings;
+    }
+
+    /**
+     * Pairs the highest-ranked unpaired entrant with the closest-ranked opponent that still lets every other
+     * entrant be paired, backtracking when a choice leaves entrants that cannot be paired.
+     *
+     * @param ranking       The entrant indices in rank order.
+     * @param paired        Which entrants are already paired.
+     * @param met           Which entrants have met.
+     * @param allowRematch  Whether entrants that have met may be paired again.
+     * @param pairings      The pairings made so far, which the new pairings are added to.
+     * @return True if every entrant was paired, false otherwise.
+     */
+    private static boolean pairRemaining(Integer[] ranking, boolean[] paired, boolean[][] met,
+                                         boolean allowRematch, List<int[]> pairings) {
+        int rank = 0;
+        while (rank < ranking.length && paired[ranking[rank]]) {
+            rank++;
+        }
+        if (rank == ranking.length) {
+            return true;
+        }
+        int first = ranking[rank];
+        paired[first] = true;
+        for (int next = rank + 1; next < ranking.length; next++) {
+            int second = ranking[next];
+            if (paired[second] || (!allowRematch && met[first][second])) {
+                continue;
+            }
+            paired[second] = true;
+            pairings.add(new int[]{first, second});
+            if (pairRemaining(ranking, paired, met, allowRematch, pairings)) {
+                return true;
+            }
+            pairings.remove(pairings.size() - 1);
+            paired[second] = false;
+        }
+        paired[first] = false;
+        return false;
+    }
+
+    /**
+     * Plays the matches of a round, each on its own virtual thread, and waits for all of them to finish.
+     *
+     * @param round    The round index.
+     * @param pairings The entrants of every match.
+     * @param random   The random number generator the match seeds are drawn from.
+     * @param writer   The writer the results are streamed to.
+     * @return The match results, in the order of the pairings.
+     * @throws IOException If the results could not be written.
+     */
+    private List<MatchResult> playRound(int round, List<int[]> pairings, SplittableRandom random,
+                                        ResultWriter writer) throws IOException {
+        List<Future<MatchResult>> futures = new ArrayList<>(pairings.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int[] pairing : pairings) {
+                long seed = random.nextLong();
+                futures.add(executor.submit(() -> {
+                    MatchResult match = playMatch(round, pairing[0], pairing[1], seed);
+                    writer.write(match);
+                    return match;
+                }));
+            }
+        }
+
+        List<MatchResult> results = new ArrayList<>(futures.size());
+        for (Future<MatchResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                throw new IllegalStateException("Match failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a match", e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Plays one match on the calling thread. The first entrant takes the even seats for the first half of
+     * the games and the odd seats for the second half.
+     *
+     * @param round  The round index.
+     * @param first  The index of the first entrant.
+     * @param second The index of the second entrant.
+     * @param seed   The seed of the match.
+     * @return The result of the match.
+     */
+    MatchResult playMatch(int round, int first, int second, long seed) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        int firstHalf = gamesPerMatch / 2;
+        SimulationResult firstSeating = createSimulator(first, second).playGames(firstHalf, random);
+        SimulationResult secondSeating = createSimulator(second, first).playGames(gamesPerMatch - firstHalf, random);
+
+        long firstWins = 0;
+        long secondWins = 0;
+        for (int seat = 0; seat < board.getPlayerCount(); seat++) {
+            if (seat % 2 == 0) {
+                firstWins += firstSeating.getWins(seat);
+                secondWins += secondSeating.getWins(seat);
+            } else {
+                secondWins += firstSeating.getWins(seat);
+                firstWins += secondSeating.getWins(seat);
+            }
+        }
+        long unfinished = firstSeating.getUnfinishedGames() + secondSeating.getUnfinishedGames();
+        return new MatchResult(round, first, second, firstWins, secondWins, unfinished, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates a simulator that seats two entrants alternately, starting with the given one.
+     *
+     * @param even The index of the entrant in the even seats.
+     * @param odd  The index of the entrant in the odd seats.
+     * @return The simulator.
+     */
+    private GameSimulator createSimulator(int even, int odd) {
+        PlayerPolicy[] seats = new PlayerPolicy[board.getPlayerCount()];
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat] = policies.get(seat % 2 == 0 ? even : odd);
+        }
+        GameSimulator simulator = new GameSimulator(board, seats);
+        simulator.setMaxTurns(maxTurns);
+        return simulator;
+    }
+
+    /**
+     * The ResultWriter class appends one tab-separated line per finished match to the results file.
+     * Matches finish on many virtual threads at once, so writes are serialised with a lock rather than
+     * a monitor, which would pin the virtual thread to its carrier during the write.
+     */
+    private class ResultWriter implements AutoCloseable {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BufferedWriter out;
+
+        /**
+         * Constructs a ResultWriter and writes the header line.
+         *
+         * @param output The results file.
+         * @throws IOException If the file could not be created.
+         */
+        ResultWriter(Path output) throws IOException {
+            out = Files.newBufferedWriter(output);
+            out.write("round\tfirst\tsecond\tfirstWins\tsecondWins\tunfinished\tlatencyMicros");
+            out.newLine();
+        }
+
+        /**
+         * Appends the result of a match and flushes it to the file.
+         *
+         * @param match The result of the match.
+         * @throws UncheckedIOException If the result could not be written.
+         */
+        void write(MatchResult match) {
+            lock.lock();
+            try {
+                out.write(match.getRound() + "\t" + names.get(match.getFirst()) + "\t" + names.get(match.getSecond())
+                        + "\t" + match.getFirstWins() + "\t" + match.getSecondWins()
+                        + "\t" + match.getUnfinishedGames() + "\t" + match.getLatencyNanos() / 1_000);
+                out.newLine();
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Closes the results file.
+         *
+         * @throws IOException If the file could not be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package dragonix.fierydragons1.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class remembers evaluations of game states by their Zobrist hash, see
+ * {@link dragonix.fierydragons1.engine.GameEngine#getHash()}, so a search can skip a state it has
+ * already evaluated.
+ * <p>
+ * The table has a fixed number of entries, chosen when it is constructed, and uses open addressing:
+ * a state is stored in the first free entry of a short run of entries starting at its home entry,
+ * and the hashes, depths and values are kept in parallel primitive arrays, so lookups and stores do
+ * not allocate. When the whole run is taken, the entry with the shallowest evaluation is replaced.
+ * States are told apart by their 64-bit hash alone. The table is not thread-safe.
+ */
+public class TranspositionTable {
+    /**
+     * The number of entries a lookup or store probes before giving up.
+     */
+    private static final int PROBE_LIMIT = 8;
+    /**
+     * The depth of an empty entry.
+     */
+    private static final int EMPTY = -1;
+
+    private final int mask;
+    private final long[] hashes;
+    private final int[] depths;
+    private final double[] values;
+    private int size;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty TranspositionTable.
+     *
+     * @param capacity The number of entries, rounded up to a power of two.
+     * @throws IllegalArgumentException If the capacity is not positive or too large for an array.
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30));
+        }
+        int entries = Math.max(Integer.highestOneBit(capacity - 1) << 1, 1);
+        this.mask = entries - 1;
+        this.hashes = new long[entries];
+        this.depths = new int[entries];
+        this.values = new double[entries];
+        Arrays.fill(depths, EMPTY);
+    }
+
+    /**
+     * Looks up the evaluation of a state.
+     *
+     * @param hash The hash of the state.
+     * @return The value, or NaN if the state is not in the table.
+     */
+    public double get(long hash) {
+        return get(hash, 0);
+    }
+
+    /**
+     * Looks up an evaluation of a state that is at least as deep as the given depth.
+     *
+     * @param hash     The hash of the state.
+     * @param minDepth The smallest depth that is good enough.
+     * @return The value, or NaN if the state is not in the table or was evaluated less deeply.
+     */
+    public double get(long hash, int minDepth) {
+        for (int probe = 0; probe < PROBE_LIMIT; probe++) {
+            int entry = ((int) hash + probe) & mask;
+            if (depths[entry] == EMPTY) {
+                break;
+            }
+            if (hashes[entry] == hash) {
+                if (depths[entry] >= minDepth) {
+                    hits++;
+                    return values[entry];
+                }
+                break;
+            }
+        }
+        misses++;
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the evaluation of a state. An evaluation that is shallower than the one already stored
+     * for the state is ignored.
+     *
+     * @param hash  The hash of the state.
+     * @param depth How deep the state was searched, which must not be negative.
+     * @param value The value.
+     * @throws IllegalArgumentException If the depth is negative.
+     */
+    public void put(long hash, int depth, double value) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative");
+        }
+        int victim = -1;
+        for (int probe = 0; probe < PROBE_LIMIT; probe++) {
+            int entry = ((int) hash + probe) & mask;
+            if (depths[entry] == EMPTY) {
+                size++;
+                victim = entry;
+                break;
+            }
+            if (hashes[entry] == hash) {
+                if (depth < depths[entry]) {
+                    return;
+                }
+                victim = entry;
+                break;
+            }
+            if (victim < 0 || depths[entry] < depths[victim]) {
+                victim = entry;
+            }
+        }
+        hashes[victim] = hash;
+        depths[victim] = depth;
+        values[victim] = value;
+    }
+
+    /**
+     * Removes every evaluation from the table.
+     */
+    public void clear() {
+        Arrays.fill(depths, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of entries of the table.
+     *
+     * @return The capacity in entries.
+     */
+    public int getCapacity() {
+        return depths.length;
+    }
+
+    /**
+     * Retrieves the number of states in the table.
+     *
+     * @return The number of stored states.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves the number of lookups that found an evaluation.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of lookups that found nothing usable.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,98 @@
+package dragonix.fierydragons1.simulation;
+
+/**
+ * The WinProbabilities class holds the exact chance of every player winning within a number of turns,
+ * as computed by a {@link WinProbabilitySolver}, together with statistics of the solve.
+ */
+public class WinProbabilities {
+    private final double[] probabilities;
+    private final int turns;
+    private final long statesSolved;
+    private final long tableHits;
+    private final long evictions;
+
+    /**
+     * Constructs a WinProbabilities.
+     *
+     * @param probabilities The chance of every seat winning, by seat index.
+     * @param turns         The number of turns the probabilities cover.
+     * @param statesSolved  The number of states the solver stored in its table.
+     * @param tableHits     The number of states the solver found in its table instead of solving them again.
+     * @param evictions     The number of states evicted from the table to make room for others.
+     */
+    WinProbabilities(double[] probabilities, int turns, long statesSolved, long tableHits, long evictions) {
+        this.probabilities = probabilities.clone();
+        this.turns = turns;
+        this.statesSolved = statesSolved;
+        this.tableHits = tableHits;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Retrieves the number of players.
+     *
+     * @return The number of players.
+     */
+    public int getPlayerCount() {
+        return probabilities.length;
+    }
+
+    /**
+     * Retrieves the chance of a seat winning within the solved number of turns.
+     *
+     * @param seat The seat index.
+     * @return The probability between 0 and 1.
+     */
+    public double getProbability(int seat) {
+        return probabilities[seat];
+    }
+
+    /**
+     * Retrieves the chance that nobody has won by the end of the solved number of turns.
+     *
+     * @return The probability between 0 and 1.
+     */
+    public double getUndecided() {
+        double decided = 0;
+        for (double probability : probabilities) {
+            decided += probability;
+        }
+        return Math.max(1 - decided, 0);
+    }
+
+    /**
+     * Retrieves the number of turns the probabilities cover.
+     *
+     * @return The number of turns.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Retrieves the number of states the solver stored in its table.
+     *
+     * @return The number of solved states.
+     */
+    public long getStatesSolved() {
+        return statesSolved;
+    }
+
+    /**
+     * Retrieves the number of states the solver found in its table instead of solving them again.
+     *
+     * @return The number of table hits.
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * Retrieves the number of states evicted from the table to make room for others.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,319 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.MoveOutcome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The WinProbabilitySolver class computes the exact chance of every player winning a game within a
+ * number of turns, when every player flips face-down cards at random as {@link RandomPolicy} does.
+ * <p>
+ * The solver knows where every card lies, so it answers how decisive a given deal is rather than what a
+ * player could know. A state is everything the rules depend on: the position, steps taken, flags and
+ * Move Back cave of every player, the occupied caves and tiles, whose turn it is, the cards already
+ * flipped this turn and the number of turns left. It is packed into a key of a few longs, and solved states are
+ * kept in a bounded {@link SolverTable}, so states reached along different paths are solved once unless
+ * they were evicted. The flips of the first turns are solved in parallel on a fork/join pool, and the
+ * threads share the table.
+ * <p>
+ * The number of states grows exponentially with the number of turns, so the solver is meant for
+ * endgames and hints a turn or two ahead: one turn of the standard board takes some ten thousand states.
+ * A table that is too small keeps the answer exact but solves evicted states again.
+ */
+public class WinProbabilitySolver {
+    /**
+     * The default number of states kept in the table.
+     */
+    public static final int DEFAULT_TABLE_ENTRIES = 1 << 18;
+    /**
+     * The number of turns at the top of the search whose flips are solved as separate tasks.
+     */
+    private static final int PARALLEL_TURNS = 2;
+
+    private final int tableEntries;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a WinProbabilitySolver with the default table size on the common fork/join pool.
+     */
+    public WinProbabilitySolver() {
+        this(DEFAULT_TABLE_ENTRIES, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a WinProbabilitySolver.
+     *
+     * @param tableEntries The number of states kept in the table of every solve, which bounds its memory.
+     * @param pool         The pool to solve on.
+     * @throws IllegalArgumentException If the table size is not positive.
+     */
+    public WinProbabilitySolver(int tableEntries, ForkJoinPool pool) {
+        if (tableEntries <= 0) {
+            throw new IllegalArgumentException("The table needs at least one entry");
+        }
+        this.tableEntries = tableEntries;
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the chance of every player winning within the given number of turns, starting at the
+     * beginning of the current player's turn.
+     *
+     * @param engine The game, which is not changed.
+     * @param turns  The number of turns to look ahead, counting the current one.
+     * @return The win probabilities.
+     * @throws IllegalArgumentException If the number of turns is negative.
+     */
+    public WinProbabilities solve(GameEngine engine, int turns) {
+        return solve(engine, 0, turns);
+    }
+
+    /**
+     * Computes the chance of every player winning within the given number of turns, starting in the
+     * middle of the current player's turn.
+     *
+     * @param engine       The game, which is not changed.
+     * @param flippedSlots A bitmask of the slots already flipped this turn.
+     * @param turns        The number of turns to look ahead, counting the current one.
+     * @return The win probabilities.
+     * @throws IllegalArgumentException If the number of turns is negative.
+     */
+    public WinProbabilities solve(GameEngine engine, long flippedSlots, int turns) {
+        if (turns < 0) {
+            throw new IllegalArgumentException("The number of turns must not be negative");
+        }
+        Solve solve = new Solve(engine, turns);
+        double[] probabilities = pool.invoke(new StateTask(solve, engine.copy(), flippedSlots, turns));
+        SolverTable table = solve.table;
+        return new WinProbabilities(probabilities, turns, table.getStores(), table.getHits(), table.getEvictions());
+    }
+
+    /**
+     * Computes the number of bits needed to write a non-negative value.
+     *
+     * @param maxValue The largest value.
+     * @return The number of bits.
+     */
+    private static int bitsFor(int maxValue) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(maxValue);
+    }
+
+    /**
+     * The Solve class holds the table and the layout of the state key of one call to {@link #solve}.
+     */
+    private class Solve {
+        private final SolverTable table;
+        private final int horizon;
+        private final int players;
+        private final int slots;
+        private final long allFlipped;
+        private final int boardSize;
+        private final int caves;
+        private final int positionBits;
+        private final int caveBits;
+        private final int seatBits;
+        private final int turnBits;
+        private final int keyWords;
+
+        /**
+         * Constructs a Solve and works out the width of every field of the state key.
+         *
+         * @param engine The game.
+         * @param turns  The number of turns to look ahead.
+         */
+        Solve(GameEngine engine, int turns) {
+            this.horizon = turns;
+            this.players = engine.getPlayerCount();
+            this.slots = engine.getDragonCardRegistry().size();
+            this.allFlipped = slots == Long.SIZE ? -1L : (1L << slots) - 1;
+            this.boardSize = engine.getBoardSize();
+            this.caves = engine.getCaveCount();
+            this.positionBits = bitsFor(boardSize);
+            this.caveBits = bitsFor(caves);
+            this.seatBits = bitsFor(Math.max(players - 1, 0));
+            this.turnBits = bitsFor(turns);
+            // Steps are kept whole since Dragon Pirates can push them back without bound
+            int keyBits = players * (positionBits + Integer.SIZE + 2 + caveBits)
+                    + caves + boardSize + seatBits + slots + turnBits;
+            this.keyWords = (keyBits + Long.SIZE - 1) / Long.SIZE;
+            this.table = new SolverTable(tableEntries, keyWords, players);
+        }
+
+        /**
+         * Solves a state: the chance of every seat winning within the turns left.
+         *
+         * @param engine    The game in this state, which may be changed.
+         * @param flipped   A bitmask of the slots already flipped this turn.
+         * @param turnsLeft The number of turns left, counting the current one.
+         * @return The win probabilities by seat.
+         */
+        double[] solveState(GameEngine engine, long flipped, int turnsLeft) {
+            double[] result = new double[players];
+            if (engine.getWinner() >= 0) {
+                result[engine.getWinner()] = 1;
+                return result;
+            }
+            if (turnsLeft == 0) {
+                return result;
+            }
+            StateKey key = new StateKey(keyWords);
+            writeKey(key, engine, flipped, turnsLeft);
+            if (table.get(key.words, result)) {
+                return result;
+            }
+
+            boolean parallel = turnsLeft > horizon - PARALLEL_TURNS;
+            List<StateTask> tasks = parallel ? new ArrayList<>() : null;
+            int choices = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                if ((flipped & (1L << slot)) != 0) {
+                    continue;
+                }
+                choices++;
+                GameEngine child = engine.copy();
+                MoveOutcome outcome = child.resolveCard(slot);
+                long childFlipped = flipped | (1L << slot);
+                int childTurns = turnsLeft;
+                if (outcome == MoveOutcome.WON) {
+                    result[child.getWinner()] += 1;
+                    continue;
+                }
+                if (outcome.endsTurn() || childFlipped == allFlipped) {
+                    child.nextPlayer();
+                    childFlipped = 0;
+                    childTurns--;
+                }
+                if (parallel) {
+                    StateTask task = new StateTask(this, child, childFlipped, childTurns);
+                    task.fork();
+                    tasks.add(task);
+                } else {
+                    add(result, solveState(child, childFlipped, childTurns));
+                }
+            }
+            if (parallel) {
+                for (StateTask task : tasks) {
+                    add(result, task.join());
+                }
+            }
+            if (choices > 0) {
+                for (int seat = 0; seat < players; seat++) {
+                    result[seat] /= choices;
+                }
+            }
+            table.put(key.words, turnsLeft, result);
+            return result;
+        }
+
+        /**
+         * Writes the key of a state.
+         *
+         * @param key       The key to write to, which must be empty.
+         * @param engine    The game in this state.
+         * @param flipped   A bitmask of the slots already flipped this turn.
+         * @param turnsLeft The number of turns left.
+         */
+        private void writeKey(StateKey key, GameEngine engine, long flipped, int turnsLeft) {
+            for (int seat = 0; seat < players; seat++) {
+                key.append(engine.getPosition(seat), positionBits);
+                key.append(engine.getStepsTaken(seat) & 0xFFFFFFFFL, Integer.SIZE);
+                key.append(engine.hasMoved(seat) ? 1 : 0, 1);
+                key.append(engine.isGotMoveBack(seat) ? 1 : 0, 1);
+                key.append(engine.getMoveBackCave(seat) + 1, caveBits);
+            }
+            for (int cave = 0; cave < caves; cave++) {
+                key.append(engine.isCaveOccupied(cave) ? 1 : 0, 1);
+            }
+            for (int position = 0; position < boardSize; position++) {
+                key.append(engine.isPositionOccupied(position) ? 1 : 0, 1);
+            }
+            key.append(engine.getCurrentSeat(), seatBits);
+            key.append(flipped, slots);
+            key.append(turnsLeft, turnBits);
+        }
+    }
+
+    /**
+     * Adds one vector of probabilities to another.
+     *
+     * @param into   The vector to add to.
+     * @param values The vector to add.
+     */
+    private static void add(double[] into, double[] values) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += values[i];
+        }
+    }
+
+    /**
+     * The StateTask class solves one state of the top turns on the fork/join pool.
+     */
+    private static class StateTask extends RecursiveTask<double[]> {
+        private final Solve solve;
+        private final GameEngine engine;
+        private final long flipped;
+        private final int turnsLeft;
+
+        /**
+         * Constructs a StateTask.
+         *
+         * @param solve     The solve the state belongs to.
+         * @param engine    The game in this state, owned by the task.
+         * @param flipped   A bitmask of the slots already flipped this turn.
+         * @param turnsLeft The number of turns left.
+         */
+        StateTask(Solve solve, GameEngine engine, long flipped, int turnsLeft) {
+            this.solve = solve;
+            this.engine = engine;
+            this.flipped = flipped;
+            this.turnsLeft = turnsLeft;
+        }
+
+        /**
+         * Solves the state.
+         *
+         * @return The win probabilities by seat.
+         */
+        @Override
+        protected double[] compute() {
+            return solve.solveState(engine, flipped, turnsLeft);
+        }
+    }
+
+    /**
+     * The StateKey class packs the fields of a state into an array of longs, low bits first.
+     */
+    private static class StateKey {
+        private final long[] words;
+        private int bits;
+
+        /**
+         * Constructs an empty StateKey.
+         *
+         * @param keyWords The number of longs of the key.
+         */
+        StateKey(int keyWords) {
+            this.words = new long[keyWords];
+        }
+
+        /**
+         * Appends a field to the key.
+         *
+         * @param value The value of the field, which must fit in the given width.
+         * @param width The number of bits of the field, at most 64.
+         */
+        void append(long value, int width) {
+            int word = bits >>> 6;
+            int shift = bits & (Long.SIZE - 1);
+            words[word] |= value << shift;
+            if (shift + width > Long.SIZE) {
+                words[word + 1] |= value >>> (Long.SIZE - shift);
+            }
+            bits += width;
+        }
+    }
+}
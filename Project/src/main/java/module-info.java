@@ -7,8 +7,12 @@ module dragonix.fierydragons1 {
     exports dragonix.fierydragons1;
     exports dragonix.fierydragons1.cards;
     opens dragonix.fierydragons1.cards to javafx.fxml, com.google.gson;
+    exports dragonix.fierydragons1.engine;
     exports dragonix.fierydragons1.handlers;
     opens dragonix.fierydragons1.handlers to javafx.fxml, com.google.gson;
     exports dragonix.fierydragons1.handlers.adapters;
+    exports dragonix.fierydragons1.session;
+    exports dragonix.fierydragons1.simulation;
+    exports dragonix.fierydragons1.save;
     opens dragonix.fierydragons1.handlers.adapters to com.google.gson, javafx.fxml;
 }
\ No newline at end of file
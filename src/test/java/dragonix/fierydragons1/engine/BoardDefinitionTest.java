@@ -0,0 +1,68 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardDefinitionTest {
+
+    private static VolcanoRing ringOf(int size, CreatureName creature) {
+        VolcanoRing ring = new VolcanoRing(size);
+        for (int i = 0; i < size; i++) {
+            ring.set(i, creature);
+        }
+        return ring;
+    }
+
+    @Test
+    void standardBoardMatchesTheOriginalLayout() {
+        BoardDefinition board = BoardDefinition.standard();
+        assertEquals(24, board.getBoardSize());
+        assertArrayEquals(new int[]{2, 8, 14, 20}, new int[]{
+                board.getCavePosition(0), board.getCavePosition(1), board.getCavePosition(2), board.getCavePosition(3)});
+        assertEquals(CreatureName.BABY_DRAGON, board.getCaveCreature(2));
+        assertEquals(18, board.getStartingPosition(3));
+        assertEquals(3, board.getStartingCave(3));
+    }
+
+    @Test
+    void largeBoardPlaysBeyondSixtyFourTiles() {
+        BoardDefinition board = BoardDefinition.evenlySpaced(300, 40, 16);
+        GameEngine engine = board.createEngine(ringOf(300, CreatureName.BAT));
+        assertEquals(16, engine.getPlayerCount());
+        assertEquals(40, engine.getCaveCount());
+
+        // Seat 1 starts two tiles before the Baby Dragon cave at tile 17
+        engine.nextPlayer();
+        assertEquals(17, engine.getCavePosition(engine.getStartingCave(1)));
+        assertEquals(MoveOutcome.MOVED, engine.resolveCard(CreatureName.BABY_DRAGON, 3));
+        int position = engine.getPosition(1);
+        assertEquals(board.getStartingPosition(1) + 3, position);
+        assertTrue(engine.isPositionOccupied(position));
+        assertEquals(position, engine.nextOccupiedPosition(0));
+
+        engine.placePlayer(1, 250);
+        assertEquals(250, engine.nextOccupiedPosition(position));
+        assertFalse(engine.isPositionOccupied(position));
+    }
+
+    @Test
+    void nearestCaveWithManyCavesSkipsOccupiedCaves() {
+        BoardDefinition board = BoardDefinition.evenlySpaced(200, 20, 2);
+        GameEngine engine = board.createEngine(ringOf(200, CreatureName.BAT));
+
+        // Caves are at 2, 12, 22, ... and only caves 0 and 10 start occupied
+        assertEquals(4, engine.findNearestUnoccupiedCave(50));
+        assertEquals(2, engine.findNearestUnoccupiedCave(21));
+        assertEquals(9, engine.findNearestUnoccupiedCave(101));
+        assertEquals(19, engine.findNearestUnoccupiedCave(1));
+    }
+
+    @Test
+    void rejectsImpossibleBoards() {
+        assertThrows(IllegalArgumentException.class, () -> BoardDefinition.evenlySpaced(24, 4, 5));
+        assertThrows(IllegalArgumentException.class, () -> new BoardDefinition(GameEngine.MAX_BOARD_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> new BoardDefinition(24).addCave(24, CreatureName.BAT));
+    }
+}
@@ -0,0 +1,202 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+    private GameEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // Standard board without JavaFX: every tile is a Bat except tile 1 which is a Spider
+        VolcanoRing ring = new VolcanoRing(GameEngine.STANDARD_BOARD_SIZE);
+        for (int i = 0; i < ring.size(); i++) {
+            ring.set(i, CreatureName.BAT);
+        }
+        ring.set(1, CreatureName.SPIDER);
+
+        engine = new GameEngine(GameEngine.STANDARD_BOARD_SIZE);
+        engine.setVolcanoRing(ring);
+        int spider = engine.addCave(2, CreatureName.SPIDER, true);
+        int bat = engine.addCave(8, CreatureName.BAT, true);
+        int babyDragon = engine.addCave(14, CreatureName.BABY_DRAGON, true);
+        int salamander = engine.addCave(20, CreatureName.SALAMANDER, true);
+        engine.addPlayer(0, spider);
+        engine.addPlayer(6, bat);
+        engine.addPlayer(12, babyDragon);
+        engine.addPlayer(18, salamander);
+    }
+
+    @Test
+    void initialMoveNeedsStartingCaveCreature() {
+        assertEquals(MoveOutcome.NO_MATCH, engine.resolveCard(CreatureName.BAT, 2));
+        assertEquals(MoveOutcome.DISCARDED, engine.resolveCard(CreatureName.MOVE_BACK, 1));
+
+        assertEquals(MoveOutcome.MOVED, engine.resolveCard(CreatureName.SPIDER, 2));
+        assertEquals(2, engine.getPosition(0));
+        assertTrue(engine.hasMoved(0));
+        assertFalse(engine.isCaveOccupied(0));
+        assertTrue(engine.isPositionOccupied(2));
+    }
+
+    @Test
+    void occupiedPositionBlocksMove() {
+        engine.resolveCard(CreatureName.SPIDER, 3);
+        engine.nextPlayer();
+        engine.placePlayer(1, 1);
+
+        // Steps are counted even though the move is blocked
+        assertFalse(engine.moveCurrentPlayerBy(2));
+        assertEquals(1, engine.getPosition(1));
+        assertEquals(2, engine.getStepsTaken(1));
+    }
+
+    @Test
+    void dragonPirateMovesBackAndPassesTurn() {
+        engine.resolveCard(CreatureName.SPIDER, 3);
+        MoveOutcome outcome = engine.resolveCard(CreatureName.DRAGON_PIRATE, -2);
+        assertEquals(MoveOutcome.MOVED_AND_PASSED, outcome);
+        assertTrue(outcome.endsTurn());
+        assertEquals(1, engine.getPosition(0));
+    }
+
+    @Test
+    void moveBackSendsPlayerToNearestCaveBehind() {
+        engine.resolveCard(CreatureName.SPIDER, 3);
+        assertEquals(MoveOutcome.MOVED, engine.resolveCard(CreatureName.BAT, 3));
+
+        // The Spider cave at 2 was vacated on the first move and is the nearest cave behind position 6
+        assertEquals(MoveOutcome.MOVED_TO_CAVE, engine.resolveCard(CreatureName.MOVE_BACK, 1));
+        assertEquals(1, engine.getPosition(0));
+        assertTrue(engine.isGotMoveBack(0));
+        assertTrue(engine.isCaveOccupied(0));
+        assertEquals(0, engine.getCaveOccupant(0));
+        assertFalse(engine.isPositionOccupied(6));
+
+        // Leaving the cave counts the step out of the cave
+        assertEquals(MoveOutcome.MOVED, engine.resolveCard(CreatureName.SPIDER, 3));
+        assertEquals(3, engine.getPosition(0));
+        assertFalse(engine.isGotMoveBack(0));
+    }
+
+    @Test
+    void nearestCaveWrapsAroundTheRing() {
+        assertEquals(-1, engine.findNearestUnoccupiedCave(5));
+        engine.resolveCard(CreatureName.SPIDER, 3);
+        assertEquals(0, engine.findNearestUnoccupiedCave(5));
+        assertEquals(0, engine.findNearestUnoccupiedCave(1));
+        assertEquals(0, engine.findNearestUnoccupiedCave(0));
+    }
+
+    @Test
+    void resolveCardLooksUpTheSlot() {
+        DragonCardRegistry registry = new DragonCardRegistry(2);
+        registry.set(0, CreatureName.SPIDER, 2);
+        engine.setDragonCardRegistry(registry);
+
+        assertEquals(MoveOutcome.MOVED, engine.resolveCard(0));
+        assertEquals(2, engine.getPosition(0));
+        assertThrows(IllegalStateException.class, () -> engine.resolveCard(1));
+    }
+
+    @Test
+    void cardSlotsFitTheFlippedSlotMask() {
+        DragonCardRegistry registry = new DragonCardRegistry(GameEngine.MAX_CARD_SLOTS);
+        registry.set(GameEngine.MAX_CARD_SLOTS - 1, CreatureName.SPIDER, 2);
+        engine.setDragonCardRegistry(registry);
+        engine.resolveCard(GameEngine.MAX_CARD_SLOTS - 1);
+        assertEquals(Long.MIN_VALUE, engine.getFlippedSlots());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.setDragonCardRegistry(new DragonCardRegistry(GameEngine.MAX_CARD_SLOTS + 1)));
+    }
+
+    @Test
+    void lapBackToStartingCaveWins() {
+        engine.resolveCard(CreatureName.SPIDER, 1);
+        engine.placePlayer(0, 23);
+        engine.restorePlayer(0, 23, 24, true, false, -1);
+
+        // Tile 23 is a Bat, and one more step reaches the Spider cave's tile after a full lap
+        assertEquals(MoveOutcome.WON, engine.resolveCard(CreatureName.BAT, 3));
+        assertEquals(0, engine.getWinner());
+        assertFalse(MoveOutcome.WON.endsTurn());
+    }
+
+    @Test
+    void nextPlayerCyclesThroughSeats() {
+        for (int i = 0; i < engine.getPlayerCount(); i++) {
+            assertEquals(i, engine.getCurrentSeat());
+            engine.nextPlayer();
+        }
+        assertEquals(0, engine.getCurrentSeat());
+    }
+
+    @Test
+    void hashFollowsEveryMove() {
+        DragonCardRegistry registry = new DragonCardRegistry(9);
+        registry.set(0, CreatureName.SPIDER, 1);
+        registry.set(1, CreatureName.SPIDER, 2);
+        registry.set(2, CreatureName.BAT, 1);
+        registry.set(3, CreatureName.BAT, 3);
+        registry.set(4, CreatureName.DRAGON_PIRATE, -1);
+        registry.set(5, CreatureName.MOVE_BACK, 1);
+        registry.set(6, CreatureName.BABY_DRAGON, 2);
+        registry.set(7, CreatureName.SALAMANDER, 3);
+        registry.set(8, CreatureName.DRAGON_PIRATE, -2);
+        engine.setDragonCardRegistry(registry);
+        assertEquals(engine.computeHash(), engine.getHash());
+
+        SplittableRandom random = new SplittableRandom(1);
+        for (int flip = 0; flip < 5000 && engine.getWinner() < 0; flip++) {
+            long flipped = engine.getFlippedSlots();
+            int slot;
+            do {
+                slot = random.nextInt(registry.size());
+            } while ((flipped & (1L << slot)) != 0);
+            MoveOutcome outcome = engine.resolveCard(slot);
+            assertEquals(engine.computeHash(), engine.getHash(), "after flipping slot " + slot);
+            if (outcome.endsTurn() || Long.bitCount(engine.getFlippedSlots()) == registry.size()) {
+                engine.nextPlayer();
+                assertEquals(0, engine.getFlippedSlots());
+                assertEquals(engine.computeHash(), engine.getHash(), "after passing the turn");
+            }
+        }
+    }
+
+    @Test
+    void equalStatesHashEqually() {
+        long start = engine.getHash();
+        GameEngine twoSteps = engine.copy();
+        assertEquals(start, twoSteps.getHash());
+
+        // Two single steps and one double step both end on tile 2 with two steps taken
+        engine.resolveCard(CreatureName.SPIDER, 1);
+        engine.resolveCard(CreatureName.SPIDER, 1);
+        twoSteps.resolveCard(CreatureName.SPIDER, 2);
+        assertEquals(twoSteps.getHash(), engine.getHash());
+        assertNotEquals(start, engine.getHash());
+    }
+
+    @Test
+    void flippedCardsCountInTheHashButNotTheBoardHash() {
+        DragonCardRegistry registry = new DragonCardRegistry(1);
+        registry.set(0, CreatureName.BAT, 1);
+        engine.setDragonCardRegistry(registry);
+        long start = engine.getHash();
+
+        // Seat 0 is still in the Spider cave, so the Bat only turns face up
+        assertEquals(MoveOutcome.NO_MATCH, engine.resolveCard(0));
+        assertEquals(start, engine.getBoardHash());
+        assertNotEquals(start, engine.getHash());
+
+        engine.nextPlayer();
+        engine.setCurrentSeat(0);
+        assertEquals(start, engine.getHash());
+    }
+}
@@ -0,0 +1,107 @@
+package dragonix.fierydragons1.engine;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalTest {
+    private GameEngine engine;
+    private GameEngine start;
+    private MoveJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        VolcanoRing ring = new VolcanoRing(GameEngine.STANDARD_BOARD_SIZE);
+        for (int i = 0; i < ring.size(); i++) {
+            ring.set(i, CreatureName.BAT);
+        }
+        DragonCardRegistry cards = new DragonCardRegistry(3);
+        cards.set(0, CreatureName.SPIDER, 2);
+        cards.set(1, CreatureName.BAT, 1);
+        cards.set(2, CreatureName.DRAGON_PIRATE, -1);
+
+        engine = new GameEngine(GameEngine.STANDARD_BOARD_SIZE);
+        engine.setVolcanoRing(ring);
+        engine.setDragonCardRegistry(cards);
+        engine.addPlayer(0, engine.addCave(2, CreatureName.SPIDER, true));
+        engine.addPlayer(12, engine.addCave(14, CreatureName.BAT, true));
+
+        start = engine.copy();
+        journal = new MoveJournal();
+        engine.setMoveJournal(journal);
+    }
+
+    @Test
+    void recordsFlipsAndTurnChanges() {
+        engine.resolveCard(0);
+        engine.nextPlayer();
+        engine.expireTurn();
+
+        assertEquals(3, journal.size());
+        assertEquals(MoveJournal.FLIP, journal.getKind(0));
+        assertEquals(0, journal.getSlot(0));
+        assertEquals(MoveOutcome.MOVED, journal.getOutcome(0));
+        assertEquals(MoveJournal.PASS, journal.getKind(1));
+        assertEquals(MoveJournal.TIMEOUT, journal.getKind(2));
+    }
+
+    @Test
+    void replayReconstructsAnyPoint() {
+        engine.resolveCard(0);
+        engine.resolveCard(1);
+        engine.resolveCard(2);
+        engine.nextPlayer();
+        engine.resolveCard(0);
+
+        GameEngine replayed = start.copy();
+        journal.replay(replayed);
+        for (int position = 0; position < engine.getBoardSize(); position++) {
+            assertEquals(engine.isPositionOccupied(position), replayed.isPositionOccupied(position));
+        }
+        assertEquals(engine.getCurrentSeat(), replayed.getCurrentSeat());
+        for (int seat = 0; seat < engine.getPlayerCount(); seat++) {
+            assertEquals(engine.getPosition(seat), replayed.getPosition(seat));
+            assertEquals(engine.getStepsTaken(seat), replayed.getStepsTaken(seat));
+        }
+
+        GameEngine partial = start.copy();
+        journal.replay(partial, 2);
+        assertEquals(3, partial.getPosition(0));
+        assertEquals(0, partial.getCurrentSeat());
+    }
+
+    @Test
+    void recordsAndReplaysMovesWithoutACard() {
+        engine.resolveCard(0);
+        assertTrue(engine.moveCurrentPlayerBy(1));
+        assertTrue(engine.moveCurrentPlayerBy(-2));
+        engine.nextPlayer();
+        assertFalse(engine.moveCurrentPlayerBy(engine.getPosition(0) - engine.getPosition(1)));
+
+        assertEquals(5, journal.size());
+        assertEquals(MoveJournal.MOVE, journal.getKind(2));
+        assertEquals(-2, journal.getOffset(2));
+        assertEquals(MoveOutcome.MOVED, journal.getOutcome(2));
+        assertEquals(MoveOutcome.BLOCKED, journal.getOutcome(4));
+
+        GameEngine replayed = start.copy();
+        journal.replay(replayed);
+        for (int seat = 0; seat < engine.getPlayerCount(); seat++) {
+            assertEquals(engine.getPosition(seat), replayed.getPosition(seat));
+            assertEquals(engine.getStepsTaken(seat), replayed.getStepsTaken(seat));
+        }
+        assertEquals(engine.getHash(), replayed.getHash());
+    }
+
+    @Test
+    void replayDetectsDivergence() {
+        engine.resolveCard(0);
+
+        // Starting from a different seat the Spider card no longer matches
+        GameEngine other = start.copy();
+        other.nextPlayer();
+        assertThrows(IllegalStateException.class, () -> journal.replay(other));
+    }
+}
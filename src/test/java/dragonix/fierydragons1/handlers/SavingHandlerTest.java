@@ -0,0 +1,181 @@
+package dragonix.fierydragons1.handlers;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.save.BinarySaveFormat;
+import dragonix.fierydragons1.save.CompressedSaveFormat;
+import dragonix.fierydragons1.save.SaveCatalogue;
+import dragonix.fierydragons1.save.SaveJournal;
+import dragonix.fierydragons1.save.SaveState;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.VolcanoRing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SavingHandlerTest {
+
+    static final long GAME_ID = 42;
+
+    static SaveState stateWithSeed(long seed, int turn) {
+        return new SaveState(GAME_ID, turn, seed, new VolcanoRing(24), new DragonCardRegistry(16), List.of(), List.of());
+    }
+
+    static SaveState read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return BinarySaveFormat.read(in);
+        }
+    }
+
+    static SaveState replay(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return SaveJournal.replay(in);
+        }
+    }
+
+    // Every file in the directory but the catalogue
+    static List<Path> filesIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> !file.endsWith(SaveCatalogue.FILE_NAME)).toList();
+        }
+    }
+
+    @Test
+    void savesInTheBackgroundWithoutLeavingTemporaryFiles(@TempDir Path directory) throws Exception {
+        SavingHandler handler = new SavingHandler(directory.resolve("saves").toString());
+        Path binary = handler.saveGameInBackground(stateWithSeed(7, 3)).get();
+        Path json = handler.exportGameInBackground(stateWithSeed(8, 4)).get();
+
+        assertEquals(7, read(binary).getSeed());
+        assertTrue(Files.readString(json).contains("\"seed\": \"8\""));
+        assertEquals(2, filesIn(directory.resolve("saves")).size());
+
+        SaveCatalogue catalogue = SaveCatalogue.open(directory.resolve("saves").resolve(SaveCatalogue.FILE_NAME));
+        assertEquals(2, catalogue.size());
+        assertEquals(binary.getFileName().toString(), catalogue.getFileName(0));
+        assertEquals(SaveCatalogue.JSON, catalogue.getKind(1));
+        assertEquals(4, catalogue.getTurn(1));
+        assertEquals(GAME_ID, catalogue.getGameId(1));
+    }
+
+    @Test
+    void exportsCompressedSavesWhenAskedTo(@TempDir Path directory) throws Exception {
+        SavingHandler handler = new SavingHandler(directory.toString());
+        handler.setCompressExports(true);
+        Path file = handler.exportGameInBackground(stateWithSeed(9, 2)).get();
+
+        assertTrue(file.toString().endsWith("." + CompressedSaveFormat.EXTENSION));
+        try (var in = Files.newInputStream(file)) {
+            assertEquals(9, CompressedSaveFormat.read(in, new String[0]).getSeed());
+        }
+        SaveCatalogue catalogue = SaveCatalogue.open(directory.resolve(SaveCatalogue.FILE_NAME));
+        assertEquals(SaveCatalogue.COMPRESSED_JSON, catalogue.getKind(0));
+    }
+
+    @Test
+    void appendsAutosavesToOneJournal(@TempDir Path directory) throws Exception {
+        SavingHandler handler = new SavingHandler(directory.toString());
+        handler.autosave(stateWithSeed(1, 1));
+        handler.flush().get();
+        long size = Files.size(handler.getJournalFile());
+        handler.autosave(stateWithSeed(1, 1));
+        handler.flush().get();
+        assertEquals(size, Files.size(handler.getJournalFile()));
+        for (long seed = 2; seed < 100; seed++) {
+            handler.autosave(stateWithSeed(seed, (int) seed + 1));
+        }
+        handler.flush().get();
+
+        assertEquals(List.of(handler.getJournalFile()), filesIn(directory));
+        assertEquals(99, replay(handler.getJournalFile()).getSeed());
+
+        // The journal is catalogued once, and its entry follows the turns
+        SaveCatalogue catalogue = SaveCatalogue.open(directory.resolve(SaveCatalogue.FILE_NAME));
+        assertEquals(1, catalogue.size());
+        int last = catalogue.size() - 1;
+        assertEquals(SaveCatalogue.JOURNAL, catalogue.getKind(last));
+        assertEquals(100, catalogue.getTurn(last));
+        assertEquals(handler.getJournalFile().getFileName().toString(), catalogue.getFileName(last));
+    }
+
+    @Test
+    void journalsALoadedGameAsItWasSaved(@TempDir Path directory) throws Exception {
+        VolcanoRing ring = new VolcanoRing(24);
+        CreatureName[] creatures = {CreatureName.SPIDER, CreatureName.BAT, CreatureName.BABY_DRAGON, CreatureName.SALAMANDER};
+        for (int position = 0; position < ring.size(); position++) {
+            ring.set(position, creatures[position * 5 % 4]);
+        }
+        DragonCardRegistry cards = new DragonCardRegistry(16);
+        for (int slot = 0; slot < cards.size(); slot++) {
+            cards.set(slot, creatures[slot % 4], slot % 3 + 1);
+        }
+        List<SaveState.CaveState> caves = List.of(new SaveState.CaveState(2, CreatureName.SPIDER, false),
+                new SaveState.CaveState(8, CreatureName.BAT, true));
+        List<SaveState.PlayerState> players = List.of(
+                new SaveState.PlayerState("Player 2", SaveState.PlayerState.packColor(0, 0, 1, 1), 7, 7, 1, 0, 0, false, false, -1),
+                new SaveState.PlayerState("Player 1", SaveState.PlayerState.packColor(0, 1, 0, 1), 4, 1, 0, -1, 3, true, false, -1));
+        SaveState saved = new SaveState(GAME_ID, 9, -31, ring, cards, caves, players);
+        new SavingHandler(directory.toString()).saveGameInBackground(saved).get();
+
+        LoadingHandler loadingHandler = new LoadingHandler(directory.toString());
+        SaveState loaded = loadingHandler.loadGameFromCatalogue(loadingHandler.openCatalogue(), 0, new String[0]);
+        SavingHandler handler = new SavingHandler(directory.toString());
+        handler.autosave(loaded);
+        handler.flush().get();
+
+        // The journal holds the loaded game and nothing written before it was restored
+        assertEquals(SaveJournal.HEADER_SIZE + SaveJournal.encodeRecord(null, saved).length, Files.size(handler.getJournalFile()));
+        SaveState replayed = replay(handler.getJournalFile());
+        assertEquals(GAME_ID, replayed.getGameId());
+        assertEquals(9, replayed.getTurn());
+        assertEquals(-31, replayed.getSeed());
+        for (int position = 0; position < ring.size(); position++) {
+            assertEquals(ring.get(position).ordinal(), replayed.getVolcanoOrdinal(position));
+        }
+        for (int slot = 0; slot < cards.size(); slot++) {
+            assertEquals(cards.getCreatureOrdinal(slot), replayed.getCardCreatureOrdinal(slot));
+            assertEquals(cards.getQuantity(slot), replayed.getCardQuantity(slot));
+        }
+        assertEquals(-1, replayed.getPlayers().get(1).getStepsTaken());
+    }
+
+    @Test
+    void compactsTheJournalInTheBackground(@TempDir Path directory) throws Exception {
+        SavingHandler handler = new SavingHandler(directory.toString());
+        handler.setCompactionThreshold(200);
+        for (long seed = 0; seed < 20; seed++) {
+            handler.autosave(stateWithSeed(seed, (int) seed + 1));
+            handler.flush().get();
+            assertTrue(Files.size(handler.getJournalFile()) <= 200 + 100);
+        }
+        handler.closeJournal();
+        handler.flush().get();
+
+        assertEquals(List.of(handler.getJournalFile()), filesIn(directory));
+        assertEquals(19, replay(handler.getJournalFile()).getSeed());
+    }
+
+    @Test
+    void leavesTheJournalWhenAnAutosaveFails(@TempDir Path directory) throws Exception {
+        SavingHandler handler = new SavingHandler(directory.toString());
+        handler.autosave(stateWithSeed(1, 1));
+        handler.flush().get();
+        // A player without a name cannot be written, so the save fails halfway through
+        SaveState broken = new SaveState(GAME_ID, 1, 2, new VolcanoRing(24), new DragonCardRegistry(16), List.of(),
+                List.of(new SaveState.PlayerState(null, 0, 0, 0, -1, 0, 0, false, false, -1)));
+        handler.autosave(broken);
+        handler.flush().get();
+        handler.autosave(stateWithSeed(3, 1));
+        handler.flush().get();
+
+        assertEquals(List.of(handler.getJournalFile()), filesIn(directory));
+        assertEquals(3, replay(handler.getJournalFile()).getSeed());
+    }
+}
@@ -0,0 +1,182 @@
+package dragonix.fierydragons1.save;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.VolcanoRing;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySaveFormatTest {
+
+    static SaveState sampleState(int boardSize) {
+        CreatureName[] creatures = {CreatureName.SPIDER, CreatureName.BAT, CreatureName.BABY_DRAGON, CreatureName.SALAMANDER};
+        VolcanoRing volcanoRing = new VolcanoRing(boardSize);
+        for (int position = 0; position < boardSize; position++) {
+            volcanoRing.set(position, creatures[position * 7 % 4]);
+        }
+        DragonCardRegistry cards = new DragonCardRegistry(16);
+        for (int slot = 0; slot < 16; slot++) {
+            if (slot < 12) {
+                cards.set(slot, creatures[slot % 4], slot % 3 + 1);
+            } else {
+                cards.set(slot, CreatureName.DRAGON_PIRATE, -(slot % 2 + 1));
+            }
+        }
+        List<SaveState.CaveState> caves = List.of(
+                new SaveState.CaveState(2, CreatureName.SPIDER, false),
+                new SaveState.CaveState(8, CreatureName.BAT, true),
+                new SaveState.CaveState(14, CreatureName.BABY_DRAGON, true),
+                new SaveState.CaveState(20, CreatureName.SALAMANDER, false));
+        List<SaveState.PlayerState> players = List.of(
+                new SaveState.PlayerState("Player 1", SaveState.PlayerState.packColor(0, 1, 0, 1), 9, 1, 0, 8, 8, true, false, -1),
+                new SaveState.PlayerState("Player 2", SaveState.PlayerState.packColor(0, 0, 1, 1), 7, 7, 1, 0, 0, false, false, -1),
+                new SaveState.PlayerState("Player 3", SaveState.PlayerState.packColor(1, 1, 0, 1), 13, 13, 2, 0, 0, false, false, -1),
+                new SaveState.PlayerState("Spieler Vier ü", SaveState.PlayerState.packColor(1, 0, 0, 0.5), 19, 22, 3, 21, 30, true, true, 3));
+        return new SaveState(4_611_686_018_427_387_903L, 17, -8_301_226_712_394_227_211L, volcanoRing, cards, caves, players);
+    }
+
+    static byte[] toBytes(SaveState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinarySaveFormat.write(state, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    static SaveState fromBytes(byte[] bytes) throws IOException {
+        return BinarySaveFormat.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    static void assertSameState(SaveState expected, SaveState actual) {
+        assertEquals(expected.getGameId(), actual.getGameId());
+        assertEquals(expected.getTurn(), actual.getTurn());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getBoardSize(), actual.getBoardSize());
+        for (int position = 0; position < expected.getBoardSize(); position++) {
+            assertEquals(expected.getVolcanoOrdinal(position), actual.getVolcanoOrdinal(position));
+        }
+        assertEquals(expected.getCardSlotCount(), actual.getCardSlotCount());
+        for (int slot = 0; slot < expected.getCardSlotCount(); slot++) {
+            assertEquals(expected.getCardCreatureOrdinal(slot), actual.getCardCreatureOrdinal(slot));
+            assertEquals(expected.getCardQuantity(slot), actual.getCardQuantity(slot));
+        }
+        assertEquals(expected.getCaves().size(), actual.getCaves().size());
+        for (int i = 0; i < expected.getCaves().size(); i++) {
+            SaveState.CaveState a = expected.getCaves().get(i);
+            SaveState.CaveState b = actual.getCaves().get(i);
+            assertEquals(a.getAttachedPosition(), b.getAttachedPosition());
+            assertEquals(a.getCreature(), b.getCreature());
+            assertEquals(a.isOccupied(), b.isOccupied());
+        }
+        assertEquals(expected.getPlayers().size(), actual.getPlayers().size());
+        for (int i = 0; i < expected.getPlayers().size(); i++) {
+            SaveState.PlayerState a = expected.getPlayers().get(i);
+            SaveState.PlayerState b = actual.getPlayers().get(i);
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getRgba(), b.getRgba());
+            assertEquals(a.getCurrentPosition(), b.getCurrentPosition());
+            assertEquals(a.getStartingPosition(), b.getStartingPosition());
+            assertEquals(a.getStartingCave(), b.getStartingCave());
+            assertEquals(a.getStepsTaken(), b.getStepsTaken());
+            assertEquals(a.getTotalStepsTaken(), b.getTotalStepsTaken());
+            assertEquals(a.hasMoved(), b.hasMoved());
+            assertEquals(a.isGotMoveBack(), b.isGotMoveBack());
+            assertEquals(a.getMoveBackCave(), b.getMoveBackCave());
+        }
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        for (int boardSize : new int[] {24, 25, 300}) {
+            SaveState state = sampleState(boardSize);
+            byte[] bytes = toBytes(state);
+            assertSameState(state, fromBytes(bytes));
+            assertTrue(BinarySaveFormat.isBinarySave(new BufferedInputStream(new ByteArrayInputStream(bytes))));
+        }
+        assertTrue(toBytes(sampleState(24)).length < 200);
+    }
+
+    @Test
+    void keepsColoursToEightBitsPerChannel() {
+        SaveState.PlayerState player = sampleState(24).getPlayers().get(3);
+        assertEquals(1, player.getRed());
+        assertEquals(0, player.getGreen());
+        assertEquals(128 / 255.0, player.getOpacity());
+    }
+
+    @Test
+    void rejectsOtherAndDamagedFiles() throws IOException {
+        byte[] json = "{\"seed\": \"1\"}".getBytes();
+        assertFalse(BinarySaveFormat.isBinarySave(new BufferedInputStream(new ByteArrayInputStream(json))));
+        assertFalse(BinarySaveFormat.isBinarySave(new BufferedInputStream(new ByteArrayInputStream(new byte[2]))));
+        assertThrows(IOException.class, () -> fromBytes(json));
+
+        byte[] bytes = toBytes(sampleState(24));
+        assertThrows(IOException.class, () -> fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+        byte[] newer = bytes.clone();
+        newer[4] = (byte) (BinarySaveFormat.VERSION + 1);
+        assertThrows(IOException.class, () -> fromBytes(newer));
+        byte[] badCreature = bytes.clone();
+        // The first byte of the volcano tiles follows the magic number, version, game ID, turn, seed and board size
+        badCreature[23] = (byte) 0xF0;
+        assertThrows(IOException.class, () -> fromBytes(badCreature));
+    }
+
+    @Test
+    void keepsNegativeStepsInASingleByte() throws IOException {
+        SaveState state = sampleState(24);
+        List<SaveState.PlayerState> players = new ArrayList<>(state.getPlayers());
+        SaveState.PlayerState pirated = players.get(1);
+        players.set(1, new SaveState.PlayerState(pirated.getName(), pirated.getRgba(), 5, pirated.getStartingPosition(),
+                pirated.getStartingCave(), -2, -1, true, false, -1));
+        SaveState negative = new SaveState(state.getGameId(), state.getTurn(), state.getSeed(), state.createVolcanoRing(),
+                state.createDragonCardRegistry(), state.getCaves(), players);
+        byte[] bytes = toBytes(negative);
+        assertSameState(negative, fromBytes(bytes));
+        assertEquals(toBytes(state).length, bytes.length);
+
+        for (int value : new int[] {0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            ByteArrayOutputStream varint = new ByteArrayOutputStream();
+            BinarySaveFormat.writeSignedVarint(new DataOutputStream(varint), value);
+            assertEquals(value, BinarySaveFormat.readSignedVarint(new DataInputStream(new ByteArrayInputStream(varint.toByteArray()))));
+        }
+    }
+
+    @Test
+    void rejectsNegativeCounts() throws IOException {
+        byte[] bytes = toBytes(sampleState(24));
+        // The board size follows the magic number, version, game ID, one-byte turn and seed
+        int boardSize = 22;
+        ByteArrayOutputStream corrupt = new ByteArrayOutputStream();
+        corrupt.write(bytes, 0, boardSize);
+        BinarySaveFormat.writeVarint(new DataOutputStream(corrupt), -24);
+        corrupt.write(bytes, boardSize + 1, bytes.length - boardSize - 1);
+        IOException e = assertThrows(IOException.class, () -> fromBytes(corrupt.toByteArray()));
+        assertTrue(e.getMessage().contains("tiles"), e.getMessage());
+    }
+
+    @Test
+    void readsVersionOneSavesAsTheFirstTurnOfTheirSeed() throws IOException {
+        SaveState state = sampleState(24);
+        byte[] bytes = toBytes(state);
+        // Version 1 had no game ID or turn between the version and the seed
+        byte[] older = new byte[bytes.length - 9];
+        System.arraycopy(bytes, 0, older, 0, 5);
+        System.arraycopy(bytes, 14, older, 5, bytes.length - 14);
+        older[4] = 1;
+        SaveState read = fromBytes(older);
+        assertEquals(state.getSeed(), read.getGameId());
+        assertEquals(1, read.getTurn());
+        assertEquals(state.getSeed(), read.getSeed());
+        assertEquals(state.getPlayers().size(), read.getPlayers().size());
+    }
+}
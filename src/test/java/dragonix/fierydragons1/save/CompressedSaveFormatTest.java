@@ -0,0 +1,81 @@
+package dragonix.fierydragons1.save;
+
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedSaveFormatTest {
+
+    static byte[] compress(SaveState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompressedSaveFormat.write(state, JsonSaveFormatTest.slotIds(), bytes);
+        return bytes.toByteArray();
+    }
+
+    static SaveState decompress(byte[] bytes) throws IOException {
+        return CompressedSaveFormat.read(new ByteArrayInputStream(bytes), JsonSaveFormatTest.slotIds());
+    }
+
+    static byte[] compactJson(SaveState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+        JsonSaveFormat.write(state, JsonSaveFormatTest.slotIds(), writer);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void roundTrips() throws IOException {
+        SaveState state = BinarySaveFormatTest.sampleState(24);
+        BinarySaveFormatTest.assertSameState(state, decompress(compress(state)));
+    }
+
+    @Test
+    void theDictionaryShrinksSavesBeyondPlainDeflate() throws IOException {
+        SaveState state = BinarySaveFormatTest.sampleState(24);
+        byte[] json = compactJson(state);
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(deflated, new Deflater(Deflater.BEST_COMPRESSION, true))) {
+            out.write(json);
+        }
+        int compressed = compress(state).length;
+        assertTrue(compressed * 4 < json.length, compressed + " of " + json.length + " bytes");
+        assertTrue(compressed < deflated.size(), compressed + " against " + deflated.size() + " without a dictionary");
+    }
+
+    @Test
+    void isRecognisedByItsMagicNumber() throws IOException {
+        SaveState state = BinarySaveFormatTest.sampleState(24);
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(compress(state)));
+        assertTrue(CompressedSaveFormat.isCompressedSave(in));
+        BinarySaveFormatTest.assertSameState(state, CompressedSaveFormat.read(in, JsonSaveFormatTest.slotIds()));
+
+        assertFalse(CompressedSaveFormat.isCompressedSave(new BufferedInputStream(new ByteArrayInputStream(compactJson(state)))));
+        assertFalse(CompressedSaveFormat.isCompressedSave(new BufferedInputStream(new ByteArrayInputStream(new byte[2]))));
+    }
+
+    @Test
+    void rejectsAnUnknownDictionary() throws IOException {
+        byte[] bytes = compress(BinarySaveFormatTest.sampleState(24));
+        // The dictionary ID follows the magic number and version
+        bytes[Integer.BYTES + 1] ^= 1;
+        assertThrows(IOException.class, () -> decompress(bytes));
+    }
+
+    @Test
+    void rejectsACorruptStream() throws IOException {
+        byte[] bytes = compress(BinarySaveFormatTest.sampleState(24));
+        assertThrows(IOException.class, () -> decompress(Arrays.copyOf(bytes, bytes.length / 2)));
+    }
+}
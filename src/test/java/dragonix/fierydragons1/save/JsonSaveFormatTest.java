@@ -0,0 +1,148 @@
+package dragonix.fierydragons1.save;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dragonix.fierydragons1.cards.CreatureName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSaveFormatTest {
+
+    static String[] slotIds() {
+        String[] ids = new String[16];
+        for (int slot = 0; slot < ids.length; slot++) {
+            ids[slot] = "DragonCard" + (slot + 1);
+        }
+        return ids;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesTheFieldsTheLoaderReads() throws IOException {
+        SaveState state = BinarySaveFormatTest.sampleState(24);
+        StringWriter text = new StringWriter();
+        JsonSaveFormat.write(state, slotIds(), new JsonWriter(text));
+        Map<String, Object> gameData = new Gson().fromJson(text.toString(), new TypeToken<Map<String, Object>>() {}.getType());
+
+        assertEquals(Long.toString(state.getSeed()), gameData.get("seed"));
+        Map<String, Object> volcano = (Map<String, Object>) gameData.get("volcanoCardSequence");
+        assertEquals(24, volcano.size());
+        assertEquals("BAT", volcano.get("3"));
+        Map<String, Map<String, Object>> cards = (Map<String, Map<String, Object>>) gameData.get("dragonCardsInfo");
+        assertEquals(16, cards.size());
+        assertEquals("DRAGON_PIRATE", cards.get("DragonCard14").get("creatureName"));
+        assertEquals(-2.0, cards.get("DragonCard14").get("quantity"));
+
+        List<Map<String, Object>> caves = (List<Map<String, Object>>) gameData.get("caveList");
+        assertEquals(4, caves.size());
+        assertEquals(8.0, caves.get(1).get("attachedPosition"));
+        assertEquals(true, caves.get(1).get("isOccupied"));
+
+        List<Map<String, Object>> players = (List<Map<String, Object>>) gameData.get("playerQueue");
+        Map<String, Object> last = players.get(3);
+        assertEquals("Spieler Vier ü", last.get("playerName"));
+        assertEquals(19.0, last.get("currentPosition"));
+        assertEquals(22.0, last.get("startingPosition"));
+        assertEquals("SALAMANDER", ((Map<String, Object>) last.get("startingCave")).get("caveCreature"));
+        assertEquals(1.0, ((Map<String, Object>) last.get("color")).get("red"));
+        assertEquals("SALAMANDER", last.get("moveBackCave"));
+        assertEquals(true, last.get("gotMoveBack"));
+        assertFalse(players.get(0).containsKey("moveBackCave"));
+    }
+
+    static SaveState read(String json) throws IOException {
+        return JsonSaveFormat.read(new JsonReader(new StringReader(json)), slotIds());
+    }
+
+    static String legacySave() {
+        StringBuilder json = new StringBuilder("{\"volcanoCardSequence\": {");
+        for (int position = 0; position < 24; position++) {
+            json.append(position == 0 ? "" : ", ").append('"').append(position).append("\": \"")
+                    .append(position % 2 == 0 ? "BAT" : "SPIDER").append('"');
+        }
+        json.append("}, \"dragonCardsInfo\": {\"DragonCard1\": {\"creatureName\": \"DRAGON_PIRATE\", \"quantity\": -2.0},"
+                + " \"DragonCard2\": {\"creatureName\": \"BAT\", \"quantity\": 3.0, \"flipped\": false}},"
+                + " \"occupiedPositions\": [1, 7],"
+                + " \"caveList\": [{\"attachedPosition\": 1.0, \"caveCreature\": \"SPIDER\", \"isOccupied\": false},"
+                + " {\"attachedPosition\": 7.0, \"caveCreature\": \"BAT\", \"isOccupied\": true}],"
+                + " \"playerQueue\": [{\"playerName\": \"Player 2\", \"color\": {\"red\": 0.0, \"green\": 0.0, \"blue\": 1.0, \"opacity\": 1.0},"
+                + " \"dragonToken\": {\"url\": \"file:/nowhere/token.png\", \"fitWidth\": 60.0, \"fitHeight\": 60.0},"
+                + " \"currentPosition\": 7.0, \"totalStepsTaken\": 0.0, \"hasMoved\": false, \"stepsTaken\": 0.0, \"gotMoveBack\": false},"
+                + " {\"playerName\": \"Player 1\", \"color\": {\"red\": 0.0, \"green\": 1.0, \"blue\": 0.0, \"opacity\": 1.0},"
+                + " \"currentPosition\": 5.0, \"totalStepsTaken\": 4.0, \"hasMoved\": true, \"stepsTaken\": 4.0,"
+                + " \"gotMoveBack\": true, \"moveBackCave\": \"SPIDER\"}]}");
+        return json.toString();
+    }
+
+    @Test
+    void readsBackWhatItWrites() throws IOException {
+        SaveState state = BinarySaveFormatTest.sampleState(24);
+        StringWriter text = new StringWriter();
+        JsonSaveFormat.write(state, slotIds(), new JsonWriter(text));
+        BinarySaveFormatTest.assertSameState(state, read(text.toString()));
+    }
+
+    @Test
+    void readsSavesFromBeforeTheSchemaWasVersioned() throws IOException {
+        SaveState state = read(legacySave());
+        assertEquals(state.getSeed(), state.getGameId());
+        assertEquals(1, state.getTurn());
+        assertEquals(24, state.getBoardSize());
+        assertEquals(CreatureName.SPIDER.ordinal(), state.getVolcanoOrdinal(23));
+        assertEquals(-2, state.getCardQuantity(0));
+        assertEquals(CreatureName.BAT.ordinal(), state.getCardCreatureOrdinal(1));
+        assertEquals(-1, state.getCardCreatureOrdinal(2));
+        assertTrue(state.getCaves().get(1).isOccupied());
+
+        SaveState.PlayerState second = state.getPlayers().get(0);
+        assertEquals(7, second.getStartingPosition());
+        assertEquals(1, second.getStartingCave());
+        SaveState.PlayerState first = state.getPlayers().get(1);
+        assertEquals(5, first.getStartingPosition());
+        assertEquals(0, first.getStartingCave());
+        assertEquals(0, first.getMoveBackCave());
+        assertEquals(SaveState.PlayerState.packColor(0, 1, 0, 1), first.getRgba());
+    }
+
+    @Test
+    void reportsWhereASaveIsWrong() {
+        IOException missing = assertThrows(IOException.class, () -> read(legacySave().replace("\"stepsTaken\": 4.0,", "")));
+        assertEquals("Missing stepsTaken at $.playerQueue[1]", missing.getMessage());
+        IOException type = assertThrows(IOException.class, () -> read(legacySave().replace("\"hasMoved\": true", "\"hasMoved\": \"yes\"")));
+        assertEquals("Expected BOOLEAN but found STRING at $.playerQueue[1].hasMoved", type.getMessage());
+        IOException creature = assertThrows(IOException.class, () -> read(legacySave().replace("\"BAT\", \"isOccupied\"", "\"UNICORN\", \"isOccupied\"")));
+        assertEquals("Unknown creature UNICORN at $.caveList[1].caveCreature", creature.getMessage());
+        IOException position = assertThrows(IOException.class, () -> read(legacySave().replace("\"currentPosition\": 5.0", "\"currentPosition\": 24")));
+        assertEquals("Position 24 is off the board of 24 tiles at $.playerQueue[1].currentPosition", position.getMessage());
+        IOException fraction = assertThrows(IOException.class, () -> read(legacySave().replace("\"currentPosition\": 5.0", "\"currentPosition\": 5.5")));
+        assertTrue(fraction.getMessage().startsWith("Expected a whole number at $.playerQueue[1].currentPosition"), fraction.getMessage());
+        assertThrows(IOException.class, () -> read(legacySave().replace("\"caveList\"", "\"caves\"")));
+        assertThrows(IOException.class, () -> read(legacySave().substring(0, 200)));
+    }
+
+    @Test
+    void fillsInMissingFieldsOnlyForUnversionedSaves() {
+        String versioned = "{\"version\": 1, " + legacySave().substring(1);
+        IOException seed = assertThrows(IOException.class, () -> read(versioned));
+        assertEquals("Missing seed at $", seed.getMessage());
+        IOException start = assertThrows(IOException.class, () -> read(versioned.replace("\"version\": 1,", "\"version\": 1, \"seed\": \"5\",")));
+        assertEquals("Missing startingPosition at $.playerQueue[0]", start.getMessage());
+        IOException gameId = assertThrows(IOException.class, () -> read(versioned.replace("\"version\": 1,", "\"version\": 2, \"seed\": \"5\",")));
+        assertEquals("Missing gameId at $", gameId.getMessage());
+    }
+
+    @Test
+    void rejectsNewerSchemas() {
+        IOException e = assertThrows(IOException.class, () -> read("{\"version\": " + (JsonSaveFormat.VERSION + 1) + "}"));
+        assertEquals("Unsupported save version " + (JsonSaveFormat.VERSION + 1) + " at $.version", e.getMessage());
+    }
+}
@@ -0,0 +1,102 @@
+package dragonix.fierydragons1.save;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveCatalogueTest {
+
+    static void appendGames(Path file, int count) throws IOException {
+        try (SaveCatalogue.Appender appender = new SaveCatalogue.Appender(file)) {
+            for (int i = 0; i < count; i++) {
+                appender.append(new SaveCatalogue.Entry(i % 10, 1_000L * i, i / 10 + 1, SaveCatalogue.JOURNAL,
+                        "game-" + i % 10 + ".fdj", List.of("Player " + i % 3, "Spieler ü", "Current"), 2));
+            }
+        }
+    }
+
+    @Test
+    void readsBackEveryField(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve(SaveCatalogue.FILE_NAME);
+        appendGames(file, 25);
+        SaveCatalogue catalogue = SaveCatalogue.open(file);
+
+        assertEquals(25, catalogue.size());
+        assertEquals(3, catalogue.getGameId(13));
+        assertEquals(13_000, catalogue.getTimestamp(13));
+        assertEquals(2, catalogue.getTurn(13));
+        assertEquals(SaveCatalogue.JOURNAL, catalogue.getKind(13));
+        assertEquals("game-3.fdj", catalogue.getFileName(13));
+        assertEquals(3, catalogue.getPlayerCount(13));
+        assertEquals("Player 1", catalogue.getPlayerName(13, 0));
+        assertEquals("Spieler ü", catalogue.getPlayerName(13, 1));
+        assertEquals("Current", catalogue.getPlayerName(13, catalogue.getCurrentPlayer(13)));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalogue.getPlayerName(13, 3));
+    }
+
+    @Test
+    void listsSortsAndFilters(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve(SaveCatalogue.FILE_NAME);
+        appendGames(file, 25);
+        SaveCatalogue catalogue = SaveCatalogue.open(file);
+
+        assertArrayEquals(new int[] {24, 23, 22, 21, 20, 19, 18, 17, 16, 15}, catalogue.latestPerGame());
+        int[] player2 = catalogue.filter(entry -> catalogue.hasPlayer(entry, "player 2"));
+        assertArrayEquals(new int[] {2, 5, 8, 11, 14, 17, 20, 23}, player2);
+        assertArrayEquals(new int[] {20, 23, 11, 14, 17, 2, 5, 8}, catalogue.sort(player2, catalogue::getTurn, true));
+        assertArrayEquals(new int[] {20, 11, 2, 23, 14, 5, 17, 8}, catalogue.sort(player2, catalogue::getGameId, false));
+    }
+
+    @Test
+    void updatesAnEntryInPlace(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve(SaveCatalogue.FILE_NAME);
+        appendGames(file, 2);
+        try (SaveCatalogue.Appender appender = new SaveCatalogue.Appender(file)) {
+            long entry = appender.append(new SaveCatalogue.Entry(7, 5_000, 1, SaveCatalogue.JOURNAL, "game-7.fdj",
+                    List.of("Player 1", "Player 2"), 1));
+            long size = Files.size(file);
+            appender.update(entry, 9_000, 12, 0);
+            assertEquals(size, Files.size(file));
+        }
+        SaveCatalogue catalogue = SaveCatalogue.open(file);
+        assertEquals(3, catalogue.size());
+        assertEquals(9_000, catalogue.getTimestamp(2));
+        assertEquals(12, catalogue.getTurn(2));
+        assertEquals("Player 1", catalogue.getPlayerName(2, catalogue.getCurrentPlayer(2)));
+        assertEquals(7, catalogue.getGameId(2));
+        assertEquals("game-7.fdj", catalogue.getFileName(2));
+    }
+
+    @Test
+    void dropsAnEntryCutShort(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve(SaveCatalogue.FILE_NAME);
+        appendGames(file, 3);
+        long complete = Files.size(file);
+        appendGames(file, 1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 5);
+        }
+        assertEquals(3, SaveCatalogue.open(file).size());
+
+        appendGames(file, 2);
+        assertEquals(complete + 2 * (complete - 5) / 3, Files.size(file));
+        SaveCatalogue catalogue = SaveCatalogue.open(file);
+        assertEquals(5, catalogue.size());
+        assertEquals("game-1.fdj", catalogue.getFileName(4));
+    }
+
+    @Test
+    void treatsAMissingCatalogueAsEmpty(@TempDir Path directory) throws IOException {
+        assertEquals(0, SaveCatalogue.open(directory.resolve(SaveCatalogue.FILE_NAME)).size());
+        Files.writeString(directory.resolve("other"), "not a catalogue");
+        assertThrows(IOException.class, () -> SaveCatalogue.open(directory.resolve("other")));
+    }
+}
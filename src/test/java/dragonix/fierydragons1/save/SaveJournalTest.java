@@ -0,0 +1,132 @@
+package dragonix.fierydragons1.save;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveJournalTest {
+
+    // The current player moves forward and leaves their cave, and the queue turns
+    static SaveState nextTurn(SaveState state, int steps) {
+        List<SaveState.PlayerState> players = new ArrayList<>(state.getPlayers());
+        SaveState.PlayerState mover = players.remove(0);
+        players.add(new SaveState.PlayerState(mover.getName(), mover.getRgba(),
+                (mover.getCurrentPosition() + steps) % state.getBoardSize(), mover.getStartingPosition(),
+                mover.getStartingCave(), mover.getStepsTaken() + steps, mover.getTotalStepsTaken() + steps,
+                true, false, -1));
+        List<SaveState.CaveState> caves = new ArrayList<>();
+        for (SaveState.CaveState cave : state.getCaves()) {
+            boolean left = cave == state.getCaves().get(mover.getStartingCave());
+            caves.add(new SaveState.CaveState(cave.getAttachedPosition(), cave.getCreature(), !left && cave.isOccupied()));
+        }
+        return new SaveState(state.getGameId(), state.getTurn() + 1, state.getSeed(), state.createVolcanoRing(),
+                state.createDragonCardRegistry(), caves, players);
+    }
+
+    static byte[] journalOf(List<SaveState> states) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SaveJournal.writeHeader(new DataOutputStream(bytes));
+        SaveState previous = null;
+        for (SaveState state : states) {
+            byte[] record = SaveJournal.encodeRecord(previous, state);
+            if (record != null) {
+                bytes.write(record);
+            }
+            previous = state;
+        }
+        return bytes.toByteArray();
+    }
+
+    static SaveState replay(byte[] journal) throws IOException {
+        return SaveJournal.replay(new DataInputStream(new ByteArrayInputStream(journal)));
+    }
+
+    static List<SaveState> game(int turns) {
+        List<SaveState> states = new ArrayList<>();
+        states.add(BinarySaveFormatTest.sampleState(24));
+        for (int turn = 0; turn < turns; turn++) {
+            states.add(nextTurn(states.get(states.size() - 1), turn % 3 + 1));
+        }
+        return states;
+    }
+
+    @Test
+    void replaysToTheLastState() throws IOException {
+        List<SaveState> states = game(40);
+        BinarySaveFormatTest.assertSameState(states.get(40), replay(journalOf(states)));
+    }
+
+    @Test
+    void turnsTakeTensOfBytes() throws IOException {
+        List<SaveState> states = game(1);
+        byte[] delta = SaveJournal.encodeRecord(states.get(0), states.get(1));
+        assertTrue(delta.length < 30, "delta took " + delta.length + " bytes");
+        assertTrue(delta.length * 4 < SaveJournal.encodeRecord(null, states.get(1)).length);
+    }
+
+    @Test
+    void replaysStepsTakenBackByDragonPirates() throws IOException {
+        List<SaveState> states = new ArrayList<>(List.of(BinarySaveFormatTest.sampleState(24)));
+        for (int turn = 0; turn < 4; turn++) {
+            states.add(nextTurn(states.get(states.size() - 1), -2));
+        }
+        SaveState last = states.get(4);
+        assertTrue(last.getPlayers().stream().anyMatch(player -> player.getStepsTaken() < 0));
+        BinarySaveFormatTest.assertSameState(last, replay(journalOf(states)));
+        byte[] delta = SaveJournal.encodeRecord(states.get(1), states.get(2));
+        assertTrue(delta.length < 30, "delta took " + delta.length + " bytes");
+    }
+
+    @Test
+    void skipsTurnsWhereNothingChanged() throws IOException {
+        SaveState state = BinarySaveFormatTest.sampleState(24);
+        assertNull(SaveJournal.encodeRecord(state, BinarySaveFormatTest.fromBytes(BinarySaveFormatTest.toBytes(state))));
+    }
+
+    @Test
+    void writesABaseWhenTheGameChanges() throws IOException {
+        SaveState first = BinarySaveFormatTest.sampleState(24);
+        SaveState other = BinarySaveFormatTest.sampleState(28);
+        byte[] record = SaveJournal.encodeRecord(first, other);
+        assertEquals(SaveJournal.encodeRecord(null, other).length, record.length);
+        BinarySaveFormatTest.assertSameState(other, replay(journalOf(List.of(first, other))));
+    }
+
+    @Test
+    void ignoresATornLastRecord() throws IOException {
+        List<SaveState> states = game(5);
+        byte[] journal = journalOf(states);
+        byte[] complete = journalOf(states.subList(0, 5));
+        for (int length = complete.length; length < journal.length; length++) {
+            BinarySaveFormatTest.assertSameState(states.get(4), replay(Arrays.copyOf(journal, length)));
+        }
+        byte[] corrupt = journal.clone();
+        corrupt[journal.length - 6] ^= 1;
+        BinarySaveFormatTest.assertSameState(states.get(4), replay(corrupt));
+    }
+
+    @Test
+    void writesABaseWhenAnotherGameIsJournalled() throws IOException {
+        SaveState first = BinarySaveFormatTest.sampleState(24);
+        SaveState other = new SaveState(first.getGameId() + 1, first.getTurn(), first.getSeed(), first.createVolcanoRing(),
+                first.createDragonCardRegistry(), first.getCaves(), first.getPlayers());
+        assertEquals(SaveJournal.encodeRecord(null, other).length, SaveJournal.encodeRecord(first, other).length);
+    }
+
+    @Test
+    void rejectsAJournalWithoutAGame() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SaveJournal.writeHeader(new DataOutputStream(bytes));
+        assertThrows(IOException.class, () -> replay(bytes.toByteArray()));
+        assertThrows(IOException.class, () -> replay(BinarySaveFormatTest.toBytes(BinarySaveFormatTest.sampleState(24))));
+    }
+}
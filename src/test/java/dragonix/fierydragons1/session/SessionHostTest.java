@@ -0,0 +1,116 @@
+package dragonix.fierydragons1.session;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.DragonCardRegistry;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.MoveOutcome;
+import dragonix.fierydragons1.engine.VolcanoRing;
+import dragonix.fierydragons1.simulation.CardMemoryPolicy;
+import dragonix.fierydragons1.simulation.RandomPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHostTest {
+    private SessionHost host;
+    private BoardDefinition board;
+    private VolcanoRing ring;
+    private DragonCardRegistry cards;
+
+    @BeforeEach
+    void setUp() {
+        host = new SessionHost(4);
+        board = BoardDefinition.standard();
+        ring = new VolcanoRing(board.getBoardSize());
+        for (int i = 0; i < ring.size(); i++) {
+            ring.set(i, CreatureName.BAT);
+        }
+        cards = new DragonCardRegistry(2);
+        cards.set(0, CreatureName.SPIDER, 1);
+        cards.set(1, CreatureName.SALAMANDER, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        host.close();
+    }
+
+    @Test
+    void runsManyGamesConcurrently() {
+        List<Long> ids = new ArrayList<>();
+        List<CompletableFuture<MoveOutcome>> moves = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long id = host.createSession(board, ring, cards);
+            ids.add(id);
+            moves.add(host.flipCard(id, 0));
+            moves.add(host.flipCard(id, 1));
+        }
+        for (int i = 0; i < moves.size(); i += 2) {
+            assertEquals(MoveOutcome.MOVED, moves.get(i).join());
+            // The Salamander card does not match the Bat tile, so the turn passes
+            assertEquals(MoveOutcome.NO_MATCH, moves.get(i + 1).join());
+        }
+        assertEquals(10_000, host.getSessionCount());
+        assertEquals(1, host.inspect(ids.get(42), engine -> engine.getCurrentSeat()).join());
+        assertEquals(1, host.inspect(ids.get(42), engine -> engine.getPosition(0)).join());
+    }
+
+    @Test
+    void botsPlayTheirTurnsUntilAPersonIsUp() throws Exception {
+        long id = host.createSession(board, ring, cards);
+        for (int seat = 1; seat < board.getPlayerCount(); seat++) {
+            host.seatBot(id, seat, new CardMemoryPolicy()).get();
+        }
+        assertEquals(0, host.inspect(id, GameEngine::getCurrentSeat).get());
+
+        host.passTurn(id).get();
+        assertEquals(0, host.inspect(id, GameEngine::getCurrentSeat).get());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> host.seatBot(id, 4, new RandomPolicy()).get());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    void suspendedSessionsRejectMoves() {
+        long id = host.createSession(board, ring, cards);
+        host.suspend(id);
+        assertTrue(host.isSuspended(id));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> host.flipCard(id, 0).get());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        host.resume(id);
+        assertEquals(MoveOutcome.MOVED, host.flipCard(id, 0).join());
+    }
+
+    @Test
+    void rejectsFlipsOfMissingOrFlippedSlots() {
+        long id = host.createSession(board, ring, cards);
+        for (int slot : new int[] {-1, 2, Integer.MAX_VALUE}) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> host.flipCard(id, slot).get());
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+        assertEquals(MoveOutcome.MOVED, host.flipCard(id, 0).join());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> host.flipCard(id, 0).get());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, host.inspect(id, engine -> engine.getPosition(0)).join());
+        assertEquals(0, host.inspect(id, GameEngine::getCurrentSeat).join());
+    }
+
+    @Test
+    void disposedSessionsAreGone() {
+        long id = host.createSession(board, ring, cards);
+        assertTrue(host.dispose(id));
+        assertFalse(host.dispose(id));
+        assertEquals(0, host.getSessionCount());
+        assertThrows(ExecutionException.class, () -> host.passTurn(id).get());
+        assertThrows(IllegalArgumentException.class, () -> host.suspend(id));
+    }
+}
@@ -0,0 +1,56 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.GameEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardMemoryPolicyTest {
+
+    @Test
+    void flipsTheRememberedCardThatGainsTheMostGround() {
+        GameEngine engine = GameSimulatorTest.newGame(3);
+        PlayerPolicy bot = new CardMemoryPolicy().forGame();
+        // Seat 0 starts in the Spider cave
+        bot.cardRevealed(5, CreatureName.SPIDER, 3);
+        bot.cardRevealed(9, CreatureName.SPIDER, 1);
+        assertEquals(5, bot.chooseSlot(engine, 0, new SplittableRandom(1)));
+        assertEquals(9, bot.chooseSlot(engine, 1L << 5, new SplittableRandom(1)));
+    }
+
+    @Test
+    void endsTheTurnWhenNoCardGainsGround() {
+        GameEngine engine = GameSimulatorTest.newGame(3);
+        PlayerPolicy bot = new CardMemoryPolicy().forGame();
+        for (int slot = 0; slot < engine.getDragonCardRegistry().size(); slot++) {
+            bot.cardRevealed(slot, CreatureName.BAT, 2);
+        }
+        assertEquals(-1, bot.chooseSlot(engine, 0, new SplittableRandom(1)));
+    }
+
+    @Test
+    void everyGameGetsAFreshMemory() {
+        PlayerPolicy prototype = new CardMemoryPolicy();
+        PlayerPolicy first = prototype.forGame();
+        first.cardRevealed(5, CreatureName.BAT, 2);
+        PlayerPolicy second = prototype.forGame();
+        assertNotSame(first, second);
+        assertEquals(5, second.chooseSlot(GameSimulatorTest.newGame(3), ~(1L << 5), new SplittableRandom(1)));
+    }
+
+    @Test
+    void beatsPlayersWithoutMemory() {
+        PlayerPolicy memory = new CardMemoryPolicy();
+        PlayerPolicy random = new RandomPolicy();
+        GameSimulator simulator = new GameSimulator(BoardDefinition.standard(), memory, random, memory, random);
+        simulator.setMaxTurns(500);
+        SimulationResult result = simulator.run(200, 11);
+        long memoryWins = result.getWins(0) + result.getWins(2);
+        long randomWins = result.getWins(1) + result.getWins(3);
+        assertTrue(memoryWins > randomWins, memoryWins + " memory wins vs " + randomWins + " random wins");
+    }
+}
@@ -0,0 +1,73 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairLayoutPickerTest {
+
+    /**
+     * Writes a table for the standard board in which only every tenth layout is balanced.
+     */
+    private static LayoutTable writeTable(Path file, int balancedEvery) throws IOException {
+        int layouts = LayoutTable.factorial(8);
+        int games = 1000;
+        long[] wins = new long[layouts * 4];
+        long[] turns = new long[layouts];
+        for (int layout = 0; layout < layouts; layout++) {
+            boolean balanced = layout % balancedEvery == 7 % balancedEvery;
+            wins[layout * 4] = balanced ? 250 : 700;
+            wins[layout * 4 + 1] = balanced ? 250 : 100;
+            wins[layout * 4 + 2] = balanced ? 250 : 100;
+            wins[layout * 4 + 3] = balanced ? 250 : 100;
+            turns[layout] = 23 * games;
+        }
+        LayoutTable.write(file, 24, 4, 8, games, wins, turns);
+        return LayoutTable.open(file);
+    }
+
+    @Test
+    void picksABalancedLayoutFromTheTable(@TempDir Path directory) throws IOException {
+        LayoutTable table = writeTable(directory.resolve("layouts.bin"), 10);
+        FairLayoutPicker picker = new FairLayoutPicker(BoardDefinition.standard(), table, 1);
+        for (long seed = 0; seed < 20; seed++) {
+            int[] layout = picker.pickLayout(new SplittableRandom(seed));
+            assertEquals(7, LayoutTable.rank(layout) % 10);
+            assertTrue(picker.estimateSeatAdvantage(layout) <= FairLayoutPicker.DEFAULT_MAX_SEAT_ADVANTAGE);
+        }
+    }
+
+    @Test
+    void dealsTheOrdinaryLayoutWhenItIsFair(@TempDir Path directory) throws IOException {
+        LayoutTable table = writeTable(directory.resolve("layouts.bin"), 1);
+        FairLayoutPicker picker = new FairLayoutPicker(BoardDefinition.standard(), table, 1);
+        int[] ordinary = new int[8];
+        GameSimulator.shuffle(ordinary, new SplittableRandom(5));
+        assertArrayEquals(ordinary, picker.pickLayout(new SplittableRandom(5)));
+    }
+
+    @Test
+    void staysWithinItsBudgetWithoutATable() {
+        FairLayoutPicker picker = new FairLayoutPicker(BoardDefinition.standard(), null, 1);
+        picker.setMaxSeatAdvantage(0);
+        long start = System.nanoTime();
+        int[] layout = picker.pickLayout(new SplittableRandom(2));
+        long elapsed = System.nanoTime() - start;
+
+        int[] sorted = layout.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6, 7}, sorted);
+        // One batch of estimating games may run past the deadline, and the first one also warms up the JIT
+        assertTrue(elapsed < FairLayoutPicker.DEFAULT_BUDGET_NANOS + TimeUnit.MILLISECONDS.toNanos(200),
+                "Picking took " + elapsed / 1_000_000 + " ms");
+        assertThrows(IllegalArgumentException.class, () -> picker.setBudgetNanos(0));
+    }
+}
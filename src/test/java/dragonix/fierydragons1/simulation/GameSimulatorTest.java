@@ -0,0 +1,86 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CardFactory;
+import dragonix.fierydragons1.cards.DragonCards;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.GameRandom;
+import dragonix.fierydragons1.engine.VolcanoRing;
+import dragonix.fierydragons1.handlers.VolcanoCardHandler;
+import javafx.scene.shape.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSimulatorTest {
+
+    static GameSimulator randomPlayers() {
+        PlayerPolicy random = new RandomPolicy();
+        return new GameSimulator(BoardDefinition.standard(), random, random, random, random);
+    }
+
+    // A standard game between random players, as the bot tests start from
+    static GameEngine newGame(long seed) {
+        return randomPlayers().createGame(seed);
+    }
+
+    @Test
+    void playsEveryGameAndMergesTheStatistics() {
+        SimulationResult result = randomPlayers().run(10_000, 42);
+        assertEquals(10_000, result.getGames());
+
+        long decided = result.getUnfinishedGames();
+        for (int seat = 0; seat < result.getPlayerCount(); seat++) {
+            decided += result.getWins(seat);
+            assertTrue(result.getWins(seat) > 0);
+            assertTrue(result.getFlips(seat) > 0);
+        }
+        assertEquals(result.getGames(), decided);
+        assertTrue(result.getAverageTurns() > 0);
+        assertTrue(result.getLongestGame() >= result.getAverageTurns());
+    }
+
+    @Test
+    void resultsDependOnlyOnTheSeed() {
+        SimulationResult parallel = randomPlayers().run(9_000, 7, new ForkJoinPool(4));
+        SimulationResult serial = randomPlayers().run(9_000, 7, new ForkJoinPool(1));
+        assertEquals(parallel.getTotalTurns(), serial.getTotalTurns());
+        for (int seat = 0; seat < parallel.getPlayerCount(); seat++) {
+            assertEquals(parallel.getWins(seat), serial.getWins(seat));
+            assertEquals(parallel.getMoveBacks(seat), serial.getMoveBacks(seat));
+        }
+    }
+
+    @Test
+    void seedDealsTheSameGameAsTheHandlers() {
+        long seed = 123456789L;
+        GameEngine simulated = randomPlayers().createGame(seed);
+
+        CardFactory factory = new CardFactory(new GameRandom(seed).getDeckRandom());
+        for (int slot = 0; slot < simulated.getDragonCardRegistry().size(); slot++) {
+            DragonCards card = factory.createRandomDragonCard();
+            assertEquals(card.getCreatureName(), simulated.getDragonCardRegistry().getCreature(slot));
+            assertEquals(card.getQuantity(), simulated.getDragonCardRegistry().getQuantity(slot));
+        }
+
+        List<Rectangle> rectangles = new ArrayList<>();
+        for (int i = 0; i < simulated.getBoardSize(); i++) {
+            rectangles.add(new Rectangle());
+        }
+        VolcanoCardHandler handler = new VolcanoCardHandler();
+        handler.assignCreaturesToCards(rectangles, new GameRandom(seed).getVolcanoRandom());
+        VolcanoRing ring = handler.getVolcanoRing();
+        for (int position = 0; position < ring.size(); position++) {
+            assertEquals(ring.get(position), simulated.getTileCreature(position));
+        }
+    }
+
+    @Test
+    void needsOnePolicyPerSeat() {
+        assertThrows(IllegalArgumentException.class, () -> new GameSimulator(BoardDefinition.standard(), new RandomPolicy()));
+    }
+}
@@ -0,0 +1,92 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayoutTableTest {
+
+    @Test
+    void ranksEveryLayoutOnce() {
+        int[] order = new int[8];
+        boolean[] seen = new boolean[LayoutTable.factorial(8)];
+        for (int rank = 0; rank < seen.length; rank++) {
+            LayoutTable.unrank(rank, order);
+            int back = LayoutTable.rank(order);
+            assertEquals(rank, back);
+            assertFalse(seen[back]);
+            seen[back] = true;
+        }
+        assertEquals(0, LayoutTable.rank(new int[] {0, 1, 2, 3, 4, 5, 6, 7}));
+        assertEquals(40_319, LayoutTable.rank(new int[] {7, 6, 5, 4, 3, 2, 1, 0}));
+    }
+
+    @Test
+    void readsBackWhatWasWritten(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("layouts.bin");
+        long[] wins = new long[6 * 2];
+        long[] turns = new long[6];
+        for (int layout = 0; layout < 6; layout++) {
+            wins[layout * 2] = layout * 10;
+            wins[layout * 2 + 1] = 100 - layout * 10;
+            turns[layout] = 1000 + layout * 100;
+        }
+        LayoutTable.write(file, 12, 2, 3, 100, wins, turns);
+        LayoutTable table = LayoutTable.open(file);
+
+        assertTrue(table.covers(12, 2, 3));
+        assertFalse(table.covers(24, 2, 3));
+        assertEquals(6, table.getLayoutCount());
+        assertEquals(100, table.getGamesPerLayout());
+        assertEquals(0.3, table.getWinRate(3, 0), 1e-4);
+        assertEquals(0.7, table.getWinRate(3, 1), 1e-4);
+        assertEquals(13, table.getAverageTurns(3), 1e-6);
+        assertEquals(1, table.getSeatAdvantage(0), 1e-4);
+        assertEquals(0.2, table.getSeatAdvantage(4), 1e-4);
+        // Rank 4 is the order 2, 0, 1
+        assertTrue(table.isBalanced(new int[] {2, 0, 1}, 0.25));
+        assertFalse(table.isBalanced(new int[] {2, 0, 1}, 0.15));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getAverageTurns(6));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("layouts.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> LayoutTable.open(file));
+    }
+
+    @Test
+    void analysesEveryLayoutTheSameOnAnyPool(@TempDir Path directory) throws IOException {
+        PlayerPolicy random = new RandomPolicy();
+        LayoutAnalyzer analyzer = new LayoutAnalyzer(BoardDefinition.standard(), random, random, random, random);
+        analyzer.setGamesPerLayout(1);
+        analyzer.setMaxTurns(30);
+        LayoutTable table = analyzer.analyse(3, directory.resolve("parallel.bin"));
+        analyzer.analyse(3, directory.resolve("serial.bin"), new ForkJoinPool(1));
+
+        assertEquals(40_320, table.getLayoutCount());
+        assertTrue(table.covers(24, 4, 8));
+        for (int layout = 0; layout < table.getLayoutCount(); layout++) {
+            double decided = 0;
+            for (int seat = 0; seat < 4; seat++) {
+                decided += table.getWinRate(layout, seat);
+            }
+            assertTrue(decided <= 1);
+            assertTrue(table.getAverageTurns(layout) > 0 && table.getAverageTurns(layout) <= 30);
+        }
+        assertTrue(Arrays.equals(Files.readAllBytes(directory.resolve("parallel.bin")),
+                Files.readAllBytes(directory.resolve("serial.bin"))));
+    }
+}
@@ -0,0 +1,57 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.cards.CreatureName;
+import dragonix.fierydragons1.engine.BoardDefinition;
+import dragonix.fierydragons1.engine.GameEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonteCarloPolicyTest {
+
+    @Test
+    void prefersTheRememberedCardThatGainsTheMostGround() {
+        GameEngine engine = GameSimulatorTest.newGame(3);
+        PlayerPolicy bot = new MonteCarloPolicy(2, TimeUnit.MILLISECONDS.toNanos(200)).forGame();
+        // Seat 0 starts in the Spider cave; every other card is known to be useless
+        bot.cardRevealed(5, CreatureName.SPIDER, 3);
+        for (int slot = 0; slot < engine.getDragonCardRegistry().size(); slot++) {
+            if (slot != 5) {
+                bot.cardRevealed(slot, CreatureName.BAT, 2);
+            }
+        }
+        assertEquals(5, bot.chooseSlot(engine, 0, new SplittableRandom(1)));
+    }
+
+    @Test
+    void stopsAtTheDeadline() {
+        long budget = TimeUnit.MILLISECONDS.toNanos(50);
+        PlayerPolicy bot = new MonteCarloPolicy(4, budget).forGame();
+        long start = System.nanoTime();
+        int slot = bot.chooseSlot(GameSimulatorTest.newGame(3), 0, new SplittableRandom(1));
+        long elapsed = System.nanoTime() - start;
+        assertTrue(slot >= -1 && slot < 16);
+        assertTrue(elapsed < budget + TimeUnit.MILLISECONDS.toNanos(100), "Search took " + elapsed + " ns");
+    }
+
+    @Test
+    void rejectsBudgetsLongerThanTheTurnClock() {
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloPolicy(1, TimeUnit.SECONDS.toNanos(30)));
+        assertThrows(IllegalArgumentException.class, () -> new MonteCarloPolicy(0, 1));
+    }
+
+    @Test
+    void beatsPlayersWithoutMemory() {
+        PlayerPolicy search = new MonteCarloPolicy(1, TimeUnit.MILLISECONDS.toNanos(1));
+        PlayerPolicy random = new RandomPolicy();
+        GameSimulator simulator = new GameSimulator(BoardDefinition.standard(), search, random, search, random);
+        simulator.setMaxTurns(200);
+        SimulationResult result = simulator.run(20, 5);
+        long searchWins = result.getWins(0) + result.getWins(2);
+        long randomWins = result.getWins(1) + result.getWins(3);
+        assertTrue(searchWins > randomWins, searchWins + " search wins vs " + randomWins + " random wins");
+    }
+}
@@ -0,0 +1,72 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.BoardDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentRunnerTest {
+
+    private static TournamentRunner runner(int entrants) {
+        TournamentRunner runner = new TournamentRunner(BoardDefinition.standard());
+        runner.setGamesPerMatch(4);
+        runner.setMaxTurns(200);
+        for (int i = 0; i < entrants; i++) {
+            runner.addEntrant("bot-" + i, new RandomPolicy());
+        }
+        return runner;
+    }
+
+    @Test
+    void roundRobinPlaysEveryPairingAndStreamsTheResults(@TempDir Path dir) throws IOException {
+        Path output = dir.resolve("round-robin.tsv");
+        TournamentResult result = runner(4).runRoundRobin(1, output);
+
+        assertEquals(6, result.getMatches().size());
+        double total = 0;
+        for (int entrant = 0; entrant < result.getEntrantCount(); entrant++) {
+            total += result.getPoints(entrant);
+        }
+        assertEquals(6, total, 1e-9);
+        assertEquals(7, Files.readAllLines(output).size());
+        assertTrue(result.getLatencyPercentile(50) <= result.getLatencyPercentile(100));
+        assertTrue(result.toReport().contains("matches/s"));
+    }
+
+    @Test
+    void swissAvoidsRematchesAndGivesEveryByeOnce(@TempDir Path dir) throws IOException {
+        TournamentResult result = runner(5).runSwiss(3, 9, dir.resolve("swiss.tsv"));
+
+        List<MatchResult> matches = result.getMatches();
+        assertEquals(6, matches.size());
+        Set<Integer> pairings = new HashSet<>();
+        for (MatchResult match : matches) {
+            int low = Math.min(match.getFirst(), match.getSecond());
+            int high = Math.max(match.getFirst(), match.getSecond());
+            assertTrue(pairings.add(low * 5 + high), "Rematch between " + low + " and " + high);
+        }
+        double total = 0;
+        for (int entrant = 0; entrant < result.getEntrantCount(); entrant++) {
+            total += result.getPoints(entrant);
+        }
+        assertEquals(6 + 3, total, 1e-9);
+    }
+
+    @Test
+    void resultsDependOnlyOnTheSeed(@TempDir Path dir) throws IOException {
+        TournamentResult a = runner(4).runRoundRobin(5, dir.resolve("a.tsv"));
+        TournamentResult b = runner(4).runRoundRobin(5, dir.resolve("b.tsv"));
+        for (int i = 0; i < a.getMatches().size(); i++) {
+            assertEquals(a.getMatches().get(i).getFirstWins(), b.getMatches().get(i).getFirstWins());
+            assertEquals(a.getMatches().get(i).getSecondWins(), b.getMatches().get(i).getSecondWins());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dragonix.fierydragons1.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void remembersEvaluationsByHash() {
+        TranspositionTable table = new TranspositionTable(100);
+        assertEquals(128, table.getCapacity());
+        assertTrue(Double.isNaN(table.get(42)));
+
+        table.put(42, 3, 0.5);
+        table.put(-7, 0, -1);
+        assertEquals(0.5, table.get(42));
+        assertEquals(0.5, table.get(42, 3));
+        assertTrue(Double.isNaN(table.get(42, 4)));
+        assertEquals(-1, table.get(-7));
+        assertEquals(2, table.getSize());
+        assertEquals(3, table.getHits());
+        assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    void keepsTheDeeperEvaluationOfAState() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.put(5, 4, 1);
+        table.put(5, 2, 2);
+        assertEquals(1, table.get(5));
+        table.put(5, 6, 3);
+        assertEquals(3, table.get(5));
+        assertEquals(1, table.getSize());
+    }
+
+    @Test
+    void replacesTheShallowestStateWhenFull() {
+        TranspositionTable table = new TranspositionTable(8);
+        // Every hash has the same home entry, so each store probes the whole table
+        for (int i = 0; i < 8; i++) {
+            table.put((long) i << 32, i == 3 ? 0 : 5, i);
+        }
+        table.put(8L << 32, 1, 8);
+        assertEquals(8, table.get(8L << 32));
+        assertTrue(Double.isNaN(table.get(3L << 32)));
+        assertEquals(7, table.get(7L << 32));
+        assertEquals(8, table.getSize());
+
+        table.clear();
+        assertEquals(0, table.getSize());
+        assertTrue(Double.isNaN(table.get(7L << 32)));
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(16).put(1, -1, 0));
+    }
+}
@@ -0,0 +1,100 @@
+package dragonix.fierydragons1.simulation;
+
+import dragonix.fierydragons1.engine.GameEngine;
+import dragonix.fierydragons1.engine.MoveOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WinProbabilitySolverTest {
+
+    /**
+     * Puts seat 0 one tile short of its cave after a full lap, so it can win on its first flip.
+     */
+    private static GameEngine newEndgame() {
+        GameEngine engine = GameSimulatorTest.newGame(7);
+        int cave = engine.getStartingCave(0);
+        assertEquals(MoveOutcome.MOVED, engine.resolveCard(engine.getCaveCreature(cave), 1));
+        int position = (engine.getCavePosition(cave) + engine.getBoardSize() - 1) % engine.getBoardSize();
+        engine.placePlayer(0, position);
+        engine.restorePlayer(0, position, engine.getBoardSize(), true, false, -1);
+        return engine;
+    }
+
+    /**
+     * Plays one turn of random flips and returns the winner, or -1.
+     */
+    private static int playRandomTurn(GameEngine engine, SplittableRandom random) {
+        int slots = engine.getDragonCardRegistry().size();
+        long flipped = 0;
+        while (Long.bitCount(flipped) < slots) {
+            int n = random.nextInt(slots - Long.bitCount(flipped));
+            int slot = 0;
+            while ((flipped & (1L << slot)) != 0 || n-- > 0) {
+                slot++;
+            }
+            flipped |= 1L << slot;
+            MoveOutcome outcome = engine.resolveCard(slot);
+            if (outcome == MoveOutcome.WON) {
+                return engine.getWinner();
+            }
+            if (outcome.endsTurn()) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void reportsTheWinnerOfAFinishedGame() {
+        GameEngine engine = newEndgame();
+        engine.resolveCard(engine.getVolcanoRing().get(engine.getPosition(0)), 1);
+        assertEquals(0, engine.getWinner());
+        WinProbabilities result = new WinProbabilitySolver().solve(engine, 3);
+        assertEquals(1, result.getProbability(0));
+        assertEquals(0, result.getUndecided());
+    }
+
+    @Test
+    void nothingIsDecidedWithoutTurns() {
+        WinProbabilities result = new WinProbabilitySolver().solve(newEndgame(), 0);
+        for (int seat = 0; seat < result.getPlayerCount(); seat++) {
+            assertEquals(0, result.getProbability(seat));
+        }
+        assertEquals(1, result.getUndecided());
+    }
+
+    @Test
+    void matchesRandomPlayOfTheSameTurn() {
+        GameEngine engine = newEndgame();
+        WinProbabilities result = new WinProbabilitySolver().solve(engine, 1);
+        assertTrue(result.getProbability(0) > 0);
+        assertTrue(result.getStatesSolved() > 0);
+
+        SplittableRandom random = new SplittableRandom(11);
+        int trials = 20_000;
+        int wins = 0;
+        for (int i = 0; i < trials; i++) {
+            if (playRandomTurn(engine.copy(), random) == 0) {
+                wins++;
+            }
+        }
+        double p = result.getProbability(0);
+        double tolerance = 4 * Math.sqrt(p * (1 - p) / trials);
+        assertEquals(p, (double) wins / trials, tolerance);
+    }
+
+    @Test
+    void parallelAndSerialSolvesAgree() {
+        GameEngine engine = newEndgame();
+        WinProbabilities parallel = new WinProbabilitySolver().solve(engine, 1);
+        WinProbabilities serial = new WinProbabilitySolver(1 << 12, new ForkJoinPool(1)).solve(engine, 1);
+        assertTrue(serial.getEvictions() > 0);
+        for (int seat = 0; seat < engine.getPlayerCount(); seat++) {
+            assertEquals(parallel.getProbability(seat), serial.getProbability(seat), 1e-12);
+        }
+    }
+}